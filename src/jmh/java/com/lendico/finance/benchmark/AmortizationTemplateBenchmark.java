@@ -0,0 +1,67 @@
+package com.lendico.finance.benchmark;
+
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.model.GeneratePlanResponseDto;
+import com.lendico.finance.service.impl.LoanServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Plan generation of one catalog product (nominal rate and duration) for ever changing loan amounts, calculated
+ * installment by installment or scaled from the amortization template of the product.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AmortizationTemplateBenchmark {
+
+    private static final int NO_OF_LOAN_AMOUNTS = 1024;
+
+    @Param({"120", "360"})
+    private int duration;
+
+    @Param({"false", "true"})
+    private boolean templateCacheEnabled;
+
+    private LoanServiceImpl loanService;
+    private GeneratePlanRequestDto[] generatePlanRequestDtos;
+    private int index;
+
+    @Setup
+    public void setUp() {
+
+        this.loanService = BenchmarkSupport.newLoanService(CalculationMode.DOUBLE, this.templateCacheEnabled);
+        this.generatePlanRequestDtos = new GeneratePlanRequestDto[NO_OF_LOAN_AMOUNTS];
+
+        for (int index = 0; index < NO_OF_LOAN_AMOUNTS; index++) {
+
+            this.generatePlanRequestDtos[index] = BenchmarkSupport.newRequest(this.duration);
+            this.generatePlanRequestDtos[index].setLoanAmount(BenchmarkSupport.LOAN_AMOUNT + index * 12.34);
+        }
+    }
+
+    @Benchmark
+    public GeneratePlanResponseDto generatePlan() {
+
+        this.index = (this.index + 1) & (NO_OF_LOAN_AMOUNTS - 1);
+
+        return this.loanService.generatePlan(this.generatePlanRequestDtos[this.index]);
+    }
+}
@@ -0,0 +1,26 @@
+package com.lendico.finance.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Runs the benchmarks matching the given regex with the GC profiler, which adds the allocation rate
+ * (gc.alloc.rate and gc.alloc.rate.norm) next to the throughput of every benchmark.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ".*")
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
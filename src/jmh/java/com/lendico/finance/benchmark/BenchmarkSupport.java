@@ -0,0 +1,76 @@
+package com.lendico.finance.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lendico.finance.cache.PlanCacheServiceImpl;
+import com.lendico.finance.cache.TemplateCacheServiceImpl;
+import com.lendico.finance.engine.AnnuityFactorTable;
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.factory.ValidationFactoryServiceImpl;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.service.impl.LoanServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import javax.validation.Validation;
+import java.time.LocalDateTime;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Builds the objects under benchmark the same way the application context does, without starting it.
+ */
+final class BenchmarkSupport {
+
+    static final double LOAN_AMOUNT = 5000.0;
+    static final double NOMINAL_RATE = 5.0;
+    static final LocalDateTime START_DATE = LocalDateTime.of(2018, 1, 31, 0, 0);
+
+    private BenchmarkSupport() {
+    }
+
+    static ValidationFactoryServiceImpl newValidationFactoryService() {
+
+        return new ValidationFactoryServiceImpl(Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    /**
+     * The plan cache is disabled so that every invocation goes through the schedule engine
+     *
+     * @return
+     */
+    static LoanServiceImpl newLoanService() {
+
+        return newLoanService(CalculationMode.DOUBLE);
+    }
+
+    static LoanServiceImpl newLoanService(final CalculationMode calculationMode) {
+
+        return newLoanService(calculationMode, false);
+    }
+
+    static LoanServiceImpl newLoanService(final CalculationMode calculationMode, final boolean templateCacheEnabled) {
+
+        return new LoanServiceImpl(newValidationFactoryService(),
+                new PlanCacheServiceImpl(false, 1, 1, new SimpleMeterRegistry()),
+                new TemplateCacheServiceImpl(templateCacheEnabled, 1000000, new SimpleMeterRegistry()),
+                new AnnuityFactorTable(4096),
+                new PlanPhaseMetrics(new SimpleMeterRegistry()),
+                calculationMode);
+    }
+
+    static ObjectMapper newObjectMapper() {
+
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    static GeneratePlanRequestDto newRequest(final int duration) {
+
+        return GeneratePlanRequestDto.builder()
+                .loanAmount(LOAN_AMOUNT)
+                .nominalRate(NOMINAL_RATE)
+                .duration(duration)
+                .startDate(START_DATE)
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.lendico.finance.benchmark;
+
+import com.lendico.finance.engine.PaymentCalendar;
+import com.lendico.finance.util.CommonUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CommonUtilBenchmark {
+
+    private Double amount = 219.35625;
+    private LocalDateTime paymentDate = LocalDateTime.of(2020, 1, 31, 0, 0);
+    private Integer numberOfMonth = 1;
+    private Integer dayExpected = 31;
+    private PaymentCalendar paymentCalendar = PaymentCalendar.of(this.paymentDate.toLocalDate(), 360);
+
+    @Benchmark
+    public Double round() {
+
+        return CommonUtil.round(this.amount);
+    }
+
+    @Benchmark
+    public LocalDateTime addMonth() {
+
+        return CommonUtil.addMonth(this.paymentDate, this.numberOfMonth, this.dayExpected);
+    }
+
+    @Benchmark
+    public int paymentCalendarEpochDay() {
+
+        return this.paymentCalendar.getEpochDay(this.numberOfMonth);
+    }
+
+    @Benchmark
+    public int[] paymentCalendarEpochDays() {
+
+        return this.paymentCalendar.toEpochDays();
+    }
+}
@@ -0,0 +1,74 @@
+package com.lendico.finance.benchmark;
+
+import com.lendico.finance.batch.LoanPlanCli;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Time to the first result of the headless {@link LoanPlanCli}, from launching a new JVM to the first byte of the
+ * plan on its standard output, with the default JIT and with the C1 compiler only.
+ *
+ * Every launch is a single shot: the timing stops at the first byte, the rest of the plan being read and the process
+ * awaited in the tear down, outside of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+public class LoanPlanCliStartupBenchmark {
+
+    @Param({"-Xshare:auto", "-XX:TieredStopAtLevel=1 -XX:+UseSerialGC"})
+    private String jvmOptions;
+
+    private Process process;
+
+    @Benchmark
+    public int timeToFirstResult() throws IOException {
+
+        List<String> command = new ArrayList<>();
+
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+
+        command.addAll(Arrays.asList(this.jvmOptions.split(" ")));
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), LoanPlanCli.class.getName(),
+                "5000,5.0,24,2018-01-01T00:00:01Z"));
+
+        this.process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+        return this.process.getInputStream().read();
+    }
+
+    @TearDown(Level.Invocation)
+    public void awaitExit() throws IOException, InterruptedException {
+
+        try (InputStream output = this.process.getInputStream()) {
+
+            while (output.read() >= 0) {
+            }
+        }
+
+        this.process.waitFor();
+    }
+}
@@ -0,0 +1,89 @@
+package com.lendico.finance.benchmark;
+
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.model.BorrowerPaymentDto;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.model.GeneratePlanResponseDto;
+import com.lendico.finance.model.PlanSummaryDto;
+import com.lendico.finance.service.impl.LoanServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LoanServiceBenchmark {
+
+    private static final int PAGE_SIZE = 12;
+
+    @Param({"12", "120", "360", "1200"})
+    private int duration;
+
+    @Param({"DOUBLE", "CENTS"})
+    private CalculationMode calculationMode;
+
+    private LoanServiceImpl loanService;
+    private GeneratePlanRequestDto generatePlanRequestDto;
+    private double monthlyInterestRate;
+
+    @Setup
+    public void setUp() {
+
+        this.loanService = BenchmarkSupport.newLoanService(this.calculationMode);
+        this.generatePlanRequestDto = BenchmarkSupport.newRequest(this.duration);
+        this.monthlyInterestRate = BenchmarkSupport.NOMINAL_RATE / 100 / 12;
+    }
+
+    @Benchmark
+    public double calculateAnnuity() {
+
+        return this.loanService.calculateAnnuity(BenchmarkSupport.LOAN_AMOUNT, this.monthlyInterestRate, this.duration);
+    }
+
+    @Benchmark
+    public GeneratePlanResponseDto generatePlan() {
+
+        return this.loanService.generatePlan(this.generatePlanRequestDto);
+    }
+
+    @Benchmark
+    public Object generatePlanAsBorrowerPaymentList() {
+
+        return this.loanService.generatePlan(this.generatePlanRequestDto).getBorrowerPayments();
+    }
+
+    @Benchmark
+    public PlanSummaryDto generatePlanSummary() {
+
+        return this.loanService.generatePlanSummary(this.generatePlanRequestDto);
+    }
+
+    @Benchmark
+    public GeneratePlanResponseDto generateLastPage() {
+
+        return this.loanService.generatePlanPage(this.generatePlanRequestDto, Math.max(0, this.duration - PAGE_SIZE), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public BorrowerPaymentDto generateLastInstallment() {
+
+        return this.loanService.generateInstallment(this.generatePlanRequestDto, this.duration);
+    }
+}
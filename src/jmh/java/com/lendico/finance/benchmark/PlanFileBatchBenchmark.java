@@ -0,0 +1,86 @@
+package com.lendico.finance.benchmark;
+
+import com.lendico.finance.model.PlanFileBatchResultDto;
+import com.lendico.finance.service.impl.PlanFileBatchServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Plan generation of a CSV file of loans into a CSV file of installments, loans of 12 to 360 months,
+ * the same as the ones of {@link PortfolioAggregationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PlanFileBatchBenchmark {
+
+    private static final int PARALLELISM = 4;
+
+    @Param({"10000"})
+    private int noOfLoans;
+
+    private ForkJoinPool planBatchPool;
+    private PlanFileBatchServiceImpl planFileBatchService;
+    private Path directory;
+    private Path inputFile;
+    private Path outputFile;
+
+    @Setup
+    public void setUp() throws IOException {
+
+        this.planBatchPool = new ForkJoinPool(PARALLELISM);
+        this.planFileBatchService = new PlanFileBatchServiceImpl(BenchmarkSupport.newLoanService(),
+                this.planBatchPool, 16384, 1048576);
+
+        StringBuilder loans = new StringBuilder("loanAmount,nominalRate,duration,startDate\n");
+
+        for (int index = 0; index < this.noOfLoans; index++) {
+
+            loans.append(String.format("%d,%.2f,%d,%d-%02d-15T00:00:00Z%n",
+                    1000 + index % 500000, 1 + (index % 1000) / 100.0, 12 + index % 349, 2015 + index % 10, 1 + index % 12));
+        }
+
+        this.directory = Files.createTempDirectory("plan-file-batch");
+        this.inputFile = Files.write(this.directory.resolve("loans.csv"), loans.toString().getBytes(StandardCharsets.US_ASCII));
+        this.outputFile = this.directory.resolve("plans.csv");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+
+        this.planBatchPool.shutdown();
+
+        Files.deleteIfExists(this.inputFile);
+        Files.deleteIfExists(this.outputFile);
+        Files.deleteIfExists(this.directory.resolve("plans.csv.rejected.csv"));
+        Files.deleteIfExists(this.directory);
+    }
+
+    @Benchmark
+    public PlanFileBatchResultDto generatePlanFile() {
+
+        return this.planFileBatchService.generatePlanFile(this.inputFile, this.outputFile);
+    }
+}
@@ -0,0 +1,69 @@
+package com.lendico.finance.benchmark;
+
+import com.lendico.finance.cache.PlanResponseCoalescingServiceImpl;
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.serializer.SerializedPlanResponse;
+import com.lendico.finance.serializer.TimedMappingJackson2HttpMessageConverter;
+import com.lendico.finance.store.PlanStoreServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Identical /generate-plan requests served concurrently, each generating and serializing its own JSON response
+ * or sharing the one of the request in flight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PlanResponseCoalescingBenchmark {
+
+    @Param({"360"})
+    private int duration;
+
+    @Param({"false", "true"})
+    private boolean coalescingEnabled;
+
+    private PlanResponseCoalescingServiceImpl planResponseCoalescingService;
+    private GeneratePlanRequestDto generatePlanRequestDto;
+
+    @Setup
+    public void setUp() {
+
+        this.planResponseCoalescingService = new PlanResponseCoalescingServiceImpl(this.coalescingEnabled, 2000,
+                BenchmarkSupport.newLoanService(),
+                new PlanStoreServiceImpl(false, "plan-store", 1, 1, "1", CalculationMode.DOUBLE, new SimpleMeterRegistry()),
+                Collections.singletonList(new TimedMappingJackson2HttpMessageConverter(BenchmarkSupport.newObjectMapper(),
+                        new PlanPhaseMetrics(new SimpleMeterRegistry()))),
+                new SimpleMeterRegistry());
+        this.generatePlanRequestDto = BenchmarkSupport.newRequest(this.duration);
+    }
+
+    @Benchmark
+    public SerializedPlanResponse getResponse() {
+
+        return this.planResponseCoalescingService.getResponse(this.generatePlanRequestDto, MediaType.APPLICATION_JSON);
+    }
+}
@@ -0,0 +1,113 @@
+package com.lendico.finance.benchmark;
+
+import com.google.protobuf.CodedOutputStream;
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.serializer.ProtobufPlanHttpMessageConverter;
+import com.lendico.finance.service.impl.LoanServiceImpl;
+import com.lendico.finance.store.PlanStoreServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Protobuf plan served by generating and serializing it, or read by its ID from the plan store. Both are written
+ * into a reused buffer, as they would be into the socket buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PlanStoreBenchmark {
+
+    @Param({"12", "360", "1200"})
+    private int duration;
+
+    private LoanServiceImpl loanService;
+    private PlanStoreServiceImpl planStoreService;
+    private GeneratePlanRequestDto generatePlanRequestDto;
+    private UUID planId;
+    private Path directory;
+    private byte[] output;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+
+        this.directory = Files.createTempDirectory("plan-store");
+        this.loanService = BenchmarkSupport.newLoanService();
+        this.planStoreService = new PlanStoreServiceImpl(true, this.directory.toString(), 1 << 24, 16, "1",
+                CalculationMode.DOUBLE, new SimpleMeterRegistry());
+        this.generatePlanRequestDto = BenchmarkSupport.newRequest(this.duration);
+        this.output = new byte[1 << 20];
+
+        this.planStoreService.open();
+
+        this.planId = this.planStoreService.savePlan(this.generatePlanRequestDto,
+                this.loanService.generatePlan(this.generatePlanRequestDto).getPaymentPlan());
+
+        while (this.planStoreService.getPlan(this.planId) == null) {
+
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+
+        this.planStoreService.close();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+
+            for (Path file : files) {
+
+                Files.delete(file);
+            }
+        }
+
+        Files.delete(this.directory);
+    }
+
+    @Benchmark
+    public int generatePlan() throws IOException {
+
+        CodedOutputStream output = CodedOutputStream.newInstance(this.output);
+
+        ProtobufPlanHttpMessageConverter.writePlan(
+                this.loanService.generatePlan(this.generatePlanRequestDto).getPaymentPlan(), output);
+
+        return output.getTotalBytesWritten();
+    }
+
+    @Benchmark
+    public int readStoredPlan() {
+
+        ByteBuffer plan = this.planStoreService.getPlan(this.planId);
+        int length = plan.remaining();
+
+        plan.get(this.output, 0, length);
+
+        return length;
+    }
+}
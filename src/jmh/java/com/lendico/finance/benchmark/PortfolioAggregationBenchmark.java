@@ -0,0 +1,79 @@
+package com.lendico.finance.benchmark;
+
+import com.lendico.finance.logging.AsyncLogPipeline;
+import com.lendico.finance.model.CashFlowAggregateDto;
+import com.lendico.finance.service.impl.PortfolioAggregationServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Monthly cash flow aggregation of a portfolio uploaded as newline delimited JSON, loans of 12 to 360 months
+ * starting over ten years.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PortfolioAggregationBenchmark {
+
+    private static final int PARALLELISM = 4;
+
+    @Param({"10000", "100000"})
+    private int noOfLoans;
+
+    private ForkJoinPool planBatchPool;
+    private AsyncLogPipeline asyncLogPipeline;
+    private PortfolioAggregationServiceImpl portfolioAggregationService;
+    private byte[] portfolio;
+
+    @Setup
+    public void setUp() {
+
+        this.planBatchPool = new ForkJoinPool(PARALLELISM);
+        this.asyncLogPipeline = new AsyncLogPipeline(8192, 1.0, 200, 10000, 1.0, 100, new SimpleMeterRegistry());
+        this.portfolioAggregationService = new PortfolioAggregationServiceImpl(BenchmarkSupport.newLoanService(),
+                this.planBatchPool, BenchmarkSupport.newObjectMapper(), 1024, 100, this.asyncLogPipeline);
+
+        StringBuilder portfolio = new StringBuilder();
+
+        for (int index = 0; index < this.noOfLoans; index++) {
+
+            portfolio.append(String.format("{\"loanAmount\":%d,\"nominalRate\":%.2f,\"duration\":%d,\"startDate\":\"%d-%02d-15T00:00:00Z\"}%n",
+                    1000 + index % 500000, 1 + (index % 1000) / 100.0, 12 + index % 349, 2015 + index % 10, 1 + index % 12));
+        }
+
+        this.portfolio = portfolio.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+
+        this.planBatchPool.shutdown();
+    }
+
+    @Benchmark
+    public CashFlowAggregateDto aggregateCashFlows() {
+
+        return this.portfolioAggregationService.aggregateCashFlows(new ByteArrayInputStream(this.portfolio));
+    }
+}
@@ -0,0 +1,112 @@
+package com.lendico.finance.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedOutputStream;
+import com.lendico.finance.model.GeneratePlanResponseDto;
+import com.lendico.finance.serializer.CompactPlanResponseMixIn;
+import com.lendico.finance.serializer.ProtobufPlanHttpMessageConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Serialization of the plan response: JSON written from the columnar plan and from the Borrower payment list,
+ * and the compact binary formats (CBOR, Smile, protobuf). The payload sizes are printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializationBenchmark {
+
+    @Param({"12", "120", "360", "1200"})
+    private int duration;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper cborObjectMapper;
+    private ObjectMapper smileObjectMapper;
+    private GeneratePlanResponseDto columnarResponse;
+    private GeneratePlanResponseDto borrowerPaymentListResponse;
+
+    @Setup
+    public void setUp() {
+
+        this.objectMapper = BenchmarkSupport.newObjectMapper();
+        this.columnarResponse = BenchmarkSupport.newLoanService().generatePlan(BenchmarkSupport.newRequest(this.duration));
+        this.borrowerPaymentListResponse = GeneratePlanResponseDto.builder()
+                .borrowerPayments(this.columnarResponse.getPaymentPlan().toBorrowerPaymentList())
+                .build();
+
+        this.cborObjectMapper = Jackson2ObjectMapperBuilder.cbor()
+                .mixIn(GeneratePlanResponseDto.class, CompactPlanResponseMixIn.class)
+                .build();
+        this.smileObjectMapper = Jackson2ObjectMapperBuilder.smile()
+                .mixIn(GeneratePlanResponseDto.class, CompactPlanResponseMixIn.class)
+                .build();
+
+        try {
+
+            System.out.printf("%nPayload sizes (bytes) for %d installments: json=%d, cbor=%d, smile=%d, protobuf=%d%n",
+                    this.duration, this.serializeColumnarPlan().length, this.serializeCbor().length,
+                    this.serializeSmile().length, this.serializeProtobuf().length);
+
+        } catch (IOException exception) {
+
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeColumnarPlan() throws JsonProcessingException {
+
+        return this.objectMapper.writeValueAsBytes(this.columnarResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeBorrowerPaymentList() throws JsonProcessingException {
+
+        return this.objectMapper.writeValueAsBytes(this.borrowerPaymentListResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeCbor() throws JsonProcessingException {
+
+        return this.cborObjectMapper.writeValueAsBytes(this.columnarResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeSmile() throws JsonProcessingException {
+
+        return this.smileObjectMapper.writeValueAsBytes(this.columnarResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeProtobuf() throws IOException {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+
+        ProtobufPlanHttpMessageConverter.writePlan(this.columnarResponse.getPaymentPlan(), output);
+        output.flush();
+
+        return outputStream.toByteArray();
+    }
+}
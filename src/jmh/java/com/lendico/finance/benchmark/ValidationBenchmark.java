@@ -0,0 +1,61 @@
+package com.lendico.finance.benchmark;
+
+import com.lendico.finance.factory.ValidationFactoryServiceImpl;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ValidationBenchmark {
+
+    private ValidationFactoryServiceImpl validationFactoryService;
+    private Validator validator;
+    private GeneratePlanRequestDto generatePlanRequestDto;
+
+    @Setup
+    public void setUp() {
+
+        this.validationFactoryService = BenchmarkSupport.newValidationFactoryService();
+        this.validator = Validation.buildDefaultValidatorFactory().getValidator();
+        this.generatePlanRequestDto = BenchmarkSupport.newRequest(24);
+    }
+
+    @Benchmark
+    public GeneratePlanRequestDto validObject() {
+
+        this.validationFactoryService.validObject(this.generatePlanRequestDto);
+
+        return this.generatePlanRequestDto;
+    }
+
+    /**
+     * Reference point of the reflective bean validation that the precompiled validator replaces.
+     */
+    @Benchmark
+    public Set<ConstraintViolation<GeneratePlanRequestDto>> hibernateValidate() {
+
+        return this.validator.validate(this.generatePlanRequestDto);
+    }
+}
@@ -0,0 +1,97 @@
+package com.lendico.finance.admission;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Admits the plan requests without body, whose loan details are given in the URL, through the
+ * {@link PlanAdmissionLimiter} before the handler runs. A plan costs its duration, as for the requests with body,
+ * and a single installment costs its installment number, as it may be calculated by replaying the installments
+ * before it. A plan answered with 304 Not Modified is charged as well, its permit being released right away.
+ *
+ * Releases the admission permit of a plan request once the response is complete. For the streamed plans it runs
+ * on the async dispatch, hence after the last installment is written.
+ */
+public class PlanAdmissionInterceptor implements HandlerInterceptor {
+
+    static final String INSTALLMENT_NUMBER_VARIABLE = "installmentNumber";
+    static final String DURATION_PARAM = "duration";
+
+    private PlanAdmissionLimiter planAdmissionLimiter;
+
+    public PlanAdmissionInterceptor(final PlanAdmissionLimiter planAdmissionLimiter) {
+
+        this.planAdmissionLimiter = planAdmissionLimiter;
+    }
+
+    @Override
+    public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
+
+        // The requests with body are admitted by PlanAdmissionRequestBodyAdvice once it is read
+
+        if (!HttpMethod.GET.matches(request.getMethod())
+                || request.getAttribute(PlanAdmissionRequestBodyAdvice.PERMIT_ATTRIBUTE) != null) {
+
+            return true;
+        }
+
+        String installmentNumber = uriVariableOf(request, INSTALLMENT_NUMBER_VARIABLE);
+
+        long installments = installmentNumber != null
+                ? countOf(installmentNumber)
+                : countOf(request.getParameter(DURATION_PARAM));
+
+        request.setAttribute(PlanAdmissionRequestBodyAdvice.PERMIT_ATTRIBUTE, this.planAdmissionLimiter.acquire(installments));
+
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(final HttpServletRequest request, final HttpServletResponse response,
+                                final Object handler, final Exception exception) {
+
+        Object permit = request.getAttribute(PlanAdmissionRequestBodyAdvice.PERMIT_ATTRIBUTE);
+
+        if (permit instanceof PlanAdmissionLimiter.Permit) {
+
+            request.removeAttribute(PlanAdmissionRequestBodyAdvice.PERMIT_ATTRIBUTE);
+
+            ((PlanAdmissionLimiter.Permit) permit).close();
+        }
+    }
+
+    /**
+     * This method returns the number given in the URL, or one when it is missing or invalid, the request
+     * is rejected by the validation anyway.
+     *
+     * @param value
+     * @return
+     */
+    static long countOf(final String value) {
+
+        try {
+
+            return value != null && Integer.parseInt(value) > 0 ? Integer.parseInt(value) : 1;
+
+        } catch (NumberFormatException exception) {
+
+            return 1;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String uriVariableOf(final HttpServletRequest request, final String name) {
+
+        Map<String, String> uriVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+
+        return uriVariables != null ? uriVariables.get(name) : null;
+    }
+}
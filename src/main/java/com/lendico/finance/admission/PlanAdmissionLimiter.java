@@ -0,0 +1,197 @@
+package com.lendico.finance.admission;
+
+import com.lendico.finance.exception.GenericClientRuntimeException;
+import com.lendico.finance.exception.ServiceUnavailableRuntimeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Adaptive concurrency limit of the plan generation, counted in installments in flight. The cost of a request is
+ * the number of installments it generates, so one long plan takes the room of many short ones.
+ *
+ * The limit follows AIMD: it grows by a fixed step after every request served within the latency target
+ * (per installment) and shrinks by the backoff ratio after every slower one. A request which does not fit under
+ * the limit is rejected immediately. A request costing more than the whole limit is capped to it, so it is only
+ * admitted when nothing else is in flight. A request costing more than the maximum per request is never admitted,
+ * as its plan alone would not fit in memory.
+ */
+@Component("planAdmissionLimiter")
+public class PlanAdmissionLimiter {
+
+    public static final String LIMIT_GAUGE_NAME = "loan.admission.limit";
+    public static final String IN_FLIGHT_GAUGE_NAME = "loan.admission.inflight";
+    public static final String REQUESTS_COUNTER_NAME = "loan.admission.requests";
+
+    private static final String RESULT_TAG = "result";
+    private static final String REJECTION_MESSAGE = "The service is at capacity, please retry later";
+    private static final String REQUEST_TOO_LARGE = "The request should not have more than %d installments";
+
+    private final boolean enabled;
+    private final double minLimit;
+    private final double maxLimit;
+    private final long maxRequestInstallments;
+    private final double additiveIncrease;
+    private final double backoffRatio;
+    private final long latencyTargetNanosPerInstallment;
+    private final long retryAfterSeconds;
+
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+
+    private double limit;
+    private long inFlight;
+
+    public PlanAdmissionLimiter(final @Value("${loan.admission.enabled}") boolean enabled,
+                                final @Value("${loan.admission.initial-limit}") long initialLimit,
+                                final @Value("${loan.admission.min-limit}") long minLimit,
+                                final @Value("${loan.admission.max-limit}") long maxLimit,
+                                final @Value("${loan.admission.max-request-installments}") long maxRequestInstallments,
+                                final @Value("${loan.admission.additive-increase}") long additiveIncrease,
+                                final @Value("${loan.admission.backoff-ratio}") double backoffRatio,
+                                final @Value("${loan.admission.latency-target-micros-per-installment}") long latencyTargetMicrosPerInstallment,
+                                final @Value("${loan.admission.retry-after-seconds}") long retryAfterSeconds,
+                                final MeterRegistry meterRegistry) {
+
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxRequestInstallments = maxRequestInstallments;
+        this.additiveIncrease = additiveIncrease;
+        this.backoffRatio = backoffRatio;
+        this.latencyTargetNanosPerInstallment = TimeUnit.MICROSECONDS.toNanos(latencyTargetMicrosPerInstallment);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        Gauge.builder(LIMIT_GAUGE_NAME, this, PlanAdmissionLimiter::getLimit)
+                .description("Installments allowed in flight")
+                .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT_GAUGE_NAME, this, PlanAdmissionLimiter::getInFlight)
+                .description("Installments in flight")
+                .register(meterRegistry);
+
+        this.acceptedCounter = Counter.builder(REQUESTS_COUNTER_NAME).tag(RESULT_TAG, "accepted").register(meterRegistry);
+        this.rejectedCounter = Counter.builder(REQUESTS_COUNTER_NAME).tag(RESULT_TAG, "rejected").register(meterRegistry);
+    }
+
+    /**
+     * This method admits a request generating the given number of installments, or throws
+     * ServiceUnavailableRuntimeException when it does not fit under the limit. The permit must be closed
+     * once the response is written. A request of more installments than the maximum per request throws
+     * GenericClientRuntimeException, whether the limit is enabled or not.
+     *
+     * @param installments
+     * @return
+     */
+    public Permit acquire(final long installments) {
+
+        if (installments > this.maxRequestInstallments) {
+
+            this.rejectedCounter.increment();
+
+            throw new GenericClientRuntimeException(String.format(REQUEST_TOO_LARGE, this.maxRequestInstallments));
+        }
+
+        if (!this.enabled) {
+
+            return Permit.NONE;
+        }
+
+        long cost;
+
+        synchronized (this) {
+
+            cost = Math.max(1, Math.min(installments, (long) this.limit));
+
+            if (this.inFlight + cost > this.limit) {
+
+                cost = 0;
+
+            } else {
+
+                this.inFlight += cost;
+            }
+        }
+
+        if (cost == 0) {
+
+            this.rejectedCounter.increment();
+
+            throw new ServiceUnavailableRuntimeException(REJECTION_MESSAGE, this.retryAfterSeconds);
+        }
+
+        this.acceptedCounter.increment();
+
+        return new Permit(this, cost, System.nanoTime());
+    }
+
+    private synchronized void release(final long cost, final long elapsedNanos) {
+
+        this.inFlight -= cost;
+
+        if (elapsedNanos > this.latencyTargetNanosPerInstallment * cost) {
+
+            this.limit = Math.max(this.minLimit, this.limit * this.backoffRatio);
+
+        } else {
+
+            this.limit = Math.min(this.maxLimit, this.limit + this.additiveIncrease);
+        }
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public synchronized long getInFlight() {
+        return inFlight;
+    }
+
+    public long getMaxRequestInstallments() {
+        return maxRequestInstallments;
+    }
+
+    /**
+     * Admission of one request. Closing it releases the installments and feeds the latency back to the limit.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        static final Permit NONE = new Permit(null, 0, 0);
+
+        private final PlanAdmissionLimiter limiter;
+        private final long cost;
+        private final long startNanos;
+
+        private boolean closed;
+
+        private Permit(final PlanAdmissionLimiter limiter, final long cost, final long startNanos) {
+
+            this.limiter = limiter;
+            this.cost = cost;
+            this.startNanos = startNanos;
+        }
+
+        public long getCost() {
+            return cost;
+        }
+
+        @Override
+        public void close() {
+
+            if (this.limiter == null || this.closed) {
+
+                return;
+            }
+
+            this.closed = true;
+
+            this.limiter.release(this.cost, System.nanoTime() - this.startNanos);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.lendico.finance.admission;
+
+import com.lendico.finance.constant.GlobalConstant;
+import com.lendico.finance.controller.LoanController;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Admits the plan requests of {@link LoanController} through the {@link PlanAdmissionLimiter} as soon as their body
+ * is read, before the handler runs. The permit is kept as request attribute {@link #PERMIT_ATTRIBUTE} and released
+ * by {@link PlanAdmissionInterceptor} once the response is complete. A request for a page of the plan costs the
+ * installments of the page only.
+ */
+@ControllerAdvice(assignableTypes = LoanController.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PlanAdmissionRequestBodyAdvice extends RequestBodyAdviceAdapter {
+
+    public static final String PERMIT_ATTRIBUTE = PlanAdmissionRequestBodyAdvice.class.getName() + ".permit";
+
+    private PlanAdmissionLimiter planAdmissionLimiter;
+
+    public PlanAdmissionRequestBodyAdvice(final PlanAdmissionLimiter planAdmissionLimiter) {
+
+        this.planAdmissionLimiter = planAdmissionLimiter;
+    }
+
+    @Override
+    public boolean supports(final MethodParameter methodParameter, final Type targetType,
+                            final Class<? extends HttpMessageConverter<?>> converterType) {
+
+        return true;
+    }
+
+    @Override
+    public Object afterBodyRead(final Object body, final HttpInputMessage inputMessage, final MethodParameter parameter,
+                                final Type targetType, final Class<? extends HttpMessageConverter<?>> converterType) {
+
+        ServletRequestAttributes requestAttributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+
+        long installments = Math.min(installmentsOf(body),
+                pageSizeOf(requestAttributes.getRequest().getParameter(GlobalConstant.LIMIT_PARAM)));
+
+        PlanAdmissionLimiter.Permit permit = this.planAdmissionLimiter.acquire(installments);
+
+        requestAttributes.setAttribute(PERMIT_ATTRIBUTE, permit, RequestAttributes.SCOPE_REQUEST);
+
+        return body;
+    }
+
+    /**
+     * This method returns the number of installments of the page asked for by the given limit parameter,
+     * Long.MAX_VALUE when the whole plan is asked for or the limit is invalid.
+     *
+     * @param limit
+     * @return
+     */
+    static long pageSizeOf(final String limit) {
+
+        try {
+
+            return limit != null && Integer.parseInt(limit) > 0 ? Integer.parseInt(limit) : Long.MAX_VALUE;
+
+        } catch (NumberFormatException exception) {
+
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * This method returns the number of installments the given request body asks for. Missing or invalid durations
+     * count as one installment, the request is rejected by the validation anyway.
+     *
+     * @param body
+     * @return
+     */
+    public static long installmentsOf(final Object body) {
+
+        if (body instanceof GeneratePlanRequestDto) {
+
+            Integer duration = ((GeneratePlanRequestDto) body).getDuration();
+
+            return duration != null && duration > 0 ? duration : 1;
+        }
+
+        if (body instanceof Collection) {
+
+            long installments = 0;
+
+            for (Object element : (Collection<?>) body) {
+
+                installments += installmentsOf(element);
+            }
+
+            return installments;
+        }
+
+        return 1;
+    }
+}
@@ -0,0 +1,232 @@
+package com.lendico.finance.batch;
+
+import com.lendico.finance.model.GeneratePlanRequestDto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Parses the loans of a CSV file straight from its bytes, one line per loan with the columns
+ *
+ * loanAmount,nominalRate,duration,startDate
+ *
+ * where the start date is yyyy-MM-dd, optionally followed by 'T'HH:mm:ss and 'Z'. The numbers are parsed
+ * into primitives without building any string, so parsing a line allocates only the request itself.
+ */
+final class CsvLoanParser {
+
+    private static final byte SEPARATOR = ',';
+    private static final int NO_OF_COLUMNS = 4;
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+    private CsvLoanParser() {
+    }
+
+    /**
+     * This method returns true when the given line is a header, i.e. it starts with a letter.
+     *
+     * @param input
+     * @param from
+     * @param to
+     * @return
+     */
+    static boolean isHeader(final ByteBuffer input, final int from, final int to) {
+
+        return from < to && Character.isLetter(input.get(from));
+    }
+
+    /**
+     * This method parses the loan of the line between the given positions.
+     *
+     * @param input
+     * @param from
+     * @param to
+     * @return
+     * @throws IllegalArgumentException when the line is not made of the expected columns
+     */
+    static GeneratePlanRequestDto parse(final ByteBuffer input, final int from, final int to) {
+
+        int[] columnEnds = new int[NO_OF_COLUMNS];
+        int column = 0;
+
+        for (int index = from; index < to && column < NO_OF_COLUMNS; index++) {
+
+            if (input.get(index) == SEPARATOR) {
+
+                columnEnds[column++] = index;
+            }
+        }
+
+        if (column != NO_OF_COLUMNS - 1) {
+
+            throw new IllegalArgumentException("Expected " + NO_OF_COLUMNS + " columns");
+        }
+
+        columnEnds[column] = to;
+
+        return GeneratePlanRequestDto.builder()
+                .loanAmount(parseDecimal(input, from, columnEnds[0]))
+                .nominalRate(parseDecimal(input, columnEnds[0] + 1, columnEnds[1]))
+                .duration(parseInt(input, columnEnds[1] + 1, columnEnds[2]))
+                .startDate(parseDateTime(input, columnEnds[2] + 1, columnEnds[3]))
+                .build();
+    }
+
+    /**
+     * This method parses a decimal number. Up to 15 significant digits the result is exactly the one of
+     * Double.parseDouble, as both the digits and the power of ten are exact doubles.
+     *
+     * @param input
+     * @param from
+     * @param to
+     * @return
+     */
+    static double parseDecimal(final ByteBuffer input, final int from, final int to) {
+
+        boolean negative = from < to && input.get(from) == '-';
+        long mantissa = 0;
+        int noOfDigits = 0;
+        int scale = -1;
+
+        for (int index = negative ? from + 1 : from; index < to; index++) {
+
+            byte character = input.get(index);
+
+            if (character == '.' && scale < 0) {
+
+                scale = 0;
+
+            } else if (character >= '0' && character <= '9') {
+
+                mantissa = mantissa * 10 + (character - '0');
+                noOfDigits++;
+                scale += scale < 0 ? 0 : 1;
+
+            } else {
+
+                throw new IllegalArgumentException("Invalid number");
+            }
+        }
+
+        if (noOfDigits == 0) {
+
+            throw new IllegalArgumentException("Invalid number");
+        }
+
+        if (noOfDigits > MAX_EXACT_DIGITS) {
+
+            return Double.parseDouble(toString(input, from, to));
+        }
+
+        double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+
+        return negative ? -value : value;
+    }
+
+    static int parseInt(final ByteBuffer input, final int from, final int to) {
+
+        boolean negative = from < to && input.get(from) == '-';
+        long value = 0;
+
+        for (int index = negative ? from + 1 : from; index < to; index++) {
+
+            value = value * 10 + digit(input, index);
+
+            if (value > Integer.MAX_VALUE) {
+
+                throw new IllegalArgumentException("Invalid number");
+            }
+        }
+
+        if (to - from == (negative ? 1 : 0)) {
+
+            throw new IllegalArgumentException("Invalid number");
+        }
+
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * This method parses a date formatted as yyyy-MM-dd, optionally followed by 'T'HH:mm:ss and 'Z'.
+     *
+     * @param input
+     * @param from
+     * @param to
+     * @return
+     */
+    static LocalDateTime parseDateTime(final ByteBuffer input, final int from, final int to) {
+
+        int length = to - from;
+
+        if (length > 0 && input.get(to - 1) == 'Z') {
+
+            length--;
+        }
+
+        if ((length != 10 && length != 19) || input.get(from + 4) != '-' || input.get(from + 7) != '-') {
+
+            throw new IllegalArgumentException("Invalid date");
+        }
+
+        if (length == 19
+                && (input.get(from + 10) != 'T' || input.get(from + 13) != ':' || input.get(from + 16) != ':')) {
+
+            throw new IllegalArgumentException("Invalid date");
+        }
+
+        try {
+
+            return LocalDateTime.of(digits(input, from, 4), digits(input, from + 5, 2), digits(input, from + 8, 2),
+                    length == 19 ? digits(input, from + 11, 2) : 0,
+                    length == 19 ? digits(input, from + 14, 2) : 0,
+                    length == 19 ? digits(input, from + 17, 2) : 0);
+
+        } catch (DateTimeException exception) {
+
+            throw new IllegalArgumentException("Invalid date", exception);
+        }
+    }
+
+    private static int digits(final ByteBuffer input, final int from, final int length) {
+
+        int value = 0;
+
+        for (int index = from; index < from + length; index++) {
+
+            value = value * 10 + digit(input, index);
+        }
+
+        return value;
+    }
+
+    private static int digit(final ByteBuffer input, final int index) {
+
+        int digit = input.get(index) - '0';
+
+        if (digit < 0 || digit > 9) {
+
+            throw new IllegalArgumentException("Invalid number");
+        }
+
+        return digit;
+    }
+
+    private static String toString(final ByteBuffer input, final int from, final int to) {
+
+        byte[] bytes = new byte[to - from];
+
+        for (int index = from; index < to; index++) {
+
+            bytes[index - from] = input.get(index);
+        }
+
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,162 @@
+package com.lendico.finance.batch;
+
+import com.lendico.finance.engine.PaymentRow;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Writes the installments as CSV rows straight into byte buffers, with the columns of {@link #HEADER}.
+ * The amounts are written from cents and the dates from epoch days, without building any string.
+ */
+final class CsvPlanWriter {
+
+    static final byte[] HEADER = ("line,installment,date,borrowerPaymentAmount,initialOutstandingPrincipal,"
+            + "interest,principal,remainingOutstandingPrincipal\n").getBytes(StandardCharsets.US_ASCII);
+
+    // Upper bound of the length of a row: two ints, a date and five amounts with their separators
+    static final int MAX_ROW_LENGTH = 2 * 11 + 32 + 5 * 22 + 8;
+
+    private static final int TIME_SUFFIX_LENGTH = 10;
+    private static final byte SEPARATOR = ',';
+    private static final byte NEW_LINE = '\n';
+    private static final long CENTS_PER_UNIT = 100;
+
+    private CsvPlanWriter() {
+    }
+
+    /**
+     * This method returns the bytes written after every date, e.g. T10:30:00Z, for the given time of day.
+     *
+     * @param time
+     * @return
+     */
+    static byte[] timeSuffixOf(final LocalTime time) {
+
+        ByteBuffer suffix = ByteBuffer.allocate(TIME_SUFFIX_LENGTH);
+
+        suffix.put((byte) 'T');
+        putDigits(suffix, time.getHour(), 2);
+        suffix.put((byte) ':');
+        putDigits(suffix, time.getMinute(), 2);
+        suffix.put((byte) ':');
+        putDigits(suffix, time.getSecond(), 2);
+        suffix.put((byte) 'Z');
+
+        return suffix.array();
+    }
+
+    /**
+     * This method writes the given installment as one row. The buffer must have {@link #MAX_ROW_LENGTH} bytes left.
+     *
+     * @param output
+     * @param line line of the loan in the input file
+     * @param installment number of the installment, starting from 1
+     * @param row
+     * @param timeSuffix
+     */
+    static void writeRow(final ByteBuffer output, final int line, final int installment, final PaymentRow row,
+                         final byte[] timeSuffix) {
+
+        putLong(output, line);
+        output.put(SEPARATOR);
+        putLong(output, installment);
+        output.put(SEPARATOR);
+        putDate(output, row.getEpochDay());
+        output.put(timeSuffix);
+        output.put(SEPARATOR);
+        putCents(output, row.getBorrowerPaymentAmountInCents());
+        output.put(SEPARATOR);
+        putCents(output, row.getInitialOutstandingPrincipalInCents());
+        output.put(SEPARATOR);
+        putCents(output, row.getInterestInCents());
+        output.put(SEPARATOR);
+        putCents(output, row.getPrincipalInCents());
+        output.put(SEPARATOR);
+        putCents(output, row.getRemainingOutstandingPrincipalInCents());
+        output.put(NEW_LINE);
+    }
+
+    /**
+     * This method writes the amount in cents as a decimal number with two fraction digits, e.g. 1234.50
+     *
+     * @param output
+     * @param cents
+     */
+    static void putCents(final ByteBuffer output, final long cents) {
+
+        if (cents < 0) {
+
+            output.put((byte) '-');
+        }
+
+        long absoluteCents = Math.abs(cents);
+
+        putLong(output, absoluteCents / CENTS_PER_UNIT);
+        output.put((byte) '.');
+        putDigits(output, absoluteCents % CENTS_PER_UNIT, 2);
+    }
+
+    /**
+     * This method writes the date of the given epoch day as yyyy-MM-dd, with the civil from days algorithm
+     * of the proleptic Gregorian calendar (the one of LocalDate).
+     *
+     * @param output
+     * @param epochDay
+     */
+    static void putDate(final ByteBuffer output, final long epochDay) {
+
+        long shiftedDay = epochDay + 719468;
+        long era = Math.floorDiv(shiftedDay, 146097);
+        long dayOfEra = shiftedDay - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        putDigits(output, year, 4);
+        output.put((byte) '-');
+        putDigits(output, month, 2);
+        output.put((byte) '-');
+        putDigits(output, day, 2);
+    }
+
+    static void putLong(final ByteBuffer output, final long value) {
+
+        long remaining = value;
+        int noOfDigits = 1;
+
+        while ((remaining /= 10) > 0) {
+
+            noOfDigits++;
+        }
+
+        putDigits(output, value, noOfDigits);
+    }
+
+    /**
+     * This method writes the given non negative value with exactly the given number of digits, padded with zeros.
+     *
+     * @param output
+     * @param value
+     * @param noOfDigits
+     */
+    private static void putDigits(final ByteBuffer output, final long value, final int noOfDigits) {
+
+        int position = output.position();
+        long remaining = value;
+
+        for (int index = position + noOfDigits - 1; index >= position; index--) {
+
+            output.put(index, (byte) ('0' + remaining % 10));
+            remaining /= 10;
+        }
+
+        output.position(position + noOfDigits);
+    }
+}
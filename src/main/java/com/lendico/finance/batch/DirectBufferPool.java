@@ -0,0 +1,36 @@
+package com.lendico.finance.batch;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Pool of direct buffers of the same size. A buffer is allocated when none is free, the number of buffers
+ * is bounded by the callers keeping a bounded number of them in use.
+ */
+public final class DirectBufferPool {
+
+    private final int bufferSize;
+    private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+
+    public DirectBufferPool(final int bufferSize) {
+
+        this.bufferSize = bufferSize;
+    }
+
+    public ByteBuffer acquire() {
+
+        ByteBuffer buffer = this.freeBuffers.poll();
+
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(this.bufferSize);
+    }
+
+    public void release(final ByteBuffer buffer) {
+
+        buffer.clear();
+
+        this.freeBuffers.offer(buffer);
+    }
+}
@@ -0,0 +1,321 @@
+package com.lendico.finance.batch;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.lendico.finance.cache.PlanCacheServiceImpl;
+import com.lendico.finance.cache.TemplateCacheServiceImpl;
+import com.lendico.finance.engine.AnnuityFactorTable;
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.engine.PaymentScheduleCursor;
+import com.lendico.finance.exception.GenericClientRuntimeException;
+import com.lendico.finance.exception.RequestValidationRuntimeException;
+import com.lendico.finance.factory.ValidationFactoryServiceImpl;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
+import com.lendico.finance.serializer.PaymentRowJsonWriter;
+import com.lendico.finance.service.LoanService;
+import com.lendico.finance.service.impl.LoanServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import javax.validation.ConstraintViolationException;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Headless entry point generating plans without starting any Spring context, for short lived processes.
+ * The loans are given as arguments or on the standard input, one per line in the CSV columns of the batch file
+ * mode, and their plans are written to the standard output.
+ *
+ * java -cp lendico-loan-service.jar -Dloader.main=com.lendico.finance.batch.LoanPlanCli \
+ *     org.springframework.boot.loader.PropertiesLauncher [--format=json|csv] [--mode=DOUBLE|CENTS] [loan ...]
+ *
+ * With the format json (default) every plan is written as one line in the shape of the /generate-plan response,
+ * with the format csv the installments are written as rows of the batch file mode. The invalid loans are reported
+ * on the standard error and make the process exit with {@value #EXIT_REJECTED}.
+ */
+public final class LoanPlanCli {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_REJECTED = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final String LOGBACK_CONFIGURATION_FILE = "logback.configurationFile";
+    private static final String LOGBACK_CLI_CONFIGURATION = "logback-cli.xml";
+    private static final String FORMAT_OPTION = "--format=";
+    private static final String MODE_OPTION = "--mode=";
+    private static final String JSON_FORMAT = "json";
+    private static final String CSV_FORMAT = "csv";
+    private static final String BORROWER_PAYMENTS = "borrowerPayments";
+    private static final int ANNUITY_FACTOR_CAPACITY = 64;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    private final LoanService loanService;
+    private final boolean csvFormat;
+    private final OutputStream output;
+    private final PrintStream error;
+    private final ByteBuffer csvBuffer;
+    private final JsonGenerator jsonGenerator;
+
+    private int line;
+    private int noOfRejectedLoans;
+
+    LoanPlanCli(final CalculationMode calculationMode, final boolean csvFormat, final OutputStream output,
+                final PrintStream error) throws IOException {
+
+        this.loanService = newLoanService(calculationMode);
+        this.csvFormat = csvFormat;
+        this.output = output;
+        this.error = error;
+        this.csvBuffer = csvFormat ? ByteBuffer.allocate(OUTPUT_BUFFER_SIZE) : null;
+        this.jsonGenerator = csvFormat ? null : new JsonFactory().createGenerator(output)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+
+        if (csvFormat) {
+
+            this.csvBuffer.put(CsvPlanWriter.HEADER);
+        }
+    }
+
+    public static void main(final String[] args) throws IOException {
+
+        // Logging to the standard error only, before any logger is created
+        if (System.getProperty(LOGBACK_CONFIGURATION_FILE) == null) {
+
+            System.setProperty(LOGBACK_CONFIGURATION_FILE, LOGBACK_CLI_CONFIGURATION);
+        }
+
+        OutputStream output = new BufferedOutputStream(System.out, OUTPUT_BUFFER_SIZE);
+
+        int status = run(args, System.in, output, System.err);
+
+        output.flush();
+
+        System.exit(status);
+    }
+
+    /**
+     * This method generates the plans of the loans given as arguments, or read from the input when there is none,
+     * and returns the exit status.
+     *
+     * @param args
+     * @param input
+     * @param output
+     * @param error
+     * @return
+     * @throws IOException
+     */
+    static int run(final String[] args, final InputStream input, final OutputStream output, final PrintStream error)
+            throws IOException {
+
+        String format = JSON_FORMAT;
+        String mode = CalculationMode.DOUBLE.name();
+        List<String> loans = new ArrayList<>();
+
+        for (String arg : args) {
+
+            if (arg.startsWith(FORMAT_OPTION)) {
+
+                format = arg.substring(FORMAT_OPTION.length());
+
+            } else if (arg.startsWith(MODE_OPTION)) {
+
+                mode = arg.substring(MODE_OPTION.length());
+
+            } else {
+
+                loans.add(arg);
+            }
+        }
+
+        CalculationMode calculationMode = calculationModeOf(mode);
+
+        if ((!JSON_FORMAT.equals(format) && !CSV_FORMAT.equals(format)) || calculationMode == null) {
+
+            error.println("Usage: LoanPlanCli [--format=json|csv] [--mode=DOUBLE|CENTS] "
+                    + "[loanAmount,nominalRate,duration,startDate ...]");
+
+            return EXIT_USAGE;
+        }
+
+        LoanPlanCli cli = new LoanPlanCli(calculationMode, CSV_FORMAT.equals(format), output, error);
+
+        if (loans.isEmpty()) {
+
+            cli.processLines(new BufferedReader(new InputStreamReader(input, StandardCharsets.US_ASCII)));
+
+        } else {
+
+            for (String loan : loans) {
+
+                cli.processLine(loan);
+            }
+        }
+
+        cli.flush();
+
+        return cli.noOfRejectedLoans == 0 ? EXIT_OK : EXIT_REJECTED;
+    }
+
+    /**
+     * This method returns the calculation mode of the given name, or null when there is no such mode.
+     *
+     * @param mode
+     * @return
+     */
+    private static CalculationMode calculationModeOf(final String mode) {
+
+        for (CalculationMode calculationMode : CalculationMode.values()) {
+
+            if (calculationMode.name().equals(mode)) {
+
+                return calculationMode;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * This method builds the same loan service as the application context, without the plan cache, which a short
+     * lived process would not benefit from, nor the metrics. Only plan requests are validated, so no bean validator
+     * is needed.
+     *
+     * @param calculationMode
+     * @return
+     */
+    private static LoanService newLoanService(final CalculationMode calculationMode) {
+
+        // A composite registry without any registry records nothing, so the metrics cost nothing either
+        MeterRegistry meterRegistry = new CompositeMeterRegistry();
+
+        return new LoanServiceImpl(new ValidationFactoryServiceImpl(null),
+                new PlanCacheServiceImpl(false, 1, 1, meterRegistry),
+                new TemplateCacheServiceImpl(false, 1, meterRegistry),
+                new AnnuityFactorTable(ANNUITY_FACTOR_CAPACITY),
+                new PlanPhaseMetrics(meterRegistry), calculationMode);
+    }
+
+    private void processLines(final BufferedReader reader) throws IOException {
+
+        String loan;
+
+        while ((loan = reader.readLine()) != null) {
+
+            this.processLine(loan);
+        }
+    }
+
+    /**
+     * This method writes the plan of the loan of one line, or reports why it is rejected. The header and the empty
+     * lines are skipped, the header only when it is the first line.
+     *
+     * @param loan
+     * @throws IOException
+     */
+    private void processLine(final String loan) throws IOException {
+
+        ByteBuffer input = ByteBuffer.wrap(loan.getBytes(StandardCharsets.US_ASCII));
+
+        this.line++;
+
+        if (!input.hasRemaining() || (this.line == 1 && CsvLoanParser.isHeader(input, 0, input.limit()))) {
+
+            return;
+        }
+
+        List<String> errors;
+
+        try {
+
+            PaymentScheduleCursor cursor = this.loanService.generateScheduleCursor(
+                    CsvLoanParser.parse(input, 0, input.limit()));
+
+            if (this.csvFormat) {
+
+                this.writeCsv(cursor);
+
+            } else {
+
+                this.writeJson(cursor);
+            }
+
+            return;
+
+        } catch (ConstraintViolationException exception) {
+
+            errors = RequestValidationRuntimeException.errorsOf(exception);
+
+        } catch (IllegalArgumentException | GenericClientRuntimeException exception) {
+
+            errors = Collections.singletonList(exception.getMessage());
+        }
+
+        this.noOfRejectedLoans++;
+
+        this.error.println("Loan " + this.line + " rejected: " + String.join("; ", errors));
+    }
+
+    private void writeJson(final PaymentScheduleCursor cursor) throws IOException {
+
+        this.jsonGenerator.writeStartObject();
+        this.jsonGenerator.writeArrayFieldStart(BORROWER_PAYMENTS);
+
+        while (cursor.next()) {
+
+            PaymentRowJsonWriter.writeRow(cursor, this.jsonGenerator);
+        }
+
+        this.jsonGenerator.writeEndArray();
+        this.jsonGenerator.writeEndObject();
+        this.jsonGenerator.writeRaw('\n');
+    }
+
+    private void writeCsv(final PaymentScheduleCursor cursor) throws IOException {
+
+        byte[] timeSuffix = CsvPlanWriter.timeSuffixOf(cursor.getTime());
+        int installment = 0;
+
+        while (cursor.next()) {
+
+            if (this.csvBuffer.remaining() < CsvPlanWriter.MAX_ROW_LENGTH) {
+
+                this.flushCsv();
+            }
+
+            CsvPlanWriter.writeRow(this.csvBuffer, this.line, ++installment, cursor, timeSuffix);
+        }
+    }
+
+    private void flushCsv() throws IOException {
+
+        this.output.write(this.csvBuffer.array(), 0, this.csvBuffer.position());
+        this.csvBuffer.clear();
+    }
+
+    private void flush() throws IOException {
+
+        if (this.csvFormat) {
+
+            this.flushCsv();
+
+        } else {
+
+            this.jsonGenerator.flush();
+        }
+
+        this.output.flush();
+    }
+}
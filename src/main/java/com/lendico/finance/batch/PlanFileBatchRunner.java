@@ -0,0 +1,50 @@
+package com.lendico.finance.batch;
+
+import com.lendico.finance.model.PlanFileBatchResultDto;
+import com.lendico.finance.service.PlanFileBatchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Generates the plans of the loan file given by loan.batch.file.input once the application has started,
+ * usually with the profile batch which starts no web server.
+ */
+@Component("planFileBatchRunner")
+@ConditionalOnProperty("loan.batch.file.input")
+public class PlanFileBatchRunner implements ApplicationRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PlanFileBatchRunner.class);
+
+    private PlanFileBatchService planFileBatchService;
+    private String inputFile;
+    private String outputFile;
+
+    public PlanFileBatchRunner(final PlanFileBatchService planFileBatchService,
+                               final @Value("${loan.batch.file.input}") String inputFile,
+                               final @Value("${loan.batch.file.output}") String outputFile) {
+
+        this.planFileBatchService = planFileBatchService;
+        this.inputFile = inputFile;
+        this.outputFile = outputFile;
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+
+        PlanFileBatchResultDto result = this.planFileBatchService.generatePlanFile(
+                Paths.get(this.inputFile), Paths.get(this.outputFile));
+
+        LOG.info("Generated {} installments of {} loans into {} in {} ms, {} loans rejected into {}",
+                result.getNoOfInstallments(), result.getNoOfLoans(), result.getOutputFile(),
+                result.getElapsedMillis(), result.getNoOfRejectedLoans(), result.getRejectedFile());
+    }
+}
@@ -0,0 +1,227 @@
+package com.lendico.finance.batch;
+
+import com.lendico.finance.engine.PaymentScheduleCursor;
+import com.lendico.finance.exception.GenericClientRuntimeException;
+import com.lendico.finance.exception.RequestValidationRuntimeException;
+import com.lendico.finance.service.LoanService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.ConstraintViolationException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Range of whole lines of the mapped loan file, processed by one task of the plan batch pool. The installments
+ * of its loans are written into direct buffers taken from the pool, which are handed back once the chunk has
+ * been written to the output file. The rejected loans are kept apart as rows of the rejected file.
+ */
+public final class PlanFileChunk {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PlanFileChunk.class);
+
+    private static final String ERROR_SEPARATOR = "; ";
+
+    private final ByteBuffer input;
+    private final int from;
+    private final int to;
+    private final int firstLine;
+    private final DirectBufferPool bufferPool;
+
+    private final List<ByteBuffer> outputBuffers = new ArrayList<>();
+    private final StringBuilder rejectedRows = new StringBuilder();
+    private ByteBuffer outputBuffer;
+
+    private long noOfLoans;
+    private long noOfRejectedLoans;
+    private long noOfInstallments;
+
+    /**
+     * @param input view of the mapped file, not shared with other chunks
+     * @param from
+     * @param to
+     * @param firstLine number of the line starting at from, starting from 1
+     * @param bufferPool
+     */
+    public PlanFileChunk(final ByteBuffer input, final int from, final int to, final int firstLine,
+                         final DirectBufferPool bufferPool) {
+
+        this.input = input;
+        this.from = from;
+        this.to = to;
+        this.firstLine = firstLine;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * This method returns the header row of the output file
+     *
+     * @return
+     */
+    public static ByteBuffer outputHeader() {
+
+        return ByteBuffer.wrap(CsvPlanWriter.HEADER).asReadOnlyBuffer();
+    }
+
+    /**
+     * This method generates the plans of all the loans of the chunk. The header, if any, is skipped when it is the
+     * first line of the file, as well as the empty lines.
+     *
+     * @param loanService
+     * @return
+     */
+    public PlanFileChunk process(final LoanService loanService) {
+
+        int line = this.firstLine;
+        int lineStart = this.from;
+
+        while (lineStart < this.to) {
+
+            int lineEnd = lineStart;
+
+            while (lineEnd < this.to && this.input.get(lineEnd) != '\n') {
+
+                lineEnd++;
+            }
+
+            int contentEnd = lineEnd > lineStart && this.input.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+
+            if (contentEnd > lineStart && !(line == 1 && CsvLoanParser.isHeader(this.input, lineStart, contentEnd))) {
+
+                this.processLoan(loanService, line, lineStart, contentEnd);
+            }
+
+            line++;
+            lineStart = lineEnd + 1;
+        }
+
+        return this;
+    }
+
+    /**
+     * This method writes the installments of the loan of one line and converts its failure into a rejection.
+     * The installments a failed loan has written already are rolled back, so a rejected loan has no row in the
+     * output file.
+     *
+     * @param loanService
+     * @param line
+     * @param lineStart
+     * @param lineEnd
+     */
+    private void processLoan(final LoanService loanService, final int line, final int lineStart, final int lineEnd) {
+
+        int noOfOutputBuffers = this.outputBuffers.size();
+        int outputPosition = this.outputBuffer != null ? this.outputBuffer.position() : 0;
+
+        try {
+
+            PaymentScheduleCursor cursor = loanService.generateScheduleCursor(
+                    CsvLoanParser.parse(this.input, lineStart, lineEnd));
+
+            byte[] timeSuffix = CsvPlanWriter.timeSuffixOf(cursor.getTime());
+            int installment = 0;
+
+            while (cursor.next()) {
+
+                CsvPlanWriter.writeRow(this.outputBufferFor(CsvPlanWriter.MAX_ROW_LENGTH), line, ++installment,
+                        cursor, timeSuffix);
+            }
+
+            this.noOfLoans++;
+            this.noOfInstallments += installment;
+
+        } catch (ConstraintViolationException exception) {
+
+            this.rollback(noOfOutputBuffers, outputPosition);
+            this.reject(line, RequestValidationRuntimeException.errorsOf(exception));
+
+        } catch (IllegalArgumentException | GenericClientRuntimeException exception) {
+
+            this.rollback(noOfOutputBuffers, outputPosition);
+            this.reject(line, Collections.singletonList(exception.getMessage()));
+
+        } catch (Exception exception) {
+
+            LOG.error("Exception while generating the plan of line {}", line, exception);
+
+            this.rollback(noOfOutputBuffers, outputPosition);
+            this.reject(line, Collections.singletonList(exception.getMessage()));
+        }
+    }
+
+    /**
+     * This method drops the rows written after the given number of output buffers and position in the last of them,
+     * the buffers taken since being handed back to the pool.
+     *
+     * @param noOfOutputBuffers
+     * @param outputPosition
+     */
+    private void rollback(final int noOfOutputBuffers, final int outputPosition) {
+
+        while (this.outputBuffers.size() > noOfOutputBuffers) {
+
+            this.bufferPool.release(this.outputBuffers.remove(this.outputBuffers.size() - 1));
+        }
+
+        this.outputBuffer = noOfOutputBuffers > 0 ? this.outputBuffers.get(noOfOutputBuffers - 1) : null;
+
+        if (this.outputBuffer != null) {
+
+            this.outputBuffer.position(outputPosition);
+        }
+    }
+
+    private ByteBuffer outputBufferFor(final int length) {
+
+        if (this.outputBuffer == null || this.outputBuffer.remaining() < length) {
+
+            this.outputBuffer = this.bufferPool.acquire();
+            this.outputBuffers.add(this.outputBuffer);
+        }
+
+        return this.outputBuffer;
+    }
+
+    private void reject(final int line, final List<String> errors) {
+
+        this.noOfRejectedLoans++;
+
+        this.rejectedRows.append(line).append(",\"")
+                .append(String.join(ERROR_SEPARATOR, errors).replace("\"", "\"\""))
+                .append("\"\n");
+    }
+
+    /**
+     * This method returns the buffers holding the installments, ready to be written
+     *
+     * @return
+     */
+    public List<ByteBuffer> getOutputBuffers() {
+
+        this.outputBuffers.forEach(ByteBuffer::flip);
+
+        return this.outputBuffers;
+    }
+
+    public byte[] getRejectedRows() {
+
+        return this.rejectedRows.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public long getNoOfLoans() {
+        return noOfLoans;
+    }
+
+    public long getNoOfRejectedLoans() {
+        return noOfRejectedLoans;
+    }
+
+    public long getNoOfInstallments() {
+        return noOfInstallments;
+    }
+}
@@ -0,0 +1,76 @@
+package com.lendico.finance.cache;
+
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Normalized (loanAmount, nominalRate, duration, startDate) tuple identifying a plan.
+ * The amounts are compared on their bits, with negative zero folded into zero.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class PlanCacheKey {
+
+    private final long loanAmountBits;
+    private final long nominalRateBits;
+    private final int duration;
+    private final LocalDateTime startDate;
+
+    private PlanCacheKey(final double loanAmount, final double nominalRate, final int duration,
+                         final LocalDateTime startDate) {
+
+        this.loanAmountBits = Double.doubleToLongBits(loanAmount + 0.0);
+        this.nominalRateBits = Double.doubleToLongBits(nominalRate + 0.0);
+        this.duration = duration;
+        this.startDate = startDate;
+    }
+
+    /**
+     * This method returns the key of the given request, or null when one of the fields is missing.
+     *
+     * @param generatePlanRequestDto
+     * @return
+     */
+    public static PlanCacheKey of(final GeneratePlanRequestDto generatePlanRequestDto) {
+
+        if (generatePlanRequestDto == null
+                || generatePlanRequestDto.getLoanAmount() == null
+                || generatePlanRequestDto.getNominalRate() == null
+                || generatePlanRequestDto.getDuration() == null
+                || generatePlanRequestDto.getStartDate() == null) {
+
+            return null;
+        }
+
+        return new PlanCacheKey(generatePlanRequestDto.getLoanAmount(), generatePlanRequestDto.getNominalRate(),
+                generatePlanRequestDto.getDuration(), generatePlanRequestDto.getStartDate());
+    }
+
+    /**
+     * This method returns the key as text, the same for equal keys on every instance and across restarts.
+     *
+     * @return
+     */
+    public String toCanonicalString() {
+
+        return Long.toHexString(this.loanAmountBits) + '|' + Long.toHexString(this.nominalRateBits) + '|'
+                + this.duration + '|' + this.startDate;
+    }
+
+    public double getLoanAmount() {
+
+        return Double.longBitsToDouble(this.loanAmountBits);
+    }
+
+    public double getNominalRate() {
+
+        return Double.longBitsToDouble(this.nominalRateBits);
+    }
+}
@@ -0,0 +1,101 @@
+package com.lendico.finance.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lendico.finance.engine.PaymentPlan;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * In-process cache of generated plans keyed by {@link PlanCacheKey}. The cache is bounded by the total number
+ * of installments it holds and every plan expires after the configured time to live.
+ * The hit, miss and eviction counters are published as cache.* metrics with tag cache=plans, when it is enabled.
+ */
+@Service("planCacheService")
+public class PlanCacheServiceImpl {
+
+    public static final String CACHE_NAME = "plans";
+
+    private final boolean enabled;
+    private final Cache<PlanCacheKey, PaymentPlan> cache;
+
+    public PlanCacheServiceImpl(final @Value("${loan.plan.cache.enabled}") boolean enabled,
+                                final @Value("${loan.plan.cache.max-installments}") long maxInstallments,
+                                final @Value("${loan.plan.cache.ttl-seconds}") long ttlSeconds,
+                                final MeterRegistry meterRegistry) {
+
+        this.enabled = enabled;
+
+        // A disabled cache is never built, so it costs neither memory nor start-up time
+        if (!enabled) {
+
+            this.cache = null;
+
+            return;
+        }
+
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxInstallments)
+                .weigher((PlanCacheKey key, PaymentPlan paymentPlan) -> paymentPlan.size())
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+    }
+
+    /**
+     * This method returns the cached plan of the given request, or generates and caches it.
+     * The generator is called outside of the cache, so a failing request is never cached and
+     * its exception reaches the caller unchanged.
+     *
+     * @param generatePlanRequestDto
+     * @param planGenerator
+     * @return
+     */
+    public PaymentPlan getPlan(final GeneratePlanRequestDto generatePlanRequestDto, final Supplier<PaymentPlan> planGenerator) {
+
+        PlanCacheKey planCacheKey = this.enabled ? PlanCacheKey.of(generatePlanRequestDto) : null;
+
+        if (planCacheKey == null) {
+
+            return planGenerator.get();
+        }
+
+        PaymentPlan paymentPlan = this.cache.getIfPresent(planCacheKey);
+
+        if (paymentPlan == null) {
+
+            paymentPlan = planGenerator.get();
+
+            this.cache.put(planCacheKey, paymentPlan);
+        }
+
+        return paymentPlan;
+    }
+
+    /**
+     * This method discards all the cached plans
+     */
+    public void invalidateAll() {
+
+        if (this.enabled) {
+
+            this.cache.invalidateAll();
+        }
+    }
+
+    Cache<PlanCacheKey, PaymentPlan> getCache() {
+
+        return this.cache;
+    }
+}
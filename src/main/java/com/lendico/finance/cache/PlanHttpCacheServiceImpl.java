@@ -0,0 +1,98 @@
+package com.lendico.finance.cache;
+
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * HTTP caching of the plans served by GET /generate-plan. A plan only depends on its {@link PlanCacheKey}, the
+ * calculation mode and the version of the engine, so its strong ETag is a digest of them and of the media type,
+ * known without generating the plan. Every instance running the same engine version gives the same ETag.
+ *
+ * The version loan.plan.engine-version must be changed whenever the installments of a plan change,
+ * so the plans cached by the clients and the proxies are not served anymore.
+ */
+@Service("planHttpCacheService")
+public class PlanHttpCacheServiceImpl {
+
+    private static final String ANY_ETAG = "*";
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final char SEPARATOR = '|';
+
+    private final String engineVersion;
+    private final CalculationMode calculationMode;
+    private final CacheControl cacheControl;
+
+    public PlanHttpCacheServiceImpl(final @Value("${loan.plan.engine-version}") String engineVersion,
+                                    final @Value("${loan.calculation.mode}") CalculationMode calculationMode,
+                                    final @Value("${loan.plan.http-cache.max-age-seconds}") long maxAgeSeconds) {
+
+        this.engineVersion = engineVersion;
+        this.calculationMode = calculationMode;
+        this.cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+    }
+
+    /**
+     * This method returns the quoted strong ETag of the plan of the given request in the given media type,
+     * or null when one of the fields is missing.
+     *
+     * @param generatePlanRequestDto
+     * @param mediaType
+     * @return
+     */
+    public String getETag(final GeneratePlanRequestDto generatePlanRequestDto, final MediaType mediaType) {
+
+        PlanCacheKey planCacheKey = PlanCacheKey.of(generatePlanRequestDto);
+
+        if (planCacheKey == null) {
+
+            return null;
+        }
+
+        String plan = this.engineVersion + SEPARATOR + this.calculationMode + SEPARATOR
+                + planCacheKey.toCanonicalString() + SEPARATOR + mediaType.getType() + '/' + mediaType.getSubtype();
+
+        return '"' + DigestUtils.md5DigestAsHex(plan.getBytes(StandardCharsets.UTF_8)) + '"';
+    }
+
+    /**
+     * This method tells whether one of the If-None-Match entity tags matches the given ETag, with the weak
+     * comparison of RFC 7232, in which case the plan need not be sent again.
+     *
+     * @param ifNoneMatch
+     * @param eTag
+     * @return
+     */
+    public boolean isNotModified(final List<String> ifNoneMatch, final String eTag) {
+
+        if (eTag == null) {
+
+            return false;
+        }
+
+        for (String entityTag : ifNoneMatch) {
+
+            if (ANY_ETAG.equals(entityTag) || eTag.equals(entityTag.startsWith(WEAK_ETAG_PREFIX)
+                    ? entityTag.substring(WEAK_ETAG_PREFIX.length()) : entityTag)) {
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public CacheControl getCacheControl() {
+        return cacheControl;
+    }
+}
@@ -0,0 +1,359 @@
+package com.lendico.finance.cache;
+
+import com.lendico.finance.constant.GlobalConstant;
+import com.lendico.finance.exception.GenericServerRuntimeException;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.model.GeneratePlanResponseDto;
+import com.lendico.finance.serializer.SerializedPlanResponse;
+import com.lendico.finance.service.LoanService;
+import com.lendico.finance.store.PlanStoreServiceImpl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Single flight of the /generate-plan responses. The first request of a plan, keyed by {@link PlanCacheKey} and
+ * the negotiated media type, generates and serializes it while the identical requests arriving in the meantime wait
+ * for its bytes, so the plan is computed and serialized once for all of them. The flight ends with its leader:
+ * the next request generates again, the plan itself being reused through the plan cache. The generated plan is
+ * handed to the plan store once per flight.
+ *
+ * A failure of the leader is thrown to every request of the flight. A request waits at most the configured timeout,
+ * after which it generates the plan on its own. The leader, follower and timeout counts are published as
+ * loan.coalescing.requests with tag result.
+ */
+@Service("planResponseCoalescingService")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PlanResponseCoalescingServiceImpl {
+
+    public static final String REQUESTS_COUNTER_NAME = "loan.coalescing.requests";
+    public static final String IN_FLIGHT_GAUGE_NAME = "loan.coalescing.inflight";
+
+    private static final String RESULT_TAG = "result";
+    private static final long ESTIMATED_BYTES_PER_INSTALLMENT = 192;
+    // The buffer grows beyond it when the plan needs it, it only bounds the up-front allocation
+    private static final int MAX_INITIAL_BUFFER_SIZE = 64 * 1024 * 1024;
+
+    // Same order as the produces of the /generate-plan endpoint, the first one being the default
+    private static final List<MediaType> PRODUCIBLE_MEDIA_TYPES = Collections.unmodifiableList(Arrays.asList(
+            MediaType.APPLICATION_JSON,
+            MediaType.parseMediaType(GlobalConstant.APPLICATION_CBOR_VALUE),
+            MediaType.parseMediaType(GlobalConstant.APPLICATION_SMILE_VALUE),
+            MediaType.parseMediaType(GlobalConstant.APPLICATION_PROTOBUF_VALUE)));
+
+    private final boolean enabled;
+    private final long waitTimeoutNanos;
+    private final LoanService loanService;
+    private final PlanStoreServiceImpl planStoreService;
+    private final List<HttpMessageConverter<?>> httpMessageConverters;
+    private final Map<FlightKey, CompletableFuture<SerializedPlanResponse>> flights = new ConcurrentHashMap<>();
+
+    private final Counter leaderCounter;
+    private final Counter followerCounter;
+    private final Counter timeoutCounter;
+
+    public PlanResponseCoalescingServiceImpl(final @Value("${loan.coalescing.enabled}") boolean enabled,
+                                             final @Value("${loan.coalescing.wait-timeout-millis}") long waitTimeoutMillis,
+                                             final LoanService loanService,
+                                             final PlanStoreServiceImpl planStoreService,
+                                             final List<HttpMessageConverter<?>> httpMessageConverters,
+                                             final MeterRegistry meterRegistry) {
+
+        this.enabled = enabled;
+        this.waitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(waitTimeoutMillis);
+        this.loanService = loanService;
+        this.planStoreService = planStoreService;
+        this.httpMessageConverters = httpMessageConverters;
+
+        Gauge.builder(IN_FLIGHT_GAUGE_NAME, this.flights, Map::size)
+                .description("Plan responses being generated for coalesced requests")
+                .register(meterRegistry);
+
+        this.leaderCounter = Counter.builder(REQUESTS_COUNTER_NAME).tag(RESULT_TAG, "leader").register(meterRegistry);
+        this.followerCounter = Counter.builder(REQUESTS_COUNTER_NAME).tag(RESULT_TAG, "follower").register(meterRegistry);
+        this.timeoutCounter = Counter.builder(REQUESTS_COUNTER_NAME).tag(RESULT_TAG, "timeout").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * This method returns the media type the plan is served in for the given Accept header, the first producible
+     * media type compatible with the most specific and preferred acceptable one.
+     *
+     * @param accept
+     * @return
+     */
+    public MediaType selectMediaType(final String accept) {
+
+        if (!StringUtils.hasText(accept)) {
+
+            return PRODUCIBLE_MEDIA_TYPES.get(0);
+        }
+
+        List<MediaType> acceptableMediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+
+        MediaType.sortBySpecificityAndQuality(acceptableMediaTypes);
+
+        for (MediaType acceptableMediaType : acceptableMediaTypes) {
+
+            for (MediaType producibleMediaType : PRODUCIBLE_MEDIA_TYPES) {
+
+                if (acceptableMediaType.isCompatibleWith(producibleMediaType)) {
+
+                    return producibleMediaType;
+                }
+            }
+        }
+
+        return PRODUCIBLE_MEDIA_TYPES.get(0);
+    }
+
+    /**
+     * This method returns the plan of the given request serialized in the given media type, sharing the response
+     * of an identical request in flight when there is one.
+     *
+     * @param generatePlanRequestDto
+     * @param mediaType
+     * @return
+     */
+    public SerializedPlanResponse getResponse(final GeneratePlanRequestDto generatePlanRequestDto, final MediaType mediaType) {
+
+        FlightKey flightKey = this.enabled ? FlightKey.of(generatePlanRequestDto, mediaType) : null;
+        Supplier<SerializedPlanResponse> responseGenerator = () -> this.generateResponse(generatePlanRequestDto, mediaType);
+
+        if (flightKey == null) {
+
+            return responseGenerator.get();
+        }
+
+        return this.coalesce(flightKey, responseGenerator);
+    }
+
+    /**
+     * This method returns the response of the flight of the given key, calling the generator when this request
+     * leads the flight, or when the leader does not complete in time.
+     *
+     * @param flightKey
+     * @param responseGenerator
+     * @return
+     */
+    SerializedPlanResponse coalesce(final FlightKey flightKey, final Supplier<SerializedPlanResponse> responseGenerator) {
+
+        CompletableFuture<SerializedPlanResponse> flight = new CompletableFuture<>();
+        CompletableFuture<SerializedPlanResponse> leaderFlight = this.flights.putIfAbsent(flightKey, flight);
+
+        if (leaderFlight != null) {
+
+            this.followerCounter.increment();
+
+            return this.await(leaderFlight, responseGenerator);
+        }
+
+        this.leaderCounter.increment();
+
+        SerializedPlanResponse serializedPlanResponse;
+
+        // The flight is removed before it completes, so a request arriving afterwards never gets a finished response
+        try {
+
+            serializedPlanResponse = responseGenerator.get();
+
+        } catch (RuntimeException | Error exception) {
+
+            this.flights.remove(flightKey, flight);
+
+            flight.completeExceptionally(exception);
+
+            throw exception;
+        }
+
+        this.flights.remove(flightKey, flight);
+
+        flight.complete(serializedPlanResponse);
+
+        return serializedPlanResponse;
+    }
+
+    private SerializedPlanResponse await(final CompletableFuture<SerializedPlanResponse> leaderFlight,
+                                         final Supplier<SerializedPlanResponse> responseGenerator) {
+
+        try {
+
+            return leaderFlight.get(this.waitTimeoutNanos, TimeUnit.NANOSECONDS);
+
+        } catch (TimeoutException exception) {
+
+            this.timeoutCounter.increment();
+
+            return responseGenerator.get();
+
+        } catch (ExecutionException exception) {
+
+            // The failure of the leader is thrown as is, so it is handled as if this request had failed itself
+            if (exception.getCause() instanceof RuntimeException) {
+
+                throw (RuntimeException) exception.getCause();
+            }
+
+            if (exception.getCause() instanceof Error) {
+
+                throw (Error) exception.getCause();
+            }
+
+            throw new GenericServerRuntimeException("Plan could not be generated", exception.getCause());
+
+        } catch (InterruptedException exception) {
+
+            Thread.currentThread().interrupt();
+
+            throw new GenericServerRuntimeException("Interrupted while waiting for the plan", exception);
+        }
+    }
+
+    /**
+     * This method generates the plan of the given request and serializes it with the message converter of the given
+     * media type, so the serialization is the same as the one of a response object.
+     *
+     * @param generatePlanRequestDto
+     * @param mediaType
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private SerializedPlanResponse generateResponse(final GeneratePlanRequestDto generatePlanRequestDto,
+                                                    final MediaType mediaType) {
+
+        GeneratePlanResponseDto generatePlanResponseDto = this.loanService.generatePlan(generatePlanRequestDto);
+
+        this.planStoreService.savePlan(generatePlanRequestDto, generatePlanResponseDto.getPaymentPlan());
+
+        for (HttpMessageConverter<?> httpMessageConverter : this.httpMessageConverters) {
+
+            if (httpMessageConverter.canWrite(GeneratePlanResponseDto.class, mediaType)) {
+
+                ByteArrayHttpOutputMessage outputMessage = new ByteArrayHttpOutputMessage(
+                        initialBufferSizeOf(generatePlanRequestDto.getDuration()));
+
+                try {
+
+                    ((HttpMessageConverter<Object>) httpMessageConverter).write(generatePlanResponseDto, mediaType, outputMessage);
+
+                } catch (IOException exception) {
+
+                    throw new GenericServerRuntimeException("Plan could not be serialized: " + exception.getMessage(), exception);
+                }
+
+                // The buffer is handed over as is, without copying the plan once more
+                return new SerializedPlanResponse(mediaType, outputMessage.body.getBuffer(), outputMessage.body.size());
+            }
+        }
+
+        throw new GenericServerRuntimeException("No message converter writes the plan as " + mediaType);
+    }
+
+    /**
+     * This method returns the initial size of the buffer of a serialized plan of the given duration, estimated
+     * in long arithmetic and capped, so a long plan can neither overflow it nor allocate it all up front.
+     *
+     * @param duration
+     * @return
+     */
+    static int initialBufferSizeOf(final int duration) {
+
+        return (int) Math.max(0, Math.min(ESTIMATED_BYTES_PER_INSTALLMENT * duration, MAX_INITIAL_BUFFER_SIZE));
+    }
+
+    /**
+     * Identical requests of one media type
+     */
+    @EqualsAndHashCode
+    static final class FlightKey {
+
+        private final PlanCacheKey planCacheKey;
+        private final MediaType mediaType;
+
+        private FlightKey(final PlanCacheKey planCacheKey, final MediaType mediaType) {
+
+            this.planCacheKey = planCacheKey;
+            this.mediaType = mediaType;
+        }
+
+        /**
+         * This method returns the key of the given request, or null when it has no plan key.
+         *
+         * @param generatePlanRequestDto
+         * @param mediaType
+         * @return
+         */
+        static FlightKey of(final GeneratePlanRequestDto generatePlanRequestDto, final MediaType mediaType) {
+
+            PlanCacheKey planCacheKey = PlanCacheKey.of(generatePlanRequestDto);
+
+            return planCacheKey == null ? null : new FlightKey(planCacheKey, mediaType);
+        }
+    }
+
+    private static final class ByteArrayHttpOutputMessage implements HttpOutputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private final BufferOutputStream body;
+
+        private ByteArrayHttpOutputMessage(final int initialSize) {
+
+            this.body = new BufferOutputStream(initialSize);
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    /**
+     * ByteArrayOutputStream giving access to its buffer, of which the first size() bytes are written
+     */
+    static final class BufferOutputStream extends ByteArrayOutputStream {
+
+        BufferOutputStream(final int initialSize) {
+
+            super(initialSize);
+        }
+
+        byte[] getBuffer() {
+
+            return this.buf;
+        }
+    }
+}
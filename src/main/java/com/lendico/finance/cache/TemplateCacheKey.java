@@ -0,0 +1,31 @@
+package com.lendico.finance.cache;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Normalized (annualInterest, duration) pair identifying an amortization template.
+ * The rate is compared on its bits, with negative zero folded into zero.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class TemplateCacheKey {
+
+    private final long annualInterestBits;
+    private final int duration;
+
+    private TemplateCacheKey(final double annualInterest, final int duration) {
+
+        this.annualInterestBits = Double.doubleToLongBits(annualInterest + 0.0);
+        this.duration = duration;
+    }
+
+    public static TemplateCacheKey of(final double annualInterest, final int duration) {
+
+        return new TemplateCacheKey(annualInterest, duration);
+    }
+}
@@ -0,0 +1,76 @@
+package com.lendico.finance.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lendico.finance.engine.AmortizationTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Supplier;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * In-process store of {@link AmortizationTemplate} keyed by {@link TemplateCacheKey}, so the loans of the same
+ * product share one schedule whatever their amount. The store is bounded by the total number of installments of its
+ * templates and evicts the least used ones first. A template never expires, as it only depends on its key.
+ * The hit, miss and eviction counters are published as cache.* metrics with tag cache=templates, when it is enabled.
+ */
+@Service("templateCacheService")
+public class TemplateCacheServiceImpl {
+
+    public static final String CACHE_NAME = "templates";
+
+    private final boolean enabled;
+    private final Cache<TemplateCacheKey, AmortizationTemplate> cache;
+
+    public TemplateCacheServiceImpl(final @Value("${loan.template.cache.enabled}") boolean enabled,
+                                    final @Value("${loan.template.cache.max-installments}") long maxInstallments,
+                                    final MeterRegistry meterRegistry) {
+
+        this.enabled = enabled;
+
+        if (!enabled) {
+
+            this.cache = null;
+
+            return;
+        }
+
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxInstallments)
+                .weigher((TemplateCacheKey key, AmortizationTemplate template) -> template.getDuration())
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+    }
+
+    /**
+     * This method returns the template of the given annual interest and duration, generating it on first use,
+     * or null when the store is disabled. Concurrent first uses of the same template generate it once.
+     *
+     * @param annualInterest
+     * @param duration
+     * @param templateGenerator
+     * @return
+     */
+    public AmortizationTemplate getTemplate(final double annualInterest, final int duration,
+                                            final Supplier<AmortizationTemplate> templateGenerator) {
+
+        if (!this.enabled) {
+
+            return null;
+        }
+
+        return this.cache.get(TemplateCacheKey.of(annualInterest, duration), key -> templateGenerator.get());
+    }
+
+    Cache<TemplateCacheKey, AmortizationTemplate> getCache() {
+
+        return this.cache;
+    }
+}
@@ -0,0 +1,35 @@
+package com.lendico.finance.config;
+
+import com.lendico.finance.admission.PlanAdmissionInterceptor;
+import com.lendico.finance.admission.PlanAdmissionLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Configuring the admission of the plan endpoints without body and the release of the admission permits.
+ * The portfolios of /aggregate-cash-flows are admitted partition by partition by PortfolioAggregationServiceImpl
+ * as they are read.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissionControlConfiguration implements WebMvcConfigurer {
+
+    private static final String[] PLAN_PATHS = {"/generate-plan", "/generate-plans", "/plan/installment/*"};
+
+    private PlanAdmissionLimiter planAdmissionLimiter;
+
+    public AdmissionControlConfiguration(final PlanAdmissionLimiter planAdmissionLimiter) {
+
+        this.planAdmissionLimiter = planAdmissionLimiter;
+    }
+
+    @Override
+    public void addInterceptors(final InterceptorRegistry registry) {
+
+        registry.addInterceptor(new PlanAdmissionInterceptor(this.planAdmissionLimiter)).addPathPatterns(PLAN_PATHS);
+    }
+}
@@ -0,0 +1,36 @@
+package com.lendico.finance.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Configuring the bounded fork-join pool used for generating the plans of a batch in parallel.
+ * It is kept apart from the common pool so a large batch cannot starve the rest of the JVM.
+ *
+ * The pool is an Executor bean, which makes Spring Boot back off from its own application task executor, so that
+ * one is declared here as well. It runs the async requests of Spring MVC, like the streamed plans, on the bounded
+ * pool configured by spring.task.execution.* instead of a new thread per request.
+ */
+@Configuration
+public class BatchExecutionConfiguration {
+
+    @Bean(name = "planBatchPool", destroyMethod = "shutdown")
+    public ForkJoinPool planBatchPool(@Value("${loan.batch.parallelism}") final int parallelism) {
+
+        return new ForkJoinPool(parallelism);
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public ThreadPoolTaskExecutor applicationTaskExecutor(final TaskExecutorBuilder taskExecutorBuilder) {
+
+        return taskExecutorBuilder.build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.lendico.finance.config;
+
+import com.lendico.finance.engine.AnnuityFactorTable;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Configuring the shared, stateless pieces of the schedule engine and publishing their metrics.
+ */
+@Configuration
+public class EngineConfiguration {
+
+    private static final String ANNUITY_FACTOR_LOOKUPS = "loan.annuity.factor.lookups";
+    private static final String ANNUITY_FACTOR_HIT_RATIO = "loan.annuity.factor.hit.ratio";
+    private static final String RESULT_TAG = "result";
+
+    @Bean
+    public AnnuityFactorTable annuityFactorTable(final @Value("${loan.annuity.factor.capacity}") int capacity,
+                                                 final MeterRegistry meterRegistry) {
+
+        AnnuityFactorTable annuityFactorTable = new AnnuityFactorTable(capacity);
+
+        FunctionCounter.builder(ANNUITY_FACTOR_LOOKUPS, annuityFactorTable, AnnuityFactorTable::hitCount)
+                .tag(RESULT_TAG, "hit")
+                .description("Annuity factors served from the table")
+                .register(meterRegistry);
+
+        FunctionCounter.builder(ANNUITY_FACTOR_LOOKUPS, annuityFactorTable, AnnuityFactorTable::missCount)
+                .tag(RESULT_TAG, "miss")
+                .description("Annuity factors calculated and stored in the table")
+                .register(meterRegistry);
+
+        Gauge.builder(ANNUITY_FACTOR_HIT_RATIO, annuityFactorTable, AnnuityFactorTable::hitRatio)
+                .description("Ratio of annuity factor lookups served from the table")
+                .register(meterRegistry);
+
+        return annuityFactorTable;
+    }
+}
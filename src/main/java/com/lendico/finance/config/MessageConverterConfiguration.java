@@ -0,0 +1,74 @@
+package com.lendico.finance.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lendico.finance.constant.GlobalConstant;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
+import com.lendico.finance.model.GeneratePlanResponseDto;
+import com.lendico.finance.serializer.CompactPlanResponseMixIn;
+import com.lendico.finance.serializer.ProtobufPlanHttpMessageConverter;
+import com.lendico.finance.serializer.SerializedPlanHttpMessageConverter;
+import com.lendico.finance.serializer.TimedBinaryJackson2HttpMessageConverter;
+import com.lendico.finance.serializer.TimedMappingJackson2HttpMessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Configuring the HTTP message converters. The JSON converter replaces the one of Spring Boot,
+ * keeping its object mapper, and times the (de)serialization phases. The CBOR, Smile and protobuf
+ * converters write the plan in the compact layout of src/main/proto/payment_plan.proto. The plans serialized ahead
+ * for coalesced requests are written as they are, by a converter placed before all the others.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class MessageConverterConfiguration {
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(final ObjectMapper objectMapper,
+                                                                                   final PlanPhaseMetrics planPhaseMetrics) {
+
+        return new TimedMappingJackson2HttpMessageConverter(objectMapper, planPhaseMetrics);
+    }
+
+    @Bean
+    public TimedBinaryJackson2HttpMessageConverter cborHttpMessageConverter(final PlanPhaseMetrics planPhaseMetrics) {
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.cbor()
+                .mixIn(GeneratePlanResponseDto.class, CompactPlanResponseMixIn.class)
+                .build();
+
+        return new TimedBinaryJackson2HttpMessageConverter(objectMapper, planPhaseMetrics,
+                MediaType.parseMediaType(GlobalConstant.APPLICATION_CBOR_VALUE));
+    }
+
+    @Bean
+    public TimedBinaryJackson2HttpMessageConverter smileHttpMessageConverter(final PlanPhaseMetrics planPhaseMetrics) {
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.smile()
+                .mixIn(GeneratePlanResponseDto.class, CompactPlanResponseMixIn.class)
+                .build();
+
+        return new TimedBinaryJackson2HttpMessageConverter(objectMapper, planPhaseMetrics,
+                MediaType.parseMediaType(GlobalConstant.APPLICATION_SMILE_VALUE));
+    }
+
+    @Bean
+    public ProtobufPlanHttpMessageConverter protobufPlanHttpMessageConverter(final PlanPhaseMetrics planPhaseMetrics) {
+
+        return new ProtobufPlanHttpMessageConverter(planPhaseMetrics);
+    }
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SerializedPlanHttpMessageConverter serializedPlanHttpMessageConverter() {
+
+        return new SerializedPlanHttpMessageConverter();
+    }
+}
@@ -8,4 +8,22 @@ public class GlobalConstant {
     public static final String DATE_TIME_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
 
     public static final Integer NO_OF_PRECISION = 2;
+
+    public static final Integer NO_OF_RATE_PRECISION = 15;
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+
+    public static final String OFFSET_PARAM = "offset";
+
+    public static final String LIMIT_PARAM = "limit";
+
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    public static final String PLAN_ID_HEADER = "X-Plan-Id";
 }
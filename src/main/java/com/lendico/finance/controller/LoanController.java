@@ -1,40 +1,301 @@
 package com.lendico.finance.controller;
 
+import com.lendico.finance.cache.PlanHttpCacheServiceImpl;
+import com.lendico.finance.cache.PlanResponseCoalescingServiceImpl;
+import com.lendico.finance.constant.GlobalConstant;
+import com.lendico.finance.engine.PaymentScheduleCursor;
+import com.lendico.finance.exception.NotFoundRuntimeException;
+import com.lendico.finance.model.BorrowerPaymentDto;
 import com.lendico.finance.model.GeneratePlanRequestDto;
 import com.lendico.finance.model.GeneratePlanResponseDto;
+import com.lendico.finance.model.GeneratePlansResponseDto;
+import com.lendico.finance.model.PlanSummaryDto;
+import com.lendico.finance.serializer.PlanStreamWriter;
+import com.lendico.finance.serializer.ProtobufPlanHttpMessageConverter;
+import com.lendico.finance.serializer.SerializedPlanResponse;
 import com.lendico.finance.service.LoanService;
+import com.lendico.finance.service.PlanBatchService;
+import com.lendico.finance.store.PlanStoreServiceImpl;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.validation.Valid;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Servlet endpoints of the loan service, see ReactiveLoanController (profile reactive) for the reactive stack.
  */
 @RestController("loanController")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class LoanController {
 
+    private static final String STREAM_PARAM = "stream=true";
+    private static final String SUMMARY_PARAM = "summary=true";
+
     private LoanService loanService;
+    private PlanBatchService planBatchService;
+    private PlanStreamWriter planStreamWriter;
+    private PlanResponseCoalescingServiceImpl planResponseCoalescingService;
+    private PlanHttpCacheServiceImpl planHttpCacheService;
+    private PlanStoreServiceImpl planStoreService;
 
-    public LoanController(final LoanService loanService) {
+    public LoanController(final LoanService loanService, final PlanBatchService planBatchService,
+                          final PlanStreamWriter planStreamWriter,
+                          final PlanResponseCoalescingServiceImpl planResponseCoalescingService,
+                          final PlanHttpCacheServiceImpl planHttpCacheService,
+                          final PlanStoreServiceImpl planStoreService) {
 
         this.loanService = loanService;
+        this.planBatchService = planBatchService;
+        this.planStreamWriter = planStreamWriter;
+        this.planResponseCoalescingService = planResponseCoalescingService;
+        this.planHttpCacheService = planHttpCacheService;
+        this.planStoreService = planStoreService;
     }
 
     /**
      * This post method generates the pre-calculated repayment loan plan with the details provided.
+     * The request is validated once by the loan service, hence the body is not annotated with @Valid.
+     * The plan is returned as JSON, or in a compact binary format (CBOR, Smile, protobuf) as per the Accept header.
+     *
+     * With the query parameters offset and/or limit, only that page of the plan is calculated and returned,
+     * the total number of installments being given in the header X-Total-Count.
+     *
+     * The whole plan is served through the request coalescing, so identical requests in flight share one
+     * generation and one serialized response. The whole plan is also kept in the plan store, its ID being given
+     * in the header X-Plan-Id.
+     *
+     * @param generatePlanRequestDto
+     * @param offset index of the first installment of the page, starting from 0
+     * @param limit maximum number of installments of the page
+     * @param accept
+     * @return
+     */
+    @PostMapping(value = "/generate-plan", produces = {MediaType.APPLICATION_JSON_VALUE, GlobalConstant.APPLICATION_CBOR_VALUE,
+            GlobalConstant.APPLICATION_SMILE_VALUE, GlobalConstant.APPLICATION_PROTOBUF_VALUE},
+            consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> generatePlan(
+            final @RequestBody GeneratePlanRequestDto generatePlanRequestDto,
+            final @RequestParam(value = GlobalConstant.OFFSET_PARAM, required = false) Integer offset,
+            final @RequestParam(value = GlobalConstant.LIMIT_PARAM, required = false) Integer limit,
+            final @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        if (offset == null && limit == null && this.planResponseCoalescingService.isEnabled()) {
+
+            MediaType mediaType = this.planResponseCoalescingService.selectMediaType(accept);
+            SerializedPlanResponse serializedPlanResponse =
+                    this.planResponseCoalescingService.getResponse(generatePlanRequestDto, mediaType);
+
+            return this.withPlanId(ResponseEntity.ok(), this.planStoreService.getPlanId(generatePlanRequestDto))
+                    .contentType(mediaType)
+                    .body(serializedPlanResponse);
+        }
+
+        if (offset == null && limit == null) {
+
+            GeneratePlanResponseDto generatePlanResponseDto = this.loanService.generatePlan(generatePlanRequestDto);
+
+            return this.withPlanId(ResponseEntity.ok(),
+                    this.planStoreService.savePlan(generatePlanRequestDto, generatePlanResponseDto.getPaymentPlan()))
+                    .body(generatePlanResponseDto);
+        }
+
+        GeneratePlanResponseDto generatePlanResponseDto = this.loanService.generatePlanPage(generatePlanRequestDto,
+                offset != null ? offset : 0, limit != null ? limit : Integer.MAX_VALUE);
+
+        return ResponseEntity.ok()
+                .header(GlobalConstant.TOTAL_COUNT_HEADER, String.valueOf(generatePlanRequestDto.getDuration()))
+                .body(generatePlanResponseDto);
+    }
+
+    /**
+     * This get method returns the pre-calculated repayment loan plan, the loan details being given as query parameters,
+     * so the response can be cached by the clients and the proxies. It carries a strong ETag derived from the loan
+     * details and the engine version, and a request whose If-None-Match matches it is answered with 304 Not Modified
+     * without generating the plan.
      *
      * @param generatePlanRequestDto
+     * @param accept
+     * @param headers
      * @return
      */
-    @PostMapping(value = "/generate-plan", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<GeneratePlanResponseDto> generatePlan(
-            final @Valid @RequestBody GeneratePlanRequestDto generatePlanRequestDto) {
+    @GetMapping(value = "/generate-plan", produces = {MediaType.APPLICATION_JSON_VALUE, GlobalConstant.APPLICATION_CBOR_VALUE,
+            GlobalConstant.APPLICATION_SMILE_VALUE, GlobalConstant.APPLICATION_PROTOBUF_VALUE})
+    public ResponseEntity<SerializedPlanResponse> getPlan(
+            final GeneratePlanRequestDto generatePlanRequestDto,
+            final @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            final @RequestHeader HttpHeaders headers) {
+
+        MediaType mediaType = this.planResponseCoalescingService.selectMediaType(accept);
+        String eTag = this.planHttpCacheService.getETag(generatePlanRequestDto, mediaType);
+
+        if (this.planHttpCacheService.isNotModified(headers.getIfNoneMatch(), eTag)) {
+
+            return this.withCacheHeaders(ResponseEntity.status(HttpStatus.NOT_MODIFIED), eTag).build();
+        }
+
+        // An invalid request fails here, so a plan is always sent with its ETag
+        SerializedPlanResponse serializedPlanResponse =
+                this.planResponseCoalescingService.getResponse(generatePlanRequestDto, mediaType);
+
+        return this.withPlanId(this.withCacheHeaders(ResponseEntity.ok(), eTag),
+                this.planStoreService.getPlanId(generatePlanRequestDto))
+                .contentType(mediaType)
+                .body(serializedPlanResponse);
+    }
+
+    /**
+     * This get method returns a plan of the plan store by the ID given in the header X-Plan-Id of the plan responses,
+     * as PaymentPlan protobuf message. The bytes are written from the mapped segment file, without generating nor
+     * serializing the plan. As the plans are stored asynchronously, a plan may not be found right after its response.
+     *
+     * @param planId
+     * @return
+     */
+    @GetMapping(value = "/plans/{planId}")
+    public ResponseEntity<SerializedPlanResponse> getStoredPlan(final @PathVariable UUID planId) {
+
+        ByteBuffer plan = this.planStoreService.getPlan(planId);
+
+        if (plan == null) {
+
+            throw new NotFoundRuntimeException("Plan " + planId + " not found");
+        }
+
+        return ResponseEntity.ok()
+                .contentType(ProtobufPlanHttpMessageConverter.APPLICATION_PROTOBUF)
+                .cacheControl(this.planHttpCacheService.getCacheControl())
+                .body(new SerializedPlanResponse(ProtobufPlanHttpMessageConverter.APPLICATION_PROTOBUF, plan));
+    }
+
+    /**
+     * This post method returns only the totals of the repayment loan plan when the query flag summary=true is given.
+     * The plan is folded one installment at a time and never built.
+     *
+     * @param generatePlanRequestDto
+     * @return
+     */
+    @PostMapping(value = "/generate-plan", params = SUMMARY_PARAM, produces = MediaType.APPLICATION_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PlanSummaryDto> generatePlanSummary(
+            final @RequestBody GeneratePlanRequestDto generatePlanRequestDto) {
+
+        return new ResponseEntity<>(this.loanService.generatePlanSummary(generatePlanRequestDto), HttpStatus.OK);
+    }
+
+    /**
+     * This get method returns a single installment of the repayment loan plan, the loan details being given as
+     * query parameters. The installment is calculated on its own, without generating the plan.
+     *
+     * @param installmentNumber starting from 1
+     * @param generatePlanRequestDto
+     * @return
+     */
+    @GetMapping(value = "/plan/installment/{installmentNumber}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BorrowerPaymentDto> getInstallment(final @PathVariable Integer installmentNumber,
+                                                             final GeneratePlanRequestDto generatePlanRequestDto) {
+
+        return new ResponseEntity<>(
+                this.loanService.generateInstallment(generatePlanRequestDto, installmentNumber), HttpStatus.OK);
+    }
+
+    /**
+     * This post method streams the pre-calculated repayment loan plan as newline delimited JSON,
+     * one installment per line, when the client accepts application/x-ndjson.
+     *
+     * @param generatePlanRequestDto
+     * @return
+     */
+    @PostMapping(value = "/generate-plan", produces = GlobalConstant.APPLICATION_NDJSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPlan(
+            final @RequestBody GeneratePlanRequestDto generatePlanRequestDto) {
+
+        return this.newStreamingResponse(generatePlanRequestDto);
+    }
+
+    /**
+     * This post method streams the pre-calculated repayment loan plan as newline delimited JSON
+     * when the query flag stream=true is given, regardless of the Accept header.
+     *
+     * @param generatePlanRequestDto
+     * @return
+     */
+    @PostMapping(value = "/generate-plan", params = STREAM_PARAM, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPlanByQueryFlag(
+            final @RequestBody GeneratePlanRequestDto generatePlanRequestDto) {
+
+        return this.newStreamingResponse(generatePlanRequestDto);
+    }
+
+    /**
+     * This post method generates the pre-calculated repayment loan plans of several loans in parallel.
+     * The results are returned in the input order and an invalid loan is reported inline in its own result.
+     *
+     * @param generatePlanRequestDtoList
+     * @return
+     */
+    @PostMapping(value = "/generate-plans", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<GeneratePlansResponseDto> generatePlans(
+            final @RequestBody List<GeneratePlanRequestDto> generatePlanRequestDtoList) {
+
+        return new ResponseEntity<>(this.planBatchService.generatePlans(generatePlanRequestDtoList), HttpStatus.OK);
+    }
+
+    /**
+     * This post method generates only the totals of the repayment loan plans of several loans in parallel
+     * when the query flag summary=true is given. Every result holds a summary instead of a plan.
+     *
+     * @param generatePlanRequestDtoList
+     * @return
+     */
+    @PostMapping(value = "/generate-plans", params = SUMMARY_PARAM, produces = MediaType.APPLICATION_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<GeneratePlansResponseDto> generatePlanSummaries(
+            final @RequestBody List<GeneratePlanRequestDto> generatePlanRequestDtoList) {
+
+        return new ResponseEntity<>(this.planBatchService.generatePlanSummaries(generatePlanRequestDtoList), HttpStatus.OK);
+    }
+
+    /**
+     * The request is validated and the annuity is calculated before the response is committed,
+     * so the errors are still reported through the exception handler advice.
+     *
+     * @param generatePlanRequestDto
+     * @return
+     */
+    private ResponseEntity<StreamingResponseBody> newStreamingResponse(final GeneratePlanRequestDto generatePlanRequestDto) {
+
+        PaymentScheduleCursor cursor = this.loanService.generateScheduleCursor(generatePlanRequestDto);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(GlobalConstant.APPLICATION_NDJSON_VALUE))
+                .body(outputStream -> this.planStreamWriter.writeNdjson(cursor, outputStream));
+    }
+
+    private ResponseEntity.BodyBuilder withCacheHeaders(final ResponseEntity.BodyBuilder responseBuilder, final String eTag) {
+
+        return responseBuilder
+                .eTag(eTag)
+                .cacheControl(this.planHttpCacheService.getCacheControl())
+                .varyBy(HttpHeaders.ACCEPT);
+    }
+
+    private ResponseEntity.BodyBuilder withPlanId(final ResponseEntity.BodyBuilder responseBuilder, final UUID planId) {
 
-        return new ResponseEntity<>(this.loanService.generatePlan(generatePlanRequestDto), HttpStatus.OK);
+        return planId == null ? responseBuilder : responseBuilder.header(GlobalConstant.PLAN_ID_HEADER, planId.toString());
     }
 }
@@ -0,0 +1,45 @@
+package com.lendico.finance.controller;
+
+import com.lendico.finance.constant.GlobalConstant;
+import com.lendico.finance.model.CashFlowAggregateDto;
+import com.lendico.finance.service.PortfolioAggregationService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Servlet endpoints over portfolios of loans.
+ */
+@RestController("portfolioController")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PortfolioController {
+
+    private PortfolioAggregationService portfolioAggregationService;
+
+    public PortfolioController(final PortfolioAggregationService portfolioAggregationService) {
+
+        this.portfolioAggregationService = portfolioAggregationService;
+    }
+
+    /**
+     * This post method aggregates the monthly cash flows of all the loans of the uploaded portfolio.
+     * The loans are read from the request body as it is streamed, one per line (application/x-ndjson)
+     * or as JSON array, so the portfolio is never held in memory as a whole.
+     *
+     * @param inputStream
+     * @return
+     */
+    @PostMapping(value = "/aggregate-cash-flows", produces = MediaType.APPLICATION_JSON_VALUE,
+            consumes = {GlobalConstant.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<CashFlowAggregateDto> aggregateCashFlows(final InputStream inputStream) {
+
+        return new ResponseEntity<>(this.portfolioAggregationService.aggregateCashFlows(inputStream), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,122 @@
+package com.lendico.finance.engine;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Schedule of a loan of one unit for a given (annual interest, duration). Every amount of the schedule in
+ * {@link CalculationMode#DOUBLE} is linear in the loan amount before rounding, so the schedule of any loan amount
+ * is this one scaled by the loan amount, see {@link TemplatePaymentScheduleCursor}.
+ *
+ * The outstanding principals are kept once for both sides of an installment, as the remaining outstanding principal
+ * of one installment is the initial outstanding principal of the next one.
+ */
+public final class AmortizationTemplate {
+
+    // Bound of the rounding error of a scaled amount per installment, relative to Loan Amount * (1 + Monthly rate) ^ n
+    private static final double ROUNDING_ERROR_BOUND_PER_INSTALLMENT = 1e-15;
+
+    // Largest tolerance a loan is scaled with, a thousandth of a cent, so that only a few amounts fall back
+    private static final double MAX_SCALED_TOLERANCE = 0.00001;
+
+    private final double annuity;
+    private final double[] outstandingPrincipals;
+    private final double[] interests;
+    private final double[] principals;
+    private final double relativeTolerance;
+
+    private AmortizationTemplate(final double annuity, final double[] outstandingPrincipals, final double[] interests,
+                                 final double[] principals) {
+
+        int duration = interests.length;
+
+        this.annuity = annuity;
+        this.outstandingPrincipals = outstandingPrincipals;
+        this.interests = interests;
+        this.principals = principals;
+        this.relativeTolerance = getRelativeTolerance(duration > 0 ? interests[0] : 0, duration);
+    }
+
+    /**
+     * This method returns true when a loan of the given amount is worth scaling from the template of the given
+     * monthly rate and duration. The tolerance grows with (1 + Monthly rate) ^ n, and once it is a noticeable part of
+     * a cent most of the amounts would fall back to the recurrence, so the loan is better calculated by the
+     * recurrence directly.
+     *
+     * @param monthlyRate
+     * @param duration
+     * @param loanAmount
+     * @return
+     */
+    public static boolean isScalable(final double monthlyRate, final int duration, final double loanAmount) {
+
+        return getRelativeTolerance(monthlyRate, duration) * Math.abs(loanAmount) <= MAX_SCALED_TOLERANCE;
+    }
+
+    private static double getRelativeTolerance(final double monthlyRate, final int duration) {
+
+        return ROUNDING_ERROR_BOUND_PER_INSTALLMENT * (duration + 1) * Math.pow(1 + monthlyRate, duration);
+    }
+
+    /**
+     * This method drains the given cursor of a loan of one unit into a template. The interest of the first
+     * installment of such a loan is the monthly rate.
+     *
+     * @param unitCursor
+     * @return
+     */
+    public static AmortizationTemplate of(final DoublePaymentScheduleCursor unitCursor) {
+
+        int duration = unitCursor.getDuration();
+        double[] outstandingPrincipals = new double[duration + 1];
+        double[] interests = new double[duration];
+        double[] principals = new double[duration];
+
+        outstandingPrincipals[0] = 1.0;
+
+        while (unitCursor.next()) {
+
+            int index = unitCursor.getIndex();
+
+            interests[index] = unitCursor.getInterest();
+            principals[index] = unitCursor.getPrincipal();
+            outstandingPrincipals[index + 1] = unitCursor.getRemainingOutstandingPrincipal();
+        }
+
+        return new AmortizationTemplate(unitCursor.getAnnuity(), outstandingPrincipals, interests, principals);
+    }
+
+    public int getDuration() {
+        return interests.length;
+    }
+
+    public double getAnnuity() {
+        return annuity;
+    }
+
+    public double getInitialOutstandingPrincipal(final int index) {
+        return outstandingPrincipals[index];
+    }
+
+    public double getInterest(final int index) {
+        return interests[index];
+    }
+
+    public double getPrincipal(final int index) {
+        return principals[index];
+    }
+
+    public double getRemainingOutstandingPrincipal(final int index) {
+        return outstandingPrincipals[index + 1];
+    }
+
+    /**
+     * This method returns how far the amounts of the given loan amount scaled from the template may be from the
+     * amounts calculated installment by installment.
+     *
+     * @param loanAmount
+     * @return
+     */
+    public double getTolerance(final double loanAmount) {
+        return relativeTolerance * Math.abs(loanAmount);
+    }
+}
@@ -0,0 +1,130 @@
+package com.lendico.finance.engine;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Bounded memo of the annuity factor denominator for (monthly interest rate, duration) pairs
+ *
+ * Denominator = 1 - (1 + Monthly interest rate) ^ - Duration
+ *
+ * Only the denominator is kept, not the whole factor, so that the annuity is still calculated in the original
+ * order (Loan Amount * Monthly interest rate) / Denominator and stays the same to the last bit.
+ *
+ * The table is direct mapped on the bits of the rate and the duration, so it never holds more than its capacity
+ * and a colliding pair simply replaces the previous one. The entries are immutable, which makes the lookups
+ * safe without locking: a racing reader sees either the old entry, the new one or nothing at all.
+ */
+public final class AnnuityFactorTable {
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final Entry[] entries;
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity maximum number of pairs, rounded up to the next power of two
+     */
+    public AnnuityFactorTable(final int capacity) {
+
+        if (capacity <= 0) {
+
+            throw new IllegalArgumentException("Capacity should be greater than zero");
+        }
+
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+
+        this.entries = new Entry[Math.max(size, 1)];
+        this.mask = this.entries.length - 1;
+    }
+
+    /**
+     * This method returns the annuity factor denominator of the given pair, calculating it only when it is not in the table
+     *
+     * @param monthlyInterestRate
+     * @param duration
+     * @return
+     */
+    public double getDenominator(final double monthlyInterestRate, final int duration) {
+
+        long rateBits = Double.doubleToLongBits(monthlyInterestRate);
+        int index = this.indexOf(rateBits, duration);
+
+        Entry entry = this.entries[index];
+
+        if (entry != null && entry.rateBits == rateBits && entry.duration == duration) {
+
+            this.hits.increment();
+
+            return entry.denominator;
+        }
+
+        this.misses.increment();
+
+        double denominator = calculateDenominator(monthlyInterestRate, duration);
+
+        this.entries[index] = new Entry(rateBits, duration, denominator);
+
+        return denominator;
+    }
+
+    /**
+     * This method calculates the annuity factor denominator without the table
+     *
+     * @param monthlyInterestRate
+     * @param duration
+     * @return
+     */
+    public static double calculateDenominator(final double monthlyInterestRate, final int duration) {
+
+        return 1 - Math.pow(1 + monthlyInterestRate, - duration);
+    }
+
+    public int capacity() {
+
+        return this.entries.length;
+    }
+
+    public long hitCount() {
+
+        return this.hits.sum();
+    }
+
+    public long missCount() {
+
+        return this.misses.sum();
+    }
+
+    public double hitRatio() {
+
+        long hitCount = this.hits.sum();
+        long lookupCount = hitCount + this.misses.sum();
+
+        return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+    }
+
+    private int indexOf(final long rateBits, final int duration) {
+
+        long hash = (rateBits ^ duration) * GOLDEN_RATIO;
+
+        return (int) (hash ^ (hash >>> 32)) & this.mask;
+    }
+
+    private static final class Entry {
+
+        private final long rateBits;
+        private final int duration;
+        private final double denominator;
+
+        private Entry(final long rateBits, final int duration, final double denominator) {
+
+            this.rateBits = rateBits;
+            this.duration = duration;
+            this.denominator = denominator;
+        }
+    }
+}
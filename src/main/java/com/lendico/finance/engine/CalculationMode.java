@@ -0,0 +1,21 @@
+package com.lendico.finance.engine;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Arithmetic of the schedule calculation, configured with loan.calculation.mode.
+ */
+public enum CalculationMode {
+
+    /**
+     * Binary floating point, rounded to cents for the output only. The principal amounts may not sum up
+     * exactly to the loan amount.
+     */
+    DOUBLE,
+
+    /**
+     * Fixed point long cents with half up rounding on every row. The principal amounts sum up exactly
+     * to the loan amount.
+     */
+    CENTS
+}
@@ -0,0 +1,175 @@
+package com.lendico.finance.engine;
+
+import com.lendico.finance.model.MonthlyCashFlowDto;
+import com.lendico.finance.util.CommonUtil;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Monthly cash flows of many loans summed up in cents on primitive arrays, one bucket per calendar month.
+ * The memory used grows with the range of months covered, never with the number of loans.
+ *
+ * An accumulator is not thread safe: every partition folds into its own one, then they are merged.
+ */
+public final class CashFlowAccumulator {
+
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int NO_OF_MONTH_IN_YEAR = 12;
+
+    private int firstMonth;
+    private int noOfMonths;
+    private int[] noOfPayments = new int[0];
+    private long[] borrowerPaymentAmount = new long[0];
+    private long[] interest = new long[0];
+    private long[] principal = new long[0];
+    private long[] remainingOutstandingPrincipal = new long[0];
+    private long noOfLoans;
+
+    /**
+     * This method drains the given cursor into the monthly buckets. The payments of a loan fall on consecutive
+     * months from its start date, so the month of an installment is derived from its index.
+     *
+     * @param cursor
+     * @param startDate
+     */
+    public void add(final PaymentScheduleCursor cursor, final LocalDate startDate) {
+
+        int startMonth = monthOf(startDate);
+
+        this.ensureRange(startMonth, startMonth + cursor.getDuration() - 1);
+
+        while (cursor.next()) {
+
+            int bucket = startMonth + cursor.getIndex() - this.firstMonth;
+
+            this.noOfPayments[bucket]++;
+            this.borrowerPaymentAmount[bucket] += cursor.getBorrowerPaymentAmountInCents();
+            this.interest[bucket] += cursor.getInterestInCents();
+            this.principal[bucket] += cursor.getPrincipalInCents();
+            this.remainingOutstandingPrincipal[bucket] += cursor.getRemainingOutstandingPrincipalInCents();
+        }
+
+        this.noOfLoans++;
+    }
+
+    /**
+     * This method adds the buckets of the given accumulator into this one.
+     *
+     * @param other
+     */
+    public void merge(final CashFlowAccumulator other) {
+
+        if (other.noOfMonths > 0) {
+
+            this.ensureRange(other.firstMonth, other.firstMonth + other.noOfMonths - 1);
+
+            int offset = other.firstMonth - this.firstMonth;
+
+            for (int bucket = 0; bucket < other.noOfMonths; bucket++) {
+
+                this.noOfPayments[offset + bucket] += other.noOfPayments[bucket];
+                this.borrowerPaymentAmount[offset + bucket] += other.borrowerPaymentAmount[bucket];
+                this.interest[offset + bucket] += other.interest[bucket];
+                this.principal[offset + bucket] += other.principal[bucket];
+                this.remainingOutstandingPrincipal[offset + bucket] += other.remainingOutstandingPrincipal[bucket];
+            }
+        }
+
+        this.noOfLoans += other.noOfLoans;
+    }
+
+    public long getNoOfLoans() {
+        return noOfLoans;
+    }
+
+    /**
+     * This method returns the aggregated cash flow of every month from the first to the last payment,
+     * including the months without any payment.
+     *
+     * @return
+     */
+    public List<MonthlyCashFlowDto> toMonthlyCashFlowList() {
+
+        List<MonthlyCashFlowDto> monthlyCashFlowList = new ArrayList<>(this.noOfMonths);
+
+        for (int bucket = 0; bucket < this.noOfMonths; bucket++) {
+
+            int month = this.firstMonth + bucket;
+
+            monthlyCashFlowList.add(MonthlyCashFlowDto.builder()
+                    .month(YearMonth.of(Math.floorDiv(month, NO_OF_MONTH_IN_YEAR), Math.floorMod(month, NO_OF_MONTH_IN_YEAR) + 1))
+                    .noOfPayments(this.noOfPayments[bucket])
+                    .borrowerPaymentAmount(CommonUtil.fromCents(this.borrowerPaymentAmount[bucket]))
+                    .interest(CommonUtil.fromCents(this.interest[bucket]))
+                    .principal(CommonUtil.fromCents(this.principal[bucket]))
+                    .remainingOutstandingPrincipal(CommonUtil.fromCents(this.remainingOutstandingPrincipal[bucket]))
+                    .build());
+        }
+
+        return monthlyCashFlowList;
+    }
+
+    private static int monthOf(final LocalDate date) {
+
+        return date.getYear() * NO_OF_MONTH_IN_YEAR + date.getMonthValue() - 1;
+    }
+
+    /**
+     * This method grows the buckets, keeping their content, so that they cover the given months.
+     *
+     * @param fromMonth
+     * @param toMonth
+     */
+    private void ensureRange(final int fromMonth, final int toMonth) {
+
+        if (this.noOfMonths == 0) {
+
+            this.firstMonth = fromMonth;
+        }
+
+        int newFirstMonth = Math.min(this.firstMonth, fromMonth);
+        int newNoOfMonths = Math.max(this.firstMonth + this.noOfMonths, toMonth + 1) - newFirstMonth;
+
+        if (newFirstMonth == this.firstMonth && newNoOfMonths <= this.noOfPayments.length) {
+
+            this.noOfMonths = newNoOfMonths;
+
+            return;
+        }
+
+        int capacity = Math.max(INITIAL_CAPACITY, newNoOfMonths * 2);
+        int offset = this.firstMonth - newFirstMonth;
+
+        this.noOfPayments = grow(this.noOfPayments, this.noOfMonths, capacity, offset);
+        this.borrowerPaymentAmount = grow(this.borrowerPaymentAmount, this.noOfMonths, capacity, offset);
+        this.interest = grow(this.interest, this.noOfMonths, capacity, offset);
+        this.principal = grow(this.principal, this.noOfMonths, capacity, offset);
+        this.remainingOutstandingPrincipal = grow(this.remainingOutstandingPrincipal, this.noOfMonths, capacity, offset);
+
+        this.firstMonth = newFirstMonth;
+        this.noOfMonths = newNoOfMonths;
+    }
+
+    private static int[] grow(final int[] buckets, final int length, final int capacity, final int offset) {
+
+        int[] newBuckets = new int[capacity];
+
+        System.arraycopy(buckets, 0, newBuckets, offset, length);
+
+        return newBuckets;
+    }
+
+    private static long[] grow(final long[] buckets, final int length, final int capacity, final int offset) {
+
+        long[] newBuckets = new long[capacity];
+
+        System.arraycopy(buckets, 0, newBuckets, offset, length);
+
+        return newBuckets;
+    }
+}
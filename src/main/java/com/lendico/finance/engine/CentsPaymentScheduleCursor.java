@@ -0,0 +1,101 @@
+package com.lendico.finance.engine;
+
+import java.time.LocalDateTime;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Schedule cursor of {@link CalculationMode#CENTS}. Every amount is a long in cents and every row is calculated
+ * from the rounded amounts of the previous one, so what is shown is exactly what is carried over.
+ *
+ * The last installment pays the whole remaining outstanding principal, hence the principal amounts always sum
+ * up to the loan amount and the last borrower payment amount may differ from the annuity by a few cents.
+ */
+public final class CentsPaymentScheduleCursor extends PaymentScheduleCursor {
+
+    private final long loanAmount;
+    private final long annuity;
+    private final long annualInterestRate;
+    private final LongBinaryOperator interestFunction;
+    private final LongBinaryOperator principalFunction;
+
+    private long borrowerPaymentAmount;
+    private long initialOutstandingPrincipal;
+    private long interest;
+    private long principal;
+    private long remainingOutstandingPrincipal;
+
+    /**
+     * @param loanAmount in cents
+     * @param annuity in cents
+     * @param annualInterestRate scaled by GlobalConstant.NO_OF_RATE_PRECISION digits
+     * @param duration
+     * @param startDate
+     * @param interestFunction (annualInterestRate, initialOutstandingPrincipal) -> interest
+     * @param principalFunction (annuity, interest) -> principal
+     */
+    public CentsPaymentScheduleCursor(final long loanAmount, final long annuity, final long annualInterestRate,
+                                      final int duration, final LocalDateTime startDate,
+                                      final LongBinaryOperator interestFunction,
+                                      final LongBinaryOperator principalFunction) {
+
+        super(duration, startDate);
+
+        this.loanAmount = loanAmount;
+        this.annuity = annuity;
+        this.annualInterestRate = annualInterestRate;
+        this.interestFunction = interestFunction;
+        this.principalFunction = principalFunction;
+    }
+
+    @Override
+    protected void calculateRow(final int index) {
+
+        // Setting the loan amount for the first payment, else the remaining outstanding principal of the previous one
+
+        this.initialOutstandingPrincipal = index == 0 ? this.loanAmount : this.remainingOutstandingPrincipal;
+
+        this.interest = this.interestFunction.applyAsLong(this.annualInterestRate, this.initialOutstandingPrincipal);
+
+        this.principal = this.principalFunction.applyAsLong(this.annuity, this.interest);
+
+        this.borrowerPaymentAmount = this.annuity;
+
+        if (this.isLastRow(index) || this.principal > this.initialOutstandingPrincipal) {
+
+            // Paying off the remaining outstanding principal, so that nothing is left over or overpaid
+
+            this.principal = this.initialOutstandingPrincipal;
+
+            this.borrowerPaymentAmount = this.principal + this.interest;
+        }
+
+        this.remainingOutstandingPrincipal = this.initialOutstandingPrincipal - this.principal;
+    }
+
+    @Override
+    public long getBorrowerPaymentAmountInCents() {
+        return borrowerPaymentAmount;
+    }
+
+    @Override
+    public long getInitialOutstandingPrincipalInCents() {
+        return initialOutstandingPrincipal;
+    }
+
+    @Override
+    public long getInterestInCents() {
+        return interest;
+    }
+
+    @Override
+    public long getPrincipalInCents() {
+        return principal;
+    }
+
+    @Override
+    public long getRemainingOutstandingPrincipalInCents() {
+        return remainingOutstandingPrincipal;
+    }
+}
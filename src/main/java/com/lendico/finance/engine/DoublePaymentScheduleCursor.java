@@ -0,0 +1,178 @@
+package com.lendico.finance.engine;
+
+import com.lendico.finance.util.CommonUtil;
+
+import java.time.LocalDateTime;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Schedule cursor of {@link CalculationMode#DOUBLE}. The amounts are carried over unrounded from one installment
+ * to the next and rounded to cents only when they are read.
+ */
+public final class DoublePaymentScheduleCursor extends PaymentScheduleCursor {
+
+    // Bound of the rounding error of an amount relative to Loan Amount * (1 + Monthly rate) ^ n, with a wide margin
+    private static final double ROUNDING_ERROR_BOUND = 1e-13;
+    private static final double CENTS_PER_UNIT = 100.0;
+
+    private final double loanAmount;
+    private final double annuity;
+    private final double annualInterest;
+    private final DoubleBinaryOperator interestFunction;
+    private final DoubleBinaryOperator principalFunction;
+
+    private double initialOutstandingPrincipal;
+    private double interest;
+    private double principal;
+    private double remainingOutstandingPrincipal;
+
+    /**
+     * @param loanAmount
+     * @param annuity
+     * @param annualInterest
+     * @param duration
+     * @param startDate
+     * @param interestFunction (annualInterest, initialOutstandingPrincipal) -> interest
+     * @param principalFunction (annuity, interest) -> principal
+     */
+    public DoublePaymentScheduleCursor(final double loanAmount, final double annuity, final double annualInterest,
+                                       final int duration, final LocalDateTime startDate,
+                                       final DoubleBinaryOperator interestFunction,
+                                       final DoubleBinaryOperator principalFunction) {
+
+        super(duration, startDate);
+
+        this.loanAmount = loanAmount;
+        this.annuity = annuity;
+        this.annualInterest = annualInterest;
+        this.interestFunction = interestFunction;
+        this.principalFunction = principalFunction;
+    }
+
+    @Override
+    protected void calculateRow(final int index) {
+
+        // Setting the loan amount for the first payment, else the remaining outstanding principal of the previous one
+
+        this.calculateAmounts(index == 0 ? this.loanAmount : this.remainingOutstandingPrincipal);
+    }
+
+    /**
+     * This method calculates the installment at the given index in O(1) with the closed form of the annuity loan.
+     * The interest of a month is a fixed rate of the outstanding principal, so after n payments it is
+     *
+     * Outstanding Principal = Loan Amount * (1 + Monthly rate) ^ n - Annuity * ((1 + Monthly rate) ^ n - 1) / Monthly rate
+     *
+     * where the monthly rate is read from the interest function, which must be linear in the outstanding principal.
+     *
+     * The installments calculated one by one carry a rounding error of their own, which grows with (1 + Monthly rate) ^ n.
+     * When an amount of the closed form is too close to half a cent to be sure that both round to the same cent,
+     * or is not finite, the installments are replayed instead, so the result always matches {@link #calculateRow(int)}.
+     *
+     * @param index
+     */
+    @Override
+    protected void seekRow(final int index) {
+
+        double monthlyRate = this.interestFunction.applyAsDouble(this.annualInterest, 1.0);
+
+        // (1 + Monthly rate) ^ n - 1, without losing the digits of a small rate
+        double growth = Math.expm1(index * Math.log1p(monthlyRate));
+
+        double initialOutstandingPrincipal = monthlyRate == 0
+                ? this.loanAmount - index * this.annuity
+                : this.loanAmount + growth * (this.loanAmount - this.annuity / monthlyRate);
+
+        double interest = this.interestFunction.applyAsDouble(this.annualInterest, initialOutstandingPrincipal);
+        double principal = this.principalFunction.applyAsDouble(this.annuity, interest);
+
+        double tolerance = ROUNDING_ERROR_BOUND * this.loanAmount * (1 + growth) * (1 + monthlyRate);
+
+        // Replaying as well when the closed form overflows, as the rounding cannot be checked then
+
+        if (!Double.isFinite(growth) || !Double.isFinite(tolerance) || !Double.isFinite(initialOutstandingPrincipal)
+                || !Double.isFinite(interest) || !Double.isFinite(principal)
+                || isNearHalfCent(initialOutstandingPrincipal, tolerance) || isNearHalfCent(interest, tolerance)
+                || isNearHalfCent(principal, tolerance)
+                || isNearHalfCent(initialOutstandingPrincipal - principal, tolerance)) {
+
+            // Replaying from the first installment, as the current one may come from the closed form as well
+
+            for (int rowIndex = 0; rowIndex <= index; rowIndex++) {
+
+                this.calculateRow(rowIndex);
+            }
+
+            return;
+        }
+
+        this.calculateAmounts(initialOutstandingPrincipal);
+    }
+
+    private static boolean isNearHalfCent(final double amount, final double tolerance) {
+
+        double cents = Math.abs(amount) * CENTS_PER_UNIT;
+
+        return Math.abs(cents - Math.floor(cents) - 0.5) < tolerance * CENTS_PER_UNIT;
+    }
+
+    private void calculateAmounts(final double initialOutstandingPrincipal) {
+
+        this.initialOutstandingPrincipal = initialOutstandingPrincipal;
+
+        this.interest = this.interestFunction.applyAsDouble(this.annualInterest, this.initialOutstandingPrincipal);
+
+        this.principal = this.principalFunction.applyAsDouble(this.annuity, this.interest);
+
+        // Calculating Remaining Outstanding Principal by subtracting principal from initial Outstanding Principal
+
+        this.remainingOutstandingPrincipal = this.initialOutstandingPrincipal - this.principal;
+    }
+
+    @Override
+    public long getBorrowerPaymentAmountInCents() {
+        return CommonUtil.toCents(this.annuity);
+    }
+
+    @Override
+    public long getInitialOutstandingPrincipalInCents() {
+        return CommonUtil.toCents(this.initialOutstandingPrincipal);
+    }
+
+    @Override
+    public long getInterestInCents() {
+        return CommonUtil.toCents(this.interest);
+    }
+
+    @Override
+    public long getPrincipalInCents() {
+        return CommonUtil.toCents(this.principal);
+    }
+
+    @Override
+    public long getRemainingOutstandingPrincipalInCents() {
+        return CommonUtil.toCents(this.remainingOutstandingPrincipal);
+    }
+
+    public double getAnnuity() {
+        return annuity;
+    }
+
+    public double getInitialOutstandingPrincipal() {
+        return initialOutstandingPrincipal;
+    }
+
+    public double getInterest() {
+        return interest;
+    }
+
+    public double getPrincipal() {
+        return principal;
+    }
+
+    public double getRemainingOutstandingPrincipal() {
+        return remainingOutstandingPrincipal;
+    }
+}
@@ -0,0 +1,113 @@
+package com.lendico.finance.engine;
+
+import java.time.LocalDate;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Monthly payment calendar of a plan. The installment k falls on the anchor day (the day of the start date)
+ * k months after the start date, or on the last day of that month when it is shorter, which is the result of
+ * applying CommonUtil.addMonth row after row.
+ *
+ * The epoch day of the first and the length of every month between {@link #FIRST_YEAR} and {@link #LAST_YEAR}
+ * are computed once and shared by all the calendars, so stepping through the dates is integer arithmetic only.
+ */
+public final class PaymentCalendar {
+
+    static final int FIRST_YEAR = 1900;
+    static final int LAST_YEAR = 2299;
+
+    private static final int NO_OF_MONTH_IN_YEAR = 12;
+    private static final int[] FIRST_EPOCH_DAY_OF_MONTH;
+    private static final byte[] LENGTH_OF_MONTH;
+
+    static {
+
+        int months = (LAST_YEAR - FIRST_YEAR + 1) * NO_OF_MONTH_IN_YEAR;
+
+        FIRST_EPOCH_DAY_OF_MONTH = new int[months];
+        LENGTH_OF_MONTH = new byte[months];
+
+        LocalDate firstOfMonth = LocalDate.of(FIRST_YEAR, 1, 1);
+
+        for (int month = 0; month < months; month++) {
+
+            FIRST_EPOCH_DAY_OF_MONTH[month] = (int) firstOfMonth.toEpochDay();
+            LENGTH_OF_MONTH[month] = (byte) firstOfMonth.lengthOfMonth();
+
+            firstOfMonth = firstOfMonth.plusMonths(1);
+        }
+    }
+
+    private final LocalDate startDate;
+    private final int startMonth;
+    private final int anchorDay;
+    private final int duration;
+
+    private PaymentCalendar(final LocalDate startDate, final int duration) {
+
+        this.startDate = startDate;
+        this.startMonth = (startDate.getYear() - FIRST_YEAR) * NO_OF_MONTH_IN_YEAR + startDate.getMonthValue() - 1;
+        this.anchorDay = startDate.getDayOfMonth();
+        this.duration = duration;
+    }
+
+    /**
+     * This method returns the calendar of the given number of installments starting at the given date.
+     *
+     * @param startDate
+     * @param duration
+     * @return
+     */
+    public static PaymentCalendar of(final LocalDate startDate, final int duration) {
+
+        return new PaymentCalendar(startDate, duration);
+    }
+
+    /**
+     * This method returns the epoch day of the installment at the given index.
+     *
+     * @param index
+     * @return
+     */
+    public int getEpochDay(final int index) {
+
+        long month = (long) this.startMonth + index;
+
+        if (month >= 0 && month < LENGTH_OF_MONTH.length) {
+
+            int monthIndex = (int) month;
+
+            return FIRST_EPOCH_DAY_OF_MONTH[monthIndex] + Math.min(this.anchorDay, LENGTH_OF_MONTH[monthIndex]) - 1;
+        }
+
+        // Outside of the precomputed years
+
+        return (int) this.startDate.plusMonths(index).toEpochDay();
+    }
+
+    /**
+     * This method returns the epoch days of all the installments in one pass.
+     *
+     * @return
+     */
+    public int[] toEpochDays() {
+
+        int[] epochDays = new int[this.duration];
+
+        for (int index = 0; index < this.duration; index++) {
+
+            epochDays[index] = this.getEpochDay(index);
+        }
+
+        return epochDays;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+}
@@ -0,0 +1,237 @@
+package com.lendico.finance.engine;
+
+import com.lendico.finance.model.BorrowerPaymentDto;
+import com.lendico.finance.util.CommonUtil;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Columnar representation of a repayment plan. Every column is a primitive array indexed by installment,
+ * amounts are stored as rounded cents and the payment dates as epoch days sharing one time of day.
+ * The plan is immutable once built and can be read by several threads at the same time.
+ */
+public final class PaymentPlan {
+
+    private final int size;
+    private final long[] borrowerPaymentAmount;
+    private final long[] initialOutstandingPrincipal;
+    private final long[] interest;
+    private final long[] principal;
+    private final long[] remainingOutstandingPrincipal;
+    private final int[] epochDay;
+    private final LocalTime time;
+
+    private PaymentPlan(final int size, final LocalTime time) {
+
+        this.size = size;
+        this.borrowerPaymentAmount = new long[size];
+        this.initialOutstandingPrincipal = new long[size];
+        this.interest = new long[size];
+        this.principal = new long[size];
+        this.remainingOutstandingPrincipal = new long[size];
+        this.epochDay = new int[size];
+        this.time = time;
+    }
+
+    /**
+     * This method drains the given cursor into a new plan.
+     *
+     * @param cursor
+     * @return
+     */
+    public static PaymentPlan of(final PaymentScheduleCursor cursor) {
+
+        PaymentPlan paymentPlan = new PaymentPlan(cursor.getDuration(), cursor.getTime());
+
+        while (cursor.next()) {
+
+            paymentPlan.setRow(cursor.getIndex(), cursor);
+        }
+
+        return paymentPlan;
+    }
+
+    /**
+     * This method builds a plan of at most limit installments of the given cursor, starting from the installment
+     * at the given offset. The cursor seeks to the offset, so only the installments of the page are calculated.
+     * The plan is empty when the offset is beyond the schedule.
+     *
+     * @param cursor
+     * @param offset
+     * @param limit
+     * @return
+     */
+    public static PaymentPlan of(final PaymentScheduleCursor cursor, final int offset, final int limit) {
+
+        PaymentPlan paymentPlan = new PaymentPlan(
+                Math.max(0, Math.min(limit, cursor.getDuration() - offset)), cursor.getTime());
+
+        if (paymentPlan.size == 0 || !cursor.moveTo(offset)) {
+
+            return paymentPlan;
+        }
+
+        int index = 0;
+
+        do {
+
+            paymentPlan.setRow(index++, cursor);
+
+        } while (index < paymentPlan.size && cursor.next());
+
+        return paymentPlan;
+    }
+
+    /**
+     * This method builds a plan from the given Borrower payment list. All the payments are expected at the
+     * time of day of the first one.
+     *
+     * @param borrowerPaymentList
+     * @return
+     */
+    public static PaymentPlan of(final List<BorrowerPaymentDto> borrowerPaymentList) {
+
+        PaymentPlan paymentPlan = new PaymentPlan(borrowerPaymentList.size(),
+                borrowerPaymentList.isEmpty() ? LocalTime.MIDNIGHT : borrowerPaymentList.get(0).getDate().toLocalTime());
+
+        for (int index = 0; index < paymentPlan.size; index++) {
+
+            BorrowerPaymentDto borrowerPaymentDto = borrowerPaymentList.get(index);
+
+            paymentPlan.borrowerPaymentAmount[index] = CommonUtil.toCents(borrowerPaymentDto.getBorrowerPaymentAmount());
+            paymentPlan.initialOutstandingPrincipal[index] = CommonUtil.toCents(borrowerPaymentDto.getInitialOutstandingPrincipal());
+            paymentPlan.interest[index] = CommonUtil.toCents(borrowerPaymentDto.getInterest());
+            paymentPlan.principal[index] = CommonUtil.toCents(borrowerPaymentDto.getPrincipal());
+            paymentPlan.remainingOutstandingPrincipal[index] = CommonUtil.toCents(borrowerPaymentDto.getRemainingOutstandingPrincipal());
+            paymentPlan.epochDay[index] = (int) borrowerPaymentDto.getDate().toLocalDate().toEpochDay();
+        }
+
+        return paymentPlan;
+    }
+
+    public LocalTime getTime() {
+
+        return this.time;
+    }
+
+    public int size() {
+
+        return this.size;
+    }
+
+    /**
+     * This method returns a new flyweight view positioned on the first row.
+     *
+     * @return
+     */
+    public RowView newRowView() {
+
+        return new RowView();
+    }
+
+    /**
+     * This method visits every row with a single flyweight view.
+     *
+     * @param consumer
+     */
+    public void forEachRow(final Consumer<PaymentRow> consumer) {
+
+        RowView rowView = new RowView();
+
+        for (int index = 0; index < this.size; index++) {
+
+            consumer.accept(rowView.moveTo(index));
+        }
+    }
+
+    private void setRow(final int index, final PaymentRow row) {
+
+        this.borrowerPaymentAmount[index] = row.getBorrowerPaymentAmountInCents();
+        this.initialOutstandingPrincipal[index] = row.getInitialOutstandingPrincipalInCents();
+        this.interest[index] = row.getInterestInCents();
+        this.principal[index] = row.getPrincipalInCents();
+        this.remainingOutstandingPrincipal[index] = row.getRemainingOutstandingPrincipalInCents();
+        this.epochDay[index] = row.getEpochDay();
+    }
+
+    /**
+     * This method materializes the plan as Borrower payment list
+     *
+     * @return
+     */
+    public List<BorrowerPaymentDto> toBorrowerPaymentList() {
+
+        List<BorrowerPaymentDto> borrowerPaymentList = new ArrayList<>(this.size);
+
+        this.forEachRow(row -> borrowerPaymentList.add(row.toBorrowerPaymentDto()));
+
+        return borrowerPaymentList;
+    }
+
+    /**
+     * Flyweight row over the columns of the plan.
+     */
+    public final class RowView implements PaymentRow {
+
+        private int index;
+
+        private RowView() {
+        }
+
+        public RowView moveTo(final int index) {
+
+            if (index < 0 || index >= size) {
+
+                throw new IndexOutOfBoundsException("Installment index: " + index + ", size: " + size);
+            }
+
+            this.index = index;
+
+            return this;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public long getBorrowerPaymentAmountInCents() {
+            return borrowerPaymentAmount[index];
+        }
+
+        @Override
+        public long getInitialOutstandingPrincipalInCents() {
+            return initialOutstandingPrincipal[index];
+        }
+
+        @Override
+        public long getInterestInCents() {
+            return interest[index];
+        }
+
+        @Override
+        public long getPrincipalInCents() {
+            return principal[index];
+        }
+
+        @Override
+        public long getRemainingOutstandingPrincipalInCents() {
+            return remainingOutstandingPrincipal[index];
+        }
+
+        @Override
+        public int getEpochDay() {
+            return epochDay[index];
+        }
+
+        @Override
+        public LocalTime getTime() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.lendico.finance.engine;
+
+import com.lendico.finance.model.BorrowerPaymentDto;
+import com.lendico.finance.util.CommonUtil;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Read-only view of one installment. The amounts are already rounded and kept in cents.
+ * Implementations are usually flyweights, so a row must not be kept after moving to the next one.
+ */
+public interface PaymentRow {
+
+    long getBorrowerPaymentAmountInCents();
+
+    long getInitialOutstandingPrincipalInCents();
+
+    long getInterestInCents();
+
+    long getPrincipalInCents();
+
+    long getRemainingOutstandingPrincipalInCents();
+
+    int getEpochDay();
+
+    LocalTime getTime();
+
+    default LocalDateTime getDate() {
+
+        return LocalDateTime.of(LocalDate.ofEpochDay(this.getEpochDay()), this.getTime());
+    }
+
+    /**
+     * This method builds the Borrower payment of the row. Use it only when a caller really needs the object.
+     *
+     * @return
+     */
+    default BorrowerPaymentDto toBorrowerPaymentDto() {
+
+        return BorrowerPaymentDto.builder()
+                .borrowerPaymentAmount(CommonUtil.fromCents(this.getBorrowerPaymentAmountInCents()))
+                .date(this.getDate())
+                .initialOutstandingPrincipal(CommonUtil.fromCents(this.getInitialOutstandingPrincipalInCents()))
+                .interest(CommonUtil.fromCents(this.getInterestInCents()))
+                .principal(CommonUtil.fromCents(this.getPrincipalInCents()))
+                .remainingOutstandingPrincipal(CommonUtil.fromCents(this.getRemainingOutstandingPrincipalInCents()))
+                .build();
+    }
+}
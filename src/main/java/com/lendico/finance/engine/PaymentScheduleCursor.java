@@ -0,0 +1,132 @@
+package com.lendico.finance.engine;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Per-call cursor which walks through the repayment schedule one installment at a time.
+ * All the state of a single plan generation lives in this object, so one cursor must never be
+ * shared between threads while the calculation functions themselves are stateless.
+ *
+ * The subclasses hold the amounts of the current installment in their own arithmetic,
+ * see {@link CalculationMode}.
+ */
+public abstract class PaymentScheduleCursor implements PaymentRow {
+
+    private final int duration;
+    private final PaymentCalendar paymentCalendar;
+    private final LocalTime time;
+
+    private int index = -1;
+
+    /**
+     * @param duration
+     * @param startDate
+     */
+    protected PaymentScheduleCursor(final int duration, final LocalDateTime startDate) {
+
+        this.duration = duration;
+        this.paymentCalendar = PaymentCalendar.of(startDate.toLocalDate(), duration);
+        this.time = startDate.toLocalTime();
+    }
+
+    /**
+     * This method moves the cursor to the next installment and returns false once the schedule is exhausted.
+     *
+     * @return
+     */
+    public final boolean next() {
+
+        if (this.index + 1 >= this.duration) {
+
+            return false;
+        }
+
+        this.index++;
+
+        this.calculateRow(this.index);
+
+        return true;
+    }
+
+    /**
+     * This method moves the cursor to the installment at the given index and returns false when there is no such
+     * installment. The cursor can be moved forward with {@link #next()} from there.
+     *
+     * @param index
+     * @return
+     */
+    public final boolean moveTo(final int index) {
+
+        if (index < 0 || index >= this.duration) {
+
+            return false;
+        }
+
+        this.seekRow(index);
+
+        this.index = index;
+
+        return true;
+    }
+
+    /**
+     * This method calculates the amounts of the installment at the given index. It is called once per installment,
+     * in order.
+     *
+     * @param index
+     */
+    protected abstract void calculateRow(final int index);
+
+    /**
+     * This method calculates the amounts of the installment at the given index, in any order. It replays the
+     * installments from the current one, or from the first one when moving backwards, so it takes O(index) time.
+     * Subclasses having a closed form override it.
+     *
+     * @param index
+     */
+    protected void seekRow(final int index) {
+
+        int fromIndex = index > this.index ? this.index + 1 : 0;
+
+        for (int rowIndex = fromIndex; rowIndex <= index; rowIndex++) {
+
+            this.calculateRow(rowIndex);
+        }
+    }
+
+    /**
+     * This method returns true when the given index is the last installment of the schedule.
+     *
+     * @param index
+     * @return
+     */
+    protected boolean isLastRow(final int index) {
+
+        return index == this.duration - 1;
+    }
+
+    @Override
+    public int getEpochDay() {
+        return this.paymentCalendar.getEpochDay(Math.max(this.index, 0));
+    }
+
+    @Override
+    public LocalTime getTime() {
+        return this.time;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public LocalDateTime getPaymentDate() {
+        return this.getDate();
+    }
+}
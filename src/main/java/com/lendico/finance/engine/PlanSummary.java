@@ -0,0 +1,100 @@
+package com.lendico.finance.engine;
+
+import com.lendico.finance.model.PlanSummaryDto;
+import com.lendico.finance.util.CommonUtil;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Totals of a repayment plan folded over its installments in a single pass, in cents. Only the running totals
+ * and the last installment are kept, so the memory used does not grow with the duration.
+ *
+ * The totals are sums of the rounded amounts of every installment, hence they match the sums over
+ * {@link PaymentPlan} to the cent.
+ */
+public final class PlanSummary {
+
+    private int duration;
+    private long borrowerPaymentAmount;
+    private long totalInterest;
+    private long totalRepaid;
+    private LocalDateTime finalPaymentDate;
+    private long finalRemainingOutstandingPrincipal;
+
+    private PlanSummary() {
+    }
+
+    /**
+     * This method drains the given cursor into a new summary.
+     *
+     * @param cursor
+     * @return
+     */
+    public static PlanSummary of(final PaymentScheduleCursor cursor) {
+
+        PlanSummary planSummary = new PlanSummary();
+
+        while (cursor.next()) {
+
+            planSummary.add(cursor);
+        }
+
+        if (planSummary.duration > 0) {
+
+            planSummary.finalPaymentDate = cursor.getDate();
+            planSummary.finalRemainingOutstandingPrincipal = cursor.getRemainingOutstandingPrincipalInCents();
+        }
+
+        return planSummary;
+    }
+
+    private void add(final PaymentRow row) {
+
+        if (this.duration++ == 0) {
+
+            // The installment amount of the annuity, the last one may differ in CENTS mode
+            this.borrowerPaymentAmount = row.getBorrowerPaymentAmountInCents();
+        }
+
+        this.totalInterest += row.getInterestInCents();
+        this.totalRepaid += row.getBorrowerPaymentAmountInCents();
+    }
+
+    public PlanSummaryDto toPlanSummaryDto() {
+
+        return PlanSummaryDto.builder()
+                .duration(this.duration)
+                .borrowerPaymentAmount(CommonUtil.fromCents(this.borrowerPaymentAmount))
+                .totalInterest(CommonUtil.fromCents(this.totalInterest))
+                .totalRepaid(CommonUtil.fromCents(this.totalRepaid))
+                .finalPaymentDate(this.finalPaymentDate)
+                .finalRemainingOutstandingPrincipal(CommonUtil.fromCents(this.finalRemainingOutstandingPrincipal))
+                .build();
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public long getBorrowerPaymentAmountInCents() {
+        return borrowerPaymentAmount;
+    }
+
+    public long getTotalInterestInCents() {
+        return totalInterest;
+    }
+
+    public long getTotalRepaidInCents() {
+        return totalRepaid;
+    }
+
+    public LocalDateTime getFinalPaymentDate() {
+        return finalPaymentDate;
+    }
+
+    public long getFinalRemainingOutstandingPrincipalInCents() {
+        return finalRemainingOutstandingPrincipal;
+    }
+}
@@ -0,0 +1,157 @@
+package com.lendico.finance.engine;
+
+import com.lendico.finance.util.CommonUtil;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Schedule cursor of {@link CalculationMode#DOUBLE} scaling an {@link AmortizationTemplate} by the loan amount, so
+ * every installment is a few multiplications, in any order, instead of the recurrence. The amounts are rounded to
+ * cents as soon as they are scaled.
+ *
+ * A scaled amount differs from the one calculated installment by installment in its last digits only. When an amount
+ * is too close to half a cent to be sure that both round to the same cent, the installment is taken from the
+ * {@link DoublePaymentScheduleCursor} of the loan instead, so the result always matches it to the cent. Going
+ * forward, that cursor steps along the recurrence from where it stopped, so a whole plan replays it at most once.
+ */
+public final class TemplatePaymentScheduleCursor extends PaymentScheduleCursor {
+
+    private static final double CENTS_PER_UNIT = 100.0;
+    private static final double HALF_CENT = 0.5;
+    private static final long NEAR_HALF_CENT = Long.MIN_VALUE;
+
+    private final AmortizationTemplate template;
+    private final double loanAmount;
+    private final long annuityInCents;
+    private final double toleranceInCents;
+    private final DoublePaymentScheduleCursor fallbackCursor;
+
+    // True while the fallback cursor has only been moved with next(), so its amounts are those of the recurrence
+    private boolean fallbackOnRecurrence = true;
+
+    private long initialOutstandingPrincipalInCents;
+    private long interestInCents;
+    private long principalInCents;
+    private long remainingOutstandingPrincipalInCents;
+
+    /**
+     * @param template template of the annual interest and duration of the loan
+     * @param loanAmount
+     * @param annuity annuity of the loan, the annuity of the template scaled by the loan amount
+     * @param startDate
+     * @param fallbackCursor cursor of the same loan, positioned before the first installment
+     */
+    public TemplatePaymentScheduleCursor(final AmortizationTemplate template, final double loanAmount,
+                                         final double annuity, final LocalDateTime startDate,
+                                         final DoublePaymentScheduleCursor fallbackCursor) {
+
+        super(template.getDuration(), startDate);
+
+        this.template = template;
+        this.loanAmount = loanAmount;
+        this.annuityInCents = CommonUtil.toCents(annuity);
+        this.toleranceInCents = template.getTolerance(loanAmount) * CENTS_PER_UNIT;
+        this.fallbackCursor = fallbackCursor;
+    }
+
+    @Override
+    protected void calculateRow(final int index) {
+
+        this.seekRow(index);
+    }
+
+    @Override
+    protected void seekRow(final int index) {
+
+        this.initialOutstandingPrincipalInCents = this.scaleToCents(this.template.getInitialOutstandingPrincipal(index));
+        this.interestInCents = this.scaleToCents(this.template.getInterest(index));
+        this.principalInCents = this.scaleToCents(this.template.getPrincipal(index));
+        this.remainingOutstandingPrincipalInCents = this.scaleToCents(this.template.getRemainingOutstandingPrincipal(index));
+
+        if (this.initialOutstandingPrincipalInCents == NEAR_HALF_CENT || this.interestInCents == NEAR_HALF_CENT
+                || this.principalInCents == NEAR_HALF_CENT || this.remainingOutstandingPrincipalInCents == NEAR_HALF_CENT) {
+
+            this.moveFallbackCursorTo(index);
+
+            this.initialOutstandingPrincipalInCents = this.fallbackCursor.getInitialOutstandingPrincipalInCents();
+            this.interestInCents = this.fallbackCursor.getInterestInCents();
+            this.principalInCents = this.fallbackCursor.getPrincipalInCents();
+            this.remainingOutstandingPrincipalInCents = this.fallbackCursor.getRemainingOutstandingPrincipalInCents();
+        }
+    }
+
+    /**
+     * This method moves the fallback cursor to the given index. Forward of an installment of the recurrence it steps
+     * with {@link PaymentScheduleCursor#next()}, which costs the installments in between only, else it seeks.
+     *
+     * @param index
+     */
+    private void moveFallbackCursorTo(final int index) {
+
+        if (this.fallbackOnRecurrence && this.fallbackCursor.getIndex() <= index) {
+
+            while (this.fallbackCursor.getIndex() < index) {
+
+                this.fallbackCursor.next();
+            }
+
+            return;
+        }
+
+        this.fallbackOnRecurrence = false;
+
+        this.fallbackCursor.moveTo(index);
+    }
+
+    /**
+     * This method scales the given amount of the template by the loan amount and rounds it half up to cents, or
+     * returns {@link #NEAR_HALF_CENT} when it is too close to half a cent. Away from half a cent, rounding the
+     * scaled amount directly gives the same cents as {@link CommonUtil#toCents(double)}.
+     *
+     * @param unitAmount
+     * @return
+     */
+    private long scaleToCents(final double unitAmount) {
+
+        double amount = this.loanAmount * unitAmount;
+        double cents = Math.abs(amount) * CENTS_PER_UNIT;
+        double wholeCents = Math.floor(cents);
+        double fraction = cents - wholeCents;
+
+        if (Math.abs(fraction - HALF_CENT) < this.toleranceInCents) {
+
+            return NEAR_HALF_CENT;
+        }
+
+        long roundedCents = (long) wholeCents + (fraction > HALF_CENT ? 1 : 0);
+
+        return amount < 0 ? -roundedCents : roundedCents;
+    }
+
+    @Override
+    public long getBorrowerPaymentAmountInCents() {
+        return annuityInCents;
+    }
+
+    @Override
+    public long getInitialOutstandingPrincipalInCents() {
+        return initialOutstandingPrincipalInCents;
+    }
+
+    @Override
+    public long getInterestInCents() {
+        return interestInCents;
+    }
+
+    @Override
+    public long getPrincipalInCents() {
+        return principalInCents;
+    }
+
+    @Override
+    public long getRemainingOutstandingPrincipalInCents() {
+        return remainingOutstandingPrincipalInCents;
+    }
+}
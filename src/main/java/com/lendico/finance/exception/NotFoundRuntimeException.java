@@ -0,0 +1,13 @@
+package com.lendico.finance.exception;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Thrown when the requested resource, such as a stored plan, does not exist.
+ */
+public class NotFoundRuntimeException extends GenericRuntimeException {
+
+    public NotFoundRuntimeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,56 @@
+package com.lendico.finance.exception;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Thrown by the precompiled validators. It carries the ordered error messages instead of constraint violations,
+ * and it is still a ConstraintViolationException for the callers of the validation factory service.
+ */
+public class RequestValidationRuntimeException extends ConstraintViolationException {
+
+    private static final String MESSAGE_SEPARATOR = ", ";
+
+    private final List<String> errors;
+
+    public RequestValidationRuntimeException(List<String> errors) {
+
+        super(String.join(MESSAGE_SEPARATOR, errors), Collections.emptySet());
+
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public List<String> getErrors() {
+
+        return errors;
+    }
+
+    /**
+     * This method returns the error messages of the given exception, whichever validator raised it.
+     *
+     * @param exception
+     * @return
+     */
+    public static List<String> errorsOf(ConstraintViolationException exception) {
+
+        if (exception instanceof RequestValidationRuntimeException) {
+
+            return ((RequestValidationRuntimeException) exception).getErrors();
+        }
+
+        if (exception.getConstraintViolations() == null) {
+
+            return Collections.singletonList(exception.getMessage());
+        }
+
+        return exception.getConstraintViolations()
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,23 @@
+package com.lendico.finance.exception;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Thrown when a request is shed because the service is running at capacity. The client may retry
+ * after the given number of seconds.
+ */
+public class ServiceUnavailableRuntimeException extends GenericRuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableRuntimeException(String message, long retryAfterSeconds) {
+
+        super(message);
+
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -2,20 +2,29 @@ package com.lendico.finance.exception.advice;
 
 import com.lendico.finance.exception.GenericClientRuntimeException;
 import com.lendico.finance.exception.GenericServerRuntimeException;
+import com.lendico.finance.exception.NotFoundRuntimeException;
+import com.lendico.finance.exception.RequestValidationRuntimeException;
+import com.lendico.finance.exception.ServiceUnavailableRuntimeException;
+import com.lendico.finance.logging.AsyncLogPipeline;
+import com.lendico.finance.logging.PayloadLoggingRequestBodyAdvice;
 import com.lendico.finance.model.GenericExceptionResponseDto;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolationException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
@@ -28,9 +37,21 @@ import java.util.stream.Collectors;
  */
 @RestController
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GenericExceptionHandlerAdvice extends ResponseEntityExceptionHandler {
 
     private static final String URI = "uri=";
+    private static final String INVALID_PARAMETER = "Parameter %s is invalid";
+
+    private AsyncLogPipeline asyncLogPipeline;
+    private PayloadLoggingRequestBodyAdvice payloadLoggingRequestBodyAdvice;
+
+    public GenericExceptionHandlerAdvice(final AsyncLogPipeline asyncLogPipeline,
+                                         final PayloadLoggingRequestBodyAdvice payloadLoggingRequestBodyAdvice) {
+
+        this.asyncLogPipeline = asyncLogPipeline;
+        this.payloadLoggingRequestBodyAdvice = payloadLoggingRequestBodyAdvice;
+    }
 
     /**
      * Handling MethodArgumentNotValidException
@@ -62,6 +83,36 @@ public class GenericExceptionHandlerAdvice extends ResponseEntityExceptionHandle
                 , HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handling BindException raised when the query parameters cannot be bound to the request object
+     *
+     * @param exception
+     * @param headers
+     * @param status
+     * @param request
+     * @return
+     */
+    @Override
+    protected ResponseEntity<Object> handleBindException(BindException exception, HttpHeaders headers,
+                                                         HttpStatus status, WebRequest request) {
+
+        List<String> errorList = exception
+                .getFieldErrors()
+                .stream()
+                .map(fieldError -> String.format(INVALID_PARAMETER, fieldError.getField()))
+                .collect(Collectors.toList());
+
+        return new ResponseEntity<>(
+                GenericExceptionResponseDto.builder()
+                        .timestamp(LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC))
+                        .status(HttpStatus.BAD_REQUEST.value())
+                        .errors(errorList)
+                        .message(HttpStatus.BAD_REQUEST.getReasonPhrase())
+                        .path(request.getDescription(false).replace(URI, ""))
+                        .build()
+                , HttpStatus.BAD_REQUEST);
+    }
+
     /**
      * Handling HttpMessageNotReadable
      *
@@ -76,6 +127,14 @@ public class GenericExceptionHandlerAdvice extends ResponseEntityExceptionHandle
                                                                   HttpHeaders headers, HttpStatus status,
                                                                   WebRequest request) {
 
+        // The body was never deserialized, so its raw payload is logged instead
+        HttpServletRequest servletRequest = ((NativeWebRequest) request).getNativeRequest(HttpServletRequest.class);
+
+        if (servletRequest != null) {
+
+            this.payloadLoggingRequestBodyAdvice.logUnreadablePayload(servletRequest);
+        }
+
         return new ResponseEntity<>(
                 GenericExceptionResponseDto.builder()
                         .timestamp(LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC))
@@ -87,6 +146,33 @@ public class GenericExceptionHandlerAdvice extends ResponseEntityExceptionHandle
                 , HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handling ConstraintViolationException raised by the programmatic validation in the service layer.
+     * The payload is the same as the one of MethodArgumentNotValidException.
+     *
+     * @param exception the exception to handle
+     * @param request the HttpServletRequest
+     * @return the response entity
+     */
+    @ExceptionHandler(ConstraintViolationException.class)
+    public final ResponseEntity<GenericExceptionResponseDto> handleConstraintViolationException(
+            ConstraintViolationException exception, HttpServletRequest request) {
+
+        List<String> errorList = RequestValidationRuntimeException.errorsOf(exception);
+
+        this.asyncLogPipeline.logValidationErrors(request.getRequestURI(), errorList);
+
+        return new ResponseEntity<>(
+                GenericExceptionResponseDto.builder()
+                        .timestamp(LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC))
+                        .status(HttpStatus.BAD_REQUEST.value())
+                        .errors(errorList)
+                        .message(HttpStatus.BAD_REQUEST.getReasonPhrase())
+                        .path(request.getContextPath() + request.getServletPath())
+                        .build()
+                , HttpStatus.BAD_REQUEST);
+    }
+
     /**
      * Handling client runtime exception
      *
@@ -109,6 +195,53 @@ public class GenericExceptionHandlerAdvice extends ResponseEntityExceptionHandle
                 , HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handling missing resource
+     *
+     * @param exception the exception to handle
+     * @param request the HttpServletRequest
+     * @return the response entity
+     */
+    @ExceptionHandler(NotFoundRuntimeException.class)
+    public final ResponseEntity<GenericExceptionResponseDto> handleNotFoundRuntimeException(
+            NotFoundRuntimeException exception, HttpServletRequest request) {
+
+        return new ResponseEntity<>(
+                GenericExceptionResponseDto.builder()
+                        .timestamp(LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC))
+                        .status(HttpStatus.NOT_FOUND.value())
+                        .errors(Collections.singletonList(exception.getMessage()))
+                        .message(HttpStatus.NOT_FOUND.getReasonPhrase())
+                        .path(request.getContextPath() + request.getServletPath())
+                        .build()
+                , HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handling request shed by the admission control
+     *
+     * @param exception the exception to handle
+     * @param request the HttpServletRequest
+     * @return the response entity
+     */
+    @ExceptionHandler(ServiceUnavailableRuntimeException.class)
+    public final ResponseEntity<GenericExceptionResponseDto> handleServiceUnavailableRuntimeException(
+            ServiceUnavailableRuntimeException exception, HttpServletRequest request) {
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()));
+
+        return new ResponseEntity<>(
+                GenericExceptionResponseDto.builder()
+                        .timestamp(LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC))
+                        .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                        .errors(Collections.singletonList(exception.getMessage()))
+                        .message(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase())
+                        .path(request.getContextPath() + request.getServletPath())
+                        .build()
+                , headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Handling server runtime exception
      *
@@ -0,0 +1,79 @@
+package com.lendico.finance.factory;
+
+import com.lendico.finance.model.GeneratePlanRequestDto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Precompiled validator of {@link GeneratePlanRequestDto}. It checks the same @NotNull and @AssertTrue rules as
+ * the bean annotations in straight-line code, without reflection, and returns the same messages in field order.
+ */
+public class GeneratePlanRequestValidator {
+
+    private GeneratePlanRequestValidator() {
+    }
+
+    /**
+     * This method returns the error messages of the given request, or an empty list when it is valid.
+     *
+     * @param generatePlanRequestDto
+     * @return
+     */
+    public static List<String> validate(final GeneratePlanRequestDto generatePlanRequestDto) {
+
+        Double loanAmount = generatePlanRequestDto.getLoanAmount();
+        Double nominalRate = generatePlanRequestDto.getNominalRate();
+        Integer duration = generatePlanRequestDto.getDuration();
+
+        if (loanAmount != null && loanAmount > 0
+                && nominalRate != null && nominalRate > 0
+                && duration != null && duration > 0
+                && generatePlanRequestDto.getStartDate() != null) {
+
+            return Collections.emptyList();
+        }
+
+        List<String> errors = new ArrayList<>();
+
+        if (loanAmount == null) {
+
+            errors.add(GeneratePlanRequestDto.LOAN_AMOUNT_REQUIRED);
+        }
+
+        if (loanAmount == null || !(loanAmount > 0)) {
+
+            errors.add(GeneratePlanRequestDto.LOAN_AMOUNT_INVALID);
+        }
+
+        if (nominalRate == null) {
+
+            errors.add(GeneratePlanRequestDto.NOMINAL_RATE_REQUIRED);
+        }
+
+        if (nominalRate == null || !(nominalRate > 0)) {
+
+            errors.add(GeneratePlanRequestDto.NOMINAL_RATE_INVALID);
+        }
+
+        if (duration == null) {
+
+            errors.add(GeneratePlanRequestDto.DURATION_REQUIRED);
+        }
+
+        if (duration == null || duration <= 0) {
+
+            errors.add(GeneratePlanRequestDto.DURATION_INVALID);
+        }
+
+        if (generatePlanRequestDto.getStartDate() == null) {
+
+            errors.add(GeneratePlanRequestDto.START_DATE_REQUIRED);
+        }
+
+        return errors;
+    }
+}
@@ -1,13 +1,14 @@
 package com.lendico.finance.factory;
 
 import com.lendico.finance.exception.GenericClientRuntimeException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.lendico.finance.exception.RequestValidationRuntimeException;
+import com.lendico.finance.model.GeneratePlanRequestDto;
 import org.springframework.stereotype.Service;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.Validator;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -18,8 +19,6 @@ import java.util.Set;
 @Service("validationFactoryService")
 public class ValidationFactoryServiceImpl {
 
-    private static final Logger LOG = LoggerFactory.getLogger(ValidationFactoryServiceImpl.class);
-
     private Validator validator;
 
     public ValidationFactoryServiceImpl(final Validator validator) {
@@ -29,17 +28,27 @@ public class ValidationFactoryServiceImpl {
 
     /**
      * This method in charge of validating the given object and throws ConstraintViolationException if in case of any violation.
+     * The violations are not logged here, the caller handling the exception logs them through the AsyncLogPipeline.
      *
+     * The plan request is checked by the precompiled {@link GeneratePlanRequestValidator},
+     * any other object goes through the bean validator.
      *
      * @param object
      */
     public void validObject(Object object) {
 
-        if (object != null) {
+        if (object instanceof GeneratePlanRequestDto) {
 
-            Set<ConstraintViolation<Object>> violations = validator.validate(object);
+            List<String> errors = GeneratePlanRequestValidator.validate((GeneratePlanRequestDto) object);
 
-            violations.parallelStream().map(ConstraintViolation::getMessage).forEach(LOG::error);
+            if (!errors.isEmpty()) {
+
+                throw new RequestValidationRuntimeException(errors);
+            }
+
+        } else if (object != null) {
+
+            Set<ConstraintViolation<Object>> violations = validator.validate(object);
 
             if (!violations.isEmpty()) {
 
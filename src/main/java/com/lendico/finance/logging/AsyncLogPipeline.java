@@ -0,0 +1,233 @@
+package com.lendico.finance.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Logging pipeline of the request payloads and validation errors. The request threads only sample the record,
+ * check the rate limit and put it into a bounded lock-free ring buffer; the message is formatted and written by a
+ * single background thread. When the buffer is full the record is dropped and counted instead of blocking.
+ * While the buffer stays empty the background thread parks for longer and longer, up to 100 ms, so an idle
+ * pipeline hardly ever wakes up.
+ *
+ * Every record is counted by loan.logging.records with the tags type (payload, validation) and
+ * result (enqueued, sampled_out, rate_limited, dropped).
+ */
+@Component("asyncLogPipeline")
+public class AsyncLogPipeline implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncLogPipeline.class);
+
+    public static final String RECORDS_COUNTER_NAME = "loan.logging.records";
+
+    private static final String TYPE_TAG = "type";
+    private static final String RESULT_TAG = "result";
+    private static final String THREAD_NAME = "log-pipeline";
+    private static final String PAYLOAD_MESSAGE_PREFIX = "REQUEST DATA : ";
+    private static final long MIN_IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long STOP_TIMEOUT_MILLIS = 1000;
+
+    private final LogRingBuffer<LogRecord> ringBuffer;
+    private final int maxPayloadLength;
+    private final Channel payloadChannel;
+    private final Channel validationChannel;
+
+    private volatile boolean running;
+    private Thread drainThread;
+
+    public AsyncLogPipeline(final @Value("${loan.logging.buffer-size}") int bufferSize,
+                            final @Value("${loan.logging.payload.sample-rate}") double payloadSampleRate,
+                            final @Value("${loan.logging.payload.max-per-second}") long payloadMaxPerSecond,
+                            final @Value("${loan.logging.payload.max-length}") int maxPayloadLength,
+                            final @Value("${loan.logging.validation.sample-rate}") double validationSampleRate,
+                            final @Value("${loan.logging.validation.max-per-second}") long validationMaxPerSecond,
+                            final MeterRegistry meterRegistry) {
+
+        this.ringBuffer = new LogRingBuffer<>(bufferSize);
+        this.maxPayloadLength = maxPayloadLength;
+        this.payloadChannel = new Channel("payload", new LogSampler(payloadSampleRate, payloadMaxPerSecond), meterRegistry);
+        this.validationChannel = new Channel("validation", new LogSampler(validationSampleRate, validationMaxPerSecond), meterRegistry);
+    }
+
+    /**
+     * This method logs the payload of a request. The payload is turned into text on the background thread,
+     * so it must not be modified afterwards.
+     *
+     * @param uri
+     * @param payload
+     */
+    public void logPayload(final URI uri, final Object payload) {
+
+        this.offer(this.payloadChannel, new LogRecord(LogRecord.Type.PAYLOAD, uri, payload));
+    }
+
+    /**
+     * This method logs the validation errors of a request.
+     *
+     * @param path
+     * @param errors
+     */
+    public void logValidationErrors(final String path, final List<String> errors) {
+
+        this.offer(this.validationChannel, new LogRecord(LogRecord.Type.VALIDATION, path, errors));
+    }
+
+    private void offer(final Channel channel, final LogRecord logRecord) {
+
+        if (!channel.sampler.sample()) {
+
+            channel.sampledOut.increment();
+
+        } else if (!channel.sampler.tryAcquire()) {
+
+            channel.rateLimited.increment();
+
+        } else if (!this.ringBuffer.offer(logRecord)) {
+
+            channel.dropped.increment();
+
+        } else {
+
+            channel.enqueued.increment();
+        }
+    }
+
+    private void drain() {
+
+        long idleParkNanos = MIN_IDLE_PARK_NANOS;
+
+        while (true) {
+
+            LogRecord logRecord = this.ringBuffer.poll();
+
+            if (logRecord != null) {
+
+                this.write(logRecord);
+
+                idleParkNanos = MIN_IDLE_PARK_NANOS;
+
+            } else if (this.running) {
+
+                LockSupport.parkNanos(idleParkNanos);
+
+                idleParkNanos = Math.min(idleParkNanos << 1, MAX_IDLE_PARK_NANOS);
+
+            } else {
+
+                return;
+            }
+        }
+    }
+
+    private void write(final LogRecord logRecord) {
+
+        try {
+
+            if (logRecord.getType() == LogRecord.Type.PAYLOAD) {
+
+                String payload = String.valueOf(logRecord.getContent());
+
+                URI uri = (URI) logRecord.getLocation();
+
+                LOG.info("{}uri={}{};payload={}", PAYLOAD_MESSAGE_PREFIX, uri.getRawPath(),
+                        uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery(),
+                        payload.length() > this.maxPayloadLength ? payload.substring(0, this.maxPayloadLength) : payload);
+
+            } else {
+
+                LOG.error("Validation failed for {}: {}", logRecord.getLocation(), logRecord.getContent());
+            }
+
+        } catch (RuntimeException exception) {
+
+            // The pipeline must survive a failing toString or appender
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+
+        if (this.running) {
+
+            return;
+        }
+
+        this.running = true;
+        this.drainThread = new Thread(this::drain, THREAD_NAME);
+        this.drainThread.setDaemon(true);
+        this.drainThread.start();
+    }
+
+    /**
+     * This method stops the background thread once the records already in the buffer are written.
+     */
+    @Override
+    public synchronized void stop() {
+
+        if (!this.running) {
+
+            return;
+        }
+
+        this.running = false;
+
+        // Wakes the background thread up from its idle park
+        LockSupport.unpark(this.drainThread);
+
+        try {
+
+            this.drainThread.join(STOP_TIMEOUT_MILLIS);
+
+        } catch (InterruptedException exception) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Sampling and counters of one type of record.
+     */
+    private static final class Channel {
+
+        private final LogSampler sampler;
+        private final Counter enqueued;
+        private final Counter sampledOut;
+        private final Counter rateLimited;
+        private final Counter dropped;
+
+        private Channel(final String type, final LogSampler sampler, final MeterRegistry meterRegistry) {
+
+            this.sampler = sampler;
+            this.enqueued = counter(meterRegistry, type, "enqueued");
+            this.sampledOut = counter(meterRegistry, type, "sampled_out");
+            this.rateLimited = counter(meterRegistry, type, "rate_limited");
+            this.dropped = counter(meterRegistry, type, "dropped");
+        }
+
+        private static Counter counter(final MeterRegistry meterRegistry, final String type, final String result) {
+
+            return Counter.builder(RECORDS_COUNTER_NAME)
+                    .tag(TYPE_TAG, type)
+                    .tag(RESULT_TAG, result)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.lendico.finance.logging;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Record handed over from a request thread to the {@link AsyncLogPipeline}. It keeps references only,
+ * the text is built when the record is written.
+ */
+final class LogRecord {
+
+    enum Type {
+        PAYLOAD,
+        VALIDATION
+    }
+
+    private final Type type;
+    private final Object location;
+    private final Object content;
+
+    LogRecord(final Type type, final Object location, final Object content) {
+
+        this.type = type;
+        this.location = location;
+        this.content = content;
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    Object getLocation() {
+        return location;
+    }
+
+    Object getContent() {
+        return content;
+    }
+}
@@ -0,0 +1,109 @@
+package com.lendico.finance.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Bounded lock-free ring buffer for many producers and a single consumer. Every slot carries a sequence number
+ * telling whether it is free for the producer of a given position or filled for the consumer, so producers only
+ * compete on one compare-and-set and never wait: {@link #offer(Object)} returns false when the buffer is full.
+ *
+ * @param <E>
+ */
+final class LogRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Only read and written by the consumer thread
+    private long head;
+
+    /**
+     * @param capacity rounded up to the next power of two
+     */
+    LogRingBuffer(final int capacity) {
+
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+
+        for (int index = 0; index < size; index++) {
+
+            this.sequences.set(index, index);
+        }
+    }
+
+    /**
+     * This method adds the given element, or returns false right away when the buffer is full.
+     *
+     * @param element
+     * @return
+     */
+    boolean offer(final E element) {
+
+        long position = this.tail.get();
+
+        while (true) {
+
+            int index = (int) (position & this.mask);
+            long difference = this.sequences.get(index) - position;
+
+            if (difference == 0) {
+
+                if (this.tail.compareAndSet(position, position + 1)) {
+
+                    this.elements.set(index, element);
+                    this.sequences.lazySet(index, position + 1);
+
+                    return true;
+                }
+
+                position = this.tail.get();
+
+            } else if (difference < 0) {
+
+                return false;
+
+            } else {
+
+                position = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * This method removes and returns the oldest element, or null when the buffer is empty.
+     * It must only be called from the consumer thread.
+     *
+     * @return
+     */
+    E poll() {
+
+        int index = (int) (this.head & this.mask);
+
+        if (this.sequences.get(index) != this.head + 1) {
+
+            return null;
+        }
+
+        E element = this.elements.get(index);
+
+        this.elements.lazySet(index, null);
+        this.sequences.lazySet(index, this.head + this.mask + 1);
+        this.head++;
+
+        return element;
+    }
+
+    int capacity() {
+
+        return this.mask + 1;
+    }
+}
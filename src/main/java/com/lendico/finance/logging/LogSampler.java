@@ -0,0 +1,75 @@
+package com.lendico.finance.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Sampling and rate limit of one kind of log record. The rate limit counts the sampled records per wall clock second
+ * in a single atomic word (second in the high half, count in the low half), so it never locks.
+ */
+final class LogSampler {
+
+    private static final int COUNT_BITS = 32;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long MILLIS_PER_SECOND = 1000;
+
+    private final double sampleRate;
+    private final long maxPerSecond;
+    private final AtomicLong window = new AtomicLong();
+
+    /**
+     * @param sampleRate fraction of the records to keep, between 0 and 1
+     * @param maxPerSecond maximum number of records kept per second
+     */
+    LogSampler(final double sampleRate, final long maxPerSecond) {
+
+        this.sampleRate = sampleRate;
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    /**
+     * This method returns true when the record is picked by the sampling.
+     *
+     * @return
+     */
+    boolean sample() {
+
+        return this.sampleRate >= 1 || (this.sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < this.sampleRate);
+    }
+
+    /**
+     * This method returns true when the record fits in the rate limit of the current second.
+     *
+     * @return
+     */
+    boolean tryAcquire() {
+
+        long second = System.currentTimeMillis() / MILLIS_PER_SECOND;
+
+        while (true) {
+
+            long current = this.window.get();
+            long next;
+
+            if (current >>> COUNT_BITS != second) {
+
+                next = second << COUNT_BITS | 1;
+
+            } else if ((current & COUNT_MASK) < this.maxPerSecond) {
+
+                next = current + 1;
+
+            } else {
+
+                return false;
+            }
+
+            if (this.window.compareAndSet(current, next)) {
+
+                return true;
+            }
+        }
+    }
+}
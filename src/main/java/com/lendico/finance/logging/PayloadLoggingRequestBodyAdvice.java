@@ -0,0 +1,118 @@
+package com.lendico.finance.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Hands the request body of every endpoint over to the {@link AsyncLogPipeline} once it is deserialized,
+ * instead of copying and logging the raw payload on the request thread.
+ *
+ * Only the first bytes of the raw body, up to loan.logging.payload.max-length, are kept while it is read, so the
+ * payload of a request whose body cannot be deserialized is still logged by {@link #logUnreadablePayload}.
+ */
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PayloadLoggingRequestBodyAdvice extends RequestBodyAdviceAdapter {
+
+    private static final String RAW_PAYLOAD_ATTRIBUTE = PayloadLoggingRequestBodyAdvice.class.getName() + ".rawPayload";
+
+    private AsyncLogPipeline asyncLogPipeline;
+    private int maxPayloadLength;
+
+    public PayloadLoggingRequestBodyAdvice(final AsyncLogPipeline asyncLogPipeline,
+                                           final @Value("${loan.logging.payload.max-length}") int maxPayloadLength) {
+
+        this.asyncLogPipeline = asyncLogPipeline;
+        this.maxPayloadLength = maxPayloadLength;
+    }
+
+    @Override
+    public boolean supports(final MethodParameter methodParameter, final Type targetType,
+                            final Class<? extends HttpMessageConverter<?>> converterType) {
+
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(final HttpInputMessage inputMessage, final MethodParameter parameter,
+                                           final Type targetType,
+                                           final Class<? extends HttpMessageConverter<?>> converterType)
+            throws IOException {
+
+        MediaType contentType = inputMessage.getHeaders().getContentType();
+        Charset charset = contentType == null || contentType.getCharset() == null
+                ? StandardCharsets.UTF_8 : contentType.getCharset();
+
+        RawPayloadInputStream body = new RawPayloadInputStream(inputMessage.getBody(), this.maxPayloadLength, charset);
+
+        currentRequest().setAttribute(RAW_PAYLOAD_ATTRIBUTE, body);
+
+        return new HttpInputMessage() {
+
+            @Override
+            public InputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return inputMessage.getHeaders();
+            }
+        };
+    }
+
+    @Override
+    public Object afterBodyRead(final Object body, final HttpInputMessage inputMessage, final MethodParameter parameter,
+                                final Type targetType, final Class<? extends HttpMessageConverter<?>> converterType) {
+
+        HttpServletRequest request = currentRequest();
+
+        request.removeAttribute(RAW_PAYLOAD_ATTRIBUTE);
+
+        this.asyncLogPipeline.logPayload(new ServletServerHttpRequest(request).getURI(), body);
+
+        return body;
+    }
+
+    /**
+     * This method logs the raw payload of the given request, as far as it was captured, once its body failed to be
+     * deserialized.
+     *
+     * @param request
+     */
+    public void logUnreadablePayload(final HttpServletRequest request) {
+
+        RawPayloadInputStream body = (RawPayloadInputStream) request.getAttribute(RAW_PAYLOAD_ATTRIBUTE);
+
+        if (body != null) {
+
+            request.removeAttribute(RAW_PAYLOAD_ATTRIBUTE);
+
+            this.asyncLogPipeline.logPayload(new ServletServerHttpRequest(request).getURI(), body.toPayload());
+        }
+    }
+
+    private static HttpServletRequest currentRequest() {
+
+        return ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+    }
+}
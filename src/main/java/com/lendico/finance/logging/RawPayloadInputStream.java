@@ -0,0 +1,112 @@
+package com.lendico.finance.logging;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Request body stream keeping a copy of the first bytes read through it, up to the max length, so the raw payload
+ * can still be logged when it cannot be deserialized.
+ */
+final class RawPayloadInputStream extends FilterInputStream {
+
+    private final byte[] captured;
+    private final Charset charset;
+
+    private int length;
+
+    RawPayloadInputStream(final InputStream inputStream, final int maxLength, final Charset charset) {
+
+        super(inputStream);
+
+        this.captured = new byte[Math.max(0, maxLength)];
+        this.charset = charset;
+    }
+
+    @Override
+    public int read() throws IOException {
+
+        int value = super.read();
+
+        if (value >= 0 && this.length < this.captured.length) {
+
+            this.captured[this.length++] = (byte) value;
+        }
+
+        return value;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int count) throws IOException {
+
+        int read = super.read(bytes, offset, count);
+
+        if (read > 0 && this.length < this.captured.length) {
+
+            int copied = Math.min(read, this.captured.length - this.length);
+
+            System.arraycopy(bytes, offset, this.captured, this.length, copied);
+
+            this.length += copied;
+        }
+
+        return read;
+    }
+
+    @Override
+    public boolean markSupported() {
+
+        // A reset would capture the same bytes twice
+        return false;
+    }
+
+    /**
+     * This method reads the rest of the body up to the max length, which the parser may have left unread when
+     * it failed, and returns the captured bytes as payload whose text is built once it is written.
+     *
+     * @return
+     */
+    Object toPayload() {
+
+        byte[] buffer = new byte[1024];
+
+        try {
+
+            while (this.length < this.captured.length && this.read(buffer, 0, buffer.length) > 0) {
+
+                // Captured by read
+            }
+
+        } catch (IOException exception) {
+
+            // The bytes read so far are logged
+        }
+
+        return new RawPayload(Arrays.copyOf(this.captured, this.length), this.charset);
+    }
+
+    /**
+     * Copy of the captured bytes handed over to the {@link AsyncLogPipeline}.
+     */
+    private static final class RawPayload {
+
+        private final byte[] bytes;
+        private final Charset charset;
+
+        private RawPayload(final byte[] bytes, final Charset charset) {
+
+            this.bytes = bytes;
+            this.charset = charset;
+        }
+
+        @Override
+        public String toString() {
+
+            return new String(this.bytes, this.charset);
+        }
+    }
+}
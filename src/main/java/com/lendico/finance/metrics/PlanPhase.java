@@ -0,0 +1,27 @@
+package com.lendico.finance.metrics;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Phases of a plan request timed by {@link PlanPhaseMetrics}
+ */
+public enum PlanPhase {
+
+    DESERIALIZATION("deserialization"),
+    VALIDATION("validation"),
+    ANNUITY("annuity"),
+    SCHEDULE("schedule"),
+    SERIALIZATION("serialization");
+
+    private final String tagValue;
+
+    PlanPhase(final String tagValue) {
+
+        this.tagValue = tagValue;
+    }
+
+    public String getTagValue() {
+
+        return this.tagValue;
+    }
+}
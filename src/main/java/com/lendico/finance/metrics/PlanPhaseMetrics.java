@@ -0,0 +1,97 @@
+package com.lendico.finance.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Latency timers of every phase of a plan request, published as loan.plan.phase with tags phase and duration.
+ * The duration tag is a bucket of the loan duration, so the long plans can be told apart in the percentiles.
+ * All the timers are registered upfront, recording one is a plain array lookup.
+ */
+@Component("planPhaseMetrics")
+public class PlanPhaseMetrics {
+
+    public static final String TIMER_NAME = "loan.plan.phase";
+    public static final String PHASE_TAG = "phase";
+    public static final String DURATION_TAG = "duration";
+
+    private static final String NO_DURATION_BUCKET = "none";
+
+    private static final int[] DURATION_BUCKET_LIMITS = {12, 60, 120, 240, 360};
+    private static final String[] DURATION_BUCKETS = {"1-12", "13-60", "61-120", "121-240", "241-360", "361+", NO_DURATION_BUCKET};
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final Timer[][] timers;
+
+    public PlanPhaseMetrics(final MeterRegistry meterRegistry) {
+
+        PlanPhase[] planPhases = PlanPhase.values();
+
+        this.timers = new Timer[planPhases.length][DURATION_BUCKETS.length];
+
+        for (PlanPhase planPhase : planPhases) {
+
+            for (int bucket = 0; bucket < DURATION_BUCKETS.length; bucket++) {
+
+                this.timers[planPhase.ordinal()][bucket] = Timer.builder(TIMER_NAME)
+                        .description("Latency of a phase of the plan generation")
+                        .tag(PHASE_TAG, planPhase.getTagValue())
+                        .tag(DURATION_TAG, DURATION_BUCKETS[bucket])
+                        .publishPercentileHistogram()
+                        .publishPercentiles(PERCENTILES)
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    /**
+     * This method returns the start time to pass to {@link #record(PlanPhase, Integer, long)}
+     *
+     * @return
+     */
+    public long start() {
+
+        return System.nanoTime();
+    }
+
+    /**
+     * This method records the time elapsed since the given start against the phase and duration bucket
+     *
+     * @param planPhase
+     * @param duration loan duration, null when it is not known
+     * @param startNanos
+     */
+    public void record(final PlanPhase planPhase, final Integer duration, final long startNanos) {
+
+        this.getTimer(planPhase, duration).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Timer getTimer(final PlanPhase planPhase, final Integer duration) {
+
+        return this.timers[planPhase.ordinal()][bucketOf(duration)];
+    }
+
+    private static int bucketOf(final Integer duration) {
+
+        if (duration == null || duration <= 0) {
+
+            return DURATION_BUCKETS.length - 1;
+        }
+
+        for (int bucket = 0; bucket < DURATION_BUCKET_LIMITS.length; bucket++) {
+
+            if (duration <= DURATION_BUCKET_LIMITS[bucket]) {
+
+                return bucket;
+            }
+        }
+
+        return DURATION_BUCKET_LIMITS.length;
+    }
+}
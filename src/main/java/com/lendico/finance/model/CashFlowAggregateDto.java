@@ -0,0 +1,26 @@
+package com.lendico.finance.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Monthly cash flows aggregated over a portfolio of loans. The rejected loans are left out of the cash flows,
+ * only the errors of the first ones are reported.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CashFlowAggregateDto {
+
+    private Long noOfLoans;
+    private Long noOfRejectedLoans;
+    private List<GeneratePlanResultDto> errors;
+    private List<MonthlyCashFlowDto> cashFlows;
+}
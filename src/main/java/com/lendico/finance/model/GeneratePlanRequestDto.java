@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.NotNull;
@@ -21,20 +22,29 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 public class GeneratePlanRequestDto {
 
-    @NotNull(message = "Loan amount should be provided")
+    public static final String LOAN_AMOUNT_REQUIRED = "Loan amount should be provided";
+    public static final String NOMINAL_RATE_REQUIRED = "Nominal should be provided";
+    public static final String DURATION_REQUIRED = "Loan duration should be provided";
+    public static final String START_DATE_REQUIRED = "Start date should be provided";
+    public static final String LOAN_AMOUNT_INVALID = "Loan amount should be greater than zero";
+    public static final String NOMINAL_RATE_INVALID = "Nominal rate should be greater than zero";
+    public static final String DURATION_INVALID = "Duration should be greater than zero";
+
+    @NotNull(message = LOAN_AMOUNT_REQUIRED)
     private Double loanAmount;
 
-    @NotNull(message = "Nominal should be provided")
+    @NotNull(message = NOMINAL_RATE_REQUIRED)
     private Double nominalRate;
 
-    @NotNull(message = "Loan duration should be provided")
+    @NotNull(message = DURATION_REQUIRED)
     private Integer duration;
 
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = GlobalConstant.DATE_TIME_FORMAT)
-    @NotNull(message = "Start date should be provided")
+    @DateTimeFormat(pattern = GlobalConstant.DATE_TIME_FORMAT)
+    @NotNull(message = START_DATE_REQUIRED)
     private LocalDateTime startDate;
 
-    @AssertTrue(message = "Loan amount should be greater than zero")
+    @AssertTrue(message = LOAN_AMOUNT_INVALID)
     private boolean isValidLoanAmount() {
 
         if(CommonUtil.isNotNull(loanAmount)) {
@@ -45,7 +55,7 @@ public class GeneratePlanRequestDto {
         return false;
     }
 
-    @AssertTrue(message = "Nominal rate should be greater than zero")
+    @AssertTrue(message = NOMINAL_RATE_INVALID)
     private boolean isValidNominalRate() {
 
         if(CommonUtil.isNotNull(nominalRate)) {
@@ -56,7 +66,7 @@ public class GeneratePlanRequestDto {
         return false;
     }
 
-    @AssertTrue(message = "Duration should be greater than zero")
+    @AssertTrue(message = DURATION_INVALID)
     private boolean isValidDuration() {
 
         if(CommonUtil.isNotNull(duration)) {
@@ -1,9 +1,15 @@
 package com.lendico.finance.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.lendico.finance.engine.PaymentPlan;
+import com.lendico.finance.serializer.GeneratePlanResponseSerializer;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.List;
 
@@ -14,7 +20,28 @@ import java.util.List;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
+@JsonSerialize(using = GeneratePlanResponseSerializer.class)
 public class GeneratePlanResponseDto {
 
     private List<BorrowerPaymentDto> borrowerPayments;
+
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private PaymentPlan paymentPlan;
+
+    /**
+     * This method returns the Borrower payment list. It is built from the columnar plan only on first access.
+     *
+     * @return
+     */
+    public List<BorrowerPaymentDto> getBorrowerPayments() {
+
+        if (this.borrowerPayments == null && this.paymentPlan != null) {
+
+            this.borrowerPayments = this.paymentPlan.toBorrowerPaymentList();
+        }
+
+        return this.borrowerPayments;
+    }
 }
@@ -0,0 +1,26 @@
+package com.lendico.finance.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GeneratePlanResultDto {
+
+    private Integer index;
+    private Integer status;
+    private GeneratePlanResponseDto plan;
+    private PlanSummaryDto summary;
+    private List<String> errors;
+}
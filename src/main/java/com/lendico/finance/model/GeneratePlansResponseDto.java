@@ -0,0 +1,20 @@
+package com.lendico.finance.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class GeneratePlansResponseDto {
+
+    private List<GeneratePlanResultDto> results;
+}
@@ -0,0 +1,29 @@
+package com.lendico.finance.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Cash flow of all the loans of a portfolio in one calendar month.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MonthlyCashFlowDto {
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM")
+    private YearMonth month;
+    private Integer noOfPayments;
+    private Double borrowerPaymentAmount;
+    private Double interest;
+    private Double principal;
+    private Double remainingOutstandingPrincipal;
+}
@@ -0,0 +1,25 @@
+package com.lendico.finance.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Outcome of generating the plans of a loan file, the rejected loans being listed in their own file.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlanFileBatchResultDto {
+
+    private String outputFile;
+    private String rejectedFile;
+    private Long noOfLoans;
+    private Long noOfRejectedLoans;
+    private Long noOfInstallments;
+    private Long elapsedMillis;
+}
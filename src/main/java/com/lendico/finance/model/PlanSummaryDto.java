@@ -0,0 +1,30 @@
+package com.lendico.finance.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.lendico.finance.constant.GlobalConstant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Totals of a repayment plan, as if summed up over its Borrower payments.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlanSummaryDto {
+
+    private Integer duration;
+    private Double borrowerPaymentAmount;
+    private Double totalInterest;
+    private Double totalRepaid;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = GlobalConstant.DATE_TIME_FORMAT)
+    private LocalDateTime finalPaymentDate;
+    private Double finalRemainingOutstandingPrincipal;
+}
@@ -0,0 +1,13 @@
+package com.lendico.finance.serializer;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Mix-in of GeneratePlanResponseDto for the object mappers of the binary formats, replacing its JSON serializer
+ * with {@link CompactPlanResponseSerializer}.
+ */
+@JsonSerialize(using = CompactPlanResponseSerializer.class)
+public abstract class CompactPlanResponseMixIn {
+}
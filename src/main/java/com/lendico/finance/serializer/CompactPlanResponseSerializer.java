@@ -0,0 +1,75 @@
+package com.lendico.finance.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.lendico.finance.engine.PaymentPlan;
+import com.lendico.finance.model.GeneratePlanResponseDto;
+
+import java.io.IOException;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Serializes the plan response for the binary formats (CBOR, Smile) in the layout of src/main/proto/payment_plan.proto:
+ * the time of day once, then every installment as an array of its epoch day and its amounts in cents.
+ */
+public class CompactPlanResponseSerializer extends StdSerializer<GeneratePlanResponseDto> {
+
+    public static final String SECOND_OF_DAY = "secondOfDay";
+    public static final String INSTALLMENTS = "installments";
+
+    private static final int NO_OF_INSTALLMENT_FIELDS = 6;
+
+    public CompactPlanResponseSerializer() {
+
+        super(GeneratePlanResponseDto.class);
+    }
+
+    @Override
+    public void serialize(final GeneratePlanResponseDto generatePlanResponseDto, final JsonGenerator generator,
+                          final SerializerProvider provider) throws IOException {
+
+        PaymentPlan paymentPlan = paymentPlanOf(generatePlanResponseDto);
+
+        generator.writeStartObject();
+        generator.writeNumberField(SECOND_OF_DAY, paymentPlan.getTime().toSecondOfDay());
+        generator.writeFieldName(INSTALLMENTS);
+        generator.writeStartArray(paymentPlan.size());
+
+        PaymentPlan.RowView rowView = paymentPlan.newRowView();
+
+        for (int index = 0; index < paymentPlan.size(); index++) {
+
+            rowView.moveTo(index);
+
+            generator.writeStartArray(NO_OF_INSTALLMENT_FIELDS);
+            generator.writeNumber(rowView.getEpochDay());
+            generator.writeNumber(rowView.getBorrowerPaymentAmountInCents());
+            generator.writeNumber(rowView.getInitialOutstandingPrincipalInCents());
+            generator.writeNumber(rowView.getInterestInCents());
+            generator.writeNumber(rowView.getPrincipalInCents());
+            generator.writeNumber(rowView.getRemainingOutstandingPrincipalInCents());
+            generator.writeEndArray();
+        }
+
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * This method returns the columnar plan of the response, building it from the Borrower payment list if needed.
+     *
+     * @param generatePlanResponseDto
+     * @return
+     */
+    static PaymentPlan paymentPlanOf(final GeneratePlanResponseDto generatePlanResponseDto) {
+
+        if (generatePlanResponseDto.getPaymentPlan() != null) {
+
+            return generatePlanResponseDto.getPaymentPlan();
+        }
+
+        return PaymentPlan.of(generatePlanResponseDto.getBorrowerPayments());
+    }
+}
@@ -0,0 +1,55 @@
+package com.lendico.finance.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.lendico.finance.engine.PaymentPlan;
+import com.lendico.finance.engine.PaymentRow;
+import com.lendico.finance.model.GeneratePlanResponseDto;
+
+import java.io.IOException;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Serializes the plan response straight from the columnar {@link PaymentPlan} when it is available,
+ * so the Borrower payment objects are never built on the response path.
+ */
+public class GeneratePlanResponseSerializer extends StdSerializer<GeneratePlanResponseDto> {
+
+    public static final String BORROWER_PAYMENTS = "borrowerPayments";
+
+    public GeneratePlanResponseSerializer() {
+
+        super(GeneratePlanResponseDto.class);
+    }
+
+    @Override
+    public void serialize(final GeneratePlanResponseDto generatePlanResponseDto, final JsonGenerator generator,
+                          final SerializerProvider provider) throws IOException {
+
+        generator.writeStartObject();
+
+        PaymentPlan paymentPlan = generatePlanResponseDto.getPaymentPlan();
+
+        if (paymentPlan != null) {
+
+            generator.writeArrayFieldStart(BORROWER_PAYMENTS);
+
+            PaymentPlan.RowView rowView = paymentPlan.newRowView();
+
+            for (int index = 0; index < paymentPlan.size(); index++) {
+
+                PaymentRowJsonWriter.writeRow(rowView.moveTo(index), generator);
+            }
+
+            generator.writeEndArray();
+
+        } else {
+
+            provider.defaultSerializeField(BORROWER_PAYMENTS, generatePlanResponseDto.getBorrowerPayments(), generator);
+        }
+
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,49 @@
+package com.lendico.finance.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.lendico.finance.constant.GlobalConstant;
+import com.lendico.finance.engine.PaymentRow;
+import com.lendico.finance.util.CommonUtil;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Writes a payment row in the same JSON shape as {@link com.lendico.finance.model.BorrowerPaymentDto}
+ * without building the object.
+ */
+public class PaymentRowJsonWriter {
+
+    public static final String BORROWER_PAYMENT_AMOUNT = "borrowerPaymentAmount";
+    public static final String DATE = "date";
+    public static final String INITIAL_OUTSTANDING_PRINCIPAL = "initialOutstandingPrincipal";
+    public static final String INTEREST = "interest";
+    public static final String PRINCIPAL = "principal";
+    public static final String REMAINING_OUTSTANDING_PRINCIPAL = "remainingOutstandingPrincipal";
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(GlobalConstant.DATE_TIME_FORMAT);
+
+    private PaymentRowJsonWriter() {
+    }
+
+    /**
+     * This method writes the given row as JSON object
+     *
+     * @param row
+     * @param generator
+     * @throws IOException
+     */
+    public static void writeRow(final PaymentRow row, final JsonGenerator generator) throws IOException {
+
+        generator.writeStartObject();
+        generator.writeNumberField(BORROWER_PAYMENT_AMOUNT, CommonUtil.fromCents(row.getBorrowerPaymentAmountInCents()));
+        generator.writeStringField(DATE, DATE_TIME_FORMATTER.format(row.getDate()));
+        generator.writeNumberField(INITIAL_OUTSTANDING_PRINCIPAL, CommonUtil.fromCents(row.getInitialOutstandingPrincipalInCents()));
+        generator.writeNumberField(INTEREST, CommonUtil.fromCents(row.getInterestInCents()));
+        generator.writeNumberField(PRINCIPAL, CommonUtil.fromCents(row.getPrincipalInCents()));
+        generator.writeNumberField(REMAINING_OUTSTANDING_PRINCIPAL, CommonUtil.fromCents(row.getRemainingOutstandingPrincipalInCents()));
+        generator.writeEndObject();
+    }
+}
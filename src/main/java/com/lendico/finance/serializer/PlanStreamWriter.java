@@ -0,0 +1,74 @@
+package com.lendico.finance.serializer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lendico.finance.engine.PaymentScheduleCursor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Writes a repayment plan as newline delimited JSON. Every installment is computed from the cursor and written
+ * right away, so the memory used per request does not depend on the duration of the loan.
+ */
+@Component("planStreamWriter")
+public class PlanStreamWriter {
+
+    private static final char LINE_SEPARATOR = '\n';
+    private static final int FLUSH_INTERVAL = 64;
+
+    private JsonFactory jsonFactory;
+
+    public PlanStreamWriter(final ObjectMapper objectMapper) {
+
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * This method writes the current installment of the cursor to the given output stream as one JSON line.
+     *
+     * @param cursor
+     * @param outputStream
+     * @throws IOException
+     */
+    public void writeNdjsonRow(final PaymentScheduleCursor cursor, final OutputStream outputStream) throws IOException {
+
+        try (JsonGenerator generator = this.jsonFactory.createGenerator(outputStream)) {
+
+            PaymentRowJsonWriter.writeRow(cursor, generator);
+            generator.writeRaw(LINE_SEPARATOR);
+        }
+    }
+
+    /**
+     * This method drains the cursor into the given output stream, one JSON object per line.
+     * The first installment is flushed immediately and the rest in chunks of {@value #FLUSH_INTERVAL} lines.
+     *
+     * @param cursor
+     * @param outputStream
+     * @throws IOException
+     */
+    public void writeNdjson(final PaymentScheduleCursor cursor, final OutputStream outputStream) throws IOException {
+
+        try (JsonGenerator generator = this.jsonFactory.createGenerator(outputStream)) {
+
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            while (cursor.next()) {
+
+                PaymentRowJsonWriter.writeRow(cursor, generator);
+                generator.writeRaw(LINE_SEPARATOR);
+
+                if (cursor.getIndex() % FLUSH_INTERVAL == 0) {
+
+                    generator.flush();
+                }
+            }
+        }
+    }
+}
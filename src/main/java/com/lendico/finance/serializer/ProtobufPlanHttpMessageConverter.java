@@ -0,0 +1,158 @@
+package com.lendico.finance.serializer;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.lendico.finance.constant.GlobalConstant;
+import com.lendico.finance.engine.PaymentPlan;
+import com.lendico.finance.metrics.PlanPhase;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
+import com.lendico.finance.model.GeneratePlanResponseDto;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Writes the plan response as the PaymentPlan message of src/main/proto/payment_plan.proto. The message is encoded
+ * straight from the columnar plan with the protobuf wire format, so no message object is built per installment.
+ */
+public class ProtobufPlanHttpMessageConverter extends AbstractHttpMessageConverter<GeneratePlanResponseDto> {
+
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.parseMediaType(GlobalConstant.APPLICATION_PROTOBUF_VALUE);
+
+    // Field numbers of PaymentPlan
+    private static final int SECOND_OF_DAY = 1;
+    private static final int INSTALLMENTS = 2;
+
+    // Field numbers of Installment
+    private static final int EPOCH_DAY = 1;
+    private static final int BORROWER_PAYMENT_AMOUNT = 2;
+    private static final int INITIAL_OUTSTANDING_PRINCIPAL = 3;
+    private static final int INTEREST = 4;
+    private static final int PRINCIPAL = 5;
+    private static final int REMAINING_OUTSTANDING_PRINCIPAL = 6;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private PlanPhaseMetrics planPhaseMetrics;
+
+    public ProtobufPlanHttpMessageConverter(final PlanPhaseMetrics planPhaseMetrics) {
+
+        super(APPLICATION_PROTOBUF);
+
+        this.planPhaseMetrics = planPhaseMetrics;
+    }
+
+    @Override
+    protected boolean supports(final Class<?> clazz) {
+
+        return GeneratePlanResponseDto.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(final MediaType mediaType) {
+
+        return false;
+    }
+
+    @Override
+    protected GeneratePlanResponseDto readInternal(final Class<? extends GeneratePlanResponseDto> clazz,
+                                                   final HttpInputMessage inputMessage) {
+
+        throw new HttpMessageNotReadableException("Reading a plan from protobuf is not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(final GeneratePlanResponseDto generatePlanResponseDto, final HttpOutputMessage outputMessage)
+            throws IOException {
+
+        long startNanos = this.planPhaseMetrics.start();
+
+        PaymentPlan paymentPlan = CompactPlanResponseSerializer.paymentPlanOf(generatePlanResponseDto);
+
+        CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody(), BUFFER_SIZE);
+
+        writePlan(paymentPlan, output);
+
+        output.flush();
+
+        this.planPhaseMetrics.record(PlanPhase.SERIALIZATION, paymentPlan.size(), startNanos);
+    }
+
+    /**
+     * This method writes the given plan as PaymentPlan message.
+     *
+     * @param paymentPlan
+     * @param output
+     * @throws IOException
+     */
+    public static void writePlan(final PaymentPlan paymentPlan, final CodedOutputStream output) throws IOException {
+
+        int secondOfDay = paymentPlan.getTime().toSecondOfDay();
+
+        if (secondOfDay != 0) {
+
+            output.writeInt32(SECOND_OF_DAY, secondOfDay);
+        }
+
+        PaymentPlan.RowView rowView = paymentPlan.newRowView();
+
+        for (int index = 0; index < paymentPlan.size(); index++) {
+
+            rowView.moveTo(index);
+
+            output.writeTag(INSTALLMENTS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(installmentSize(rowView));
+
+            writeInt32(output, EPOCH_DAY, rowView.getEpochDay());
+            writeInt64(output, BORROWER_PAYMENT_AMOUNT, rowView.getBorrowerPaymentAmountInCents());
+            writeInt64(output, INITIAL_OUTSTANDING_PRINCIPAL, rowView.getInitialOutstandingPrincipalInCents());
+            writeInt64(output, INTEREST, rowView.getInterestInCents());
+            writeInt64(output, PRINCIPAL, rowView.getPrincipalInCents());
+            writeInt64(output, REMAINING_OUTSTANDING_PRINCIPAL, rowView.getRemainingOutstandingPrincipalInCents());
+        }
+    }
+
+    // proto3 leaves the fields with default value out of the message
+
+    private static int installmentSize(final PaymentPlan.RowView rowView) {
+
+        return sizeOfInt32(EPOCH_DAY, rowView.getEpochDay())
+                + sizeOfInt64(BORROWER_PAYMENT_AMOUNT, rowView.getBorrowerPaymentAmountInCents())
+                + sizeOfInt64(INITIAL_OUTSTANDING_PRINCIPAL, rowView.getInitialOutstandingPrincipalInCents())
+                + sizeOfInt64(INTEREST, rowView.getInterestInCents())
+                + sizeOfInt64(PRINCIPAL, rowView.getPrincipalInCents())
+                + sizeOfInt64(REMAINING_OUTSTANDING_PRINCIPAL, rowView.getRemainingOutstandingPrincipalInCents());
+    }
+
+    private static int sizeOfInt32(final int fieldNumber, final int value) {
+
+        return value == 0 ? 0 : CodedOutputStream.computeInt32Size(fieldNumber, value);
+    }
+
+    private static int sizeOfInt64(final int fieldNumber, final long value) {
+
+        return value == 0 ? 0 : CodedOutputStream.computeInt64Size(fieldNumber, value);
+    }
+
+    private static void writeInt32(final CodedOutputStream output, final int fieldNumber, final int value) throws IOException {
+
+        if (value != 0) {
+
+            output.writeInt32(fieldNumber, value);
+        }
+    }
+
+    private static void writeInt64(final CodedOutputStream output, final int fieldNumber, final long value) throws IOException {
+
+        if (value != 0) {
+
+            output.writeInt64(fieldNumber, value);
+        }
+    }
+}
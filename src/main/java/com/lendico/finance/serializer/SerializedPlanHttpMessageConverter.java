@@ -0,0 +1,80 @@
+package com.lendico.finance.serializer;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Writes a {@link SerializedPlanResponse} as is, in the media type it was serialized in. It must come before the
+ * Jackson converters, which would otherwise write the response object itself.
+ */
+public class SerializedPlanHttpMessageConverter extends AbstractHttpMessageConverter<SerializedPlanResponse> {
+
+    public SerializedPlanHttpMessageConverter() {
+
+        super(MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(final Class<?> clazz) {
+
+        return SerializedPlanResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(final MediaType mediaType) {
+
+        return false;
+    }
+
+    @Override
+    protected SerializedPlanResponse readInternal(final Class<? extends SerializedPlanResponse> clazz,
+                                                  final HttpInputMessage inputMessage) {
+
+        throw new HttpMessageNotReadableException("Reading a serialized plan is not supported", inputMessage);
+    }
+
+    @Override
+    protected MediaType getDefaultContentType(final SerializedPlanResponse serializedPlanResponse) {
+
+        return serializedPlanResponse.getMediaType();
+    }
+
+    @Override
+    protected Long getContentLength(final SerializedPlanResponse serializedPlanResponse, final MediaType contentType) {
+
+        return (long) serializedPlanResponse.getBody().remaining();
+    }
+
+    @Override
+    protected void writeInternal(final SerializedPlanResponse serializedPlanResponse, final HttpOutputMessage outputMessage)
+            throws IOException {
+
+        ByteBuffer body = serializedPlanResponse.getBody();
+        OutputStream output = outputMessage.getBody();
+
+        if (body.hasArray()) {
+
+            output.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+
+            return;
+        }
+
+        WritableByteChannel channel = Channels.newChannel(output);
+
+        while (body.hasRemaining()) {
+
+            channel.write(body);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.lendico.finance.serializer;
+
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Plan response already serialized in one media type, written as is by {@link SerializedPlanHttpMessageConverter}.
+ * The bytes are shared by every request served with it and must never be modified. They are either on the heap
+ * or mapped from the plan store, in which case they are written without being copied to the heap first.
+ */
+@Getter
+public final class SerializedPlanResponse {
+
+    private final MediaType mediaType;
+    private final ByteBuffer body;
+
+    public SerializedPlanResponse(final MediaType mediaType, final ByteBuffer body) {
+
+        this.mediaType = mediaType;
+        this.body = body.asReadOnlyBuffer();
+    }
+
+    public SerializedPlanResponse(final MediaType mediaType, final byte[] body) {
+
+        this(mediaType, body, body.length);
+    }
+
+    /**
+     * The first length bytes of the given array are the response, the array being wrapped as is.
+     *
+     * @param mediaType
+     * @param body
+     * @param length
+     */
+    public SerializedPlanResponse(final MediaType mediaType, final byte[] body, final int length) {
+
+        this.mediaType = mediaType;
+        this.body = ByteBuffer.wrap(body, 0, length);
+    }
+
+    /**
+     * This method returns a new view of the bytes, so every reader has its own position.
+     *
+     * @return
+     */
+    public ByteBuffer getBody() {
+
+        return this.body.duplicate();
+    }
+}
@@ -0,0 +1,60 @@
+package com.lendico.finance.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lendico.finance.metrics.PlanPhase;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Jackson message converter of a binary format (CBOR, Smile) which records the deserialization of the requests and
+ * the serialization of the responses as phases of the plan generation, like {@link TimedMappingJackson2HttpMessageConverter}.
+ */
+public class TimedBinaryJackson2HttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    private PlanPhaseMetrics planPhaseMetrics;
+
+    public TimedBinaryJackson2HttpMessageConverter(final ObjectMapper objectMapper,
+                                                   final PlanPhaseMetrics planPhaseMetrics,
+                                                   final MediaType mediaType) {
+
+        super(objectMapper, mediaType);
+
+        this.planPhaseMetrics = planPhaseMetrics;
+    }
+
+    @Override
+    public Object read(final Type type, final Class<?> contextClass, final HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+
+        long startNanos = this.planPhaseMetrics.start();
+
+        Object object = super.read(type, contextClass, inputMessage);
+
+        this.planPhaseMetrics.record(PlanPhase.DESERIALIZATION,
+                TimedMappingJackson2HttpMessageConverter.durationOf(object), startNanos);
+
+        return object;
+    }
+
+    @Override
+    protected void writeInternal(final Object object, final Type type, final HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+
+        long startNanos = this.planPhaseMetrics.start();
+
+        super.writeInternal(object, type, outputMessage);
+
+        this.planPhaseMetrics.record(PlanPhase.SERIALIZATION,
+                TimedMappingJackson2HttpMessageConverter.durationOf(object), startNanos);
+    }
+}
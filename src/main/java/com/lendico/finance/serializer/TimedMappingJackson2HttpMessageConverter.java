@@ -0,0 +1,81 @@
+package com.lendico.finance.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lendico.finance.metrics.PlanPhase;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.model.GeneratePlanResponseDto;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Jackson message converter which records the JSON deserialization of the requests and
+ * the serialization of the responses as phases of the plan generation.
+ */
+public class TimedMappingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private PlanPhaseMetrics planPhaseMetrics;
+
+    public TimedMappingJackson2HttpMessageConverter(final ObjectMapper objectMapper,
+                                                    final PlanPhaseMetrics planPhaseMetrics) {
+
+        super(objectMapper);
+
+        this.planPhaseMetrics = planPhaseMetrics;
+    }
+
+    @Override
+    public Object read(final Type type, final Class<?> contextClass, final HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+
+        long startNanos = this.planPhaseMetrics.start();
+
+        Object object = super.read(type, contextClass, inputMessage);
+
+        this.planPhaseMetrics.record(PlanPhase.DESERIALIZATION, durationOf(object), startNanos);
+
+        return object;
+    }
+
+    @Override
+    protected void writeInternal(final Object object, final Type type, final HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+
+        long startNanos = this.planPhaseMetrics.start();
+
+        super.writeInternal(object, type, outputMessage);
+
+        this.planPhaseMetrics.record(PlanPhase.SERIALIZATION, durationOf(object), startNanos);
+    }
+
+    static Integer durationOf(final Object object) {
+
+        if (object instanceof GeneratePlanRequestDto) {
+
+            return ((GeneratePlanRequestDto) object).getDuration();
+        }
+
+        if (object instanceof GeneratePlanResponseDto) {
+
+            GeneratePlanResponseDto generatePlanResponseDto = (GeneratePlanResponseDto) object;
+
+            if (generatePlanResponseDto.getPaymentPlan() != null) {
+
+                return generatePlanResponseDto.getPaymentPlan().size();
+            }
+
+            return generatePlanResponseDto.getBorrowerPayments() == null ? null
+                    : generatePlanResponseDto.getBorrowerPayments().size();
+        }
+
+        return null;
+    }
+}
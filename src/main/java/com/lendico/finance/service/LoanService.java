@@ -1,9 +1,27 @@
 package com.lendico.finance.service;
 
+import com.lendico.finance.engine.PaymentPlan;
+import com.lendico.finance.engine.PaymentScheduleCursor;
+import com.lendico.finance.model.BorrowerPaymentDto;
 import com.lendico.finance.model.GeneratePlanRequestDto;
 import com.lendico.finance.model.GeneratePlanResponseDto;
+import com.lendico.finance.model.PlanSummaryDto;
 
 public interface LoanService {
 
     GeneratePlanResponseDto generatePlan(final GeneratePlanRequestDto generatePlanRequestDto);
+
+    GeneratePlanResponseDto generatePlanPage(final GeneratePlanRequestDto generatePlanRequestDto,
+                                             final int offset, final int limit);
+
+    PaymentPlan generatePaymentPlan(final GeneratePlanRequestDto generatePlanRequestDto);
+
+    PaymentPlan generatePaymentPlanPage(final GeneratePlanRequestDto generatePlanRequestDto,
+                                        final int offset, final int limit);
+
+    PaymentScheduleCursor generateScheduleCursor(final GeneratePlanRequestDto generatePlanRequestDto);
+
+    PlanSummaryDto generatePlanSummary(final GeneratePlanRequestDto generatePlanRequestDto);
+
+    BorrowerPaymentDto generateInstallment(final GeneratePlanRequestDto generatePlanRequestDto, final int installmentNumber);
 }
@@ -0,0 +1,13 @@
+package com.lendico.finance.service;
+
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.model.GeneratePlansResponseDto;
+
+import java.util.List;
+
+public interface PlanBatchService {
+
+    GeneratePlansResponseDto generatePlans(final List<GeneratePlanRequestDto> generatePlanRequestDtoList);
+
+    GeneratePlansResponseDto generatePlanSummaries(final List<GeneratePlanRequestDto> generatePlanRequestDtoList);
+}
@@ -0,0 +1,10 @@
+package com.lendico.finance.service;
+
+import com.lendico.finance.model.PlanFileBatchResultDto;
+
+import java.nio.file.Path;
+
+public interface PlanFileBatchService {
+
+    PlanFileBatchResultDto generatePlanFile(final Path inputFile, final Path outputFile);
+}
@@ -0,0 +1,10 @@
+package com.lendico.finance.service;
+
+import com.lendico.finance.model.CashFlowAggregateDto;
+
+import java.io.InputStream;
+
+public interface PortfolioAggregationService {
+
+    CashFlowAggregateDto aggregateCashFlows(final InputStream inputStream);
+}
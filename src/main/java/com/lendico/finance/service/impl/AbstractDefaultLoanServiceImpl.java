@@ -1,44 +1,65 @@
 package com.lendico.finance.service.impl;
 
+import com.lendico.finance.cache.PlanCacheServiceImpl;
+import com.lendico.finance.cache.TemplateCacheServiceImpl;
+import com.lendico.finance.engine.AmortizationTemplate;
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.engine.CentsPaymentScheduleCursor;
+import com.lendico.finance.engine.DoublePaymentScheduleCursor;
+import com.lendico.finance.engine.PaymentPlan;
+import com.lendico.finance.engine.PaymentScheduleCursor;
+import com.lendico.finance.engine.PlanSummary;
+import com.lendico.finance.engine.TemplatePaymentScheduleCursor;
 import com.lendico.finance.exception.GenericClientRuntimeException;
 import com.lendico.finance.exception.GenericServerRuntimeException;
 import com.lendico.finance.factory.ValidationFactoryServiceImpl;
+import com.lendico.finance.metrics.PlanPhase;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
 import com.lendico.finance.model.BorrowerPaymentDto;
 import com.lendico.finance.model.GeneratePlanRequestDto;
 import com.lendico.finance.model.GeneratePlanResponseDto;
+import com.lendico.finance.model.PlanSummaryDto;
 import com.lendico.finance.service.LoanService;
 import com.lendico.finance.util.CommonUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.validation.ConstraintViolationException;
-import java.time.LocalDateTime;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * This service holds no per-request state. Every plan generation works on its own
+ * {@link PaymentScheduleCursor}, so the singleton bean can serve concurrent requests safely.
  */
 public abstract class AbstractDefaultLoanServiceImpl implements LoanService {
 
     private static final Logger LOG = LoggerFactory.getLogger(AbstractDefaultLoanServiceImpl.class);
 
     private static final Integer NO_OF_MONTH_IN_YEAR = 12;
+    private static final String INSTALLMENT_NUMBER_INVALID = "Installment number should be between 1 and %d";
+    private static final String OFFSET_INVALID = "Offset should not be negative";
+    private static final String LIMIT_INVALID = "Limit should be greater than zero";
+    private static final String AMOUNT_TOO_LARGE = "Loan amount and annuity should be less than %.0f";
     private static final Double ZERO = 0.0;
 
-    private AtomicReference<Double> initialOutstandingPrincipal;
-    private AtomicReference<Double> interest;
-    private AtomicReference<Double> principal;
-    private AtomicReference<Double> remainingOutstandingPrincipal;
-    private AtomicReference<LocalDateTime> paymentDate;
-
     private ValidationFactoryServiceImpl validationFactoryService;
+    private PlanCacheServiceImpl planCacheService;
+    private TemplateCacheServiceImpl templateCacheService;
+    private PlanPhaseMetrics planPhaseMetrics;
+    private CalculationMode calculationMode;
 
-    public AbstractDefaultLoanServiceImpl(ValidationFactoryServiceImpl validationFactoryService) {
+    public AbstractDefaultLoanServiceImpl(ValidationFactoryServiceImpl validationFactoryService,
+                                          PlanCacheServiceImpl planCacheService,
+                                          TemplateCacheServiceImpl templateCacheService,
+                                          PlanPhaseMetrics planPhaseMetrics,
+                                          CalculationMode calculationMode) {
 
         this.validationFactoryService = validationFactoryService;
+        this.planCacheService = planCacheService;
+        this.templateCacheService = templateCacheService;
+        this.planPhaseMetrics = planPhaseMetrics;
+        this.calculationMode = calculationMode;
     }
 
     /**
@@ -50,20 +71,135 @@ public abstract class AbstractDefaultLoanServiceImpl implements LoanService {
     @Override
     public GeneratePlanResponseDto generatePlan(final GeneratePlanRequestDto generatePlanRequestDto) {
 
+        return GeneratePlanResponseDto
+                .builder()
+                .paymentPlan(this.generatePaymentPlan(generatePlanRequestDto))
+                .build();
+    }
+
+    /**
+     * This method in charge of generating one page of the pre-calculated loan repayment plan for the given input
+     *
+     * @param generatePlanRequestDto
+     * @param offset
+     * @param limit
+     * @return
+     */
+    @Override
+    public GeneratePlanResponseDto generatePlanPage(final GeneratePlanRequestDto generatePlanRequestDto,
+                                                    final int offset, final int limit) {
+
+        return GeneratePlanResponseDto
+                .builder()
+                .paymentPlan(this.generatePaymentPlanPage(generatePlanRequestDto, offset, limit))
+                .build();
+    }
+
+    /**
+     * This method in charge of generating the pre-calculated loan repayment plan in columnar form for the given input.
+     * A plan generated before for the same input is served from the plan cache.
+     *
+     * @param generatePlanRequestDto
+     * @return
+     */
+    @Override
+    public PaymentPlan generatePaymentPlan(final GeneratePlanRequestDto generatePlanRequestDto) {
+
+        return this.planCacheService.getPlan(generatePlanRequestDto, () -> {
+
+            PaymentScheduleCursor cursor = this.generateScheduleCursor(generatePlanRequestDto);
+
+            // Building the plan row by row
+            long startNanos = this.planPhaseMetrics.start();
+
+            PaymentPlan paymentPlan = PaymentPlan.of(cursor);
+
+            this.planPhaseMetrics.record(PlanPhase.SCHEDULE, generatePlanRequestDto.getDuration(), startNanos);
+
+            return paymentPlan;
+        });
+    }
+
+    /**
+     * This method in charge of generating at most limit installments of the pre-calculated loan repayment plan,
+     * starting from the installment at the given offset. The cursor seeks to the offset, in O(1) in
+     * {@link CalculationMode#DOUBLE}, so the time and the size of the page do not depend on the duration.
+     * Pages are not cached.
+     *
+     * @param generatePlanRequestDto
+     * @param offset
+     * @param limit
+     * @return
+     */
+    @Override
+    public PaymentPlan generatePaymentPlanPage(final GeneratePlanRequestDto generatePlanRequestDto,
+                                               final int offset, final int limit) {
+
+        if (offset < 0) {
+
+            throw new GenericClientRuntimeException(OFFSET_INVALID);
+        }
+
+        if (limit <= 0) {
+
+            throw new GenericClientRuntimeException(LIMIT_INVALID);
+        }
+
+        PaymentScheduleCursor cursor = this.generateScheduleCursor(generatePlanRequestDto);
+
+        long startNanos = this.planPhaseMetrics.start();
+
+        PaymentPlan paymentPlan = PaymentPlan.of(cursor, offset, limit);
+
+        this.planPhaseMetrics.record(PlanPhase.SCHEDULE, generatePlanRequestDto.getDuration(), startNanos);
+
+        return paymentPlan;
+    }
+
+    /**
+     * This method validates the given input and returns a cursor positioned before the first installment.
+     * The caller owns the cursor and computes the installments one at a time by moving it.
+     *
+     * @param generatePlanRequestDto
+     * @return
+     */
+    @Override
+    public PaymentScheduleCursor generateScheduleCursor(final GeneratePlanRequestDto generatePlanRequestDto) {
+
         try {
 
             // Validating the input parameter. It will throw ConstraintViolationException when any parameter is invalid
-            this.validationFactoryService.validObject(generatePlanRequestDto);
+            long startNanos = this.planPhaseMetrics.start();
+
+            try {
+
+                this.validationFactoryService.validObject(generatePlanRequestDto);
+
+            } finally {
+
+                // The rejected requests are timed as well
+                this.planPhaseMetrics.record(PlanPhase.VALIDATION, generatePlanRequestDto.getDuration(), startNanos);
+            }
 
             // Calculating annual & monthly interest from Nominal Rate
-            Double annualInterest = generatePlanRequestDto.getNominalRate() / 100;
+            double annualInterest = generatePlanRequestDto.getNominalRate() / 100;
 
-            Double monthlyInterest = annualInterest / NO_OF_MONTH_IN_YEAR;
+            double monthlyInterest = annualInterest / NO_OF_MONTH_IN_YEAR;
 
             // Calculating annuity
-            Double annuity = this.calculateAnnuity(generatePlanRequestDto.getLoanAmount(),
+            startNanos = this.planPhaseMetrics.start();
+
+            double annuity = this.calculateAnnuity(generatePlanRequestDto.getLoanAmount(),
                     monthlyInterest, generatePlanRequestDto.getDuration());
 
+            this.planPhaseMetrics.record(PlanPhase.ANNUITY, generatePlanRequestDto.getDuration(), startNanos);
+
+            // Every amount of the plan is at most the loan amount or the annuity, and has to fit in cents
+            if (!CommonUtil.isCentsAmount(generatePlanRequestDto.getLoanAmount()) || !CommonUtil.isCentsAmount(annuity)) {
+
+                throw new GenericClientRuntimeException(String.format(AMOUNT_TOO_LARGE, CommonUtil.MAX_AMOUNT));
+            }
+
             if(CommonUtil.round(annuity).equals(ZERO)) {
 
                 throw new GenericClientRuntimeException("Annuity calculated as zero. There is no plan available for the given input");
@@ -71,10 +207,7 @@ public abstract class AbstractDefaultLoanServiceImpl implements LoanService {
 
             LOG.debug("Calculated annuity: {}", annuity);
 
-            return GeneratePlanResponseDto
-                    .builder()
-                    .borrowerPayments(this.getBorrowerPaymentList(generatePlanRequestDto, annuity, annualInterest))
-                    .build();
+            return this.newScheduleCursor(generatePlanRequestDto, annuity, annualInterest);
 
         } catch (GenericClientRuntimeException | ConstraintViolationException exception) {
 
@@ -89,67 +222,91 @@ public abstract class AbstractDefaultLoanServiceImpl implements LoanService {
     }
 
     /**
-     * This method is in charge of building the Borrower payment list
+     * This method in charge of generating the totals of the pre-calculated loan repayment plan for the given input.
+     * The installments are folded one at a time, so the plan itself is never built.
      *
      * @param generatePlanRequestDto
-     * @param annuity
-     * @param annualInterest
      * @return
      */
-    private List<BorrowerPaymentDto> getBorrowerPaymentList(final GeneratePlanRequestDto generatePlanRequestDto,
-                                                            final Double annuity, final Double annualInterest) {
+    @Override
+    public PlanSummaryDto generatePlanSummary(final GeneratePlanRequestDto generatePlanRequestDto) {
 
-        // Initializing the response parameters
+        PaymentScheduleCursor cursor = this.generateScheduleCursor(generatePlanRequestDto);
 
-        this.initialOutstandingPrincipal = new AtomicReference<>(ZERO);
-        this.interest = new AtomicReference<>(ZERO);
-        this.principal = new AtomicReference<>(ZERO);
-        this.remainingOutstandingPrincipal = new AtomicReference<>(ZERO);
-        this.paymentDate = new AtomicReference<>(generatePlanRequestDto.getStartDate());
+        long startNanos = this.planPhaseMetrics.start();
 
-        // Building Borrower Payment List
+        PlanSummary planSummary = PlanSummary.of(cursor);
 
-        return IntStream.range(0, generatePlanRequestDto.getDuration())
-                        .mapToObj(payment -> {
+        this.planPhaseMetrics.record(PlanPhase.SCHEDULE, generatePlanRequestDto.getDuration(), startNanos);
 
-                            if(payment == 0) {
+        return planSummary.toPlanSummaryDto();
+    }
 
-                                // Setting the loan amount for the first payment
+    /**
+     * This method returns the installment with the given number, starting from 1, without generating the plan.
+     * In {@link CalculationMode#DOUBLE} it is calculated in O(1) from the closed form of the annuity loan, in
+     * {@link CalculationMode#CENTS} the installments before it are replayed as every one is rounded on the previous.
+     * Either way it matches the same installment of {@link #generatePlan(GeneratePlanRequestDto)} to the cent.
+     *
+     * @param generatePlanRequestDto
+     * @param installmentNumber
+     * @return
+     */
+    @Override
+    public BorrowerPaymentDto generateInstallment(final GeneratePlanRequestDto generatePlanRequestDto,
+                                                  final int installmentNumber) {
 
-                                this.initialOutstandingPrincipal.set(generatePlanRequestDto.getLoanAmount());
+        PaymentScheduleCursor cursor = this.generateScheduleCursor(generatePlanRequestDto);
 
-                            } else {
+        if (!cursor.moveTo(installmentNumber - 1)) {
 
-                                // Setting the remaining outstanding principal as initial outstanding principal
+            throw new GenericClientRuntimeException(
+                    String.format(INSTALLMENT_NUMBER_INVALID, generatePlanRequestDto.getDuration()));
+        }
 
-                                this.initialOutstandingPrincipal.set(this.remainingOutstandingPrincipal.get());
+        return cursor.toBorrowerPaymentDto();
+    }
 
-                                // Setting the payment by adding one month to the previous payment date
+    /**
+     * This method creates a new cursor over the schedule of the given request in the configured calculation mode.
+     * The cursor is owned by the caller. In {@link CalculationMode#DOUBLE} the schedule is scaled from the amortization
+     * template of the annual interest and duration when the template store is enabled and the loan is scalable,
+     * see {@link AmortizationTemplate#isScalable(double, int, double)}.
+     *
+     * @param generatePlanRequestDto
+     * @param annuity
+     * @param annualInterest
+     * @return
+     */
+    protected PaymentScheduleCursor newScheduleCursor(final GeneratePlanRequestDto generatePlanRequestDto,
+                                                      final double annuity, final double annualInterest) {
 
-                                this.paymentDate.set(CommonUtil.addMonth(this.paymentDate.get(), 1,
-                                        generatePlanRequestDto.getStartDate().getDayOfMonth()));
-                            }
+        if (this.calculationMode == CalculationMode.CENTS) {
 
-                            this.interest.set(this.calculateInterest(annualInterest, this.initialOutstandingPrincipal.get()));
+            return new CentsPaymentScheduleCursor(CommonUtil.toCents(generatePlanRequestDto.getLoanAmount()),
+                    CommonUtil.toCents(annuity), CommonUtil.toScaledRate(annualInterest),
+                    generatePlanRequestDto.getDuration(), generatePlanRequestDto.getStartDate(),
+                    this::calculateInterestInCents, this::calculatePrincipalInCents);
+        }
 
-                            this.principal.set(this.calculatePrincipal(annuity, this.interest.get()));
+        DoublePaymentScheduleCursor cursor = new DoublePaymentScheduleCursor(generatePlanRequestDto.getLoanAmount(),
+                annuity, annualInterest, generatePlanRequestDto.getDuration(), generatePlanRequestDto.getStartDate(),
+                this::calculateInterest, this::calculatePrincipal);
 
-                            // Calculating Remaining Outstanding Principal by subtracting principal from initial Outstanding Principal
+        if (!AmortizationTemplate.isScalable(this.calculateInterest(annualInterest, 1.0),
+                generatePlanRequestDto.getDuration(), generatePlanRequestDto.getLoanAmount())) {
 
-                            this.remainingOutstandingPrincipal.set(this.initialOutstandingPrincipal.get() - this.principal.get());
+            return cursor;
+        }
 
-                            // Applying round function in the final output
+        AmortizationTemplate template = this.templateCacheService.getTemplate(annualInterest,
+                generatePlanRequestDto.getDuration(), () -> AmortizationTemplate.of(new DoublePaymentScheduleCursor(
+                        1.0, this.calculateAnnuity(1.0, annualInterest / NO_OF_MONTH_IN_YEAR, generatePlanRequestDto.getDuration()),
+                        annualInterest, generatePlanRequestDto.getDuration(), generatePlanRequestDto.getStartDate(),
+                        this::calculateInterest, this::calculatePrincipal)));
 
-                            return BorrowerPaymentDto.builder()
-                                    .borrowerPaymentAmount(CommonUtil.round(annuity))
-                                    .date(paymentDate.get())
-                                    .initialOutstandingPrincipal(CommonUtil.round(this.initialOutstandingPrincipal.get()))
-                                    .interest(CommonUtil.round(this.interest.get()))
-                                    .principal(CommonUtil.round(this.principal.get()))
-                                    .remainingOutstandingPrincipal(CommonUtil.round(this.remainingOutstandingPrincipal.get()))
-                                    .build();
-                        })
-                        .collect(Collectors.toList());
+        return template == null ? cursor : new TemplatePaymentScheduleCursor(template,
+                generatePlanRequestDto.getLoanAmount(), annuity, generatePlanRequestDto.getStartDate(), cursor);
     }
 
     /**
@@ -164,7 +321,7 @@ public abstract class AbstractDefaultLoanServiceImpl implements LoanService {
      * @param duration
      * @return
      */
-    protected abstract Double calculateAnnuity(final Double loanAmount, final Double monthlyInterestRate, final Integer duration);
+    protected abstract double calculateAnnuity(final double loanAmount, final double monthlyInterestRate, final int duration);
 
     /**
      * This method is charge of calculating the interest using below formula
@@ -177,7 +334,7 @@ public abstract class AbstractDefaultLoanServiceImpl implements LoanService {
      * @param initialOutstandingPrincipal
      * @return
      */
-    protected abstract Double calculateInterest(final Double annualInterestRate, final Double initialOutstandingPrincipal);
+    protected abstract double calculateInterest(final double annualInterestRate, final double initialOutstandingPrincipal);
 
     /**
      * This method is charge of calculating the principal using below formula
@@ -190,5 +347,25 @@ public abstract class AbstractDefaultLoanServiceImpl implements LoanService {
      * @param interest
      * @return
      */
-    protected abstract Double calculatePrincipal(final Double annuity, final Double interest);
+    protected abstract double calculatePrincipal(final double annuity, final double interest);
+
+    /**
+     * This method is charge of calculating the interest in cents, as {@link #calculateInterest(double, double)} does
+     * for {@link CalculationMode#CENTS}.
+     *
+     * @param annualInterestRate scaled by GlobalConstant.NO_OF_RATE_PRECISION digits
+     * @param initialOutstandingPrincipal in cents
+     * @return
+     */
+    protected abstract long calculateInterestInCents(final long annualInterestRate, final long initialOutstandingPrincipal);
+
+    /**
+     * This method is charge of calculating the principal in cents, as {@link #calculatePrincipal(double, double)} does
+     * for {@link CalculationMode#CENTS}.
+     *
+     * @param annuity in cents
+     * @param interest in cents
+     * @return
+     */
+    protected abstract long calculatePrincipalInCents(final long annuity, final long interest);
 }
@@ -1,7 +1,14 @@
 package com.lendico.finance.service.impl;
 
+import com.lendico.finance.cache.PlanCacheServiceImpl;
+import com.lendico.finance.cache.TemplateCacheServiceImpl;
+import com.lendico.finance.engine.AnnuityFactorTable;
+import com.lendico.finance.engine.CalculationMode;
 import com.lendico.finance.factory.ValidationFactoryServiceImpl;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
 import com.lendico.finance.service.LoanService;
+import com.lendico.finance.util.CommonUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -10,12 +17,21 @@ import org.springframework.stereotype.Service;
 @Service("loanService")
 public class LoanServiceImpl extends AbstractDefaultLoanServiceImpl implements LoanService {
 
-    private static final Integer NO_OF_DAYS_IN_MONTH = 30;
-    private static final Integer NO_OF_DAYS_IN_YEAR = 360;
+    private static final int NO_OF_DAYS_IN_MONTH = 30;
+    private static final int NO_OF_DAYS_IN_YEAR = 360;
 
-    public LoanServiceImpl(ValidationFactoryServiceImpl validationFactoryService) {
+    private AnnuityFactorTable annuityFactorTable;
 
-        super(validationFactoryService);
+    public LoanServiceImpl(ValidationFactoryServiceImpl validationFactoryService,
+                           PlanCacheServiceImpl planCacheService,
+                           TemplateCacheServiceImpl templateCacheService,
+                           AnnuityFactorTable annuityFactorTable,
+                           PlanPhaseMetrics planPhaseMetrics,
+                           @Value("${loan.calculation.mode}") CalculationMode calculationMode) {
+
+        super(validationFactoryService, planCacheService, templateCacheService, planPhaseMetrics, calculationMode);
+
+        this.annuityFactorTable = annuityFactorTable;
     }
 
     /**
@@ -25,15 +41,18 @@ public class LoanServiceImpl extends AbstractDefaultLoanServiceImpl implements L
      *
      * Ex: Annuity = (5000 * 0.0041) / (1 - (1 + 0.0041) ^ - 24) = 219.36
      *
+     * The denominator 1 - (1 + Monthly interest rate) ^ - Duration only depends on the product, so it is looked up
+     * in the annuity factor table. The rest of the formula keeps its original order to give the same annuity.
+     *
      * @param loanAmount
      * @param monthlyInterestRate
      * @param duration
      * @return
      */
     @Override
-    public Double calculateAnnuity(final Double loanAmount, final Double monthlyInterestRate, final Integer duration) {
+    public double calculateAnnuity(final double loanAmount, final double monthlyInterestRate, final int duration) {
 
-        return ((loanAmount * monthlyInterestRate) / (1 - Math.pow(1 + monthlyInterestRate, - duration)));
+        return ((loanAmount * monthlyInterestRate) / this.annuityFactorTable.getDenominator(monthlyInterestRate, duration));
     }
 
     /**
@@ -48,7 +67,7 @@ public class LoanServiceImpl extends AbstractDefaultLoanServiceImpl implements L
      * @return
      */
     @Override
-    public Double calculateInterest(Double annualInterestRate, Double initialOutstandingPrincipal) {
+    public double calculateInterest(final double annualInterestRate, final double initialOutstandingPrincipal) {
 
         return (annualInterestRate * NO_OF_DAYS_IN_MONTH * initialOutstandingPrincipal) / NO_OF_DAYS_IN_YEAR;
     }
@@ -65,7 +84,36 @@ public class LoanServiceImpl extends AbstractDefaultLoanServiceImpl implements L
      * @return
      */
     @Override
-    public Double calculatePrincipal(final Double annuity, final Double interest) {
+    public double calculatePrincipal(final double annuity, final double interest) {
+
+        return annuity - interest;
+    }
+
+    /**
+     * This method is charge of calculating the interest in cents using the same formula as
+     * {@link #calculateInterest(double, double)}, rounded half up to cents.
+     *
+     * @param annualInterestRate
+     * @param initialOutstandingPrincipal
+     * @return
+     */
+    @Override
+    public long calculateInterestInCents(final long annualInterestRate, final long initialOutstandingPrincipal) {
+
+        return CommonUtil.multiplyByScaledRate(initialOutstandingPrincipal,
+                CommonUtil.scaleRate(annualInterestRate, NO_OF_DAYS_IN_MONTH, NO_OF_DAYS_IN_YEAR));
+    }
+
+    /**
+     * This method is charge of calculating the principal in cents using the same formula as
+     * {@link #calculatePrincipal(double, double)}.
+     *
+     * @param annuity
+     * @param interest
+     * @return
+     */
+    @Override
+    public long calculatePrincipalInCents(final long annuity, final long interest) {
 
         return annuity - interest;
     }
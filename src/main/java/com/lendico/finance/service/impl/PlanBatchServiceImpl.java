@@ -0,0 +1,197 @@
+package com.lendico.finance.service.impl;
+
+import com.lendico.finance.exception.GenericClientRuntimeException;
+import com.lendico.finance.exception.RequestValidationRuntimeException;
+import com.lendico.finance.logging.AsyncLogPipeline;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.model.GeneratePlanResultDto;
+import com.lendico.finance.model.GeneratePlansResponseDto;
+import com.lendico.finance.service.LoanService;
+import com.lendico.finance.service.PlanBatchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolationException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * This service generates the plans of a batch in parallel on the bounded plan batch pool.
+ * Every entry goes through {@link LoanService#generatePlan(GeneratePlanRequestDto)}, or
+ * {@link LoanService#generatePlanSummary(GeneratePlanRequestDto)} for the summaries, and its failure is
+ * reported inline in its own result so that one bad loan does not fail the whole batch.
+ */
+@Service("planBatchService")
+public class PlanBatchServiceImpl implements PlanBatchService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PlanBatchServiceImpl.class);
+
+    private static final int SEQUENTIAL_THRESHOLD = 8;
+    private static final String BATCH_ENTRY_PATH = "/generate-plans#";
+
+    private LoanService loanService;
+    private ForkJoinPool planBatchPool;
+    private int maxBatchSize;
+    private AsyncLogPipeline asyncLogPipeline;
+
+    public PlanBatchServiceImpl(final LoanService loanService,
+                                final @Qualifier("planBatchPool") ForkJoinPool planBatchPool,
+                                final @Value("${loan.batch.max-size}") int maxBatchSize,
+                                final AsyncLogPipeline asyncLogPipeline) {
+
+        this.loanService = loanService;
+        this.planBatchPool = planBatchPool;
+        this.maxBatchSize = maxBatchSize;
+        this.asyncLogPipeline = asyncLogPipeline;
+    }
+
+    /**
+     * This method generates the plans for the given requests and returns the results in the same order
+     *
+     * @param generatePlanRequestDtoList
+     * @return
+     */
+    @Override
+    public GeneratePlansResponseDto generatePlans(final List<GeneratePlanRequestDto> generatePlanRequestDtoList) {
+
+        return this.generate(generatePlanRequestDtoList, false);
+    }
+
+    /**
+     * This method generates the plan summaries for the given requests and returns the results in the same order
+     *
+     * @param generatePlanRequestDtoList
+     * @return
+     */
+    @Override
+    public GeneratePlansResponseDto generatePlanSummaries(final List<GeneratePlanRequestDto> generatePlanRequestDtoList) {
+
+        return this.generate(generatePlanRequestDtoList, true);
+    }
+
+    private GeneratePlansResponseDto generate(final List<GeneratePlanRequestDto> generatePlanRequestDtoList,
+                                              final boolean summaryOnly) {
+
+        if (generatePlanRequestDtoList == null || generatePlanRequestDtoList.isEmpty()) {
+
+            throw new GenericClientRuntimeException("At least one loan should be provided");
+        }
+
+        if (generatePlanRequestDtoList.size() > this.maxBatchSize) {
+
+            throw new GenericClientRuntimeException("Number of loans should not be greater than " + this.maxBatchSize);
+        }
+
+        GeneratePlanResultDto[] results = new GeneratePlanResultDto[generatePlanRequestDtoList.size()];
+
+        this.planBatchPool.invoke(new GeneratePlanTask(generatePlanRequestDtoList, summaryOnly, results, 0, results.length));
+
+        return GeneratePlansResponseDto.builder()
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * This method generates the plan, or only its summary, of one entry and converts its failure into an inline
+     * error result
+     *
+     * @param index
+     * @param generatePlanRequestDto
+     * @param summaryOnly
+     * @return
+     */
+    private GeneratePlanResultDto generatePlan(final int index, final GeneratePlanRequestDto generatePlanRequestDto,
+                                               final boolean summaryOnly) {
+
+        try {
+
+            GeneratePlanResultDto.GeneratePlanResultDtoBuilder result = GeneratePlanResultDto.builder()
+                    .index(index)
+                    .status(HttpStatus.OK.value());
+
+            if (summaryOnly) {
+
+                return result.summary(this.loanService.generatePlanSummary(generatePlanRequestDto)).build();
+            }
+
+            return result.plan(this.loanService.generatePlan(generatePlanRequestDto)).build();
+
+        } catch (ConstraintViolationException exception) {
+
+            List<String> errors = RequestValidationRuntimeException.errorsOf(exception);
+
+            this.asyncLogPipeline.logValidationErrors(BATCH_ENTRY_PATH + index, errors);
+
+            return this.errorResult(index, HttpStatus.BAD_REQUEST, errors);
+
+        } catch (GenericClientRuntimeException exception) {
+
+            return this.errorResult(index, HttpStatus.BAD_REQUEST, Collections.singletonList(exception.getMessage()));
+
+        } catch (Exception exception) {
+
+            LOG.error("Exception while generating plan of batch entry {}", index, exception);
+
+            return this.errorResult(index, HttpStatus.INTERNAL_SERVER_ERROR, Collections.singletonList(exception.getMessage()));
+        }
+    }
+
+    private GeneratePlanResultDto errorResult(final int index, final HttpStatus status, final List<String> errors) {
+
+        return GeneratePlanResultDto.builder()
+                .index(index)
+                .status(status.value())
+                .errors(errors)
+                .build();
+    }
+
+    /**
+     * Splits the range of entries until it is small enough and fills the results in place.
+     */
+    private class GeneratePlanTask extends RecursiveAction {
+
+        private final List<GeneratePlanRequestDto> generatePlanRequestDtoList;
+        private final boolean summaryOnly;
+        private final GeneratePlanResultDto[] results;
+        private final int from;
+        private final int to;
+
+        private GeneratePlanTask(final List<GeneratePlanRequestDto> generatePlanRequestDtoList, final boolean summaryOnly,
+                                 final GeneratePlanResultDto[] results, final int from, final int to) {
+
+            this.generatePlanRequestDtoList = generatePlanRequestDtoList;
+            this.summaryOnly = summaryOnly;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (this.to - this.from <= SEQUENTIAL_THRESHOLD) {
+
+                for (int index = this.from; index < this.to; index++) {
+
+                    this.results[index] = generatePlan(index, this.generatePlanRequestDtoList.get(index), this.summaryOnly);
+                }
+
+            } else {
+
+                int middle = (this.from + this.to) >>> 1;
+
+                invokeAll(new GeneratePlanTask(this.generatePlanRequestDtoList, this.summaryOnly, this.results, this.from, middle),
+                        new GeneratePlanTask(this.generatePlanRequestDtoList, this.summaryOnly, this.results, middle, this.to));
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.lendico.finance.service.impl;
+
+import com.lendico.finance.batch.DirectBufferPool;
+import com.lendico.finance.batch.PlanFileChunk;
+import com.lendico.finance.exception.GenericClientRuntimeException;
+import com.lendico.finance.exception.GenericServerRuntimeException;
+import com.lendico.finance.model.PlanFileBatchResultDto;
+import com.lendico.finance.service.LoanService;
+import com.lendico.finance.service.PlanFileBatchService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * This service generates the plans of a CSV file of loans into a CSV file of installments, without going through
+ * the web layer nor Jackson. The input file is memory mapped in windows and cut into chunks of whole lines, which
+ * are parsed and generated in parallel on the plan batch pool, each into direct buffers. The chunks are written to
+ * the output file in the input order, so the output does not depend on the parallelism.
+ *
+ * At most two chunks per thread of the pool are in flight and their buffers are reused, so the memory used is
+ * bounded by the chunk size and the plans of its loans, whatever the size of the file.
+ */
+@Service("planFileBatchService")
+public class PlanFileBatchServiceImpl implements PlanFileBatchService {
+
+    private static final int NO_OF_CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+    private static final long MAX_WINDOW_SIZE = 1L << 30;
+    private static final String REJECTED_FILE_SUFFIX = ".rejected.csv";
+    private static final byte[] REJECTED_HEADER = "line,errors\n".getBytes(StandardCharsets.US_ASCII);
+
+    private LoanService loanService;
+    private ForkJoinPool planBatchPool;
+    private int chunkSize;
+    private DirectBufferPool bufferPool;
+
+    public PlanFileBatchServiceImpl(final LoanService loanService,
+                                    final @Qualifier("planBatchPool") ForkJoinPool planBatchPool,
+                                    final @Value("${loan.batch.file.chunk-size}") int chunkSize,
+                                    final @Value("${loan.batch.file.buffer-size}") int bufferSize) {
+
+        this.loanService = loanService;
+        this.planBatchPool = planBatchPool;
+        this.chunkSize = chunkSize;
+        this.bufferPool = new DirectBufferPool(bufferSize);
+    }
+
+    /**
+     * This method generates the plans of the loans of the input file into the output file, and lists the rejected
+     * loans in a file next to it named after the output file.
+     *
+     * @param inputFile
+     * @param outputFile
+     * @return
+     */
+    @Override
+    public PlanFileBatchResultDto generatePlanFile(final Path inputFile, final Path outputFile) {
+
+        long startTime = System.nanoTime();
+        Path rejectedFile = outputFile.resolveSibling(outputFile.getFileName() + REJECTED_FILE_SUFFIX);
+        PlanFileBatchResultDto result = PlanFileBatchResultDto.builder()
+                .outputFile(outputFile.toString())
+                .rejectedFile(rejectedFile.toString())
+                .noOfLoans(0L)
+                .noOfRejectedLoans(0L)
+                .noOfInstallments(0L)
+                .build();
+
+        try (FileChannel input = FileChannel.open(inputFile, StandardOpenOption.READ);
+             FileChannel output = openForWriting(outputFile);
+             FileChannel rejected = openForWriting(rejectedFile)) {
+
+            writeFully(output, PlanFileChunk.outputHeader());
+            writeFully(rejected, ByteBuffer.wrap(REJECTED_HEADER));
+
+            this.processChunks(input, output, rejected, result);
+
+        } catch (NoSuchFileException exception) {
+
+            throw new GenericClientRuntimeException("Loan file " + exception.getFile() + " does not exist", exception);
+
+        } catch (IOException exception) {
+
+            throw new GenericServerRuntimeException("Loan file could not be processed: " + exception.getMessage(), exception);
+        }
+
+        result.setElapsedMillis((System.nanoTime() - startTime) / 1_000_000);
+
+        return result;
+    }
+
+    /**
+     * This method maps the input file window by window, submits its chunks and writes the completed ones in order
+     *
+     * @param input
+     * @param output
+     * @param rejected
+     * @param result
+     * @throws IOException
+     */
+    private void processChunks(final FileChannel input, final FileChannel output, final FileChannel rejected,
+                               final PlanFileBatchResultDto result) throws IOException {
+
+        Deque<ForkJoinTask<PlanFileChunk>> chunksInFlight = new ArrayDeque<>();
+        int maxChunksInFlight = this.planBatchPool.getParallelism() * NO_OF_CHUNKS_IN_FLIGHT_PER_THREAD;
+
+        long fileSize = input.size();
+        long position = 0;
+        long windowStart = 0;
+        MappedByteBuffer window = null;
+        int line = 1;
+
+        while (position < fileSize) {
+
+            if (window == null) {
+
+                windowStart = position;
+                window = input.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                        Math.min(MAX_WINDOW_SIZE, fileSize - windowStart));
+            }
+
+            boolean lastWindow = windowStart + window.limit() == fileSize;
+            int from = (int) (position - windowStart);
+            int to = this.endOfChunk(window, from, lastWindow);
+
+            if (to < 0) {
+
+                if (from == 0) {
+
+                    throw new GenericClientRuntimeException("Line " + line + " is longer than " + MAX_WINDOW_SIZE + " bytes");
+                }
+
+                window = null;
+
+                continue;
+            }
+
+            if (chunksInFlight.size() == maxChunksInFlight) {
+
+                this.write(chunksInFlight.poll().join(), output, rejected, result);
+            }
+
+            PlanFileChunk chunk = new PlanFileChunk(window.duplicate(), from, to, line, this.bufferPool);
+
+            chunksInFlight.add(this.planBatchPool.submit(ForkJoinTask.adapt(() -> chunk.process(this.loanService))));
+
+            line += countLines(window, from, to);
+            position = windowStart + to;
+        }
+
+        while (!chunksInFlight.isEmpty()) {
+
+            this.write(chunksInFlight.poll().join(), output, rejected, result);
+        }
+    }
+
+    /**
+     * This method returns the end of the chunk starting at the given position, right after the last new line within
+     * the chunk size, or after the first one beyond it when a line is longer. It returns -1 when the chunk needs a
+     * window starting at the given position.
+     *
+     * @param window
+     * @param from
+     * @param lastWindow
+     * @return
+     */
+    private int endOfChunk(final ByteBuffer window, final int from, final boolean lastWindow) {
+
+        int limit = window.limit();
+        int to = (int) Math.min((long) from + this.chunkSize, limit);
+
+        if (to == limit && lastWindow) {
+
+            return limit;
+        }
+
+        for (int index = to - 1; index >= from; index--) {
+
+            if (window.get(index) == '\n') {
+
+                return index + 1;
+            }
+        }
+
+        for (int index = to; index < limit; index++) {
+
+            if (window.get(index) == '\n') {
+
+                return index + 1;
+            }
+        }
+
+        return lastWindow ? limit : -1;
+    }
+
+    private void write(final PlanFileChunk chunk, final FileChannel output, final FileChannel rejected,
+                       final PlanFileBatchResultDto result) throws IOException {
+
+        for (ByteBuffer buffer : chunk.getOutputBuffers()) {
+
+            writeFully(output, buffer);
+
+            this.bufferPool.release(buffer);
+        }
+
+        writeFully(rejected, ByteBuffer.wrap(chunk.getRejectedRows()));
+
+        result.setNoOfLoans(result.getNoOfLoans() + chunk.getNoOfLoans());
+        result.setNoOfRejectedLoans(result.getNoOfRejectedLoans() + chunk.getNoOfRejectedLoans());
+        result.setNoOfInstallments(result.getNoOfInstallments() + chunk.getNoOfInstallments());
+    }
+
+    private static int countLines(final ByteBuffer window, final int from, final int to) {
+
+        int noOfLines = 0;
+
+        for (int index = from; index < to; index++) {
+
+            if (window.get(index) == '\n') {
+
+                noOfLines++;
+            }
+        }
+
+        return noOfLines;
+    }
+
+    private static FileChannel openForWriting(final Path file) throws IOException {
+
+        return FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+
+        while (buffer.hasRemaining()) {
+
+            channel.write(buffer);
+        }
+    }
+}
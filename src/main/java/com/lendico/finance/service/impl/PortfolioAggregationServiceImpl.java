@@ -0,0 +1,262 @@
+package com.lendico.finance.service.impl;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.lendico.finance.admission.PlanAdmissionLimiter;
+import com.lendico.finance.admission.PlanAdmissionRequestBodyAdvice;
+import com.lendico.finance.engine.CashFlowAccumulator;
+import com.lendico.finance.engine.PaymentScheduleCursor;
+import com.lendico.finance.exception.GenericClientRuntimeException;
+import com.lendico.finance.exception.RequestValidationRuntimeException;
+import com.lendico.finance.logging.AsyncLogPipeline;
+import com.lendico.finance.model.CashFlowAggregateDto;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.model.GeneratePlanResultDto;
+import com.lendico.finance.service.LoanService;
+import com.lendico.finance.service.PortfolioAggregationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * This service aggregates the monthly cash flows of a portfolio of loans read one at a time from a stream,
+ * as newline delimited JSON or as JSON array. The loans are cut into partitions which are folded in parallel
+ * on the plan batch pool, each into its own {@link CashFlowAccumulator}, and merged in the input order.
+ *
+ * At most two partitions per thread of the pool are in flight, so the memory used is bounded by the partition
+ * size and the range of months, whatever the number of loans. An invalid loan is counted as rejected and left
+ * out of the cash flows.
+ *
+ * Every partition is admitted through the {@link PlanAdmissionLimiter} as soon as it is read, costing the
+ * installments of its loans, and releases them once folded. A portfolio is therefore shed with 503 Service
+ * Unavailable as soon as one of its partitions does not fit, the partitions already in flight being completed.
+ */
+@Service("portfolioAggregationService")
+public class PortfolioAggregationServiceImpl implements PortfolioAggregationService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PortfolioAggregationServiceImpl.class);
+
+    private static final int NO_OF_PARTITIONS_IN_FLIGHT_PER_THREAD = 2;
+    private static final String PORTFOLIO_ENTRY_PATH = "/aggregate-cash-flows#";
+
+    private LoanService loanService;
+    private ForkJoinPool planBatchPool;
+    private ObjectReader loanReader;
+    private int partitionSize;
+    private int maxErrors;
+    private AsyncLogPipeline asyncLogPipeline;
+    private PlanAdmissionLimiter planAdmissionLimiter;
+
+    public PortfolioAggregationServiceImpl(final LoanService loanService,
+                                           final @Qualifier("planBatchPool") ForkJoinPool planBatchPool,
+                                           final ObjectMapper objectMapper,
+                                           final @Value("${loan.aggregation.partition-size}") int partitionSize,
+                                           final @Value("${loan.aggregation.max-errors}") int maxErrors,
+                                           final AsyncLogPipeline asyncLogPipeline,
+                                           final PlanAdmissionLimiter planAdmissionLimiter) {
+
+        this.loanService = loanService;
+        this.planBatchPool = planBatchPool;
+        this.loanReader = objectMapper.readerFor(GeneratePlanRequestDto.class);
+        this.partitionSize = partitionSize;
+        this.maxErrors = maxErrors;
+        this.asyncLogPipeline = asyncLogPipeline;
+        this.planAdmissionLimiter = planAdmissionLimiter;
+    }
+
+    /**
+     * This method reads the loans of the given stream and returns their cash flows aggregated per month
+     *
+     * @param inputStream
+     * @return
+     */
+    @Override
+    public CashFlowAggregateDto aggregateCashFlows(final InputStream inputStream) {
+
+        Deque<ForkJoinTask<Partition>> partitionsInFlight = new ArrayDeque<>();
+        int maxPartitionsInFlight = this.planBatchPool.getParallelism() * NO_OF_PARTITIONS_IN_FLIGHT_PER_THREAD;
+
+        Partition portfolio = new Partition();
+        List<GeneratePlanRequestDto> loans = new ArrayList<>(this.partitionSize);
+        int index = 0;
+
+        try (MappingIterator<GeneratePlanRequestDto> loanIterator = this.loanReader.readValues(inputStream)) {
+
+            while (loanIterator.hasNextValue()) {
+
+                loans.add(loanIterator.nextValue());
+
+                if (++index % this.partitionSize == 0) {
+
+                    if (partitionsInFlight.size() == maxPartitionsInFlight) {
+
+                        portfolio.merge(partitionsInFlight.poll().join());
+                    }
+
+                    partitionsInFlight.add(this.submitPartition(loans, index - loans.size()));
+
+                    loans = new ArrayList<>(this.partitionSize);
+                }
+            }
+
+        } catch (IOException exception) {
+
+            throw new GenericClientRuntimeException("Loan " + index + " could not be read: " + exception.getMessage(), exception);
+        }
+
+        if (index == 0) {
+
+            throw new GenericClientRuntimeException("At least one loan should be provided");
+        }
+
+        if (!loans.isEmpty()) {
+
+            partitionsInFlight.add(this.submitPartition(loans, index - loans.size()));
+        }
+
+        while (!partitionsInFlight.isEmpty()) {
+
+            portfolio.merge(partitionsInFlight.poll().join());
+        }
+
+        return CashFlowAggregateDto.builder()
+                .noOfLoans(portfolio.accumulator.getNoOfLoans())
+                .noOfRejectedLoans(portfolio.noOfRejectedLoans)
+                .errors(portfolio.errors)
+                .cashFlows(portfolio.accumulator.toMonthlyCashFlowList())
+                .build();
+    }
+
+    /**
+     * This method admits the given partition and submits it to the batch pool, the permit being released by the
+     * task once the partition is folded.
+     *
+     * @param loans
+     * @param firstIndex
+     * @return
+     */
+    private ForkJoinTask<Partition> submitPartition(final List<GeneratePlanRequestDto> loans, final int firstIndex) {
+
+        // The schedules are folded one installment at a time, so the cap on the installments of a single plan
+        // request, protecting the memory, does not apply to a partition
+        PlanAdmissionLimiter.Permit permit = this.planAdmissionLimiter.acquire(Math.min(
+                PlanAdmissionRequestBodyAdvice.installmentsOf(loans), this.planAdmissionLimiter.getMaxRequestInstallments()));
+
+        try {
+
+            return this.planBatchPool.submit(this.newPartitionTask(loans, firstIndex, permit));
+
+        } catch (RuntimeException exception) {
+
+            permit.close();
+
+            throw exception;
+        }
+    }
+
+    private ForkJoinTask<Partition> newPartitionTask(final List<GeneratePlanRequestDto> loans, final int firstIndex,
+                                                     final PlanAdmissionLimiter.Permit permit) {
+
+        return ForkJoinTask.adapt(() -> {
+
+            try (PlanAdmissionLimiter.Permit partitionPermit = permit) {
+
+                Partition partition = new Partition();
+
+                for (int index = 0; index < loans.size(); index++) {
+
+                    this.addLoan(partition, firstIndex + index, loans.get(index));
+                }
+
+                return partition;
+            }
+        });
+    }
+
+    /**
+     * This method folds the schedule of one loan into the partition and converts its failure into a rejection
+     *
+     * @param partition
+     * @param index
+     * @param generatePlanRequestDto
+     */
+    private void addLoan(final Partition partition, final int index, final GeneratePlanRequestDto generatePlanRequestDto) {
+
+        try {
+
+            PaymentScheduleCursor cursor = this.loanService.generateScheduleCursor(generatePlanRequestDto);
+
+            partition.accumulator.add(cursor, generatePlanRequestDto.getStartDate().toLocalDate());
+
+        } catch (ConstraintViolationException exception) {
+
+            List<String> errors = RequestValidationRuntimeException.errorsOf(exception);
+
+            this.asyncLogPipeline.logValidationErrors(PORTFOLIO_ENTRY_PATH + index, errors);
+
+            partition.reject(index, HttpStatus.BAD_REQUEST, errors);
+
+        } catch (GenericClientRuntimeException exception) {
+
+            partition.reject(index, HttpStatus.BAD_REQUEST, Collections.singletonList(exception.getMessage()));
+
+        } catch (Exception exception) {
+
+            LOG.error("Exception while aggregating cash flows of loan {}", index, exception);
+
+            partition.reject(index, HttpStatus.INTERNAL_SERVER_ERROR, Collections.singletonList(exception.getMessage()));
+        }
+    }
+
+    /**
+     * Cash flows and rejections of a range of loans, keeping the errors of the first rejected loans only.
+     */
+    private final class Partition {
+
+        private final CashFlowAccumulator accumulator = new CashFlowAccumulator();
+        private final List<GeneratePlanResultDto> errors = new ArrayList<>();
+        private long noOfRejectedLoans;
+
+        private void reject(final int index, final HttpStatus status, final List<String> errors) {
+
+            this.noOfRejectedLoans++;
+
+            if (this.errors.size() < maxErrors) {
+
+                this.errors.add(GeneratePlanResultDto.builder()
+                        .index(index)
+                        .status(status.value())
+                        .errors(errors)
+                        .build());
+            }
+        }
+
+        private void merge(final Partition other) {
+
+            this.accumulator.merge(other.accumulator);
+            this.noOfRejectedLoans += other.noOfRejectedLoans;
+
+            for (int index = 0; index < other.errors.size() && this.errors.size() < maxErrors; index++) {
+
+                this.errors.add(other.errors.get(index));
+            }
+        }
+    }
+}
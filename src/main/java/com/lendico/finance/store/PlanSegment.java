@@ -0,0 +1,332 @@
+package com.lendico.finance.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Segment file of the plan store, of a fixed size and memory mapped as a whole. The plans are appended one after
+ * the other, each as a record of its payload length, the CRC32 of its ID and payload, its ID and its payload:
+ *
+ * header   | magic (int) | version (int) |
+ * record   | length (int) | crc (int) | id (2 longs) | payload (length bytes) |
+ * footer   | id (2 longs) | offset (int) |  per record, right after the last record
+ * trailer  | footer offset (int) | no of records (int) | crc of the footer (int) | footer magic (int) |  last 16 bytes
+ *
+ * The footer is written when the segment is full and when the store is closed, so the records are indexed
+ * from it on the next start. A segment without footer, after a crash, is scanned record by record until the
+ * first one missing or with a wrong CRC. Room for the footer is always kept, so it can be written at any time.
+ *
+ * The records are written by one thread only. They are read through views of the mapping created per read,
+ * the base buffer being only accessed with absolute positions.
+ */
+final class PlanSegment {
+
+    static final int RECORD_HEADER_SIZE = 24;
+
+    private static final int MAGIC = 0x4C505331;
+    private static final int FOOTER_MAGIC = 0x4C505346;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int FOOTER_ENTRY_SIZE = 20;
+    private static final int TRAILER_SIZE = 16;
+    private static final int INITIAL_NO_OF_RECORDS = 1024;
+    private static final int ZERO_CHUNK_SIZE = 8192;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private int position = HEADER_SIZE;
+    private int[] recordOffsets = new int[INITIAL_NO_OF_RECORDS];
+    private int noOfRecords;
+
+    private PlanSegment(final Path file, final FileChannel channel, final int capacity) throws IOException {
+
+        this.file = file;
+        this.channel = channel;
+        this.capacity = capacity;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * This method creates a new empty segment file of the given size
+     *
+     * @param file
+     * @param capacity
+     * @return
+     * @throws IOException
+     */
+    static PlanSegment create(final Path file, final int capacity) throws IOException {
+
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        PlanSegment segment = new PlanSegment(file, channel, capacity);
+
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(Integer.BYTES, VERSION);
+
+        return segment;
+    }
+
+    /**
+     * This method opens an existing segment file and indexes its records, from its footer when it has one.
+     *
+     * @param file
+     * @param recordConsumer called for every record
+     * @return
+     * @throws IOException when the file is not a segment
+     */
+    static PlanSegment open(final Path file, final RecordConsumer recordConsumer) throws IOException {
+
+        long size = Files.size(file);
+
+        if (size < HEADER_SIZE + TRAILER_SIZE || size > Integer.MAX_VALUE) {
+
+            throw new IOException("Plan segment " + file + " has an invalid size " + size);
+        }
+
+        PlanSegment segment = new PlanSegment(file,
+                FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE), (int) size);
+
+        if (segment.buffer.getInt(0) != MAGIC || segment.buffer.getInt(Integer.BYTES) != VERSION) {
+
+            segment.close();
+
+            throw new IOException("Plan segment " + file + " is not a plan segment of version " + VERSION);
+        }
+
+        if (!segment.loadFooter()) {
+
+            segment.scan();
+        }
+
+        segment.forEachRecord(recordConsumer);
+
+        return segment;
+    }
+
+    /**
+     * This method calls the given consumer for every record of the segment, in the order they were appended
+     *
+     * @param recordConsumer
+     */
+    void forEachRecord(final RecordConsumer recordConsumer) {
+
+        for (int record = 0; record < this.noOfRecords; record++) {
+
+            int offset = this.recordOffsets[record];
+
+            recordConsumer.accept(new UUID(this.buffer.getLong(offset + 8), this.buffer.getLong(offset + 16)), offset);
+        }
+    }
+
+    /**
+     * This method appends the given plan and returns the offset of its record, or -1 when it does not fit
+     *
+     * @param planId
+     * @param payload
+     * @return
+     */
+    int append(final UUID planId, final byte[] payload) {
+
+        long end = (long) this.position + RECORD_HEADER_SIZE + payload.length;
+
+        if (end + (long) (this.noOfRecords + 1) * FOOTER_ENTRY_SIZE + TRAILER_SIZE > this.capacity) {
+
+            return -1;
+        }
+
+        int offset = this.position;
+        ByteBuffer view = this.buffer.duplicate();
+
+        view.position(offset + 8);
+        view.putLong(planId.getMostSignificantBits());
+        view.putLong(planId.getLeastSignificantBits());
+        view.put(payload);
+
+        // The length comes last, so a record is complete once it can be read
+        this.buffer.putInt(offset + 4, this.crcOf(offset + 8, 16 + payload.length));
+        this.buffer.putInt(offset, payload.length);
+
+        this.position = (int) end;
+        this.addRecord(offset);
+
+        return offset;
+    }
+
+    /**
+     * This method returns a read-only view of the payload of the record at the given offset
+     *
+     * @param offset
+     * @return
+     */
+    ByteBuffer getPayload(final int offset) {
+
+        ByteBuffer view = this.buffer.duplicate();
+
+        view.position(offset + RECORD_HEADER_SIZE);
+        view.limit(offset + RECORD_HEADER_SIZE + this.buffer.getInt(offset));
+
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * This method writes the footer and the trailer after the last record and flushes the segment to the disk
+     */
+    void writeFooter() {
+
+        ByteBuffer view = this.buffer.duplicate();
+
+        view.position(this.position);
+
+        for (int record = 0; record < this.noOfRecords; record++) {
+
+            int offset = this.recordOffsets[record];
+
+            view.putLong(this.buffer.getLong(offset + 8));
+            view.putLong(this.buffer.getLong(offset + 16));
+            view.putInt(offset);
+        }
+
+        int trailer = this.capacity - TRAILER_SIZE;
+
+        this.buffer.putInt(trailer, this.position);
+        this.buffer.putInt(trailer + 4, this.noOfRecords);
+        this.buffer.putInt(trailer + 8, this.crcOf(this.position, this.noOfRecords * FOOTER_ENTRY_SIZE));
+        this.buffer.putInt(trailer + 12, FOOTER_MAGIC);
+
+        this.buffer.force();
+    }
+
+    /**
+     * This method removes the trailer before new records are appended, so the footer is not read anymore
+     * if the store is not closed properly.
+     */
+    void clearFooter() {
+
+        this.buffer.putInt(this.capacity - Integer.BYTES, 0);
+    }
+
+    boolean isEmpty() {
+
+        return this.noOfRecords == 0;
+    }
+
+    int getNoOfRecords() {
+        return noOfRecords;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    void close() throws IOException {
+
+        this.channel.close();
+    }
+
+    private boolean loadFooter() {
+
+        int trailer = this.capacity - TRAILER_SIZE;
+        int footerOffset = this.buffer.getInt(trailer);
+        int count = this.buffer.getInt(trailer + 4);
+
+        if (this.buffer.getInt(trailer + 12) != FOOTER_MAGIC || footerOffset < HEADER_SIZE || count < 0
+                || (long) footerOffset + (long) count * FOOTER_ENTRY_SIZE > trailer
+                || this.buffer.getInt(trailer + 8) != this.crcOf(footerOffset, count * FOOTER_ENTRY_SIZE)) {
+
+            return false;
+        }
+
+        for (int record = 0; record < count; record++) {
+
+            this.addRecord(this.buffer.getInt(footerOffset + record * FOOTER_ENTRY_SIZE + 16));
+        }
+
+        this.position = footerOffset;
+
+        return true;
+    }
+
+    private void scan() {
+
+        int limit = this.capacity - TRAILER_SIZE;
+        int offset = HEADER_SIZE;
+
+        while (offset + RECORD_HEADER_SIZE <= limit) {
+
+            int length = this.buffer.getInt(offset);
+
+            if (length <= 0 || length > limit - offset - RECORD_HEADER_SIZE
+                    || this.buffer.getInt(offset + 4) != this.crcOf(offset + 8, 16 + length)) {
+
+                break;
+            }
+
+            this.addRecord(offset);
+
+            offset += RECORD_HEADER_SIZE + length;
+        }
+
+        this.position = offset;
+
+        // A torn record is wiped, so the records appended over it cannot be followed by a part of it
+        if (offset + Integer.BYTES <= limit && this.buffer.getInt(offset) != 0) {
+
+            ByteBuffer view = this.buffer.duplicate();
+            byte[] zeros = new byte[ZERO_CHUNK_SIZE];
+
+            view.position(offset);
+
+            while (view.hasRemaining()) {
+
+                view.put(zeros, 0, Math.min(zeros.length, view.remaining()));
+            }
+        }
+    }
+
+    private void addRecord(final int offset) {
+
+        if (this.noOfRecords == this.recordOffsets.length) {
+
+            this.recordOffsets = Arrays.copyOf(this.recordOffsets, this.noOfRecords * 2);
+        }
+
+        this.recordOffsets[this.noOfRecords++] = offset;
+    }
+
+    private int crcOf(final int offset, final int length) {
+
+        ByteBuffer view = this.buffer.duplicate();
+
+        view.position(offset);
+        view.limit(offset + length);
+
+        CRC32 crc = new CRC32();
+
+        crc.update(view);
+
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Receives the records of a segment
+     */
+    @FunctionalInterface
+    interface RecordConsumer {
+
+        void accept(UUID planId, int offset);
+    }
+}
@@ -0,0 +1,515 @@
+package com.lendico.finance.store;
+
+import com.google.protobuf.CodedOutputStream;
+import com.lendico.finance.cache.PlanCacheKey;
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.engine.PaymentPlan;
+import com.lendico.finance.exception.GenericServerRuntimeException;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.serializer.ProtobufPlanHttpMessageConverter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Persistent store of the generated plans, served again by their ID without being generated. The ID of a plan is
+ * a name based UUID of its {@link PlanCacheKey}, the calculation mode and the engine version, so it is known as soon
+ * as the request is, and is the same on every instance and after every restart.
+ *
+ * The plans are encoded in the protobuf layout of the /generate-plan responses by the request threads and appended
+ * by a single background thread to memory mapped {@link PlanSegment} files. The queue of the encoded plans is bounded
+ * by their bytes, not their count, as one plan can have a million installments. When it is full the plan is dropped
+ * and counted instead of blocking. The index of the plans, from their ID to their segment and offset, is kept in
+ * memory and rebuilt from the segment files on startup.
+ *
+ * At most max-segments segments are kept: when a new one is created, the oldest is removed from the index and
+ * deleted, so neither the disk nor the index grow without limit.
+ *
+ * The stored, dropped, failed and evicted plans are counted by loan.plan.store.plans with tag result.
+ */
+@Service("planStoreService")
+@ConditionalOnWebApplication
+public class PlanStoreServiceImpl {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PlanStoreServiceImpl.class);
+
+    public static final String PLANS_COUNTER_NAME = "loan.plan.store.plans";
+    public static final String SIZE_GAUGE_NAME = "loan.plan.store.size";
+
+    private static final String RESULT_TAG = "result";
+    private static final String THREAD_NAME = "plan-store";
+    private static final String LOCK_FILE = "store.lock";
+    private static final String SEGMENT_FILE_PREFIX = "plans-";
+    private static final String SEGMENT_FILE_SUFFIX = ".seg";
+    private static final String SEGMENT_FILE_FORMAT = SEGMENT_FILE_PREFIX + "%08d" + SEGMENT_FILE_SUFFIX;
+    private static final char SEPARATOR = '|';
+    private static final int ESTIMATED_BYTES_PER_INSTALLMENT = 40;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final long queueMaxBytes;
+    private final int maxSegments;
+    private final String engineVersion;
+    private final CalculationMode calculationMode;
+
+    // The location of a plan is the number of its segment in the high and its offset in the low 32 bits
+    private final ConcurrentNavigableMap<Integer, PlanSegment> segments = new ConcurrentSkipListMap<>();
+    private final Map<UUID, Long> index = new ConcurrentHashMap<>();
+    private final Set<UUID> pendingPlanIds = ConcurrentHashMap.newKeySet();
+    private final AtomicLong queuedBytes = new AtomicLong();
+
+    private final Counter storedCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final Counter evictedCounter;
+
+    private volatile ThreadPoolExecutor writer;
+    private FileChannel lockChannel;
+    private int nextSegmentNumber;
+
+    public PlanStoreServiceImpl(final @Value("${loan.plan.store.enabled}") boolean enabled,
+                                final @Value("${loan.plan.store.directory}") String directory,
+                                final @Value("${loan.plan.store.segment-size}") int segmentSize,
+                                final @Value("${loan.plan.store.queue-max-bytes}") long queueMaxBytes,
+                                final @Value("${loan.plan.store.max-segments}") int maxSegments,
+                                final @Value("${loan.plan.engine-version}") String engineVersion,
+                                final @Value("${loan.calculation.mode}") CalculationMode calculationMode,
+                                final MeterRegistry meterRegistry) {
+
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.queueMaxBytes = queueMaxBytes;
+        this.maxSegments = Math.max(1, maxSegments);
+        this.engineVersion = engineVersion;
+        this.calculationMode = calculationMode;
+
+        Gauge.builder(SIZE_GAUGE_NAME, this.index, Map::size)
+                .description("Plans in the plan store")
+                .register(meterRegistry);
+
+        this.storedCounter = Counter.builder(PLANS_COUNTER_NAME).tag(RESULT_TAG, "stored").register(meterRegistry);
+        this.droppedCounter = Counter.builder(PLANS_COUNTER_NAME).tag(RESULT_TAG, "dropped").register(meterRegistry);
+        this.failedCounter = Counter.builder(PLANS_COUNTER_NAME).tag(RESULT_TAG, "failed").register(meterRegistry);
+        this.evictedCounter = Counter.builder(PLANS_COUNTER_NAME).tag(RESULT_TAG, "evicted").register(meterRegistry);
+    }
+
+    /**
+     * This method locks the directory of the store, so no other process appends to its segments, indexes the plans
+     * of the existing segments, the oldest beyond max-segments being deleted, and starts the writer thread.
+     */
+    @PostConstruct
+    public synchronized void open() {
+
+        if (!this.enabled || this.writer != null) {
+
+            return;
+        }
+
+        long startMillis = System.currentTimeMillis();
+
+        try {
+
+            Files.createDirectories(this.directory);
+
+            this.lock();
+
+            for (Path file : this.listSegmentFiles()) {
+
+                int segmentNumber = segmentNumberOf(file);
+
+                this.segments.put(segmentNumber, PlanSegment.open(file,
+                        (planId, offset) -> this.index.put(planId, locationOf(segmentNumber, offset))));
+
+                this.nextSegmentNumber = segmentNumber + 1;
+            }
+
+            this.evictSegments();
+
+        } catch (IOException exception) {
+
+            this.closeFiles();
+
+            throw new GenericServerRuntimeException("Plan store " + this.directory + " could not be opened: "
+                    + exception.getMessage(), exception);
+        }
+
+        // The footer of the last segment is outdated as soon as a plan is appended to it
+        if (!this.segments.isEmpty()) {
+
+            this.segments.lastEntry().getValue().clearFooter();
+        }
+
+        // Bounded by the bytes of the queued plans in savePlan
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+
+            Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        LOG.info("Opened plan store {} with {} plans in {} segments in {} ms", this.directory.toAbsolutePath(),
+                this.index.size(), this.segments.size(), System.currentTimeMillis() - startMillis);
+    }
+
+    /**
+     * This method returns the ID of the plan of the given request, or null when the store is disabled or one of
+     * the fields is missing.
+     *
+     * @param generatePlanRequestDto
+     * @return
+     */
+    public UUID getPlanId(final GeneratePlanRequestDto generatePlanRequestDto) {
+
+        PlanCacheKey planCacheKey = this.enabled ? PlanCacheKey.of(generatePlanRequestDto) : null;
+
+        if (planCacheKey == null) {
+
+            return null;
+        }
+
+        String plan = this.engineVersion + SEPARATOR + this.calculationMode + SEPARATOR + planCacheKey.toCanonicalString();
+
+        return UUID.nameUUIDFromBytes(plan.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * This method encodes the given plan of the given request and queues it to be stored, unless it is stored
+     * already, and returns its ID. The plan can be read by its ID once the writer thread has appended it.
+     *
+     * @param generatePlanRequestDto
+     * @param paymentPlan
+     * @return
+     */
+    public UUID savePlan(final GeneratePlanRequestDto generatePlanRequestDto, final PaymentPlan paymentPlan) {
+
+        UUID planId = this.getPlanId(generatePlanRequestDto);
+
+        if (planId == null || this.index.containsKey(planId) || !this.pendingPlanIds.add(planId)) {
+
+            return planId;
+        }
+
+        byte[] payload;
+
+        try {
+
+            // Only the encoded plan is queued, not the plan and its columns
+            payload = encode(paymentPlan);
+
+        } catch (IOException | RuntimeException exception) {
+
+            this.pendingPlanIds.remove(planId);
+            this.failedCounter.increment();
+
+            LOG.warn("Plan {} could not be encoded", planId, exception);
+
+            return planId;
+        }
+
+        ThreadPoolExecutor planWriter = this.writer;
+
+        try {
+
+            if (planWriter == null) {
+
+                throw new RejectedExecutionException("Plan store closed");
+            }
+
+            if (this.queuedBytes.addAndGet(payload.length) > this.queueMaxBytes) {
+
+                this.queuedBytes.addAndGet(-payload.length);
+
+                throw new RejectedExecutionException("Plan store queue full");
+            }
+
+            try {
+
+                planWriter.execute(() -> this.write(planId, payload));
+
+            } catch (RejectedExecutionException exception) {
+
+                this.queuedBytes.addAndGet(-payload.length);
+
+                throw exception;
+            }
+
+        } catch (RejectedExecutionException exception) {
+
+            this.pendingPlanIds.remove(planId);
+            this.droppedCounter.increment();
+        }
+
+        return planId;
+    }
+
+    /**
+     * This method returns the plan of the given ID as PaymentPlan protobuf message, a read-only view of the segment
+     * it is stored in, or null when there is no such plan.
+     *
+     * @param planId
+     * @return
+     */
+    public ByteBuffer getPlan(final UUID planId) {
+
+        Long location = this.index.get(planId);
+
+        // The segment may just have been evicted
+        PlanSegment segment = location == null ? null : this.segments.get((int) (location >>> 32));
+
+        if (segment == null) {
+
+            return null;
+        }
+
+        return segment.getPayload((int) location.longValue());
+    }
+
+    /**
+     * This method stops the writer thread once the queued plans are stored, writes the footer of the last segment
+     * and releases the directory.
+     */
+    @PreDestroy
+    public synchronized void close() {
+
+        if (this.writer == null) {
+
+            return;
+        }
+
+        this.writer.shutdown();
+
+        boolean terminated = false;
+
+        try {
+
+            terminated = this.writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        } catch (InterruptedException exception) {
+
+            Thread.currentThread().interrupt();
+        }
+
+        // Without footer, the last segment is scanned on the next start
+        if (terminated && !this.segments.isEmpty()) {
+
+            this.segments.lastEntry().getValue().writeFooter();
+        }
+
+        this.writer = null;
+
+        this.closeFiles();
+    }
+
+    private void write(final UUID planId, final byte[] payload) {
+
+        try {
+
+            PlanSegment segment = this.segments.isEmpty() ? this.newSegment() : this.segments.lastEntry().getValue();
+            int offset = segment.append(planId, payload);
+
+            if (offset < 0 && !segment.isEmpty()) {
+
+                segment.writeFooter();
+
+                segment = this.newSegment();
+                offset = segment.append(planId, payload);
+            }
+
+            if (offset < 0) {
+
+                // Larger than a segment
+                this.droppedCounter.increment();
+
+                return;
+            }
+
+            this.index.put(planId, locationOf(this.segments.lastKey(), offset));
+            this.storedCounter.increment();
+
+        } catch (IOException | RuntimeException exception) {
+
+            this.failedCounter.increment();
+
+            LOG.warn("Plan {} could not be stored", planId, exception);
+
+        } finally {
+
+            this.queuedBytes.addAndGet(-payload.length);
+            this.pendingPlanIds.remove(planId);
+        }
+    }
+
+    private PlanSegment newSegment() throws IOException {
+
+        PlanSegment segment = PlanSegment.create(
+                this.directory.resolve(String.format(SEGMENT_FILE_FORMAT, this.nextSegmentNumber)), this.segmentSize);
+
+        this.segments.put(this.nextSegmentNumber, segment);
+        this.nextSegmentNumber++;
+
+        this.evictSegments();
+
+        return segment;
+    }
+
+    private void evictSegments() {
+
+        while (this.segments.size() > this.maxSegments) {
+
+            Map.Entry<Integer, PlanSegment> oldest = this.segments.pollFirstEntry();
+            int segmentNumber = oldest.getKey();
+            PlanSegment segment = oldest.getValue();
+
+            // A plan stored again in a newer segment keeps its newer location
+            segment.forEachRecord((planId, offset) -> this.index.remove(planId, locationOf(segmentNumber, offset)));
+
+            this.evictedCounter.increment(segment.getNoOfRecords());
+
+            try {
+
+                // The views already handed out stay readable, the mapping being kept until they are collected
+                segment.close();
+                Files.delete(segment.getFile());
+
+            } catch (IOException exception) {
+
+                LOG.warn("Plan segment {} could not be deleted", segment.getFile(), exception);
+            }
+        }
+    }
+
+    private void lock() throws IOException {
+
+        this.lockChannel = FileChannel.open(this.directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        boolean locked;
+
+        try {
+
+            locked = this.lockChannel.tryLock() != null;
+
+        } catch (OverlappingFileLockException exception) {
+
+            locked = false;
+        }
+
+        if (!locked) {
+
+            throw new IOException("the directory is locked by another store");
+        }
+    }
+
+    private List<Path> listSegmentFiles() throws IOException {
+
+        List<Path> files = new ArrayList<>();
+
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(this.directory,
+                SEGMENT_FILE_PREFIX + "*" + SEGMENT_FILE_SUFFIX)) {
+
+            directoryStream.forEach(files::add);
+        }
+
+        // The segment numbers are zero padded, so the names sort in the order the segments were created
+        Collections.sort(files);
+
+        return files;
+    }
+
+    private void closeFiles() {
+
+        for (PlanSegment segment : this.segments.values()) {
+
+            try {
+
+                segment.close();
+
+            } catch (IOException exception) {
+
+                LOG.warn("Plan segment {} could not be closed", segment.getFile(), exception);
+            }
+        }
+
+        try {
+
+            if (this.lockChannel != null) {
+
+                // Closing the channel releases the lock
+                this.lockChannel.close();
+            }
+
+        } catch (IOException exception) {
+
+            LOG.warn("Plan store lock {} could not be released", this.directory.resolve(LOCK_FILE), exception);
+        }
+
+        this.lockChannel = null;
+        this.segments.clear();
+        this.index.clear();
+    }
+
+    private static byte[] encode(final PaymentPlan paymentPlan) throws IOException {
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(ESTIMATED_BYTES_PER_INSTALLMENT * paymentPlan.size());
+        CodedOutputStream output = CodedOutputStream.newInstance(payload);
+
+        ProtobufPlanHttpMessageConverter.writePlan(paymentPlan, output);
+
+        output.flush();
+
+        return payload.toByteArray();
+    }
+
+    private static long locationOf(final int segmentNumber, final int offset) {
+
+        return ((long) segmentNumber << 32) | offset;
+    }
+
+    private static int segmentNumberOf(final Path file) {
+
+        String fileName = file.getFileName().toString();
+
+        return Integer.parseInt(fileName.substring(SEGMENT_FILE_PREFIX.length(),
+                fileName.length() - SEGMENT_FILE_SUFFIX.length()));
+    }
+}
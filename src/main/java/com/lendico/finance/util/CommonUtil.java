@@ -1,6 +1,8 @@
 package com.lendico.finance.util;
 
 import com.lendico.finance.constant.GlobalConstant;
+import org.decimal4j.api.DecimalArithmetic;
+import org.decimal4j.scale.Scales;
 import org.decimal4j.util.DoubleRounder;
 
 import java.time.LocalDateTime;
@@ -11,6 +13,17 @@ import java.time.temporal.TemporalAdjusters;
  */
 public class CommonUtil {
 
+    private static final DecimalArithmetic CENT_ARITHMETIC = Scales.getScaleMetrics(GlobalConstant.NO_OF_PRECISION)
+            .getDefaultArithmetic();
+
+    private static final DecimalArithmetic RATE_ARITHMETIC = Scales.getScaleMetrics(GlobalConstant.NO_OF_RATE_PRECISION)
+            .getDefaultArithmetic();
+
+    private static final double CENTS_PER_UNIT = 100.0;
+
+    // Below Long.MAX_VALUE cents, with room for the rounding of the amount
+    public static final double MAX_AMOUNT = 9.0E16;
+
     /**
      * This method returns true if the given object is not null
      *
@@ -33,6 +46,77 @@ public class CommonUtil {
         return DoubleRounder.round(inputValue, GlobalConstant.NO_OF_PRECISION);
     }
 
+    /**
+     * This method returns the value in cents after applying the same rounding off function as {@link #round(Double)}.
+     *
+     * @param inputValue
+     * @return
+     */
+    public static long toCents(final double inputValue) {
+
+        return CENT_ARITHMETIC.fromDouble(inputValue);
+    }
+
+    /**
+     * This method returns true if the given amount can be converted by {@link #toCents(double)}, which throws
+     * for amounts of {@link #MAX_AMOUNT} and above.
+     *
+     * @param amount
+     * @return
+     */
+    public static boolean isCentsAmount(final double amount) {
+
+        return Math.abs(amount) < MAX_AMOUNT;
+    }
+
+    /**
+     * This method returns the double value of the given amount in cents.
+     *
+     * @param cents
+     * @return
+     */
+    public static double fromCents(final long cents) {
+
+        return cents / CENTS_PER_UNIT;
+    }
+
+    /**
+     * This method returns the given rate as a long scaled by {@link GlobalConstant#NO_OF_RATE_PRECISION} digits.
+     *
+     * @param rate
+     * @return
+     */
+    public static long toScaledRate(final double rate) {
+
+        return RATE_ARITHMETIC.fromDouble(rate);
+    }
+
+    /**
+     * This method returns the scaled rate divided by the given divisor and multiplied by the given factor,
+     * rounded half up.
+     *
+     * @param scaledRate
+     * @param factor
+     * @param divisor
+     * @return
+     */
+    public static long scaleRate(final long scaledRate, final long factor, final long divisor) {
+
+        return RATE_ARITHMETIC.multiplyByLong(RATE_ARITHMETIC.divideByLong(scaledRate, divisor), factor);
+    }
+
+    /**
+     * This method returns the amount in cents multiplied by the scaled rate, rounded half up to cents.
+     *
+     * @param cents
+     * @param scaledRate
+     * @return
+     */
+    public static long multiplyByScaledRate(final long cents, final long scaledRate) {
+
+        return CENT_ARITHMETIC.multiplyByUnscaled(cents, scaledRate, GlobalConstant.NO_OF_RATE_PRECISION);
+    }
+
     /**
      *
      * This method returns the LocalDateTime by adding numberOfMonth with inputDate.
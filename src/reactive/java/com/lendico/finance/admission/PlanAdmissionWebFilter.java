@@ -0,0 +1,83 @@
+package com.lendico.finance.admission;
+
+import com.lendico.finance.constant.GlobalConstant;
+import com.lendico.finance.controller.ReactiveLoanController;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Reactive counterpart of {@link PlanAdmissionRequestBodyAdvice} and {@link PlanAdmissionInterceptor}. The plan
+ * requests of {@link ReactiveLoanController} are admitted through the {@link PlanAdmissionLimiter} with the same
+ * costs, once their loan details are known and before the plan is generated. The permit is kept as exchange attribute
+ * {@link #PERMIT_ATTRIBUTE} and released by this filter once the response is complete, hence after the last
+ * installment of a streamed plan is written.
+ *
+ * The rejections are raised in the handler pipeline rather than in the filter, so they are answered by the
+ * exception handler advice like every other error.
+ */
+@Component("planAdmissionWebFilter")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class PlanAdmissionWebFilter implements WebFilter {
+
+    public static final String PERMIT_ATTRIBUTE = PlanAdmissionWebFilter.class.getName() + ".permit";
+
+    private PlanAdmissionLimiter planAdmissionLimiter;
+
+    public PlanAdmissionWebFilter(final PlanAdmissionLimiter planAdmissionLimiter) {
+
+        this.planAdmissionLimiter = planAdmissionLimiter;
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+
+        return chain.filter(exchange).doFinally(signalType -> {
+
+            PlanAdmissionLimiter.Permit permit = exchange.getAttribute(PERMIT_ATTRIBUTE);
+
+            if (permit != null) {
+
+                exchange.getAttributes().remove(PERMIT_ATTRIBUTE);
+
+                permit.close();
+            }
+        });
+    }
+
+    /**
+     * This method admits the plan request of the given exchange, whose body is the given request, charging the
+     * installments of the page asked for by the query parameter limit, or of the whole plan.
+     *
+     * @param exchange
+     * @param body
+     */
+    public void admitBody(final ServerWebExchange exchange, final Object body) {
+
+        this.admit(exchange, Math.min(PlanAdmissionRequestBodyAdvice.installmentsOf(body),
+                PlanAdmissionRequestBodyAdvice.pageSizeOf(
+                        exchange.getRequest().getQueryParams().getFirst(GlobalConstant.LIMIT_PARAM))));
+    }
+
+    /**
+     * This method admits the plan request of the given exchange generating the given number of installments, or
+     * throws ServiceUnavailableRuntimeException when it does not fit under the limit.
+     *
+     * @param exchange
+     * @param installments
+     */
+    public void admit(final ServerWebExchange exchange, final long installments) {
+
+        if (exchange.getAttribute(PERMIT_ATTRIBUTE) != null) {
+
+            return;
+        }
+
+        exchange.getAttributes().put(PERMIT_ATTRIBUTE, this.planAdmissionLimiter.acquire(installments));
+    }
+}
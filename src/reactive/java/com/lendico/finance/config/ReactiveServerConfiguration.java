@@ -0,0 +1,38 @@
+package com.lendico.finance.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Configuring the reactive stack (profile reactive) to run on Netty. Tomcat is on the classpath for the servlet stack
+ * and would otherwise be picked as the reactive server as well.
+ *
+ * The plans are generated and serialized on the bounded planScheduler, not on the event loop, so a long plan does not
+ * hold back the other connections of its event loop thread. The tasks beyond the queued-task-cap are rejected.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfiguration {
+
+    private static final String PLAN_SCHEDULER_NAME = "plan-reactive";
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler planScheduler(final @Value("${loan.reactive.scheduler.thread-cap}") int threadCap,
+                                   final @Value("${loan.reactive.scheduler.queued-task-cap}") int queuedTaskCap) {
+
+        return Schedulers.newBoundedElastic(threadCap, queuedTaskCap, PLAN_SCHEDULER_NAME);
+    }
+}
@@ -0,0 +1,332 @@
+package com.lendico.finance.controller;
+
+import com.lendico.finance.admission.PlanAdmissionWebFilter;
+import com.lendico.finance.cache.PlanHttpCacheServiceImpl;
+import com.lendico.finance.constant.GlobalConstant;
+import com.lendico.finance.engine.PaymentScheduleCursor;
+import com.lendico.finance.exception.NotFoundRuntimeException;
+import com.lendico.finance.model.BorrowerPaymentDto;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.model.GeneratePlanResponseDto;
+import com.lendico.finance.model.PlanSummaryDto;
+import com.lendico.finance.serializer.PlanStreamWriter;
+import com.lendico.finance.serializer.ProtobufPlanHttpMessageConverter;
+import com.lendico.finance.service.LoanService;
+import com.lendico.finance.store.PlanStoreServiceImpl;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Non-blocking endpoints of the loan service with the same contract as {@link LoanController}.
+ * They are active when the application runs on the reactive stack (profile reactive).
+ *
+ * The requests are admitted on the event loop through the {@link PlanAdmissionWebFilter}, with the same costs as
+ * on the servlet stack, and the plans are then generated, stored and serialized on the bounded planScheduler, so
+ * a long plan never holds the event loop.
+ */
+@RestController("reactiveLoanController")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLoanController {
+
+    private static final String STREAM_PARAM = "stream=true";
+    private static final String SUMMARY_PARAM = "summary=true";
+    private static final int ROW_BUFFER_CAPACITY = 256;
+
+    private LoanService loanService;
+    private PlanStreamWriter planStreamWriter;
+    private PlanHttpCacheServiceImpl planHttpCacheService;
+    private PlanStoreServiceImpl planStoreService;
+    private PlanAdmissionWebFilter planAdmissionWebFilter;
+    private Scheduler planScheduler;
+
+    public ReactiveLoanController(final LoanService loanService, final PlanStreamWriter planStreamWriter,
+                                  final PlanHttpCacheServiceImpl planHttpCacheService,
+                                  final PlanStoreServiceImpl planStoreService,
+                                  final PlanAdmissionWebFilter planAdmissionWebFilter,
+                                  final Scheduler planScheduler) {
+
+        this.loanService = loanService;
+        this.planStreamWriter = planStreamWriter;
+        this.planHttpCacheService = planHttpCacheService;
+        this.planStoreService = planStoreService;
+        this.planAdmissionWebFilter = planAdmissionWebFilter;
+        this.planScheduler = planScheduler;
+    }
+
+    /**
+     * This post method generates the pre-calculated repayment loan plan with the details provided.
+     *
+     * With the query parameters offset and/or limit, only that page of the plan is calculated and returned,
+     * the total number of installments being given in the header X-Total-Count. The whole plan is kept in the
+     * plan store, its ID being given in the header X-Plan-Id.
+     *
+     * @param generatePlanRequestDto
+     * @param offset index of the first installment of the page, starting from 0
+     * @param limit maximum number of installments of the page
+     * @param exchange
+     * @return
+     */
+    @PostMapping(value = "/generate-plan", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<GeneratePlanResponseDto> generatePlan(final @RequestBody Mono<GeneratePlanRequestDto> generatePlanRequestDto,
+                                                      final @RequestParam(value = GlobalConstant.OFFSET_PARAM, required = false) Integer offset,
+                                                      final @RequestParam(value = GlobalConstant.LIMIT_PARAM, required = false) Integer limit,
+                                                      final ServerWebExchange exchange) {
+
+        ServerHttpResponse response = exchange.getResponse();
+
+        if (offset == null && limit == null) {
+
+            return this.admit(generatePlanRequestDto, exchange).map(requestDto -> {
+
+                GeneratePlanResponseDto generatePlanResponseDto = this.loanService.generatePlan(requestDto);
+
+                this.setPlanId(response, this.planStoreService.savePlan(requestDto, generatePlanResponseDto.getPaymentPlan()));
+
+                return generatePlanResponseDto;
+            });
+        }
+
+        return this.admit(generatePlanRequestDto, exchange).map(requestDto -> {
+
+            GeneratePlanResponseDto generatePlanResponseDto = this.loanService.generatePlanPage(requestDto,
+                    offset != null ? offset : 0, limit != null ? limit : Integer.MAX_VALUE);
+
+            response.getHeaders().set(GlobalConstant.TOTAL_COUNT_HEADER, String.valueOf(requestDto.getDuration()));
+
+            return generatePlanResponseDto;
+        });
+    }
+
+    /**
+     * This get method returns the pre-calculated repayment loan plan, the loan details being given as query parameters,
+     * with a strong ETag and the caching headers. A request whose If-None-Match matches the ETag is answered with
+     * 304 Not Modified without generating the plan.
+     *
+     * @param generatePlanRequestDto
+     * @param exchange
+     * @return
+     */
+    @GetMapping(value = "/generate-plan", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<GeneratePlanResponseDto>> getPlan(final GeneratePlanRequestDto generatePlanRequestDto,
+                                                                 final ServerWebExchange exchange) {
+
+        String eTag = this.planHttpCacheService.getETag(generatePlanRequestDto, MediaType.APPLICATION_JSON);
+
+        if (this.planHttpCacheService.isNotModified(exchange.getRequest().getHeaders().getIfNoneMatch(), eTag)) {
+
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(this.planHttpCacheService.getCacheControl())
+                    .build());
+        }
+
+        return this.admit(Mono.just(generatePlanRequestDto), exchange).map(requestDto -> {
+
+            // An invalid request fails here, so a plan is always sent with its ETag
+            GeneratePlanResponseDto generatePlanResponseDto = this.loanService.generatePlan(generatePlanRequestDto);
+            UUID planId = this.planStoreService.savePlan(generatePlanRequestDto, generatePlanResponseDto.getPaymentPlan());
+
+            ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(this.planHttpCacheService.getCacheControl());
+
+            if (planId != null) {
+
+                responseBuilder.header(GlobalConstant.PLAN_ID_HEADER, planId.toString());
+            }
+
+            return responseBuilder.body(generatePlanResponseDto);
+        });
+    }
+
+    /**
+     * This get method returns a plan of the plan store by the ID given in the header X-Plan-Id of the plan responses,
+     * as PaymentPlan protobuf message. The mapped bytes of the segment file are wrapped, not copied, into the buffer
+     * written to the connection.
+     *
+     * @param planId
+     * @param response
+     * @return
+     */
+    @GetMapping(value = "/plans/{planId}")
+    public Mono<Void> getStoredPlan(final @PathVariable UUID planId, final ServerHttpResponse response) {
+
+        ByteBuffer plan = this.planStoreService.getPlan(planId);
+
+        if (plan == null) {
+
+            return Mono.error(new NotFoundRuntimeException("Plan " + planId + " not found"));
+        }
+
+        response.getHeaders().setContentType(ProtobufPlanHttpMessageConverter.APPLICATION_PROTOBUF);
+        response.getHeaders().setContentLength(plan.remaining());
+        response.getHeaders().setCacheControl(this.planHttpCacheService.getCacheControl());
+
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(plan)));
+    }
+
+    /**
+     * This post method returns only the totals of the repayment loan plan when the query flag summary=true is given.
+     * The plan is folded one installment at a time and never built.
+     *
+     * @param generatePlanRequestDto
+     * @param exchange
+     * @return
+     */
+    @PostMapping(value = "/generate-plan", params = SUMMARY_PARAM, produces = MediaType.APPLICATION_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<PlanSummaryDto> generatePlanSummary(final @RequestBody Mono<GeneratePlanRequestDto> generatePlanRequestDto,
+                                                    final ServerWebExchange exchange) {
+
+        return this.admit(generatePlanRequestDto, exchange).map(this.loanService::generatePlanSummary);
+    }
+
+    /**
+     * This get method returns a single installment of the repayment loan plan, the loan details being given as
+     * query parameters. The installment is calculated on its own, without generating the plan.
+     *
+     * @param installmentNumber starting from 1
+     * @param generatePlanRequestDto
+     * @param exchange
+     * @return
+     */
+    @GetMapping(value = "/plan/installment/{installmentNumber}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<BorrowerPaymentDto> getInstallment(final @PathVariable Integer installmentNumber,
+                                                   final GeneratePlanRequestDto generatePlanRequestDto,
+                                                   final ServerWebExchange exchange) {
+
+        // As it may be calculated by replaying the installments before it, it costs its installment number
+        return Mono.just(generatePlanRequestDto)
+                .doOnNext(requestDto -> this.planAdmissionWebFilter.admit(exchange,
+                        installmentNumber != null && installmentNumber > 0 ? installmentNumber : 1))
+                .publishOn(this.planScheduler)
+                .map(requestDto -> this.loanService.generateInstallment(requestDto, installmentNumber));
+    }
+
+    /**
+     * This post method streams the pre-calculated repayment loan plan as newline delimited JSON,
+     * one installment per line, when the client accepts application/x-ndjson.
+     *
+     * @param generatePlanRequestDto
+     * @param exchange
+     * @return
+     */
+    @PostMapping(value = "/generate-plan", produces = GlobalConstant.APPLICATION_NDJSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<DataBuffer> streamPlan(final @RequestBody Mono<GeneratePlanRequestDto> generatePlanRequestDto,
+                                       final ServerWebExchange exchange) {
+
+        return this.newInstallmentFlux(generatePlanRequestDto, exchange);
+    }
+
+    /**
+     * This post method streams the pre-calculated repayment loan plan as newline delimited JSON
+     * when the query flag stream=true is given, regardless of the Accept header.
+     *
+     * @param generatePlanRequestDto
+     * @param exchange
+     * @return
+     */
+    @PostMapping(value = "/generate-plan", params = STREAM_PARAM, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<DataBuffer> streamPlanByQueryFlag(final @RequestBody Mono<GeneratePlanRequestDto> generatePlanRequestDto,
+                                                  final ServerWebExchange exchange) {
+
+        exchange.getResponse().getHeaders().setContentType(MediaType.parseMediaType(GlobalConstant.APPLICATION_NDJSON_VALUE));
+
+        return this.newInstallmentFlux(generatePlanRequestDto, exchange);
+    }
+
+    /**
+     * The request is validated and the annuity is calculated before the first installment is emitted,
+     * so the errors are still reported through the exception handler advice. Every installment is calculated
+     * only when the client requests it, hence a slow client holds back the calculation instead of buffering it.
+     * The demand of the client is forwarded to the planScheduler, where the installments are calculated.
+     *
+     * @param generatePlanRequestDto
+     * @param exchange
+     * @return
+     */
+    private Flux<DataBuffer> newInstallmentFlux(final Mono<GeneratePlanRequestDto> generatePlanRequestDto,
+                                                final ServerWebExchange exchange) {
+
+        DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
+
+        return this.admit(generatePlanRequestDto, exchange)
+                .map(this.loanService::generateScheduleCursor)
+                .flatMapMany(cursor -> Flux.<DataBuffer>generate(sink -> {
+
+                    if (!cursor.next()) {
+
+                        sink.complete();
+
+                        return;
+                    }
+
+                    sink.next(this.writeRow(cursor, bufferFactory));
+                }))
+                .subscribeOn(this.planScheduler);
+    }
+
+    /**
+     * This method admits the plan request once its body is read, on the thread which read it, and moves the rest
+     * of the pipeline to the planScheduler.
+     *
+     * @param generatePlanRequestDto
+     * @param exchange
+     * @return
+     */
+    private Mono<GeneratePlanRequestDto> admit(final Mono<GeneratePlanRequestDto> generatePlanRequestDto,
+                                               final ServerWebExchange exchange) {
+
+        return generatePlanRequestDto
+                .doOnNext(requestDto -> this.planAdmissionWebFilter.admitBody(exchange, requestDto))
+                .publishOn(this.planScheduler);
+    }
+
+    private void setPlanId(final ServerHttpResponse response, final UUID planId) {
+
+        if (planId != null) {
+
+            response.getHeaders().set(GlobalConstant.PLAN_ID_HEADER, planId.toString());
+        }
+    }
+
+    private DataBuffer writeRow(final PaymentScheduleCursor cursor, final DataBufferFactory bufferFactory) {
+
+        DataBuffer buffer = bufferFactory.allocateBuffer(ROW_BUFFER_CAPACITY);
+
+        try {
+
+            this.planStreamWriter.writeNdjsonRow(cursor, buffer.asOutputStream());
+
+            return buffer;
+
+        } catch (IOException exception) {
+
+            DataBufferUtils.release(buffer);
+
+            throw new IllegalStateException("Unable to write the installment " + cursor.getIndex(), exception);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.lendico.finance.exception.advice;
+
+import com.lendico.finance.exception.GenericClientRuntimeException;
+import com.lendico.finance.exception.GenericServerRuntimeException;
+import com.lendico.finance.exception.NotFoundRuntimeException;
+import com.lendico.finance.exception.RequestValidationRuntimeException;
+import com.lendico.finance.exception.ServiceUnavailableRuntimeException;
+import com.lendico.finance.logging.AsyncLogPipeline;
+import com.lendico.finance.model.GenericExceptionResponseDto;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
+
+import javax.validation.ConstraintViolationException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ *
+ * Reactive counterpart of {@link GenericExceptionHandlerAdvice}, returning the same payloads.
+ */
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandlerAdvice {
+
+    private AsyncLogPipeline asyncLogPipeline;
+
+    public ReactiveExceptionHandlerAdvice(final AsyncLogPipeline asyncLogPipeline) {
+
+        this.asyncLogPipeline = asyncLogPipeline;
+    }
+
+    /**
+     * Handling unreadable or missing request body
+     *
+     * @param exception the exception to handle
+     * @param request the ServerHttpRequest
+     * @return the response entity
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    public final ResponseEntity<GenericExceptionResponseDto> handleServerWebInputException(
+            ServerWebInputException exception, ServerHttpRequest request) {
+
+        return this.newResponse(HttpStatus.BAD_REQUEST, Collections.singletonList(exception.getMessage()), request);
+    }
+
+    /**
+     * Handling ConstraintViolationException raised by the programmatic validation in the service layer.
+     *
+     * @param exception the exception to handle
+     * @param request the ServerHttpRequest
+     * @return the response entity
+     */
+    @ExceptionHandler(ConstraintViolationException.class)
+    public final ResponseEntity<GenericExceptionResponseDto> handleConstraintViolationException(
+            ConstraintViolationException exception, ServerHttpRequest request) {
+
+        List<String> errors = RequestValidationRuntimeException.errorsOf(exception);
+
+        this.asyncLogPipeline.logValidationErrors(request.getPath().value(), errors);
+
+        return this.newResponse(HttpStatus.BAD_REQUEST, errors, request);
+    }
+
+    /**
+     * Handling client runtime exception
+     *
+     * @param exception the exception to handle
+     * @param request the ServerHttpRequest
+     * @return the response entity
+     */
+    @ExceptionHandler(GenericClientRuntimeException.class)
+    public final ResponseEntity<GenericExceptionResponseDto> handleClientRuntimeException(
+            GenericClientRuntimeException exception, ServerHttpRequest request) {
+
+        return this.newResponse(HttpStatus.BAD_REQUEST, Collections.singletonList(exception.getMessage()), request);
+    }
+
+    /**
+     * Handling missing resource
+     *
+     * @param exception the exception to handle
+     * @param request the ServerHttpRequest
+     * @return the response entity
+     */
+    @ExceptionHandler(NotFoundRuntimeException.class)
+    public final ResponseEntity<GenericExceptionResponseDto> handleNotFoundRuntimeException(
+            NotFoundRuntimeException exception, ServerHttpRequest request) {
+
+        return this.newResponse(HttpStatus.NOT_FOUND, Collections.singletonList(exception.getMessage()), request);
+    }
+
+    /**
+     * Handling request shed by the admission control
+     *
+     * @param exception the exception to handle
+     * @param request the ServerHttpRequest
+     * @return the response entity
+     */
+    @ExceptionHandler(ServiceUnavailableRuntimeException.class)
+    public final ResponseEntity<GenericExceptionResponseDto> handleServiceUnavailableRuntimeException(
+            ServiceUnavailableRuntimeException exception, ServerHttpRequest request) {
+
+        ResponseEntity<GenericExceptionResponseDto> response = this.newResponse(HttpStatus.SERVICE_UNAVAILABLE,
+                Collections.singletonList(exception.getMessage()), request);
+
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+
+    /**
+     * Handling server runtime exception
+     *
+     * @param exception the exception to handle
+     * @param request the ServerHttpRequest
+     * @return the response entity
+     */
+    @ExceptionHandler(GenericServerRuntimeException.class)
+    public final ResponseEntity<GenericExceptionResponseDto> handleServerRuntimeException(
+            GenericServerRuntimeException exception, ServerHttpRequest request) {
+
+        return this.newResponse(HttpStatus.INTERNAL_SERVER_ERROR, Collections.singletonList(exception.getMessage()), request);
+    }
+
+    private ResponseEntity<GenericExceptionResponseDto> newResponse(final HttpStatus status, final List<String> errors,
+                                                                    final ServerHttpRequest request) {
+
+        return new ResponseEntity<>(
+                GenericExceptionResponseDto.builder()
+                        .timestamp(LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC))
+                        .status(status.value())
+                        .errors(errors)
+                        .message(status.getReasonPhrase())
+                        .path(request.getPath().value())
+                        .build()
+                , status);
+    }
+}
@@ -0,0 +1,247 @@
+package com.lendico.finance.controller;
+
+import com.google.protobuf.CodedInputStream;
+import com.lendico.finance.LoanServiceApp;
+import com.lendico.finance.admission.PlanAdmissionLimiter;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.model.GeneratePlanResponseDto;
+import com.lendico.finance.model.GenericExceptionResponseDto;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = LoanServiceApp.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {"management.server.port=0",
+        "loan.plan.store.enabled=true", "loan.plan.store.directory=target/plan-store-reactive"})
+public class ReactiveLoanControllerIntegrationTest {
+
+    private static final String BASE_URL = "http://localhost:";
+    private static final String POST_GENERATE_PLAN_PATH = "/generate-plan";
+    private static final String GET_PLANS_PATH = "/plans/";
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private PlanAdmissionLimiter planAdmissionLimiter;
+
+    @LocalServerPort
+    private Integer port;
+
+    private TestRestTemplate restTemplate = new TestRestTemplate();
+
+    private static final HttpHeaders HEADERS = new HttpHeaders();
+    static {
+        HEADERS.setContentType(MediaType.APPLICATION_JSON);
+    }
+
+    @DisplayName("Post valid loan details to the reactive stack and verify the plan")
+    @Test
+    public void testPostGeneratePlanValid() {
+
+        // Given
+        HttpEntity<Object> entity = new HttpEntity<>(this.newRequest(5000.0, 24), HEADERS);
+
+        ResponseEntity<GeneratePlanResponseDto> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity, GeneratePlanResponseDto.class);
+
+        // Result
+        Assert.assertTrue(applicationContext.containsBean("reactiveLoanController"));
+        Assert.assertFalse(applicationContext.containsBean("loanController"));
+        Assert.assertTrue(applicationContext.containsBean("nettyReactiveWebServerFactory"));
+        Assert.assertTrue(applicationContext.containsBean("planAdmissionWebFilter"));
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals(24, response.getBody().getBorrowerPayments().size());
+        Assert.assertEquals(254.48, response.getBody().getBorrowerPayments().get(0).getBorrowerPaymentAmount(), 0.00);
+    }
+
+    @DisplayName("Post valid loan details to the reactive stack and verify the plan is served from the plan store by its ID")
+    @Test
+    public void testGetStoredPlan() throws IOException, InterruptedException {
+
+        // Given
+        HttpEntity<Object> entity = new HttpEntity<>(this.newRequest(8000.0, 48), HEADERS);
+
+        ResponseEntity<GeneratePlanResponseDto> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity, GeneratePlanResponseDto.class);
+
+        String planId = response.getHeaders().getFirst("X-Plan-Id");
+
+        // The plan is stored asynchronously
+        ResponseEntity<byte[]> storedPlanResponse = restTemplate.getForEntity(
+                BASE_URL + port + GET_PLANS_PATH + planId, byte[].class);
+
+        for (int attempt = 0; attempt < 500 && storedPlanResponse.getStatusCode() == HttpStatus.NOT_FOUND; attempt++) {
+
+            TimeUnit.MILLISECONDS.sleep(10);
+
+            storedPlanResponse = restTemplate.getForEntity(BASE_URL + port + GET_PLANS_PATH + planId, byte[].class);
+        }
+
+        // Result
+        Assert.assertNotNull(planId);
+        Assert.assertEquals(HttpStatus.OK.value(), storedPlanResponse.getStatusCodeValue());
+        Assert.assertEquals("application/x-protobuf", storedPlanResponse.getHeaders().getContentType().toString());
+
+        CodedInputStream input = CodedInputStream.newInstance(storedPlanResponse.getBody());
+        int noOfInstallments = 0;
+
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+
+            input.skipField(tag);
+            noOfInstallments++;
+        }
+
+        Assert.assertEquals(48, noOfInstallments);
+        Assert.assertEquals(HttpStatus.NOT_FOUND.value(), restTemplate.getForEntity(
+                BASE_URL + port + GET_PLANS_PATH + UUID.randomUUID(), GenericExceptionResponseDto.class).getStatusCodeValue());
+    }
+
+    @DisplayName("Post valid loan details accepting application/x-ndjson to the reactive stack and verify one installment per line")
+    @Test
+    public void testPostGeneratePlanAsNdjson() {
+
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Collections.singletonList(MediaType.parseMediaType("application/x-ndjson")));
+
+        HttpEntity<Object> entity = new HttpEntity<>(this.newRequest(1000.0, 3), headers);
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity, String.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+        Assert.assertEquals(
+                "{\"borrowerPaymentAmount\":344.51,\"date\":\"2018-01-01T00:00:00Z\",\"initialOutstandingPrincipal\":1000.0,\"interest\":16.67,\"principal\":327.84,\"remainingOutstandingPrincipal\":672.16}\n" +
+                "{\"borrowerPaymentAmount\":344.51,\"date\":\"2018-02-01T00:00:00Z\",\"initialOutstandingPrincipal\":672.16,\"interest\":11.2,\"principal\":333.3,\"remainingOutstandingPrincipal\":338.86}\n" +
+                "{\"borrowerPaymentAmount\":344.51,\"date\":\"2018-03-01T00:00:00Z\",\"initialOutstandingPrincipal\":338.86,\"interest\":5.65,\"principal\":338.86,\"remainingOutstandingPrincipal\":0.0}\n",
+                response.getBody());
+
+        response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH + "?stream=true", HttpMethod.POST,
+                new HttpEntity<>(this.newRequest(1000.0, 360), HEADERS), String.class);
+
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals(360, response.getBody().split("\n").length);
+    }
+
+    @DisplayName("Get a plan from the reactive stack, then with its ETag, and verify the 304 response")
+    @Test
+    public void testGetGeneratePlanWithETag() {
+
+        // Given
+        String url = BASE_URL + port + POST_GENERATE_PLAN_PATH
+                + "?loanAmount=1000&nominalRate=20&duration=3&startDate=2018-01-01T00:00:00Z";
+
+        ResponseEntity<GeneratePlanResponseDto> response = restTemplate.getForEntity(url, GeneratePlanResponseDto.class);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(response.getHeaders().getETag());
+
+        ResponseEntity<String> notModifiedResponse = restTemplate.exchange(url, HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals(3, response.getBody().getBorrowerPayments().size());
+        Assert.assertEquals("max-age=86400, public", response.getHeaders().getCacheControl());
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED.value(), notModifiedResponse.getStatusCodeValue());
+        Assert.assertEquals(response.getHeaders().getETag(), notModifiedResponse.getHeaders().getETag());
+    }
+
+    @DisplayName("Post and get plans on the reactive stack at capacity and verify the 503 response, then the 400 over the maximum")
+    @Test
+    public void testGeneratePlanAtCapacity() {
+
+        // Given
+        String url = BASE_URL + port + POST_GENERATE_PLAN_PATH
+                + "?loanAmount=1000&nominalRate=20&duration=%d&startDate=2018-01-01T00:00:00Z";
+
+        ResponseEntity<GenericExceptionResponseDto> postResponse;
+        ResponseEntity<GenericExceptionResponseDto> getResponse;
+
+        try (PlanAdmissionLimiter.Permit permit = planAdmissionLimiter.acquire((long) planAdmissionLimiter.getLimit())) {
+
+            postResponse = restTemplate.exchange(BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST,
+                    new HttpEntity<>(this.newRequest(1000.0, 7), HEADERS), GenericExceptionResponseDto.class);
+            getResponse = restTemplate.getForEntity(String.format(url, 7), GenericExceptionResponseDto.class);
+        }
+
+        // Result
+        Assert.assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), postResponse.getStatusCodeValue());
+        Assert.assertEquals("1", postResponse.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Assert.assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), getResponse.getStatusCodeValue());
+
+        ResponseEntity<GenericExceptionResponseDto> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH + "?stream=true", HttpMethod.POST,
+                new HttpEntity<>(this.newRequest(1000.0, 50_000_000), HEADERS), GenericExceptionResponseDto.class);
+
+        Assert.assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCodeValue());
+        Assert.assertEquals(Collections.singletonList("The request should not have more than 1000000 installments"),
+                response.getBody().getErrors());
+        Assert.assertEquals(HttpStatus.OK.value(),
+                restTemplate.getForEntity(String.format(url, 7), String.class).getStatusCodeValue());
+
+        // The permits are released once the responses complete on the server
+        long deadline = System.currentTimeMillis() + 1000;
+
+        while (planAdmissionLimiter.getInFlight() != 0 && System.currentTimeMillis() < deadline) {
+
+            Thread.yield();
+        }
+
+        Assert.assertEquals(0, planAdmissionLimiter.getInFlight());
+    }
+
+    @DisplayName("Post invalid loan amount to the reactive stack and verify the error response")
+    @Test
+    public void testPostInvalidLoanAmount() {
+
+        // Given
+        HttpEntity<Object> entity = new HttpEntity<>(this.newRequest(-1.0, 24), HEADERS);
+
+        ResponseEntity<GenericExceptionResponseDto> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity, GenericExceptionResponseDto.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCodeValue());
+        Assert.assertEquals(Collections.singletonList(GeneratePlanRequestDto.LOAN_AMOUNT_INVALID), response.getBody().getErrors());
+        Assert.assertEquals(POST_GENERATE_PLAN_PATH, response.getBody().getPath());
+    }
+
+    private GeneratePlanRequestDto newRequest(final double loanAmount, final int duration) {
+
+        return GeneratePlanRequestDto.builder()
+                .loanAmount(loanAmount)
+                .nominalRate(20.0)
+                .duration(duration)
+                .startDate(LocalDateTime.of(2018, 1,1, 0, 0))
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.lendico.finance.admission;
+
+import com.lendico.finance.exception.GenericClientRuntimeException;
+import com.lendico.finance.exception.ServiceUnavailableRuntimeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class PlanAdmissionLimiterTest {
+
+    @DisplayName("Acquire more installments than the limit and verify the request is rejected and then admitted again")
+    @Test
+    public void testRejectWhenAtCapacity() {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        PlanAdmissionLimiter planAdmissionLimiter = new PlanAdmissionLimiter(true, 1000, 100, 2000, 1_000_000,
+                10, 0.5, 1_000_000, 3, meterRegistry);
+
+        PlanAdmissionLimiter.Permit permit = planAdmissionLimiter.acquire(600);
+
+        try {
+
+            planAdmissionLimiter.acquire(600);
+
+            Assert.fail("ServiceUnavailableRuntimeException expected");
+
+        } catch (ServiceUnavailableRuntimeException exception) {
+
+            Assert.assertEquals(3, exception.getRetryAfterSeconds());
+        }
+
+        Assert.assertEquals(600, meterRegistry.get(PlanAdmissionLimiter.IN_FLIGHT_GAUGE_NAME).gauge().value(), 0);
+
+        permit.close();
+        permit.close();
+
+        // Served within the latency target, so the limit grows additively
+
+        Assert.assertEquals(0, planAdmissionLimiter.getInFlight());
+        Assert.assertEquals(1010, planAdmissionLimiter.getLimit(), 0);
+
+        // A request costing more than the limit is capped and runs alone
+
+        PlanAdmissionLimiter.Permit exclusivePermit = planAdmissionLimiter.acquire(1_000_000);
+
+        Assert.assertEquals(1010, exclusivePermit.getCost());
+
+        exclusivePermit.close();
+
+        Assert.assertEquals(2, meterRegistry.get(PlanAdmissionLimiter.REQUESTS_COUNTER_NAME)
+                .tag("result", "accepted").counter().count(), 0);
+        Assert.assertEquals(1, meterRegistry.get(PlanAdmissionLimiter.REQUESTS_COUNTER_NAME)
+                .tag("result", "rejected").counter().count(), 0);
+    }
+
+    @DisplayName("Release a permit slower than the latency target and verify the limit backs off down to the minimum")
+    @Test
+    public void testBackoffWhenSlow() throws InterruptedException {
+
+        PlanAdmissionLimiter planAdmissionLimiter = new PlanAdmissionLimiter(true, 1000, 400, 2000, 1_000_000,
+                10, 0.5, 0, 1, new SimpleMeterRegistry());
+
+        planAdmissionLimiter.acquire(10).close();
+
+        Assert.assertEquals(500, planAdmissionLimiter.getLimit(), 0);
+
+        Thread.sleep(1);
+
+        planAdmissionLimiter.acquire(10).close();
+
+        Assert.assertEquals(400, planAdmissionLimiter.getLimit(), 0);
+    }
+
+    @DisplayName("Acquire more installments than the maximum per request and verify it is rejected even when idle or disabled")
+    @Test
+    public void testRejectRequestOverMaximum() {
+
+        for (boolean enabled : new boolean[] {true, false}) {
+
+            PlanAdmissionLimiter planAdmissionLimiter = new PlanAdmissionLimiter(enabled, 1000, 100, 2000, 5000,
+                    10, 0.5, 1_000_000, 1, new SimpleMeterRegistry());
+
+            try {
+
+                planAdmissionLimiter.acquire(50_000_000);
+
+                Assert.fail("GenericClientRuntimeException expected");
+
+            } catch (GenericClientRuntimeException exception) {
+
+                Assert.assertEquals("The request should not have more than 5000 installments", exception.getMessage());
+            }
+
+            Assert.assertEquals(0, planAdmissionLimiter.getInFlight());
+
+            planAdmissionLimiter.acquire(5000).close();
+        }
+    }
+}
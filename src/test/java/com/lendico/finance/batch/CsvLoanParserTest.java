@@ -0,0 +1,94 @@
+package com.lendico.finance.batch;
+
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class CsvLoanParserTest {
+
+    @DisplayName("Test parsing a loan with a date and time")
+    @Test
+    public void testParseDateTime() {
+
+        GeneratePlanRequestDto loan = parse("5000,5.0,24,2018-01-01T00:00:01Z");
+
+        Assert.assertEquals(5000.0, loan.getLoanAmount(), 0.0);
+        Assert.assertEquals(5.0, loan.getNominalRate(), 0.0);
+        Assert.assertEquals(24, loan.getDuration().intValue());
+        Assert.assertEquals(LocalDateTime.of(2018, 1, 1, 0, 0, 1), loan.getStartDate());
+    }
+
+    @DisplayName("Test parsing a loan with a date only")
+    @Test
+    public void testParseDate() {
+
+        Assert.assertEquals(LocalDateTime.of(2020, 2, 29, 0, 0), parse("1,1,1,2020-02-29").getStartDate());
+    }
+
+    @DisplayName("Test the decimals are parsed as Double.parseDouble does")
+    @Test
+    public void testParseDecimal() {
+
+        String[] decimals = {"0", "0.1", "1.005", "-2.5", "123456.789", "99999999.99", "0.000000000000001",
+                "1234567890.12345", "12345678901234567890.5", "3."};
+
+        for (String decimal : decimals) {
+
+            ByteBuffer input = ByteBuffer.wrap(decimal.getBytes(StandardCharsets.US_ASCII));
+
+            Assert.assertEquals(decimal, Double.parseDouble(decimal),
+                    CsvLoanParser.parseDecimal(input, 0, input.limit()), 0.0);
+        }
+    }
+
+    @DisplayName("Test the header is recognized")
+    @Test
+    public void testIsHeader() {
+
+        ByteBuffer header = ByteBuffer.wrap("loanAmount,nominalRate".getBytes(StandardCharsets.US_ASCII));
+        ByteBuffer loan = ByteBuffer.wrap("5000,5.0".getBytes(StandardCharsets.US_ASCII));
+
+        Assert.assertTrue(CsvLoanParser.isHeader(header, 0, header.limit()));
+        Assert.assertFalse(CsvLoanParser.isHeader(loan, 0, loan.limit()));
+    }
+
+    @DisplayName("Test invalid lines are rejected")
+    @Test
+    public void testParseInvalid() {
+
+        String[] lines = {"5000,5.0,24", "5000,5.0,24,2018-01-01,1", "5000,5.0,24,2018-13-01", "5000,5.0,2x,2018-01-01",
+                "5000,,24,2018-01-01", "5000,5.0,24,2018/01/01", "5000,5.0,24,2018-01-01 00:00:00"};
+
+        for (String line : lines) {
+
+            try {
+
+                parse(line);
+
+                Assert.fail(line);
+
+            } catch (IllegalArgumentException exception) {
+
+                Assert.assertNotNull(exception.getMessage());
+            }
+        }
+    }
+
+    private static GeneratePlanRequestDto parse(final String line) {
+
+        ByteBuffer input = ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII));
+
+        return CsvLoanParser.parse(input, 0, input.limit());
+    }
+}
@@ -0,0 +1,82 @@
+package com.lendico.finance.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class LoanPlanCliTest {
+
+    private ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private ByteArrayOutputStream error = new ByteArrayOutputStream();
+
+    @DisplayName("Test the plans of the loans given as arguments are written as JSON lines")
+    @Test
+    public void testRunJson() throws IOException {
+
+        int status = this.run("", "5000,5.0,24,2018-01-01T00:00:01Z", "1000,2,3,2018-01-31");
+
+        String[] plans = this.output.toString("UTF-8").split("\n");
+        JsonNode borrowerPayments = new ObjectMapper().readTree(plans[0]).get("borrowerPayments");
+
+        Assert.assertEquals(LoanPlanCli.EXIT_OK, status);
+        Assert.assertEquals(2, plans.length);
+        Assert.assertEquals(24, borrowerPayments.size());
+        Assert.assertEquals(219.36, borrowerPayments.get(0).get("borrowerPaymentAmount").asDouble(), 0.0);
+        Assert.assertEquals("2018-01-01T00:00:01Z", borrowerPayments.get(0).get("date").asText());
+        Assert.assertEquals(0.0, borrowerPayments.get(23).get("remainingOutstandingPrincipal").asDouble(), 0.0);
+        Assert.assertEquals(3, new ObjectMapper().readTree(plans[1]).get("borrowerPayments").size());
+    }
+
+    @DisplayName("Test the loans read from the input are written as CSV rows and the invalid ones are reported")
+    @Test
+    public void testRunCsvFromInput() throws IOException {
+
+        int status = this.run("loanAmount,nominalRate,duration,startDate\n5000,5.0,2,2018-01-01\n\n-1,5.0,2,2018-01-01\n",
+                "--format=csv");
+
+        String[] rows = this.output.toString("UTF-8").split("\n");
+
+        Assert.assertEquals(LoanPlanCli.EXIT_REJECTED, status);
+        Assert.assertEquals(3, rows.length);
+        Assert.assertEquals("2,1,2018-01-01T00:00:00Z,2515.64,5000.00,20.83,2494.80,2505.20", rows[1]);
+        Assert.assertEquals("2,2,2018-02-01T00:00:00Z,2515.64,2505.20,10.44,2505.20,0.00", rows[2]);
+        Assert.assertEquals("Loan 4 rejected: Loan amount should be greater than zero", this.error.toString("UTF-8").trim());
+    }
+
+    @DisplayName("Test an unknown format is a usage error")
+    @Test
+    public void testRunUnknownFormat() throws IOException {
+
+        Assert.assertEquals(LoanPlanCli.EXIT_USAGE, this.run("", "--format=xml"));
+        Assert.assertEquals(0, this.output.size());
+    }
+
+    @DisplayName("Test an unknown calculation mode is a usage error")
+    @Test
+    public void testRunUnknownMode() throws IOException {
+
+        Assert.assertEquals(LoanPlanCli.EXIT_USAGE, this.run("", "--mode=FLOAT"));
+        Assert.assertEquals(0, this.output.size());
+        Assert.assertTrue(this.error.toString("UTF-8").startsWith("Usage: LoanPlanCli"));
+    }
+
+    private int run(final String input, final String... args) throws IOException {
+
+        return LoanPlanCli.run(args, new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)), this.output,
+                new PrintStream(this.error, true, "UTF-8"));
+    }
+}
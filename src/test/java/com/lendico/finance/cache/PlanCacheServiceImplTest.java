@@ -0,0 +1,106 @@
+package com.lendico.finance.cache;
+
+import com.lendico.finance.engine.AnnuityFactorTable;
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.engine.PaymentPlan;
+import com.lendico.finance.exception.RequestValidationRuntimeException;
+import com.lendico.finance.factory.ValidationFactoryServiceImpl;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.service.LoanService;
+import com.lendico.finance.service.impl.LoanServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validation;
+import java.time.LocalDateTime;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class PlanCacheServiceImplTest {
+
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PlanCacheServiceImpl planCacheService = new PlanCacheServiceImpl(true, 100, 60, meterRegistry);
+
+    private LoanService loanService = new LoanServiceImpl(new ValidationFactoryServiceImpl(
+            Validation.buildDefaultValidatorFactory().getValidator()), planCacheService,
+            new TemplateCacheServiceImpl(false, 1, new SimpleMeterRegistry()),
+            new AnnuityFactorTable(64),
+            new PlanPhaseMetrics(new SimpleMeterRegistry()), CalculationMode.DOUBLE);
+
+    @DisplayName("Generate the same plan twice and verify the second one is served from the cache")
+    @Test
+    public void testRepeatedRequestIsServedFromCache() {
+
+        PaymentPlan firstPlan = loanService.generatePaymentPlan(this.newRequest(5000.0, 24));
+
+        // A request with an equal normalized key hits the same entry
+        PaymentPlan secondPlan = loanService.generatePaymentPlan(this.newRequest(5000, 24));
+
+        Assert.assertSame(firstPlan, secondPlan);
+        Assert.assertEquals(1, this.count("hit"), 0);
+        Assert.assertEquals(1, this.count("miss"), 0);
+    }
+
+    @DisplayName("Fill the cache over its installment bound and verify plans are evicted")
+    @Test
+    public void testCacheIsBoundedByInstallments() {
+
+        for (int duration = 10; duration < 30; duration++) {
+
+            loanService.generatePaymentPlan(this.newRequest(5000.0, duration));
+        }
+
+        planCacheService.getCache().cleanUp();
+
+        Assert.assertTrue(planCacheService.getCache().policy().eviction().get().weightedSize().getAsLong() <= 100);
+        Assert.assertTrue(meterRegistry.get("cache.evictions").tag("cache", PlanCacheServiceImpl.CACHE_NAME)
+                .functionCounter().count() > 0);
+    }
+
+    @DisplayName("Generate an invalid plan twice and verify the failure is never cached")
+    @Test
+    public void testInvalidRequestIsNotCached() {
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+
+            try {
+
+                loanService.generatePaymentPlan(this.newRequest(-1.0, 24));
+
+                Assert.fail("ConstraintViolationException expected");
+
+            } catch (ConstraintViolationException exception) {
+
+                Assert.assertFalse(RequestValidationRuntimeException.errorsOf(exception).isEmpty());
+            }
+        }
+
+        Assert.assertEquals(0, planCacheService.getCache().estimatedSize());
+    }
+
+    private GeneratePlanRequestDto newRequest(final double loanAmount, final int duration) {
+
+        return GeneratePlanRequestDto.builder()
+                .loanAmount(loanAmount)
+                .nominalRate(5.0)
+                .duration(duration)
+                .startDate(LocalDateTime.of(2018, 1, 1, 0, 0))
+                .build();
+    }
+
+    private double count(final String result) {
+
+        return meterRegistry.get("cache.gets").tag("cache", PlanCacheServiceImpl.CACHE_NAME).tag("result", result)
+                .functionCounter().count();
+    }
+}
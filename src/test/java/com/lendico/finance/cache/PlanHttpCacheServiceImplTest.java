@@ -0,0 +1,66 @@
+package com.lendico.finance.cache;
+
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.springframework.http.MediaType;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class PlanHttpCacheServiceImplTest {
+
+    private PlanHttpCacheServiceImpl planHttpCacheService = new PlanHttpCacheServiceImpl("1", CalculationMode.DOUBLE, 60);
+
+    @DisplayName("Derive the ETags of equal and different plans and verify they only depend on the plan")
+    @Test
+    public void testETagDependsOnPlanOnly() {
+
+        String eTag = planHttpCacheService.getETag(this.newRequest(5000.0, 24), MediaType.APPLICATION_JSON);
+
+        // Same normalized loan details, on another instance
+        Assert.assertEquals(eTag, new PlanHttpCacheServiceImpl("1", CalculationMode.DOUBLE, 3600)
+                .getETag(this.newRequest(5000, 24), MediaType.APPLICATION_JSON));
+
+        Assert.assertNotEquals(eTag, planHttpCacheService.getETag(this.newRequest(5000.01, 24), MediaType.APPLICATION_JSON));
+        Assert.assertNotEquals(eTag, planHttpCacheService.getETag(this.newRequest(5000.0, 24), MediaType.parseMediaType("application/cbor")));
+        Assert.assertNotEquals(eTag, new PlanHttpCacheServiceImpl("2", CalculationMode.DOUBLE, 60)
+                .getETag(this.newRequest(5000.0, 24), MediaType.APPLICATION_JSON));
+        Assert.assertNotEquals(eTag, new PlanHttpCacheServiceImpl("1", CalculationMode.CENTS, 60)
+                .getETag(this.newRequest(5000.0, 24), MediaType.APPLICATION_JSON));
+        Assert.assertNull(planHttpCacheService.getETag(new GeneratePlanRequestDto(), MediaType.APPLICATION_JSON));
+    }
+
+    @DisplayName("Match If-None-Match entity tags against an ETag and verify the weak comparison")
+    @Test
+    public void testIsNotModified() {
+
+        String eTag = planHttpCacheService.getETag(this.newRequest(5000.0, 24), MediaType.APPLICATION_JSON);
+
+        Assert.assertTrue(planHttpCacheService.isNotModified(Arrays.asList("\"other\"", eTag), eTag));
+        Assert.assertTrue(planHttpCacheService.isNotModified(Collections.singletonList("W/" + eTag), eTag));
+        Assert.assertTrue(planHttpCacheService.isNotModified(Collections.singletonList("*"), eTag));
+        Assert.assertFalse(planHttpCacheService.isNotModified(Collections.singletonList("\"other\""), eTag));
+        Assert.assertFalse(planHttpCacheService.isNotModified(Collections.emptyList(), eTag));
+        Assert.assertFalse(planHttpCacheService.isNotModified(Collections.singletonList("*"), null));
+    }
+
+    private GeneratePlanRequestDto newRequest(final double loanAmount, final int duration) {
+
+        return GeneratePlanRequestDto.builder()
+                .loanAmount(loanAmount)
+                .nominalRate(5.0)
+                .duration(duration)
+                .startDate(LocalDateTime.of(2018, 1, 1, 0, 0))
+                .build();
+    }
+}
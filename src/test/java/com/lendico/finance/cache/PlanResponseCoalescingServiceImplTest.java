@@ -0,0 +1,294 @@
+package com.lendico.finance.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lendico.finance.constant.GlobalConstant;
+import com.lendico.finance.engine.AnnuityFactorTable;
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.exception.GenericClientRuntimeException;
+import com.lendico.finance.factory.ValidationFactoryServiceImpl;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.serializer.SerializedPlanResponse;
+import com.lendico.finance.serializer.TimedMappingJackson2HttpMessageConverter;
+import com.lendico.finance.service.impl.LoanServiceImpl;
+import com.lendico.finance.store.PlanStoreServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import javax.validation.Validation;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class PlanResponseCoalescingServiceImplTest {
+
+    private static final int NO_OF_REQUESTS = 8;
+
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private PlanResponseCoalescingServiceImpl planResponseCoalescingService = this.newCoalescingService(60_000);
+
+    @DisplayName("Post identical requests while the first one is in flight and verify they share its response")
+    @Test
+    public void testIdenticalRequestsShareOneResponse() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger noOfGenerations = new AtomicInteger();
+        SerializedPlanResponse expectedResponse = new SerializedPlanResponse(MediaType.APPLICATION_JSON, new byte[1]);
+
+        List<SerializedPlanResponse> responses = this.coalesceConcurrently(() -> {
+
+            noOfGenerations.incrementAndGet();
+
+            await(release);
+
+            return expectedResponse;
+
+        }, release);
+
+        Assert.assertEquals(1, noOfGenerations.get());
+
+        for (SerializedPlanResponse response : responses) {
+
+            Assert.assertSame(expectedResponse, response);
+        }
+
+        Assert.assertEquals(1, this.count("leader"), 0);
+        Assert.assertEquals(NO_OF_REQUESTS - 1, this.count("follower"), 0);
+    }
+
+    @DisplayName("Fail the first of identical requests and verify every request of the flight gets its exception")
+    @Test
+    public void testFailureIsPropagatedToEveryRequest() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        GenericClientRuntimeException failure = new GenericClientRuntimeException("Plan failed");
+        ExecutorService executorService = Executors.newFixedThreadPool(NO_OF_REQUESTS);
+
+        try {
+
+            List<Future<SerializedPlanResponse>> futures = this.submit(executorService, () -> {
+
+                await(release);
+
+                throw failure;
+
+            }, release);
+
+            for (Future<SerializedPlanResponse> future : futures) {
+
+                try {
+
+                    future.get();
+
+                    Assert.fail("GenericClientRuntimeException expected");
+
+                } catch (ExecutionException exception) {
+
+                    Assert.assertSame(failure, exception.getCause());
+                }
+            }
+
+        } finally {
+
+            executorService.shutdownNow();
+        }
+
+        // The failed flight is over, so the next request generates again
+        Assert.assertNotNull(this.planResponseCoalescingService.getResponse(this.newRequest(24), MediaType.APPLICATION_JSON));
+    }
+
+    @DisplayName("Hold the first request beyond the wait timeout and verify the identical one generates on its own")
+    @Test
+    public void testRequestGeneratesOnItsOwnAfterTimeout() throws Exception {
+
+        PlanResponseCoalescingServiceImpl coalescingService = this.newCoalescingService(50);
+        PlanResponseCoalescingServiceImpl.FlightKey flightKey =
+                PlanResponseCoalescingServiceImpl.FlightKey.of(this.newRequest(24), MediaType.APPLICATION_JSON);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        SerializedPlanResponse ownResponse = new SerializedPlanResponse(MediaType.APPLICATION_JSON, new byte[1]);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        try {
+
+            Future<SerializedPlanResponse> leader = executorService.submit(() -> coalescingService.coalesce(flightKey, () -> {
+
+                started.countDown();
+
+                await(release);
+
+                return new SerializedPlanResponse(MediaType.APPLICATION_JSON, new byte[1]);
+            }));
+
+            started.await();
+
+            Assert.assertSame(ownResponse, coalescingService.coalesce(flightKey, () -> ownResponse));
+            Assert.assertEquals(1, this.count("timeout"), 0);
+
+            release.countDown();
+
+            Assert.assertNotSame(ownResponse, leader.get());
+
+        } finally {
+
+            executorService.shutdownNow();
+        }
+    }
+
+    @DisplayName("Generate a plan response and verify it is the JSON plan with the negotiated media type")
+    @Test
+    public void testResponseIsSerializedInNegotiatedMediaType() throws IOException {
+
+        MediaType mediaType = this.planResponseCoalescingService.selectMediaType("text/html, application/*;q=0.8");
+
+        SerializedPlanResponse response = this.planResponseCoalescingService.getResponse(this.newRequest(24), mediaType);
+        JsonNode plan = this.objectMapper.readTree(response.getBody().array());
+
+        Assert.assertEquals(MediaType.APPLICATION_JSON, response.getMediaType());
+        Assert.assertEquals(24, plan.get("borrowerPayments").size());
+        Assert.assertEquals(MediaType.parseMediaType(GlobalConstant.APPLICATION_CBOR_VALUE),
+                this.planResponseCoalescingService.selectMediaType("application/json;q=0.5, application/cbor"));
+        Assert.assertEquals(MediaType.APPLICATION_JSON, this.planResponseCoalescingService.selectMediaType(null));
+    }
+
+    @DisplayName("Size the buffers of short and very long plans and verify the size is estimated without overflow and capped")
+    @Test
+    public void testInitialBufferSizeIsCapped() {
+
+        Assert.assertEquals(24 * 192, PlanResponseCoalescingServiceImpl.initialBufferSizeOf(24));
+        Assert.assertEquals(64 * 1024 * 1024, PlanResponseCoalescingServiceImpl.initialBufferSizeOf(12_000_000));
+        Assert.assertEquals(64 * 1024 * 1024, PlanResponseCoalescingServiceImpl.initialBufferSizeOf(Integer.MAX_VALUE));
+    }
+
+    @DisplayName("Serialize into the buffer of a plan response and verify the response wraps it without a copy")
+    @Test
+    public void testResponseWrapsSerializedBuffer() throws Exception {
+
+        PlanResponseCoalescingServiceImpl.BufferOutputStream output = new PlanResponseCoalescingServiceImpl.BufferOutputStream(16);
+
+        output.write("{\"borrowerPayments\":[]}".getBytes(StandardCharsets.UTF_8));
+
+        SerializedPlanResponse serializedPlanResponse = new SerializedPlanResponse(MediaType.APPLICATION_JSON,
+                output.getBuffer(), output.size());
+
+        Assert.assertSame(output.getBuffer(), serializedPlanResponse.getBody().array());
+        Assert.assertEquals("{\"borrowerPayments\":[]}", StandardCharsets.UTF_8.decode(serializedPlanResponse.getBody()).toString());
+    }
+
+    /**
+     * This method submits identical requests, releases the first one once all the others have joined its flight
+     * and returns their responses.
+     */
+    private List<SerializedPlanResponse> coalesceConcurrently(final Supplier<SerializedPlanResponse> responseGenerator,
+                                                              final CountDownLatch release) throws Exception {
+
+        ExecutorService executorService = Executors.newFixedThreadPool(NO_OF_REQUESTS);
+        List<SerializedPlanResponse> responses = new ArrayList<>();
+
+        try {
+
+            for (Future<SerializedPlanResponse> future : this.submit(executorService, responseGenerator, release)) {
+
+                responses.add(future.get());
+            }
+
+        } finally {
+
+            executorService.shutdownNow();
+        }
+
+        return responses;
+    }
+
+    private List<Future<SerializedPlanResponse>> submit(final ExecutorService executorService,
+                                                        final Supplier<SerializedPlanResponse> responseGenerator,
+                                                        final CountDownLatch release) throws InterruptedException {
+
+        PlanResponseCoalescingServiceImpl.FlightKey flightKey =
+                PlanResponseCoalescingServiceImpl.FlightKey.of(this.newRequest(24), MediaType.APPLICATION_JSON);
+        List<Future<SerializedPlanResponse>> futures = new ArrayList<>();
+
+        for (int request = 0; request < NO_OF_REQUESTS; request++) {
+
+            futures.add(executorService.submit(() -> this.planResponseCoalescingService.coalesce(flightKey, responseGenerator)));
+        }
+
+        while (this.count("leader") + this.count("follower") < NO_OF_REQUESTS) {
+
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+
+        release.countDown();
+
+        return futures;
+    }
+
+    private PlanResponseCoalescingServiceImpl newCoalescingService(final long waitTimeoutMillis) {
+
+        LoanServiceImpl loanService = new LoanServiceImpl(new ValidationFactoryServiceImpl(
+                Validation.buildDefaultValidatorFactory().getValidator()),
+                new PlanCacheServiceImpl(false, 1, 1, this.meterRegistry),
+                new TemplateCacheServiceImpl(false, 1, this.meterRegistry),
+                new AnnuityFactorTable(64),
+                new PlanPhaseMetrics(new SimpleMeterRegistry()), CalculationMode.DOUBLE);
+
+        return new PlanResponseCoalescingServiceImpl(true, waitTimeoutMillis, loanService,
+                new PlanStoreServiceImpl(false, "plan-store", 1, 1, 1, "1", CalculationMode.DOUBLE, this.meterRegistry),
+                Collections.singletonList(new TimedMappingJackson2HttpMessageConverter(this.objectMapper,
+                        new PlanPhaseMetrics(new SimpleMeterRegistry()))), this.meterRegistry);
+    }
+
+    private GeneratePlanRequestDto newRequest(final int duration) {
+
+        return GeneratePlanRequestDto.builder()
+                .loanAmount(5000.0)
+                .nominalRate(5.0)
+                .duration(duration)
+                .startDate(LocalDateTime.of(2018, 1, 1, 0, 0))
+                .build();
+    }
+
+    private double count(final String result) {
+
+        return this.meterRegistry.get(PlanResponseCoalescingServiceImpl.REQUESTS_COUNTER_NAME)
+                .tag("result", result).counter().count();
+    }
+
+    private static void await(final CountDownLatch latch) {
+
+        try {
+
+            latch.await();
+
+        } catch (InterruptedException exception) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+}
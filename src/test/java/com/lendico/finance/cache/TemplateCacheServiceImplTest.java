@@ -0,0 +1,167 @@
+package com.lendico.finance.cache;
+
+import com.lendico.finance.engine.AnnuityFactorTable;
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.engine.PaymentPlan;
+import com.lendico.finance.engine.PaymentScheduleCursor;
+import com.lendico.finance.engine.TemplatePaymentScheduleCursor;
+import com.lendico.finance.factory.ValidationFactoryServiceImpl;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.service.LoanService;
+import com.lendico.finance.service.impl.LoanServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.validation.Validation;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class TemplateCacheServiceImplTest {
+
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TemplateCacheServiceImpl templateCacheService = new TemplateCacheServiceImpl(true, 1000, meterRegistry);
+
+    private LoanService loanService = this.newLoanService(templateCacheService);
+
+    private LoanService recurrenceLoanService = this.newLoanService(new TemplateCacheServiceImpl(false, 1, meterRegistry));
+
+    @DisplayName("Generate plans of many loan amounts from the templates and verify they match the recurrence to the cent")
+    @Test
+    public void testTemplatePlansMatchRecurrence() {
+
+        Random random = new Random(22);
+
+        for (double nominalRate : new double[] {0.5, 3.99, 5.0, 12.0}) {
+
+            for (int duration : new int[] {1, 24, 360}) {
+
+                for (int attempt = 0; attempt < 200; attempt++) {
+
+                    double loanAmount = attempt % 2 == 0
+                            ? Math.round(random.nextDouble() * 100000000) / 100.0
+                            : random.nextDouble() * 1000000;
+
+                    GeneratePlanRequestDto generatePlanRequestDto = this.newRequest(loanAmount, nominalRate, duration);
+
+                    PaymentPlan expectedPlan = recurrenceLoanService.generatePaymentPlan(generatePlanRequestDto);
+                    PaymentPlan plan = loanService.generatePaymentPlan(generatePlanRequestDto);
+
+                    Assert.assertEquals(expectedPlan.toBorrowerPaymentList(), plan.toBorrowerPaymentList());
+                    Assert.assertEquals(recurrenceLoanService.generateInstallment(generatePlanRequestDto, duration),
+                            loanService.generateInstallment(generatePlanRequestDto, duration));
+                }
+            }
+        }
+    }
+
+    @DisplayName("Generate plans of long and high rate products and verify they use the recurrence without a template")
+    @Test
+    public void testLongHighRatePlansSkipTemplate() {
+
+        TemplateCacheServiceImpl largeTemplateCacheService = new TemplateCacheServiceImpl(true, 100000, meterRegistry);
+        LoanService largeLoanService = this.newLoanService(largeTemplateCacheService);
+
+        for (double nominalRate : new double[] {5.0, 25.0}) {
+
+            for (int duration : new int[] {1200, 12000}) {
+
+                GeneratePlanRequestDto generatePlanRequestDto = this.newRequest(979647.23, nominalRate, duration);
+
+                Assert.assertFalse(largeLoanService.generateScheduleCursor(generatePlanRequestDto)
+                        instanceof TemplatePaymentScheduleCursor);
+                Assert.assertEquals(recurrenceLoanService.generatePaymentPlan(generatePlanRequestDto).toBorrowerPaymentList(),
+                        largeLoanService.generatePaymentPlan(generatePlanRequestDto).toBorrowerPaymentList());
+            }
+        }
+
+        Assert.assertEquals(0, largeTemplateCacheService.getCache().estimatedSize());
+    }
+
+    @DisplayName("Generate plans of the longest products still scaled from a template and verify they match the recurrence")
+    @Test
+    public void testLongTemplatePlansMatchRecurrence() {
+
+        TemplateCacheServiceImpl largeTemplateCacheService = new TemplateCacheServiceImpl(true, 100000, meterRegistry);
+        LoanService largeLoanService = this.newLoanService(largeTemplateCacheService);
+
+        Random random = new Random(22);
+
+        for (int attempt = 0; attempt < 50; attempt++) {
+
+            GeneratePlanRequestDto generatePlanRequestDto = this.newRequest(
+                    Math.round(random.nextDouble() * 10000000) / 100.0, 5.0, 600);
+
+            Assert.assertTrue(largeLoanService.generateScheduleCursor(generatePlanRequestDto)
+                    instanceof TemplatePaymentScheduleCursor);
+            Assert.assertEquals(recurrenceLoanService.generatePaymentPlan(generatePlanRequestDto).toBorrowerPaymentList(),
+                    largeLoanService.generatePaymentPlan(generatePlanRequestDto).toBorrowerPaymentList());
+        }
+    }
+
+    @DisplayName("Generate plans of two loan amounts of the same product and verify they share one template")
+    @Test
+    public void testTemplateIsSharedByLoanAmounts() {
+
+        PaymentScheduleCursor cursor = loanService.generateScheduleCursor(this.newRequest(5000.0, 5.0, 24));
+
+        loanService.generateScheduleCursor(this.newRequest(7250.5, 5.0, 24));
+
+        Assert.assertTrue(cursor instanceof TemplatePaymentScheduleCursor);
+        Assert.assertEquals(1, templateCacheService.getCache().estimatedSize());
+        Assert.assertEquals(1, this.count("hit"), 0);
+        Assert.assertEquals(1, this.count("miss"), 0);
+    }
+
+    @DisplayName("Fill the store over its installment bound and verify templates are evicted")
+    @Test
+    public void testStoreIsBoundedByInstallments() {
+
+        for (int duration = 100; duration < 130; duration++) {
+
+            loanService.generateScheduleCursor(this.newRequest(5000.0, 5.0, duration));
+        }
+
+        templateCacheService.getCache().cleanUp();
+
+        Assert.assertTrue(templateCacheService.getCache().policy().eviction().get().weightedSize().getAsLong() <= 1000);
+        Assert.assertTrue(meterRegistry.get("cache.evictions").tag("cache", TemplateCacheServiceImpl.CACHE_NAME)
+                .functionCounter().count() > 0);
+    }
+
+    private LoanService newLoanService(final TemplateCacheServiceImpl templateCacheService) {
+
+        return new LoanServiceImpl(new ValidationFactoryServiceImpl(
+                Validation.buildDefaultValidatorFactory().getValidator()),
+                new PlanCacheServiceImpl(false, 1, 1, new SimpleMeterRegistry()),
+                templateCacheService,
+                new AnnuityFactorTable(64),
+                new PlanPhaseMetrics(new SimpleMeterRegistry()), CalculationMode.DOUBLE);
+    }
+
+    private GeneratePlanRequestDto newRequest(final double loanAmount, final double nominalRate, final int duration) {
+
+        return GeneratePlanRequestDto.builder()
+                .loanAmount(loanAmount)
+                .nominalRate(nominalRate)
+                .duration(duration)
+                .startDate(LocalDateTime.of(2018, 1, 31, 0, 0))
+                .build();
+    }
+
+    private double count(final String result) {
+
+        return meterRegistry.get("cache.gets").tag("cache", TemplateCacheServiceImpl.CACHE_NAME).tag("result", result)
+                .functionCounter().count();
+    }
+}
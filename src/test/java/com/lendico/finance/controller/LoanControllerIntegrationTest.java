@@ -1,11 +1,26 @@
 package com.lendico.finance.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
 import com.lendico.finance.LoanServiceApp;
+import com.lendico.finance.admission.PlanAdmissionLimiter;
+import com.lendico.finance.cache.PlanResponseCoalescingServiceImpl;
+import com.lendico.finance.logging.AsyncLogPipeline;
+import com.lendico.finance.metrics.PlanPhase;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
 import com.lendico.finance.model.BorrowerPaymentDto;
 import com.lendico.finance.model.GeneratePlanRequestDto;
 import com.lendico.finance.model.GeneratePlanResponseDto;
+import com.lendico.finance.model.GeneratePlanResultDto;
+import com.lendico.finance.model.GeneratePlansResponseDto;
 import com.lendico.finance.model.GenericExceptionResponseDto;
+import com.lendico.finance.model.PlanSummaryDto;
 import com.lendico.finance.service.LoanService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.decimal4j.util.DoubleRounder;
 import org.junit.Assert;
 import org.junit.Test;
@@ -22,19 +37,32 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = LoanServiceApp.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
-@TestPropertySource("classpath:application-test.properties")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"loan.plan.store.enabled=true", "loan.plan.store.directory=target/plan-store"})
 public class LoanControllerIntegrationTest {
 
     private static final String BASE_URL = "http://localhost:";
     private static final String POST_GENERATE_PLAN_PATH = "/generate-plan";
+    private static final String POST_GENERATE_PLANS_PATH = "/generate-plans";
+    private static final String GET_INSTALLMENT_PATH = "/plan/installment";
+    private static final String GET_PLANS_PATH = "/plans/";
 
     private static final Double LOAN_AMOUNT = 5000.0;
     private static final Double NOMINAL_RATE = 5.0;
@@ -44,6 +72,12 @@ public class LoanControllerIntegrationTest {
     private LoanService loanService;
     @Autowired
     private Environment environment;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private PlanAdmissionLimiter planAdmissionLimiter;
+    @Autowired
+    private RequestMappingHandlerAdapter requestMappingHandlerAdapter;
 
     @LocalServerPort
     private Integer port;
@@ -107,6 +141,545 @@ public class LoanControllerIntegrationTest {
         Assert.assertEquals(5264.56, totalPayment, 0.08);
     }
 
+    @DisplayName("Post valid loan details and verify every phase of the request is timed")
+    @Test
+    public void testPostGeneratePlanRecordsPhaseTimers() {
+
+        // Given
+        HttpEntity<Object> entity = new HttpEntity<>(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(7500.0)
+                        .nominalRate(3.5)
+                        .duration(300)
+                        .startDate(LocalDateTime.now())
+                        .build()
+                , HEADERS);
+
+        ResponseEntity<GeneratePlanResponseDto> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity,
+                GeneratePlanResponseDto.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+
+        for (PlanPhase planPhase : PlanPhase.values()) {
+
+            Assert.assertTrue(planPhase.getTagValue(), meterRegistry.get(PlanPhaseMetrics.TIMER_NAME)
+                    .tag(PlanPhaseMetrics.PHASE_TAG, planPhase.getTagValue())
+                    .tag(PlanPhaseMetrics.DURATION_TAG, "241-360")
+                    .timer().count() > 0);
+        }
+    }
+
+    @DisplayName("Post valid loan details accepting application/x-ndjson and verify one installment per line")
+    @Test
+    public void testPostGeneratePlanAsNdjson() {
+
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Collections.singletonList(MediaType.parseMediaType("application/x-ndjson")));
+
+        HttpEntity<Object> entity = new HttpEntity<>(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(1000.0)
+                        .nominalRate(20.0)
+                        .duration(3)
+                        .startDate(LocalDateTime.of(2018, 1,1, 0, 0))
+                        .build()
+                , headers);
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity, String.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+        Assert.assertTrue(ReflectionTestUtils.getField(requestMappingHandlerAdapter, "taskExecutor")
+                instanceof ThreadPoolTaskExecutor);
+        Assert.assertEquals(
+                "{\"borrowerPaymentAmount\":344.51,\"date\":\"2018-01-01T00:00:00Z\",\"initialOutstandingPrincipal\":1000.0,\"interest\":16.67,\"principal\":327.84,\"remainingOutstandingPrincipal\":672.16}\n" +
+                "{\"borrowerPaymentAmount\":344.51,\"date\":\"2018-02-01T00:00:00Z\",\"initialOutstandingPrincipal\":672.16,\"interest\":11.2,\"principal\":333.3,\"remainingOutstandingPrincipal\":338.86}\n" +
+                "{\"borrowerPaymentAmount\":344.51,\"date\":\"2018-03-01T00:00:00Z\",\"initialOutstandingPrincipal\":338.86,\"interest\":5.65,\"principal\":338.86,\"remainingOutstandingPrincipal\":0.0}\n",
+                response.getBody());
+    }
+
+    @DisplayName("Post valid loan details accepting application/cbor and verify the compact installments in cents")
+    @Test
+    public void testPostGeneratePlanAsCbor() throws IOException {
+
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Collections.singletonList(MediaType.parseMediaType("application/cbor")));
+
+        HttpEntity<Object> entity = new HttpEntity<>(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(1000.0)
+                        .nominalRate(20.0)
+                        .duration(3)
+                        .startDate(LocalDateTime.of(2018, 1,1, 0, 0))
+                        .build()
+                , headers);
+
+        ResponseEntity<byte[]> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity, byte[].class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals("application/cbor", response.getHeaders().getContentType().toString());
+
+        JsonNode plan = new ObjectMapper(new CBORFactory()).readTree(response.getBody());
+
+        Assert.assertEquals(0, plan.get("secondOfDay").intValue());
+        Assert.assertEquals(3, plan.get("installments").size());
+        Assert.assertEquals("[17532,34451,100000,1667,32784,67216]", plan.get("installments").get(0).toString());
+        Assert.assertEquals("[17591,34451,33886,565,33886,0]", plan.get("installments").get(2).toString());
+    }
+
+    @DisplayName("Post valid loan details accepting application/x-protobuf and verify the encoded installments")
+    @Test
+    public void testPostGeneratePlanAsProtobuf() throws IOException {
+
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Collections.singletonList(MediaType.parseMediaType("application/x-protobuf")));
+
+        HttpEntity<Object> entity = new HttpEntity<>(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(1000.0)
+                        .nominalRate(20.0)
+                        .duration(3)
+                        .startDate(LocalDateTime.of(2018, 1,1, 0, 0))
+                        .build()
+                , headers);
+
+        ResponseEntity<byte[]> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity, byte[].class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals("application/x-protobuf", response.getHeaders().getContentType().toString());
+
+        CodedInputStream input = CodedInputStream.newInstance(response.getBody());
+        List<Long> lastInstallment = new ArrayList<>();
+        int noOfInstallments = 0;
+
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+
+            // Field 2 of PaymentPlan: Installment
+            Assert.assertEquals(2, WireFormat.getTagFieldNumber(tag));
+
+            int limit = input.pushLimit(input.readRawVarint32());
+
+            lastInstallment.clear();
+
+            while (!input.isAtEnd()) {
+
+                input.readTag();
+                lastInstallment.add(input.readInt64());
+            }
+
+            input.popLimit(limit);
+            noOfInstallments++;
+        }
+
+        Assert.assertEquals(3, noOfInstallments);
+        // The remaining outstanding principal of zero is left out as proto3 default value
+        Assert.assertEquals(Arrays.asList(17591L, 34451L, 33886L, 565L, 33886L), lastInstallment);
+    }
+
+    @DisplayName("Post valid loan details with offset and limit and verify only that page of the plan is returned")
+    @Test
+    public void testPostGeneratePlanPage() {
+
+        // Given
+        HttpEntity<Object> entity = new HttpEntity<>(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(1000.0)
+                        .nominalRate(20.0)
+                        .duration(3)
+                        .startDate(LocalDateTime.of(2018, 1,1, 0, 0))
+                        .build()
+                , HEADERS);
+
+        ResponseEntity<GeneratePlanResponseDto> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH + "?offset=1&limit=1", HttpMethod.POST, entity,
+                GeneratePlanResponseDto.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals("3", response.getHeaders().getFirst("X-Total-Count"));
+        Assert.assertEquals(1, response.getBody().getBorrowerPayments().size());
+        Assert.assertEquals(LocalDateTime.of(2018, 2,1, 0, 0), response.getBody().getBorrowerPayments().get(0).getDate());
+        Assert.assertEquals(672.16, response.getBody().getBorrowerPayments().get(0).getInitialOutstandingPrincipal(), 0);
+        Assert.assertEquals(338.86, response.getBody().getBorrowerPayments().get(0).getRemainingOutstandingPrincipal(), 0);
+    }
+
+    @DisplayName("Get a single installment with loan details as query parameters and verify its amounts")
+    @Test
+    public void testGetInstallment() {
+
+        // Given
+        String url = BASE_URL + port + GET_INSTALLMENT_PATH
+                + "/3?loanAmount=1000&nominalRate=20&duration=3&startDate=2018-01-01T00:00:00Z";
+
+        ResponseEntity<BorrowerPaymentDto> response = restTemplate.getForEntity(url, BorrowerPaymentDto.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals(LocalDateTime.of(2018, 3,1, 0, 0), response.getBody().getDate());
+        Assert.assertEquals(344.51, response.getBody().getBorrowerPaymentAmount(), 0);
+        Assert.assertEquals(338.86, response.getBody().getInitialOutstandingPrincipal(), 0);
+        Assert.assertEquals(5.65, response.getBody().getInterest(), 0);
+        Assert.assertEquals(0.0, response.getBody().getRemainingOutstandingPrincipal(), 0);
+    }
+
+    @DisplayName("Post a readable and an unreadable plan request and verify both payloads are handed over for logging")
+    @Test
+    public void testPostGeneratePlanPayloadsAreLogged() {
+
+        // Given
+        double records = this.countPayloadRecords();
+
+        HttpEntity<Object> entity = new HttpEntity<>(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(LOAN_AMOUNT)
+                        .nominalRate(NOMINAL_RATE)
+                        .duration(DURATION)
+                        .startDate(LocalDateTime.now())
+                        .build()
+                , HEADERS);
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity, String.class);
+
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals(records + 1, this.countPayloadRecords(), 0);
+
+        response = restTemplate.exchange(BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST,
+                new HttpEntity<>("{\"loanAmount\": 5000.0, \"duration\": ", HEADERS), String.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCodeValue());
+        Assert.assertEquals(records + 2, this.countPayloadRecords(), 0);
+    }
+
+    @DisplayName("Get an installment beyond the duration and with an invalid start date and verify the bad request responses")
+    @Test
+    public void testGetInstallmentInvalidAndVerifyBadRequestResponse() {
+
+        // Given
+        String url = BASE_URL + port + GET_INSTALLMENT_PATH + "/4?loanAmount=1000&nominalRate=20&duration=3&startDate=";
+
+        ResponseEntity<GenericExceptionResponseDto> response = restTemplate.getForEntity(
+                url + "2018-01-01T00:00:00Z", GenericExceptionResponseDto.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCodeValue());
+        Assert.assertEquals(Collections.singletonList("Installment number should be between 1 and 3"),
+                response.getBody().getErrors());
+
+        response = restTemplate.getForEntity(url + "2018-01-01", GenericExceptionResponseDto.class);
+
+        Assert.assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCodeValue());
+        Assert.assertEquals(Collections.singletonList("Parameter startDate is invalid"), response.getBody().getErrors());
+    }
+
+    @DisplayName("Get a single installment while the service is at capacity and verify 503 with Retry-After")
+    @Test
+    public void testGetInstallmentAtCapacity() {
+
+        // Given
+        String url = BASE_URL + port + GET_INSTALLMENT_PATH
+                + "/3?loanAmount=1000&nominalRate=20&duration=3&startDate=2018-01-01T00:00:00Z";
+
+        ResponseEntity<GenericExceptionResponseDto> response;
+
+        try (PlanAdmissionLimiter.Permit permit = planAdmissionLimiter.acquire((long) planAdmissionLimiter.getLimit())) {
+
+            response = restTemplate.getForEntity(url, GenericExceptionResponseDto.class);
+        }
+
+        // Result
+        Assert.assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatusCodeValue());
+        Assert.assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Assert.assertEquals(HttpStatus.OK.value(), restTemplate.getForEntity(url, String.class).getStatusCodeValue());
+
+        this.assertNoInstallmentsInFlight();
+    }
+
+    @DisplayName("Get a plan with loan details as query parameters, then with its ETag, and verify the 304 response")
+    @Test
+    public void testGetGeneratePlanWithETag() {
+
+        // Given
+        String url = BASE_URL + port + POST_GENERATE_PLAN_PATH
+                + "?loanAmount=1000&nominalRate=20&duration=3&startDate=2018-01-01T00:00:00Z";
+
+        ResponseEntity<GeneratePlanResponseDto> response = restTemplate.getForEntity(url, GeneratePlanResponseDto.class);
+
+        // Result
+        String eTag = response.getHeaders().getETag();
+
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals(3, response.getBody().getBorrowerPayments().size());
+        Assert.assertEquals(344.51, response.getBody().getBorrowerPayments().get(2).getBorrowerPaymentAmount(), 0);
+        Assert.assertTrue(eTag.startsWith("\""));
+        Assert.assertEquals("max-age=86400, public", response.getHeaders().getCacheControl());
+        Assert.assertEquals(eTag, restTemplate.getForEntity(url, String.class).getHeaders().getETag());
+
+        // The plan is not generated again for a matching ETag
+        double noOfGeneratedResponses = this.countCoalescingRequests("leader");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(Arrays.asList("\"other\"", "W/" + eTag));
+
+        ResponseEntity<String> notModifiedResponse = restTemplate.exchange(url, HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED.value(), notModifiedResponse.getStatusCodeValue());
+        Assert.assertNull(notModifiedResponse.getBody());
+        Assert.assertEquals(eTag, notModifiedResponse.getHeaders().getETag());
+        Assert.assertEquals(noOfGeneratedResponses, this.countCoalescingRequests("leader"), 0);
+
+        // Every representation has its own ETag
+        headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(MediaType.parseMediaType("application/cbor")));
+        headers.setIfNoneMatch(eTag);
+
+        ResponseEntity<byte[]> cborResponse = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        Assert.assertEquals(HttpStatus.OK.value(), cborResponse.getStatusCodeValue());
+        Assert.assertNotEquals(eTag, cborResponse.getHeaders().getETag());
+    }
+
+    @DisplayName("Get a plan while the service is at capacity and over the maximum per request and verify 503 and 400")
+    @Test
+    public void testGetGeneratePlanAtCapacity() {
+
+        // Given
+        String url = BASE_URL + port + POST_GENERATE_PLAN_PATH
+                + "?loanAmount=1000&nominalRate=20&duration=%d&startDate=2018-01-01T00:00:00Z";
+
+        ResponseEntity<GenericExceptionResponseDto> response;
+
+        try (PlanAdmissionLimiter.Permit permit = planAdmissionLimiter.acquire((long) planAdmissionLimiter.getLimit())) {
+
+            response = restTemplate.getForEntity(String.format(url, 7), GenericExceptionResponseDto.class);
+        }
+
+        // Result
+        Assert.assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatusCodeValue());
+        Assert.assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Assert.assertNull(response.getHeaders().getETag());
+
+        response = restTemplate.getForEntity(String.format(url, 50_000_000), GenericExceptionResponseDto.class);
+
+        Assert.assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCodeValue());
+        Assert.assertEquals(HttpStatus.OK.value(),
+                restTemplate.getForEntity(String.format(url, 7), String.class).getStatusCodeValue());
+
+        this.assertNoInstallmentsInFlight();
+    }
+
+    @DisplayName("Post valid loan details and verify the plan is served from the plan store by the returned ID")
+    @Test
+    public void testGetStoredPlan() throws InterruptedException {
+
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Collections.singletonList(MediaType.parseMediaType("application/x-protobuf")));
+
+        HttpEntity<Object> entity = new HttpEntity<>(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(7000.0)
+                        .nominalRate(4.5)
+                        .duration(36)
+                        .startDate(LocalDateTime.of(2018, 1, 1, 0, 0))
+                        .build()
+                , headers);
+
+        ResponseEntity<byte[]> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity, byte[].class);
+
+        String planId = response.getHeaders().getFirst("X-Plan-Id");
+
+        // The plan is stored asynchronously
+        ResponseEntity<byte[]> storedPlanResponse = restTemplate.getForEntity(
+                BASE_URL + port + GET_PLANS_PATH + planId, byte[].class);
+
+        for (int attempt = 0; attempt < 500 && storedPlanResponse.getStatusCode() == HttpStatus.NOT_FOUND; attempt++) {
+
+            TimeUnit.MILLISECONDS.sleep(10);
+
+            storedPlanResponse = restTemplate.getForEntity(BASE_URL + port + GET_PLANS_PATH + planId, byte[].class);
+        }
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertNotNull(planId);
+        Assert.assertEquals(HttpStatus.OK.value(), storedPlanResponse.getStatusCodeValue());
+        Assert.assertEquals("application/x-protobuf", storedPlanResponse.getHeaders().getContentType().toString());
+        Assert.assertArrayEquals(response.getBody(), storedPlanResponse.getBody());
+
+        // The ID of the same loan is the same with every media type
+        Assert.assertEquals(planId, restTemplate.exchange(BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST,
+                new HttpEntity<>(entity.getBody(), HEADERS), String.class).getHeaders().getFirst("X-Plan-Id"));
+
+        ResponseEntity<GenericExceptionResponseDto> notFoundResponse = restTemplate.getForEntity(
+                BASE_URL + port + GET_PLANS_PATH + UUID.randomUUID(), GenericExceptionResponseDto.class);
+
+        Assert.assertEquals(HttpStatus.NOT_FOUND.value(), notFoundResponse.getStatusCodeValue());
+        Assert.assertEquals(HttpStatus.NOT_FOUND.value(), notFoundResponse.getBody().getStatus().intValue());
+    }
+
+    @DisplayName("Post valid loan details with stream query flag and verify the streamed installments")
+    @Test
+    public void testPostGeneratePlanWithStreamFlag() {
+
+        // Given
+        HttpEntity<Object> entity = new HttpEntity<>(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(LOAN_AMOUNT)
+                        .nominalRate(NOMINAL_RATE)
+                        .duration(DURATION)
+                        .startDate(LocalDateTime.now())
+                        .build()
+                , HEADERS);
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH + "?stream=true", HttpMethod.POST, entity, String.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals(24, response.getBody().split("\n").length);
+    }
+
+    @DisplayName("Post valid loan details accepting any media type and verify the JSON plan is returned")
+    @Test
+    public void testPostGeneratePlanAcceptingAnyMediaType() {
+
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Collections.singletonList(MediaType.ALL));
+
+        HttpEntity<Object> entity = new HttpEntity<>(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(LOAN_AMOUNT)
+                        .nominalRate(NOMINAL_RATE)
+                        .duration(DURATION)
+                        .startDate(LocalDateTime.now())
+                        .build()
+                , headers);
+
+        ResponseEntity<GeneratePlanResponseDto> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity, GeneratePlanResponseDto.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(response.getHeaders().getContentType()));
+        Assert.assertEquals(24, response.getBody().getBorrowerPayments().size());
+    }
+
+    @DisplayName("Post a batch of loans with one invalid entry and verify the results in input order")
+    @Test
+    public void testPostGeneratePlansWithInlineError() {
+
+        // Given
+        HttpEntity<Object> entity = new HttpEntity<>(
+                Arrays.asList(
+                        GeneratePlanRequestDto.builder()
+                                .loanAmount(LOAN_AMOUNT)
+                                .nominalRate(NOMINAL_RATE)
+                                .duration(DURATION)
+                                .startDate(LocalDateTime.now())
+                                .build(),
+                        GeneratePlanRequestDto.builder()
+                                .loanAmount(-1.0)
+                                .nominalRate(NOMINAL_RATE)
+                                .duration(DURATION)
+                                .startDate(LocalDateTime.now())
+                                .build(),
+                        GeneratePlanRequestDto.builder()
+                                .loanAmount(1000.0)
+                                .nominalRate(20.0)
+                                .duration(3)
+                                .startDate(LocalDateTime.of(2018, 1,1, 0, 0))
+                                .build())
+                , HEADERS);
+
+        ResponseEntity<GeneratePlansResponseDto> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLANS_PATH, HttpMethod.POST, entity,
+                GeneratePlansResponseDto.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertNotNull(response.getBody());
+        Assert.assertEquals(3, response.getBody().getResults().size());
+
+        Assert.assertEquals(0, response.getBody().getResults().get(0).getIndex().intValue());
+        Assert.assertEquals(200, response.getBody().getResults().get(0).getStatus().intValue());
+        Assert.assertEquals(24, response.getBody().getResults().get(0).getPlan().getBorrowerPayments().size());
+
+        Assert.assertEquals(400, response.getBody().getResults().get(1).getStatus().intValue());
+        Assert.assertNull(response.getBody().getResults().get(1).getPlan());
+        Assert.assertEquals("Loan amount should be greater than zero", response.getBody().getResults().get(1).getErrors().get(0));
+
+        Assert.assertEquals(200, response.getBody().getResults().get(2).getStatus().intValue());
+        Assert.assertEquals(3, response.getBody().getResults().get(2).getPlan().getBorrowerPayments().size());
+        Assert.assertEquals(11.2, response.getBody().getResults().get(2).getPlan().getBorrowerPayments().get(1).getInterest(), 0.00);
+    }
+
+    @DisplayName("Post a batch of loans with summary flag and verify only the totals are returned")
+    @Test
+    public void testPostGeneratePlanSummaries() {
+
+        // Given
+        HttpEntity<Object> entity = new HttpEntity<>(
+                Arrays.asList(
+                        GeneratePlanRequestDto.builder()
+                                .loanAmount(1000.0)
+                                .nominalRate(20.0)
+                                .duration(3)
+                                .startDate(LocalDateTime.of(2018, 1,1, 0, 0))
+                                .build(),
+                        GeneratePlanRequestDto.builder()
+                                .loanAmount(-1.0)
+                                .nominalRate(NOMINAL_RATE)
+                                .duration(DURATION)
+                                .startDate(LocalDateTime.now())
+                                .build())
+                , HEADERS);
+
+        ResponseEntity<GeneratePlansResponseDto> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLANS_PATH + "?summary=true", HttpMethod.POST, entity,
+                GeneratePlansResponseDto.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals(2, response.getBody().getResults().size());
+
+        GeneratePlanResultDto result = response.getBody().getResults().get(0);
+
+        Assert.assertEquals(200, result.getStatus().intValue());
+        Assert.assertNull(result.getPlan());
+        Assert.assertEquals(PlanSummaryDto.builder()
+                .duration(3)
+                .borrowerPaymentAmount(344.51)
+                .totalInterest(33.52)
+                .totalRepaid(1033.53)
+                .finalPaymentDate(LocalDateTime.of(2018, 3,1, 0, 0))
+                .finalRemainingOutstandingPrincipal(0.0)
+                .build(), result.getSummary());
+
+        Assert.assertEquals(400, response.getBody().getResults().get(1).getStatus().intValue());
+        Assert.assertNull(response.getBody().getResults().get(1).getSummary());
+    }
+
     @DisplayName("Post valid loan amount for generating annuity as Zero and verify the bad request response")
     @Test
     public void testAnnuityZeroAndVerifyBadRequestResponse() {
@@ -135,6 +708,32 @@ public class LoanControllerIntegrationTest {
         Assert.assertEquals("/generate-plan", response.getBody().getPath());
     }
 
+    @DisplayName("Post a loan amount too large to be counted in cents and verify the bad request response")
+    @Test
+    public void testPostLoanAmountTooLargeAndVerifyBadRequestResponse() {
+
+        // Given
+        HttpEntity<Object> entity = new HttpEntity<>(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(1e17)
+                        .nominalRate(NOMINAL_RATE)
+                        .duration(DURATION)
+                        .startDate(LocalDateTime.now())
+                        .build()
+                , HEADERS);
+
+        ResponseEntity<GenericExceptionResponseDto> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity,
+                GenericExceptionResponseDto.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCodeValue());
+        Assert.assertNotNull(response.getBody());
+        Assert.assertEquals("Loan amount and annuity should be less than 90000000000000000",
+                response.getBody().getErrors().get(0));
+        Assert.assertEquals("/generate-plan", response.getBody().getPath());
+    }
+
     @DisplayName("Post invalid loan amount and verify the bad request response")
     @Test
     public void testPostInvalidLoanAmountAndVerifyBadRequestResponse() {
@@ -182,4 +781,87 @@ public class LoanControllerIntegrationTest {
         Assert.assertEquals("400", String.valueOf(response.getBody().getStatus()));
         Assert.assertEquals("Bad Request", String.valueOf(response.getBody().getMessage()));
     }
+
+    @DisplayName("Post loan details while the service is at capacity and verify 503 with Retry-After")
+    @Test
+    public void testPostGeneratePlanAtCapacity() {
+
+        // Given
+        HttpEntity<Object> entity = new HttpEntity<>(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(LOAN_AMOUNT)
+                        .nominalRate(NOMINAL_RATE)
+                        .duration(DURATION)
+                        .startDate(LocalDateTime.now())
+                        .build()
+                , HEADERS);
+
+        ResponseEntity<GenericExceptionResponseDto> response;
+
+        try (PlanAdmissionLimiter.Permit permit = planAdmissionLimiter.acquire((long) planAdmissionLimiter.getLimit())) {
+
+            response = restTemplate.exchange(
+                    BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity, GenericExceptionResponseDto.class);
+        }
+
+        // Result
+        Assert.assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatusCodeValue());
+        Assert.assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Assert.assertEquals(0, planAdmissionLimiter.getInFlight());
+
+        Assert.assertEquals(HttpStatus.OK.value(), restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity, String.class).getStatusCodeValue());
+
+        this.assertNoInstallmentsInFlight();
+    }
+
+    @DisplayName("Post loan details of more installments than the maximum per request and verify the bad request response")
+    @Test
+    public void testPostGeneratePlanOverMaximumAndVerifyBadRequestResponse() {
+
+        // Given
+        HttpEntity<Object> entity = new HttpEntity<>(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(LOAN_AMOUNT)
+                        .nominalRate(NOMINAL_RATE)
+                        .duration(50_000_000)
+                        .startDate(LocalDateTime.now())
+                        .build()
+                , HEADERS);
+
+        ResponseEntity<GenericExceptionResponseDto> response = restTemplate.exchange(
+                BASE_URL + port + POST_GENERATE_PLAN_PATH, HttpMethod.POST, entity, GenericExceptionResponseDto.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCodeValue());
+        Assert.assertEquals(Collections.singletonList("The request should not have more than 1000000 installments"),
+                response.getBody().getErrors());
+        Assert.assertEquals(0, planAdmissionLimiter.getInFlight());
+    }
+
+    private void assertNoInstallmentsInFlight() {
+
+        // The permit is released once the request completes on the server, which may be after the client got the response
+        long deadline = System.currentTimeMillis() + 1000;
+
+        while (planAdmissionLimiter.getInFlight() != 0 && System.currentTimeMillis() < deadline) {
+
+            Thread.yield();
+        }
+
+        Assert.assertEquals(0, planAdmissionLimiter.getInFlight());
+    }
+
+    private double countCoalescingRequests(final String result) {
+
+        return meterRegistry.get(PlanResponseCoalescingServiceImpl.REQUESTS_COUNTER_NAME).tag("result", result)
+                .counter().count();
+    }
+
+    private double countPayloadRecords() {
+
+        return meterRegistry.find(AsyncLogPipeline.RECORDS_COUNTER_NAME).tag("type", "payload").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
 }
@@ -0,0 +1,120 @@
+package com.lendico.finance.controller;
+
+import com.lendico.finance.LoanServiceApp;
+import com.lendico.finance.admission.PlanAdmissionLimiter;
+import com.lendico.finance.model.CashFlowAggregateDto;
+import com.lendico.finance.model.MonthlyCashFlowDto;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.YearMonth;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = LoanServiceApp.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "loan.aggregation.partition-size=2")
+public class PortfolioControllerIntegrationTest {
+
+    private static final String BASE_URL = "http://localhost:";
+    private static final String POST_AGGREGATE_CASH_FLOWS_PATH = "/aggregate-cash-flows";
+
+    private static final String LOAN = "{\"loanAmount\":1000,\"nominalRate\":20,\"duration\":3,\"startDate\":\"2018-01-01T00:00:00Z\"}\n";
+    private static final String INVALID_LOAN = "{\"loanAmount\":-1,\"nominalRate\":20,\"duration\":3,\"startDate\":\"2018-01-01T00:00:00Z\"}\n";
+
+    @LocalServerPort
+    private Integer port;
+
+    @Autowired
+    private PlanAdmissionLimiter planAdmissionLimiter;
+
+    private TestRestTemplate restTemplate = new TestRestTemplate();
+
+    @DisplayName("Post a portfolio as newline delimited JSON over several partitions and verify the monthly cash flows")
+    @Test
+    public void testPostAggregateCashFlowsAsNdjson() {
+
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+
+        HttpEntity<String> entity = new HttpEntity<>(LOAN + LOAN + INVALID_LOAN + LOAN + LOAN, headers);
+
+        ResponseEntity<CashFlowAggregateDto> response = restTemplate.exchange(
+                BASE_URL + port + POST_AGGREGATE_CASH_FLOWS_PATH, HttpMethod.POST, entity, CashFlowAggregateDto.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
+        Assert.assertEquals(4, response.getBody().getNoOfLoans().longValue());
+        Assert.assertEquals(1, response.getBody().getNoOfRejectedLoans().longValue());
+        Assert.assertEquals(2, response.getBody().getErrors().get(0).getIndex().intValue());
+        Assert.assertEquals("Loan amount should be greater than zero", response.getBody().getErrors().get(0).getErrors().get(0));
+
+        Assert.assertEquals(3, response.getBody().getCashFlows().size());
+
+        MonthlyCashFlowDto firstMonth = response.getBody().getCashFlows().get(0);
+
+        Assert.assertEquals(YearMonth.of(2018, 1), firstMonth.getMonth());
+        Assert.assertEquals(4, firstMonth.getNoOfPayments().intValue());
+        Assert.assertEquals(66.68, firstMonth.getInterest(), 0);
+        Assert.assertEquals(1311.36, firstMonth.getPrincipal(), 0);
+        Assert.assertEquals(0.0, response.getBody().getCashFlows().get(2).getRemainingOutstandingPrincipal(), 0);
+    }
+
+    @DisplayName("Post a malformed portfolio and verify the bad request response")
+    @Test
+    public void testPostAggregateCashFlowsMalformedAndVerifyBadRequestResponse() {
+
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+
+        HttpEntity<String> entity = new HttpEntity<>(LOAN + "{\"loanAmount\":", headers);
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                BASE_URL + port + POST_AGGREGATE_CASH_FLOWS_PATH, HttpMethod.POST, entity, String.class);
+
+        // Result
+        Assert.assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatusCodeValue());
+    }
+
+    @DisplayName("Post a portfolio at capacity and verify it is shed, then served once the installments are released")
+    @Test
+    public void testPostAggregateCashFlowsAtCapacity() {
+
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+
+        HttpEntity<String> entity = new HttpEntity<>(LOAN + LOAN + LOAN, headers);
+
+        ResponseEntity<String> response;
+
+        try (PlanAdmissionLimiter.Permit permit = planAdmissionLimiter.acquire((long) planAdmissionLimiter.getLimit())) {
+
+            response = restTemplate.exchange(
+                    BASE_URL + port + POST_AGGREGATE_CASH_FLOWS_PATH, HttpMethod.POST, entity, String.class);
+        }
+
+        // Result
+        Assert.assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatusCodeValue());
+        Assert.assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        Assert.assertEquals(HttpStatus.OK.value(), restTemplate.exchange(BASE_URL + port + POST_AGGREGATE_CASH_FLOWS_PATH,
+                HttpMethod.POST, entity, CashFlowAggregateDto.class).getStatusCodeValue());
+        Assert.assertEquals(0, planAdmissionLimiter.getInFlight());
+    }
+}
@@ -0,0 +1,52 @@
+package com.lendico.finance.engine;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class AnnuityFactorTableTest {
+
+    @DisplayName("Look up the same pair twice and verify the second lookup is a hit with the same denominator")
+    @Test
+    public void testRepeatedLookupIsHit() {
+
+        AnnuityFactorTable annuityFactorTable = new AnnuityFactorTable(16);
+
+        double monthlyInterestRate = 0.05 / 12;
+
+        double denominator = annuityFactorTable.getDenominator(monthlyInterestRate, 24);
+
+        Assert.assertEquals(AnnuityFactorTable.calculateDenominator(monthlyInterestRate, 24), denominator, 0);
+        Assert.assertEquals(denominator, annuityFactorTable.getDenominator(monthlyInterestRate, 24), 0);
+        Assert.assertEquals(219.36, (5000 * monthlyInterestRate) / denominator, 0.005);
+        Assert.assertEquals(1, annuityFactorTable.hitCount());
+        Assert.assertEquals(1, annuityFactorTable.missCount());
+        Assert.assertEquals(0.5, annuityFactorTable.hitRatio(), 0);
+    }
+
+    @DisplayName("Look up more pairs than the capacity and verify every denominator is still correct")
+    @Test
+    public void testTableIsBounded() {
+
+        AnnuityFactorTable annuityFactorTable = new AnnuityFactorTable(10);
+
+        Assert.assertEquals(16, annuityFactorTable.capacity());
+
+        for (int round = 0; round < 2; round++) {
+
+            for (int duration = 1; duration <= 400; duration++) {
+
+                Assert.assertEquals(AnnuityFactorTable.calculateDenominator(0.01, duration),
+                        annuityFactorTable.getDenominator(0.01, duration), 0);
+            }
+        }
+
+        Assert.assertEquals(800, annuityFactorTable.hitCount() + annuityFactorTable.missCount());
+    }
+}
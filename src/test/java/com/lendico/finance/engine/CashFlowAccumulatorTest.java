@@ -0,0 +1,94 @@
+package com.lendico.finance.engine;
+
+import com.lendico.finance.model.MonthlyCashFlowDto;
+import com.lendico.finance.util.CommonUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class CashFlowAccumulatorTest {
+
+    private static final double NOMINAL_RATE = 0.05;
+
+    // Loans out of order, reaching before the first one and far beyond the initial capacity
+    private static final List<LocalDateTime> START_DATES = Arrays.asList(
+            LocalDateTime.of(2018, 3, 31, 0, 0),
+            LocalDateTime.of(2017, 12, 1, 0, 0),
+            LocalDateTime.of(2060, 6, 15, 0, 0),
+            LocalDateTime.of(2018, 3, 1, 0, 0));
+
+    @DisplayName("Aggregate loans in one and in two merged accumulators and verify the sums of every month")
+    @Test
+    public void testAccumulateAndMergeMatchPlanSums() {
+
+        CashFlowAccumulator accumulator = new CashFlowAccumulator();
+        CashFlowAccumulator firstHalf = new CashFlowAccumulator();
+        CashFlowAccumulator secondHalf = new CashFlowAccumulator();
+
+        TreeMap<YearMonth, long[]> expectedSums = new TreeMap<>();
+
+        for (int index = 0; index < START_DATES.size(); index++) {
+
+            LocalDateTime startDate = START_DATES.get(index);
+            int duration = 12 * (index + 1);
+
+            accumulator.add(newCursor(startDate, duration), startDate.toLocalDate());
+            (index % 2 == 0 ? firstHalf : secondHalf).add(newCursor(startDate, duration), startDate.toLocalDate());
+
+            PaymentScheduleCursor cursor = newCursor(startDate, duration);
+
+            while (cursor.next()) {
+
+                long[] sums = expectedSums.computeIfAbsent(YearMonth.from(cursor.getDate()), month -> new long[2]);
+
+                sums[0] += cursor.getInterestInCents();
+                sums[1] += cursor.getPrincipalInCents();
+            }
+        }
+
+        firstHalf.merge(secondHalf);
+
+        List<MonthlyCashFlowDto> monthlyCashFlowList = accumulator.toMonthlyCashFlowList();
+
+        Assert.assertEquals(4, accumulator.getNoOfLoans());
+        Assert.assertEquals(4, firstHalf.getNoOfLoans());
+        Assert.assertEquals(monthlyCashFlowList, firstHalf.toMonthlyCashFlowList());
+
+        // Every month from the first to the last payment, with or without payments
+        Assert.assertEquals(YearMonth.of(2017, 12), monthlyCashFlowList.get(0).getMonth());
+        Assert.assertEquals(YearMonth.of(2063, 5), monthlyCashFlowList.get(monthlyCashFlowList.size() - 1).getMonth());
+
+        for (MonthlyCashFlowDto monthlyCashFlowDto : monthlyCashFlowList) {
+
+            long[] sums = expectedSums.getOrDefault(monthlyCashFlowDto.getMonth(), new long[2]);
+
+            Assert.assertEquals(CommonUtil.fromCents(sums[0]), monthlyCashFlowDto.getInterest(), 0);
+            Assert.assertEquals(CommonUtil.fromCents(sums[1]), monthlyCashFlowDto.getPrincipal(), 0);
+        }
+
+        Assert.assertEquals(1, monthlyCashFlowList.get(0).getNoOfPayments().intValue());
+        Assert.assertEquals(3, monthlyCashFlowList.get(4).getNoOfPayments().intValue());
+    }
+
+    private static PaymentScheduleCursor newCursor(final LocalDateTime startDate, final int duration) {
+
+        double monthlyRate = NOMINAL_RATE / 12;
+        double annuity = 1000.0 * monthlyRate / (1 - Math.pow(1 + monthlyRate, -duration));
+
+        return new DoublePaymentScheduleCursor(1000.0, annuity, NOMINAL_RATE, duration, startDate,
+                (annualInterest, outstandingPrincipal) -> annualInterest * 30 * outstandingPrincipal / 360,
+                (annuityAmount, interest) -> annuityAmount - interest);
+    }
+}
@@ -0,0 +1,55 @@
+package com.lendico.finance.engine;
+
+import com.lendico.finance.util.CommonUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class PaymentCalendarTest {
+
+    @DisplayName("Generate calendars for every anchor day and verify they match adding one month row after row")
+    @Test
+    public void testCalendarMatchesAddMonth() {
+
+        LocalDate startDate = LocalDate.of(2019, 1, 1);
+
+        for (int day = 0; day < 2 * 366; day++) {
+
+            LocalDateTime paymentDate = startDate.plusDays(day).atStartOfDay();
+
+            int[] epochDays = PaymentCalendar.of(paymentDate.toLocalDate(), 60).toEpochDays();
+
+            for (int index = 0; index < epochDays.length; index++) {
+
+                if (index > 0) {
+
+                    paymentDate = CommonUtil.addMonth(paymentDate, 1, startDate.plusDays(day).getDayOfMonth());
+                }
+
+                Assert.assertEquals(paymentDate.toLocalDate().toEpochDay(), epochDays[index]);
+            }
+        }
+    }
+
+    @DisplayName("Generate a calendar crossing the precomputed years and verify the dates")
+    @Test
+    public void testCalendarOutsidePrecomputedYears() {
+
+        LocalDate startDate = LocalDate.of(PaymentCalendar.LAST_YEAR, 10, 31);
+
+        PaymentCalendar paymentCalendar = PaymentCalendar.of(startDate, 6);
+
+        Assert.assertEquals(startDate.toEpochDay(), paymentCalendar.getEpochDay(0));
+        Assert.assertEquals(LocalDate.of(PaymentCalendar.LAST_YEAR + 1, 2, 28).toEpochDay(), paymentCalendar.getEpochDay(4));
+        Assert.assertEquals(LocalDate.of(PaymentCalendar.LAST_YEAR + 1, 3, 31).toEpochDay(), paymentCalendar.getEpochDay(5));
+    }
+}
@@ -8,9 +8,16 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.Validation;
+import javax.validation.Validator;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * @author Sankar M <sankar.mm30@gmail.com>
@@ -22,8 +29,9 @@ public class ValidationFactoryServiceImplTest {
     private static final Double NOMINAL_RATE = 5.0;
     private static final Integer DURATION = 24;
 
-    private ValidationFactoryServiceImpl validationFactoryService = new ValidationFactoryServiceImpl(
-            Validation.buildDefaultValidatorFactory().getValidator());
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private ValidationFactoryServiceImpl validationFactoryService = new ValidationFactoryServiceImpl(validator);
 
     @DisplayName("Test bean validation success")
     @Test
@@ -57,4 +65,35 @@ public class ValidationFactoryServiceImplTest {
 
         validationFactoryService.validObject(null);
     }
+
+    @DisplayName("Test precompiled validator reports the same messages as the bean validator in field order")
+    @Test
+    public void testPrecompiledValidatorMatchesBeanValidator() {
+
+        List<GeneratePlanRequestDto> requests = Arrays.asList(
+                GeneratePlanRequestDto.builder().build(),
+                GeneratePlanRequestDto.builder().loanAmount(-1.0).nominalRate(0.0).duration(0)
+                        .startDate(LocalDateTime.now()).build(),
+                GeneratePlanRequestDto.builder().loanAmount(Double.NaN).nominalRate(NOMINAL_RATE).duration(DURATION)
+                        .build());
+
+        for (GeneratePlanRequestDto request : requests) {
+
+            Set<String> expected = validator.validate(request)
+                    .stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.toSet());
+
+            List<String> errors = GeneratePlanRequestValidator.validate(request);
+
+            Assert.assertEquals(expected, new HashSet<>(errors));
+            Assert.assertEquals(expected.size(), errors.size());
+        }
+
+        Assert.assertEquals(Arrays.asList(GeneratePlanRequestDto.LOAN_AMOUNT_REQUIRED,
+                GeneratePlanRequestDto.LOAN_AMOUNT_INVALID, GeneratePlanRequestDto.NOMINAL_RATE_REQUIRED,
+                GeneratePlanRequestDto.NOMINAL_RATE_INVALID, GeneratePlanRequestDto.DURATION_REQUIRED,
+                GeneratePlanRequestDto.DURATION_INVALID, GeneratePlanRequestDto.START_DATE_REQUIRED),
+                GeneratePlanRequestValidator.validate(GeneratePlanRequestDto.builder().build()));
+    }
 }
@@ -0,0 +1,113 @@
+package com.lendico.finance.logging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class AsyncLogPipelineTest {
+
+    private static final URI REQUEST_URI = URI.create("/generate-plan");
+
+    @DisplayName("Offer records from several threads and verify the consumer polls each one exactly once")
+    @Test
+    public void testRingBufferWithConcurrentProducers() throws InterruptedException {
+
+        int producers = 4;
+        int recordsPerProducer = 10000;
+
+        LogRingBuffer<Integer> ringBuffer = new LogRingBuffer<>(1000);
+
+        Assert.assertEquals(1024, ringBuffer.capacity());
+
+        ExecutorService executorService = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+
+        for (int producer = 0; producer < producers; producer++) {
+
+            int offset = producer * recordsPerProducer;
+
+            executorService.execute(() -> {
+
+                for (int record = 0; record < recordsPerProducer; record++) {
+
+                    while (!ringBuffer.offer(offset + record)) {
+
+                        Thread.yield();
+                    }
+                }
+
+                done.countDown();
+            });
+        }
+
+        Set<Integer> polled = new HashSet<>();
+
+        while (polled.size() < producers * recordsPerProducer) {
+
+            Integer record = ringBuffer.poll();
+
+            if (record != null) {
+
+                Assert.assertTrue(polled.add(record));
+            }
+        }
+
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertNull(ringBuffer.poll());
+
+        executorService.shutdown();
+    }
+
+    @DisplayName("Log more records than allowed and verify they are sampled out, rate limited or dropped without blocking")
+    @Test
+    public void testRecordsAreCountedInsteadOfBlocking() {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        // Not started, so nothing drains the buffer of 2 records
+
+        AsyncLogPipeline asyncLogPipeline = new AsyncLogPipeline(2, 0.0, 100, 100, 1.0, 3, meterRegistry);
+
+        for (int record = 0; record < 5; record++) {
+
+            asyncLogPipeline.logPayload(REQUEST_URI, record);
+            asyncLogPipeline.logValidationErrors(REQUEST_URI.getPath(), Collections.singletonList("Loan amount should be provided"));
+        }
+
+        Assert.assertEquals(5, this.count(meterRegistry, "payload", "sampled_out"), 0);
+        Assert.assertEquals(0, this.count(meterRegistry, "payload", "enqueued"), 0);
+        Assert.assertEquals(2, this.count(meterRegistry, "validation", "enqueued"), 0);
+        Assert.assertEquals(1, this.count(meterRegistry, "validation", "dropped"), 0);
+        Assert.assertEquals(2, this.count(meterRegistry, "validation", "rate_limited"), 0);
+
+        asyncLogPipeline.start();
+        asyncLogPipeline.stop();
+
+        Assert.assertFalse(asyncLogPipeline.isRunning());
+    }
+
+    private double count(final SimpleMeterRegistry meterRegistry, final String type, final String result) {
+
+        return meterRegistry.get(AsyncLogPipeline.RECORDS_COUNTER_NAME)
+                .tag("type", type)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+}
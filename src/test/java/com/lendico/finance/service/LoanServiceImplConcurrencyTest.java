@@ -0,0 +1,116 @@
+package com.lendico.finance.service;
+
+import com.lendico.finance.cache.PlanCacheServiceImpl;
+import com.lendico.finance.cache.TemplateCacheServiceImpl;
+import com.lendico.finance.engine.AnnuityFactorTable;
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.factory.ValidationFactoryServiceImpl;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.model.GeneratePlanResponseDto;
+import com.lendico.finance.service.impl.LoanServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.validation.Validation;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class LoanServiceImplConcurrencyTest {
+
+    private static final int NO_OF_THREADS = 16;
+    private static final int NO_OF_ITERATIONS = 200;
+
+    private ValidationFactoryServiceImpl validationFactoryService = new ValidationFactoryServiceImpl(
+            Validation.buildDefaultValidatorFactory().getValidator());
+
+    // The plan cache is disabled so that every call goes through the schedule engine
+    private LoanService loanService = new LoanServiceImpl(validationFactoryService,
+            new PlanCacheServiceImpl(false, 100000, 60, new SimpleMeterRegistry()),
+            new TemplateCacheServiceImpl(false, 1, new SimpleMeterRegistry()),
+            new AnnuityFactorTable(64),
+            new PlanPhaseMetrics(new SimpleMeterRegistry()), CalculationMode.DOUBLE);
+
+    @DisplayName("Generate plans concurrently on the shared service and verify they match the single threaded results")
+    @Test
+    public void testConcurrentGeneratePlanMatchesSingleThreaded() throws Exception {
+
+        List<GeneratePlanRequestDto> requestList = new ArrayList<>();
+
+        for (int i = 0; i < NO_OF_THREADS; i++) {
+
+            requestList.add(GeneratePlanRequestDto.builder()
+                    .loanAmount(1000.0 + i * 2500.0)
+                    .nominalRate(1.0 + i * 0.75)
+                    .duration(12 + i * 23)
+                    .startDate(LocalDateTime.of(2019, 12, 31, 0, 0).plusDays(i * 37L))
+                    .build());
+        }
+
+        // Computing the expected plans one after another
+        List<GeneratePlanResponseDto> expectedList = new ArrayList<>();
+
+        for (GeneratePlanRequestDto request : requestList) {
+
+            expectedList.add(loanService.generatePlan(request));
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(NO_OF_THREADS);
+        CountDownLatch startLatch = new CountDownLatch(1);
+
+        try {
+
+            List<Future<Integer>> futureList = new ArrayList<>();
+
+            for (int thread = 0; thread < NO_OF_THREADS; thread++) {
+
+                final int offset = thread;
+
+                futureList.add(executorService.submit(() -> {
+
+                    startLatch.await();
+
+                    int mismatches = 0;
+
+                    for (int iteration = 0; iteration < NO_OF_ITERATIONS; iteration++) {
+
+                        // Every thread walks through the requests in a different order to maximise interleaving
+                        int index = (offset + iteration) % requestList.size();
+
+                        if (!expectedList.get(index).equals(loanService.generatePlan(requestList.get(index)))) {
+
+                            mismatches++;
+                        }
+                    }
+
+                    return mismatches;
+                }));
+            }
+
+            startLatch.countDown();
+
+            for (Future<Integer> future : futureList) {
+
+                Assert.assertEquals(0, future.get(60, TimeUnit.SECONDS).intValue());
+            }
+
+        } finally {
+
+            executorService.shutdownNow();
+        }
+    }
+}
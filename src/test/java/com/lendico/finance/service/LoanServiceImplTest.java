@@ -1,11 +1,21 @@
 package com.lendico.finance.service;
 
+import com.lendico.finance.cache.PlanCacheServiceImpl;
+import com.lendico.finance.cache.TemplateCacheServiceImpl;
+import com.lendico.finance.engine.AnnuityFactorTable;
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.engine.PaymentPlan;
 import com.lendico.finance.exception.GenericClientRuntimeException;
 import com.lendico.finance.factory.ValidationFactoryServiceImpl;
+import com.lendico.finance.metrics.PlanPhase;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
 import com.lendico.finance.model.BorrowerPaymentDto;
 import com.lendico.finance.model.GeneratePlanRequestDto;
 import com.lendico.finance.model.GeneratePlanResponseDto;
+import com.lendico.finance.model.PlanSummaryDto;
 import com.lendico.finance.service.impl.LoanServiceImpl;
+import com.lendico.finance.util.CommonUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.decimal4j.util.DoubleRounder;
 import org.junit.Assert;
 import org.junit.Before;
@@ -19,7 +29,10 @@ import org.mockito.MockitoAnnotations;
 import javax.validation.ConstraintViolationException;
 import javax.validation.Validation;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 /**
  * @author Sankar M <sankar.mm30@gmail.com>
@@ -35,7 +48,11 @@ public class LoanServiceImplTest {
             Validation.buildDefaultValidatorFactory().getValidator());
 
     @InjectMocks
-    private LoanService loanService = new LoanServiceImpl(validationFactoryService);
+    private LoanService loanService = new LoanServiceImpl(validationFactoryService,
+            new PlanCacheServiceImpl(true, 100000, 60, new SimpleMeterRegistry()),
+            new TemplateCacheServiceImpl(false, 1, new SimpleMeterRegistry()),
+            new AnnuityFactorTable(64),
+            new PlanPhaseMetrics(new SimpleMeterRegistry()), CalculationMode.DOUBLE);
 
     @Before
     public void init() {
@@ -154,6 +171,287 @@ public class LoanServiceImplTest {
         Assert.assertEquals(LocalDateTime.of(2018, 3,1, 0, 0), borrowerPaymentList.get(2).getDate());
     }
 
+    @DisplayName("Test long plans and verify every amount matches the original annuity formula to the cent")
+    @Test
+    public void testGeneratePlanMatchesOriginalFormula() {
+
+        Random random = new Random(42);
+
+        for (int loan = 0; loan < 200; loan++) {
+
+            GeneratePlanRequestDto generatePlanRequestDto = GeneratePlanRequestDto.builder()
+                    .loanAmount(DoubleRounder.round(1000 + random.nextDouble() * 999000, 2))
+                    .nominalRate(DoubleRounder.round(0.5 + random.nextDouble() * 24.5, 2))
+                    .duration(1 + random.nextInt(1200))
+                    .startDate(LocalDateTime.of(2018, 1,1, 0, 0))
+                    .build();
+
+            Assert.assertEquals(getOriginalPlanAmounts(generatePlanRequestDto),
+                    getPlanAmounts(loanService.generatePlan(generatePlanRequestDto).getBorrowerPayments()));
+        }
+    }
+
+    @DisplayName("Test columnar plan generation and verify the row view against the Borrower payment list")
+    @Test
+    public void testGeneratePaymentPlanMatchesBorrowerPaymentList() {
+
+        GeneratePlanRequestDto generatePlanRequestDto = GeneratePlanRequestDto.builder()
+                .loanAmount(1000.0)
+                .nominalRate(20.0)
+                .duration(3)
+                .startDate(LocalDateTime.of(2018, 1,1, 10, 30))
+                .build();
+
+        PaymentPlan paymentPlan = loanService.generatePaymentPlan(generatePlanRequestDto);
+        List<BorrowerPaymentDto> borrowerPaymentList = loanService.generatePlan(generatePlanRequestDto).getBorrowerPayments();
+
+        Assert.assertEquals(3, paymentPlan.size());
+        Assert.assertEquals(borrowerPaymentList, paymentPlan.toBorrowerPaymentList());
+
+        PaymentPlan.RowView rowView = paymentPlan.newRowView();
+
+        Assert.assertEquals(34451, rowView.moveTo(0).getBorrowerPaymentAmountInCents());
+        Assert.assertEquals(100000, rowView.getInitialOutstandingPrincipalInCents());
+        Assert.assertEquals(1667, rowView.getInterestInCents());
+        Assert.assertEquals(32784, rowView.getPrincipalInCents());
+        Assert.assertEquals(67216, rowView.getRemainingOutstandingPrincipalInCents());
+        Assert.assertEquals(LocalDateTime.of(2018, 3,1, 10, 30), rowView.moveTo(2).getDate());
+        Assert.assertEquals(0, rowView.getRemainingOutstandingPrincipalInCents());
+    }
+
+    @DisplayName("Test plan generation in cents mode and verify the principal amounts sum up to the loan amount")
+    @Test
+    public void testGeneratePaymentPlanInCents() {
+
+        LoanService centsLoanService = new LoanServiceImpl(validationFactoryService,
+                new PlanCacheServiceImpl(false, 100000, 60, new SimpleMeterRegistry()),
+                new TemplateCacheServiceImpl(false, 1, new SimpleMeterRegistry()),
+                new AnnuityFactorTable(64),
+                new PlanPhaseMetrics(new SimpleMeterRegistry()), CalculationMode.CENTS);
+
+        for (double loanAmount : new double[] {1000.0, 5000.0, 123456.78}) {
+
+            for (int duration : new int[] {3, 24, 360}) {
+
+                GeneratePlanRequestDto generatePlanRequestDto = GeneratePlanRequestDto.builder()
+                        .loanAmount(loanAmount)
+                        .nominalRate(NOMINAL_RATE)
+                        .duration(duration)
+                        .startDate(LocalDateTime.of(2018, 1,1, 0, 0))
+                        .build();
+
+                PaymentPlan paymentPlan = centsLoanService.generatePaymentPlan(generatePlanRequestDto);
+                PaymentPlan.RowView rowView = paymentPlan.newRowView();
+
+                long principal = 0;
+
+                for (int index = 0; index < paymentPlan.size(); index++) {
+
+                    rowView.moveTo(index);
+
+                    principal += rowView.getPrincipalInCents();
+
+                    Assert.assertEquals(rowView.getBorrowerPaymentAmountInCents(),
+                            rowView.getInterestInCents() + rowView.getPrincipalInCents());
+                    Assert.assertEquals(rowView.getRemainingOutstandingPrincipalInCents(),
+                            rowView.getInitialOutstandingPrincipalInCents() - rowView.getPrincipalInCents());
+                }
+
+                Assert.assertEquals(Math.round(loanAmount * 100), principal);
+                Assert.assertEquals(0, rowView.getRemainingOutstandingPrincipalInCents());
+            }
+        }
+
+        PaymentPlan.RowView rowView = centsLoanService.generatePaymentPlan(GeneratePlanRequestDto.builder()
+                .loanAmount(1000.0)
+                .nominalRate(20.0)
+                .duration(3)
+                .startDate(LocalDateTime.of(2018, 1,1, 10, 30))
+                .build()).newRowView();
+
+        Assert.assertEquals(34451, rowView.moveTo(0).getBorrowerPaymentAmountInCents());
+        Assert.assertEquals(1667, rowView.getInterestInCents());
+        Assert.assertEquals(32784, rowView.getPrincipalInCents());
+        Assert.assertEquals(33885, rowView.moveTo(2).getPrincipalInCents());
+        Assert.assertEquals(34450, rowView.getBorrowerPaymentAmountInCents());
+    }
+
+    @DisplayName("Test single installment lookup and verify it matches the same row of the plan in both modes")
+    @Test
+    public void testGenerateInstallmentMatchesPlan() {
+
+        LoanService centsLoanService = new LoanServiceImpl(validationFactoryService,
+                new PlanCacheServiceImpl(false, 100000, 60, new SimpleMeterRegistry()),
+                new TemplateCacheServiceImpl(false, 1, new SimpleMeterRegistry()),
+                new AnnuityFactorTable(64),
+                new PlanPhaseMetrics(new SimpleMeterRegistry()), CalculationMode.CENTS);
+
+        for (LoanService service : new LoanService[] {loanService, centsLoanService}) {
+
+            for (double loanAmount : new double[] {1000.0, 5000.0, 123456.78, 979647.23}) {
+
+                for (double nominalRate : new double[] {0.5, NOMINAL_RATE, 24.21}) {
+
+                    for (int duration : new int[] {1, 24, 479}) {
+
+                        GeneratePlanRequestDto generatePlanRequestDto = GeneratePlanRequestDto.builder()
+                                .loanAmount(loanAmount)
+                                .nominalRate(nominalRate)
+                                .duration(duration)
+                                .startDate(LocalDateTime.of(2018, 1,31, 10, 30))
+                                .build();
+
+                        List<BorrowerPaymentDto> borrowerPaymentList = service.generatePlan(generatePlanRequestDto)
+                                .getBorrowerPayments();
+
+                        for (int installmentNumber = duration; installmentNumber > 0; installmentNumber--) {
+
+                            Assert.assertEquals(borrowerPaymentList.get(installmentNumber - 1),
+                                    service.generateInstallment(generatePlanRequestDto, installmentNumber));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @DisplayName("Test single installment lookup where the closed form overflows and verify it matches the plan")
+    @Test
+    public void testGenerateInstallmentWhenClosedFormOverflows() {
+
+        GeneratePlanRequestDto generatePlanRequestDto = GeneratePlanRequestDto.builder()
+                .loanAmount(LOAN_AMOUNT)
+                .nominalRate(1000.0)
+                .duration(2000)
+                .startDate(LocalDateTime.of(2018, 1,1, 0, 0))
+                .build();
+
+        List<BorrowerPaymentDto> borrowerPaymentList = loanService.generatePlan(generatePlanRequestDto)
+                .getBorrowerPayments();
+
+        for (int installmentNumber : new int[] {1, 1000, 1500, 2000}) {
+
+            BorrowerPaymentDto borrowerPaymentDto = loanService.generateInstallment(generatePlanRequestDto, installmentNumber);
+
+            Assert.assertEquals(borrowerPaymentList.get(installmentNumber - 1), borrowerPaymentDto);
+            Assert.assertTrue(Double.isFinite(borrowerPaymentDto.getInitialOutstandingPrincipal()));
+        }
+    }
+
+    @DisplayName("Test single installment lookup with an installment number beyond the duration")
+    @Test(expected = GenericClientRuntimeException.class)
+    public void testGenerateInstallmentBeyondDuration() {
+
+        loanService.generateInstallment(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(LOAN_AMOUNT)
+                        .nominalRate(NOMINAL_RATE)
+                        .duration(DURATION)
+                        .startDate(LocalDateTime.now())
+                        .build(), DURATION + 1);
+    }
+
+    @DisplayName("Test plan generation page by page and verify the pages put together match the whole plan")
+    @Test
+    public void testGeneratePlanPageMatchesPlan() {
+
+        LoanService centsLoanService = new LoanServiceImpl(validationFactoryService,
+                new PlanCacheServiceImpl(false, 100000, 60, new SimpleMeterRegistry()),
+                new TemplateCacheServiceImpl(false, 1, new SimpleMeterRegistry()),
+                new AnnuityFactorTable(64),
+                new PlanPhaseMetrics(new SimpleMeterRegistry()), CalculationMode.CENTS);
+
+        GeneratePlanRequestDto generatePlanRequestDto = GeneratePlanRequestDto.builder()
+                .loanAmount(250000.0)
+                .nominalRate(3.5)
+                .duration(360)
+                .startDate(LocalDateTime.of(2018, 1,31, 10, 30))
+                .build();
+
+        for (LoanService service : new LoanService[] {loanService, centsLoanService}) {
+
+            List<BorrowerPaymentDto> borrowerPaymentList = service.generatePlan(generatePlanRequestDto)
+                    .getBorrowerPayments();
+
+            for (int limit : new int[] {1, 25, 360}) {
+
+                List<BorrowerPaymentDto> pagedBorrowerPaymentList = new ArrayList<>();
+
+                for (int offset = 0; offset < 360; offset += limit) {
+
+                    pagedBorrowerPaymentList.addAll(
+                            service.generatePlanPage(generatePlanRequestDto, offset, limit).getBorrowerPayments());
+                }
+
+                Assert.assertEquals(borrowerPaymentList, pagedBorrowerPaymentList);
+            }
+
+            Assert.assertTrue(service.generatePlanPage(generatePlanRequestDto, 360, 10).getBorrowerPayments().isEmpty());
+        }
+    }
+
+    @DisplayName("Test plan summary and verify the totals match the sums over the plan in both modes")
+    @Test
+    public void testGeneratePlanSummaryMatchesPlan() {
+
+        LoanService centsLoanService = new LoanServiceImpl(validationFactoryService,
+                new PlanCacheServiceImpl(false, 100000, 60, new SimpleMeterRegistry()),
+                new TemplateCacheServiceImpl(false, 1, new SimpleMeterRegistry()),
+                new AnnuityFactorTable(64),
+                new PlanPhaseMetrics(new SimpleMeterRegistry()), CalculationMode.CENTS);
+
+        for (LoanService service : new LoanService[] {loanService, centsLoanService}) {
+
+            for (int duration : new int[] {1, 24, 360}) {
+
+                GeneratePlanRequestDto generatePlanRequestDto = GeneratePlanRequestDto.builder()
+                        .loanAmount(123456.78)
+                        .nominalRate(NOMINAL_RATE)
+                        .duration(duration)
+                        .startDate(LocalDateTime.of(2018, 1,31, 10, 30))
+                        .build();
+
+                PaymentPlan paymentPlan = service.generatePaymentPlan(generatePlanRequestDto);
+                PaymentPlan.RowView rowView = paymentPlan.newRowView();
+
+                long totalInterest = 0;
+                long totalRepaid = 0;
+
+                for (int index = 0; index < paymentPlan.size(); index++) {
+
+                    rowView.moveTo(index);
+
+                    totalInterest += rowView.getInterestInCents();
+                    totalRepaid += rowView.getBorrowerPaymentAmountInCents();
+                }
+
+                PlanSummaryDto planSummaryDto = service.generatePlanSummary(generatePlanRequestDto);
+
+                Assert.assertEquals(duration, planSummaryDto.getDuration().intValue());
+                Assert.assertEquals(CommonUtil.fromCents(rowView.moveTo(0).getBorrowerPaymentAmountInCents()),
+                        planSummaryDto.getBorrowerPaymentAmount(), 0);
+                Assert.assertEquals(CommonUtil.fromCents(totalInterest), planSummaryDto.getTotalInterest(), 0);
+                Assert.assertEquals(CommonUtil.fromCents(totalRepaid), planSummaryDto.getTotalRepaid(), 0);
+                Assert.assertEquals(rowView.moveTo(duration - 1).getDate(), planSummaryDto.getFinalPaymentDate());
+                Assert.assertEquals(CommonUtil.fromCents(rowView.getRemainingOutstandingPrincipalInCents()),
+                        planSummaryDto.getFinalRemainingOutstandingPrincipal(), 0);
+            }
+        }
+    }
+
+    @DisplayName("Test plan generation of a page with limit as zero")
+    @Test(expected = GenericClientRuntimeException.class)
+    public void testGeneratePlanPageWithInvalidLimit() {
+
+        loanService.generatePlanPage(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(LOAN_AMOUNT)
+                        .nominalRate(NOMINAL_RATE)
+                        .duration(DURATION)
+                        .startDate(LocalDateTime.now())
+                        .build(), 0, 0);
+    }
+
     @DisplayName("Test generate plan with annuity as zero")
     @Test(expected = GenericClientRuntimeException.class)
     public void testGeneratePlanWithAnn() {
@@ -167,6 +465,32 @@ public class LoanServiceImplTest {
                         .build());
     }
 
+    @DisplayName("Test generate plan with a loan amount too large to be counted in cents")
+    @Test(expected = GenericClientRuntimeException.class)
+    public void testGeneratePlanWithLoanAmountTooLarge() {
+
+        loanService.generatePlan(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(1e17)
+                        .nominalRate(NOMINAL_RATE)
+                        .duration(DURATION)
+                        .startDate(LocalDateTime.now())
+                        .build());
+    }
+
+    @DisplayName("Test generate plan with an annuity too large to be counted in cents")
+    @Test(expected = GenericClientRuntimeException.class)
+    public void testGeneratePlanWithAnnuityTooLarge() {
+
+        loanService.generatePlan(
+                GeneratePlanRequestDto.builder()
+                        .loanAmount(LOAN_AMOUNT)
+                        .nominalRate(1e20)
+                        .duration(DURATION)
+                        .startDate(LocalDateTime.now())
+                        .build());
+    }
+
     @DisplayName("Test unsuccessful plan generation with invalid loan amount")
     @Test(expected = ConstraintViolationException.class)
     public void testGeneratePlanWithInvalidLoanAmount() {
@@ -218,4 +542,79 @@ public class LoanServiceImplTest {
                         .startDate(null)
                         .build());
     }
+
+    @DisplayName("Test the validation phase of a rejected plan request is timed")
+    @Test
+    public void testGeneratePlanWithInvalidDurationTimesValidation() {
+
+        PlanPhaseMetrics planPhaseMetrics = new PlanPhaseMetrics(new SimpleMeterRegistry());
+
+        LoanService timedLoanService = new LoanServiceImpl(validationFactoryService,
+                new PlanCacheServiceImpl(false, 100000, 60, new SimpleMeterRegistry()),
+                new TemplateCacheServiceImpl(false, 1, new SimpleMeterRegistry()),
+                new AnnuityFactorTable(64),
+                planPhaseMetrics, CalculationMode.DOUBLE);
+
+        try {
+
+            timedLoanService.generatePlan(
+                    GeneratePlanRequestDto.builder()
+                            .loanAmount(LOAN_AMOUNT)
+                            .nominalRate(NOMINAL_RATE)
+                            .duration(-1)
+                            .startDate(LocalDateTime.now())
+                            .build());
+
+            Assert.fail("The plan request should be rejected");
+
+        } catch (ConstraintViolationException e) {
+
+            Assert.assertEquals(1, planPhaseMetrics.getTimer(PlanPhase.VALIDATION, -1).count());
+        }
+    }
+
+    /**
+     * This method returns the amounts of the plan calculated the original way, with the annuity
+     * (Loan Amount * Monthly interest rate) / (1 - (1 + Monthly interest rate) ^ - Duration) and no lookup table
+     */
+    private static List<List<Double>> getOriginalPlanAmounts(final GeneratePlanRequestDto generatePlanRequestDto) {
+
+        double annualInterest = generatePlanRequestDto.getNominalRate() / 100;
+        double monthlyInterest = annualInterest / 12;
+        double annuity = (generatePlanRequestDto.getLoanAmount() * monthlyInterest)
+                / (1 - Math.pow(1 + monthlyInterest, - generatePlanRequestDto.getDuration()));
+
+        List<List<Double>> amounts = new ArrayList<>();
+
+        double initialOutstandingPrincipal = generatePlanRequestDto.getLoanAmount();
+
+        for (int payment = 0; payment < generatePlanRequestDto.getDuration(); payment++) {
+
+            double interest = (annualInterest * 30 * initialOutstandingPrincipal) / 360;
+            double principal = annuity - interest;
+            double remainingOutstandingPrincipal = initialOutstandingPrincipal - principal;
+
+            amounts.add(Arrays.asList(CommonUtil.round(annuity), CommonUtil.round(initialOutstandingPrincipal),
+                    CommonUtil.round(interest), CommonUtil.round(principal),
+                    CommonUtil.round(remainingOutstandingPrincipal)));
+
+            initialOutstandingPrincipal = remainingOutstandingPrincipal;
+        }
+
+        return amounts;
+    }
+
+    private static List<List<Double>> getPlanAmounts(final List<BorrowerPaymentDto> borrowerPaymentList) {
+
+        List<List<Double>> amounts = new ArrayList<>();
+
+        for (BorrowerPaymentDto borrowerPaymentDto : borrowerPaymentList) {
+
+            amounts.add(Arrays.asList(borrowerPaymentDto.getBorrowerPaymentAmount(),
+                    borrowerPaymentDto.getInitialOutstandingPrincipal(), borrowerPaymentDto.getInterest(),
+                    borrowerPaymentDto.getPrincipal(), borrowerPaymentDto.getRemainingOutstandingPrincipal()));
+        }
+
+        return amounts;
+    }
 }
@@ -0,0 +1,244 @@
+package com.lendico.finance.service;
+
+import com.lendico.finance.cache.PlanCacheServiceImpl;
+import com.lendico.finance.cache.TemplateCacheServiceImpl;
+import com.lendico.finance.engine.AnnuityFactorTable;
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.engine.PaymentScheduleCursor;
+import com.lendico.finance.factory.ValidationFactoryServiceImpl;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
+import com.lendico.finance.model.BorrowerPaymentDto;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.model.PlanFileBatchResultDto;
+import com.lendico.finance.service.impl.LoanServiceImpl;
+import com.lendico.finance.service.impl.PlanFileBatchServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mockito;
+
+import javax.validation.Validation;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class PlanFileBatchServiceImplTest {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private LoanService loanService = new LoanServiceImpl(
+            new ValidationFactoryServiceImpl(Validation.buildDefaultValidatorFactory().getValidator()),
+            new PlanCacheServiceImpl(false, 1, 1, new SimpleMeterRegistry()),
+            new TemplateCacheServiceImpl(false, 1, new SimpleMeterRegistry()),
+            new AnnuityFactorTable(64),
+            new PlanPhaseMetrics(new SimpleMeterRegistry()), CalculationMode.DOUBLE);
+
+    private ForkJoinPool planBatchPool = new ForkJoinPool(2);
+
+    // Chunks and buffers far smaller than the file, so the loans are spread over many of them
+    private PlanFileBatchService planFileBatchService = new PlanFileBatchServiceImpl(loanService, planBatchPool, 64, 1024);
+
+    @After
+    public void shutdown() {
+
+        planBatchPool.shutdown();
+    }
+
+    @DisplayName("Test the plans of a loan file are the ones of the plan generation, in the order of the file")
+    @Test
+    public void testGeneratePlanFile() throws IOException {
+
+        List<String> loans = new ArrayList<>();
+
+        for (int index = 0; index < 40; index++) {
+
+            loans.add((1000 + index * 250.5) + "," + (1 + index % 7) + "," + (1 + index * 3) + ",2018-0"
+                    + (1 + index % 9) + "-15T10:30:00Z");
+        }
+
+        Path inputFile = this.writeLoanFile("loanAmount,nominalRate,duration,startDate", loans);
+        Path outputFile = temporaryFolder.getRoot().toPath().resolve("plans.csv");
+
+        PlanFileBatchResultDto result = planFileBatchService.generatePlanFile(inputFile, outputFile);
+
+        List<String> expectedRows = new ArrayList<>();
+        long noOfInstallments = 0;
+
+        expectedRows.add("line,installment,date,borrowerPaymentAmount,initialOutstandingPrincipal,interest,principal,"
+                + "remainingOutstandingPrincipal");
+
+        for (int index = 0; index < loans.size(); index++) {
+
+            String[] columns = loans.get(index).split(",");
+            List<BorrowerPaymentDto> borrowerPayments = loanService.generatePlan(GeneratePlanRequestDto.builder()
+                    .loanAmount(Double.parseDouble(columns[0]))
+                    .nominalRate(Double.parseDouble(columns[1]))
+                    .duration(Integer.parseInt(columns[2]))
+                    .startDate(LocalDateTime.parse(columns[3], DATE_FORMATTER))
+                    .build()).getBorrowerPayments();
+
+            for (int installment = 0; installment < borrowerPayments.size(); installment++) {
+
+                BorrowerPaymentDto payment = borrowerPayments.get(installment);
+
+                expectedRows.add(String.format(Locale.ROOT, "%d,%d,%s,%.2f,%.2f,%.2f,%.2f,%.2f", index + 2,
+                        installment + 1, payment.getDate().format(DATE_FORMATTER), payment.getBorrowerPaymentAmount(),
+                        payment.getInitialOutstandingPrincipal(), payment.getInterest(), payment.getPrincipal(),
+                        payment.getRemainingOutstandingPrincipal()));
+            }
+
+            noOfInstallments += borrowerPayments.size();
+        }
+
+        Assert.assertEquals(expectedRows, Files.readAllLines(outputFile));
+        Assert.assertEquals(40, result.getNoOfLoans().longValue());
+        Assert.assertEquals(0, result.getNoOfRejectedLoans().longValue());
+        Assert.assertEquals(noOfInstallments, result.getNoOfInstallments().longValue());
+    }
+
+    @DisplayName("Test the invalid loans of a file are rejected with their line")
+    @Test
+    public void testGeneratePlanFileRejected() throws IOException {
+
+        Path inputFile = this.writeLoanFile("5000,5.0,2,2018-01-01\r", Arrays.asList("", "5000,5.0,0,2018-01-01",
+                "5000,5.0,2,2018-01-01,extra", "-5000,5.0,2,2018-01-01\r", "5000,5.0,1,2018-01-01"));
+        Path outputFile = temporaryFolder.getRoot().toPath().resolve("plans.csv");
+
+        PlanFileBatchResultDto result = planFileBatchService.generatePlanFile(inputFile, outputFile);
+
+        List<String> outputRows = Files.readAllLines(outputFile);
+        List<String> rejectedRows = Files.readAllLines(temporaryFolder.getRoot().toPath().resolve("plans.csv.rejected.csv"));
+
+        Assert.assertEquals(2, result.getNoOfLoans().longValue());
+        Assert.assertEquals(3, result.getNoOfRejectedLoans().longValue());
+        Assert.assertEquals(3, result.getNoOfInstallments().longValue());
+        Assert.assertEquals(4, outputRows.size());
+        Assert.assertTrue(outputRows.get(1).startsWith("1,1,2018-01-01T00:00:00Z,"));
+        Assert.assertTrue(outputRows.get(3).startsWith("6,1,2018-01-01T00:00:00Z,5020.83,5000.00,"));
+        Assert.assertEquals(4, rejectedRows.size());
+        Assert.assertTrue(rejectedRows.get(1).startsWith("3,\""));
+        Assert.assertEquals("4,\"Expected 4 columns\"", rejectedRows.get(2));
+        Assert.assertTrue(rejectedRows.get(3).startsWith("5,\""));
+    }
+
+    @DisplayName("Test a loan failing part-way is rejected without any of its installments in the output file")
+    @Test
+    public void testGeneratePlanFileRejectedPartWay() throws IOException {
+
+        // The loans of 99 installments fail at the 60th, after having filled several output buffers
+        LoanService failingLoanService = Mockito.spy(loanService);
+
+        Mockito.doAnswer(invocation -> {
+
+            GeneratePlanRequestDto generatePlanRequestDto = invocation.getArgument(0);
+
+            return generatePlanRequestDto.getDuration() == 99
+                    ? new FailingScheduleCursor(generatePlanRequestDto, 59)
+                    : invocation.callRealMethod();
+
+        }).when(failingLoanService).generateScheduleCursor(Mockito.any(GeneratePlanRequestDto.class));
+
+        Path inputFile = this.writeLoanFile("5000,5.0,2,2018-01-01", Arrays.asList("5000,5.0,99,2018-01-01",
+                "5000,5.0,3,2018-01-01", "5000,5.0,99,2018-01-01"));
+        Path outputFile = temporaryFolder.getRoot().toPath().resolve("plans.csv");
+
+        PlanFileBatchResultDto result = new PlanFileBatchServiceImpl(failingLoanService, planBatchPool, 1 << 16, 1024)
+                .generatePlanFile(inputFile, outputFile);
+
+        List<String> outputRows = Files.readAllLines(outputFile);
+        List<String> rejectedRows = Files.readAllLines(temporaryFolder.getRoot().toPath().resolve("plans.csv.rejected.csv"));
+
+        Assert.assertEquals(2, result.getNoOfLoans().longValue());
+        Assert.assertEquals(2, result.getNoOfRejectedLoans().longValue());
+        Assert.assertEquals(5, result.getNoOfInstallments().longValue());
+        Assert.assertEquals(6, outputRows.size());
+        Assert.assertTrue(outputRows.get(2).startsWith("1,2,"));
+        Assert.assertTrue(outputRows.get(3).startsWith("3,1,"));
+        Assert.assertTrue(outputRows.get(5).startsWith("3,3,"));
+        Assert.assertEquals(Arrays.asList("2,\"Installment 60 failed\"", "4,\"Installment 60 failed\""),
+                rejectedRows.subList(1, rejectedRows.size()));
+    }
+
+    private Path writeLoanFile(final String firstLine, final List<String> lines) throws IOException {
+
+        Path inputFile = temporaryFolder.newFile("loans.csv").toPath();
+
+        StringBuilder content = new StringBuilder(firstLine).append('\n');
+
+        lines.forEach(line -> content.append(line).append('\n'));
+
+        Files.write(inputFile, content.toString().getBytes(StandardCharsets.US_ASCII));
+
+        return inputFile;
+    }
+
+    /**
+     * Schedule of constant installments failing at the given index
+     */
+    private static final class FailingScheduleCursor extends PaymentScheduleCursor {
+
+        private final int failingIndex;
+
+        private FailingScheduleCursor(final GeneratePlanRequestDto generatePlanRequestDto, final int failingIndex) {
+
+            super(generatePlanRequestDto.getDuration(), generatePlanRequestDto.getStartDate());
+
+            this.failingIndex = failingIndex;
+        }
+
+        @Override
+        protected void calculateRow(final int index) {
+
+            if (index == this.failingIndex) {
+
+                throw new IllegalStateException("Installment " + (index + 1) + " failed");
+            }
+        }
+
+        @Override
+        public long getBorrowerPaymentAmountInCents() {
+            return 100;
+        }
+
+        @Override
+        public long getInitialOutstandingPrincipalInCents() {
+            return 100;
+        }
+
+        @Override
+        public long getInterestInCents() {
+            return 0;
+        }
+
+        @Override
+        public long getPrincipalInCents() {
+            return 100;
+        }
+
+        @Override
+        public long getRemainingOutstandingPrincipalInCents() {
+            return 0;
+        }
+    }
+}
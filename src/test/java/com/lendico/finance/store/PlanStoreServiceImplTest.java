@@ -0,0 +1,317 @@
+package com.lendico.finance.store;
+
+import com.google.protobuf.CodedOutputStream;
+import com.lendico.finance.cache.PlanCacheServiceImpl;
+import com.lendico.finance.cache.TemplateCacheServiceImpl;
+import com.lendico.finance.engine.AnnuityFactorTable;
+import com.lendico.finance.engine.CalculationMode;
+import com.lendico.finance.engine.PaymentPlan;
+import com.lendico.finance.exception.GenericServerRuntimeException;
+import com.lendico.finance.factory.ValidationFactoryServiceImpl;
+import com.lendico.finance.metrics.PlanPhaseMetrics;
+import com.lendico.finance.model.GeneratePlanRequestDto;
+import com.lendico.finance.serializer.ProtobufPlanHttpMessageConverter;
+import com.lendico.finance.service.LoanService;
+import com.lendico.finance.service.impl.LoanServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.validation.Validation;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @author Sankar M <sankar.mm30@gmail.com>
+ */
+@RunWith(JUnit4.class)
+public class PlanStoreServiceImplTest {
+
+    // Room for a few plans of up to 24 installments per segment, so the store rolls to new segments
+    private static final int SEGMENT_SIZE = 4096;
+    private static final int NO_OF_PLANS = 30;
+    private static final int QUEUE_MAX_BYTES = 1024 * 1024;
+    private static final int MAX_SEGMENTS = 64;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LoanService loanService = new LoanServiceImpl(
+            new ValidationFactoryServiceImpl(Validation.buildDefaultValidatorFactory().getValidator()),
+            new PlanCacheServiceImpl(false, 1, 1, new SimpleMeterRegistry()),
+            new TemplateCacheServiceImpl(false, 1, new SimpleMeterRegistry()),
+            new AnnuityFactorTable(64),
+            new PlanPhaseMetrics(new SimpleMeterRegistry()), CalculationMode.DOUBLE);
+
+    private List<PlanStoreServiceImpl> planStoreServices = new ArrayList<>();
+
+    @After
+    public void close() {
+
+        this.planStoreServices.forEach(PlanStoreServiceImpl::close);
+    }
+
+    @DisplayName("Save plans and verify they are read by their ID as the protobuf message of the plan")
+    @Test
+    public void testSavedPlansAreReadById() throws Exception {
+
+        PlanStoreServiceImpl planStoreService = this.openPlanStore();
+        List<UUID> planIds = this.savePlans(planStoreService);
+
+        for (int plan = 0; plan < NO_OF_PLANS; plan++) {
+
+            Assert.assertArrayEquals(this.encode(this.newRequest(plan)), toByteArray(planStoreService.getPlan(planIds.get(plan))));
+        }
+
+        // The ID only depends on the loan, the calculation mode and the engine version
+        Assert.assertEquals(planIds.get(0), planStoreService.getPlanId(this.newRequest(0)));
+        Assert.assertNotEquals(planIds.get(0), new PlanStoreServiceImpl(false, "plan-store", SEGMENT_SIZE, 1, 1,
+                "2", CalculationMode.DOUBLE, this.meterRegistry).getPlanId(this.newRequest(0)));
+        Assert.assertNull(planStoreService.getPlan(UUID.randomUUID()));
+        Assert.assertEquals(NO_OF_PLANS, this.meterRegistry.get(PlanStoreServiceImpl.PLANS_COUNTER_NAME)
+                .tag("result", "stored").counter().count(), 0);
+        Assert.assertTrue(Files.exists(this.temporaryFolder.getRoot().toPath().resolve("plans-00000002.seg")));
+    }
+
+    @DisplayName("Close and reopen the plan store and verify the plans of every segment are found again")
+    @Test
+    public void testPlansAreIndexedOnRestart() throws Exception {
+
+        PlanStoreServiceImpl planStoreService = this.openPlanStore();
+        List<UUID> planIds = this.savePlans(planStoreService);
+
+        planStoreService.close();
+
+        PlanStoreServiceImpl restartedPlanStoreService = this.openPlanStore();
+
+        for (int plan = 0; plan < NO_OF_PLANS; plan++) {
+
+            Assert.assertArrayEquals(this.encode(this.newRequest(plan)),
+                    toByteArray(restartedPlanStoreService.getPlan(planIds.get(plan))));
+        }
+
+        // A plan saved after the restart is appended to the last segment and found on the next restart
+        UUID planId = this.savePlan(restartedPlanStoreService, this.newRequest(NO_OF_PLANS));
+
+        restartedPlanStoreService.close();
+
+        Assert.assertArrayEquals(this.encode(this.newRequest(NO_OF_PLANS)), toByteArray(this.openPlanStore().getPlan(planId)));
+    }
+
+    @DisplayName("Reopen a plan store not closed properly and verify the complete plans are kept, not the torn one")
+    @Test
+    public void testPlansAreRecoveredAfterCrash() throws Exception {
+
+        PlanStoreServiceImpl planStoreService = this.openPlanStore();
+        List<UUID> planIds = this.savePlans(planStoreService);
+
+        planStoreService.close();
+
+        // No footer, and a record cut in the middle of its payload after the last plan
+        Path lastSegment = this.findLastSegment();
+        int end = ByteBuffer.wrap(Files.readAllBytes(lastSegment)).getInt(SEGMENT_SIZE - 16);
+
+        try (FileChannel channel = FileChannel.open(lastSegment, StandardOpenOption.WRITE)) {
+
+            ByteBuffer tornRecord = ByteBuffer.allocate(PlanSegment.RECORD_HEADER_SIZE + 8);
+
+            tornRecord.putInt(500).putInt(42).putLong(1).putLong(2).putLong(3).flip();
+
+            channel.write(tornRecord, end);
+            channel.write(ByteBuffer.allocate(16), SEGMENT_SIZE - 16);
+        }
+
+        PlanStoreServiceImpl recoveredPlanStoreService = this.openPlanStore();
+
+        for (int plan = 0; plan < NO_OF_PLANS; plan++) {
+
+            Assert.assertArrayEquals(this.encode(this.newRequest(plan)),
+                    toByteArray(recoveredPlanStoreService.getPlan(planIds.get(plan))));
+        }
+
+        Assert.assertNull(recoveredPlanStoreService.getPlan(new UUID(1, 2)));
+
+        // The torn record is overwritten by the next plan
+        UUID planId = this.savePlan(recoveredPlanStoreService, this.newRequest(NO_OF_PLANS));
+
+        recoveredPlanStoreService.close();
+
+        Assert.assertArrayEquals(this.encode(this.newRequest(NO_OF_PLANS)), toByteArray(this.openPlanStore().getPlan(planId)));
+    }
+
+    @DisplayName("Open a second plan store on the same directory and verify it is refused")
+    @Test(expected = GenericServerRuntimeException.class)
+    public void testDirectoryIsLocked() {
+
+        this.openPlanStore();
+        this.openPlanStore();
+    }
+
+    @DisplayName("Save plans over more segments than kept and verify the oldest segments are deleted with their plans")
+    @Test
+    public void testOldestSegmentsAreEvicted() throws Exception {
+
+        PlanStoreServiceImpl planStoreService = this.openPlanStore(QUEUE_MAX_BYTES, 2);
+        List<UUID> planIds = this.savePlans(planStoreService);
+
+        List<Path> segmentFiles = this.listSegments();
+
+        Assert.assertEquals(2, segmentFiles.size());
+        Assert.assertNull(planStoreService.getPlan(planIds.get(0)));
+        Assert.assertArrayEquals(this.encode(this.newRequest(NO_OF_PLANS - 1)),
+                toByteArray(planStoreService.getPlan(planIds.get(NO_OF_PLANS - 1))));
+
+        double evicted = this.meterRegistry.get(PlanStoreServiceImpl.PLANS_COUNTER_NAME)
+                .tag("result", "evicted").counter().count();
+
+        Assert.assertTrue(evicted > 0);
+        Assert.assertEquals(NO_OF_PLANS - evicted, this.meterRegistry.get(PlanStoreServiceImpl.SIZE_GAUGE_NAME)
+                .gauge().value(), 0);
+
+        // A smaller limit is applied on the next start
+        planStoreService.close();
+
+        this.openPlanStore(QUEUE_MAX_BYTES, 1);
+
+        Assert.assertEquals(Collections.singletonList(segmentFiles.get(1)), this.listSegments());
+    }
+
+    @DisplayName("Save a plan larger than the bytes the queue may hold and verify it is dropped, not queued")
+    @Test
+    public void testPlansOverQueueBytesAreDropped() throws Exception {
+
+        PlanStoreServiceImpl planStoreService = this.openPlanStore(1, MAX_SEGMENTS);
+        GeneratePlanRequestDto generatePlanRequestDto = this.newRequest(0);
+
+        UUID planId = planStoreService.savePlan(generatePlanRequestDto,
+                this.loanService.generatePlan(generatePlanRequestDto).getPaymentPlan());
+
+        Assert.assertNotNull(planId);
+        Assert.assertNull(planStoreService.getPlan(planId));
+        Assert.assertEquals(1, this.meterRegistry.get(PlanStoreServiceImpl.PLANS_COUNTER_NAME)
+                .tag("result", "dropped").counter().count(), 0);
+        Assert.assertTrue(this.listSegments().isEmpty());
+    }
+
+    private PlanStoreServiceImpl openPlanStore() {
+
+        return this.openPlanStore(QUEUE_MAX_BYTES, MAX_SEGMENTS);
+    }
+
+    private PlanStoreServiceImpl openPlanStore(final long queueMaxBytes, final int maxSegments) {
+
+        PlanStoreServiceImpl planStoreService = new PlanStoreServiceImpl(true, this.temporaryFolder.getRoot().toString(),
+                SEGMENT_SIZE, queueMaxBytes, maxSegments, "1", CalculationMode.DOUBLE, this.meterRegistry);
+
+        planStoreService.open();
+
+        this.planStoreServices.add(planStoreService);
+
+        return planStoreService;
+    }
+
+    private List<UUID> savePlans(final PlanStoreServiceImpl planStoreService) throws InterruptedException {
+
+        List<UUID> planIds = new ArrayList<>();
+
+        for (int plan = 0; plan < NO_OF_PLANS; plan++) {
+
+            planIds.add(this.savePlan(planStoreService, this.newRequest(plan)));
+        }
+
+        return planIds;
+    }
+
+    private UUID savePlan(final PlanStoreServiceImpl planStoreService, final GeneratePlanRequestDto generatePlanRequestDto)
+            throws InterruptedException {
+
+        UUID planId = planStoreService.savePlan(generatePlanRequestDto,
+                this.loanService.generatePlan(generatePlanRequestDto).getPaymentPlan());
+
+        Assert.assertEquals(planStoreService.getPlanId(generatePlanRequestDto), planId);
+
+        // Stored asynchronously
+        for (int attempt = 0; attempt < 5000 && planStoreService.getPlan(planId) == null; attempt++) {
+
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+
+        return planId;
+    }
+
+    private Path findLastSegment() throws IOException {
+
+        try (Stream<Path> files = Files.list(this.temporaryFolder.getRoot().toPath())) {
+
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg"))
+                    .max(Comparator.naturalOrder())
+                    .orElseThrow(IllegalStateException::new);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+
+        try (Stream<Path> files = Files.list(this.temporaryFolder.getRoot().toPath())) {
+
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private byte[] encode(final GeneratePlanRequestDto generatePlanRequestDto) throws IOException {
+
+        PaymentPlan paymentPlan = this.loanService.generatePlan(generatePlanRequestDto).getPaymentPlan();
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(payload);
+
+        ProtobufPlanHttpMessageConverter.writePlan(paymentPlan, output);
+        output.flush();
+
+        return payload.toByteArray();
+    }
+
+    private GeneratePlanRequestDto newRequest(final int plan) {
+
+        return GeneratePlanRequestDto.builder()
+                .loanAmount(1000.0 + plan * 100)
+                .nominalRate(5.0)
+                .duration(1 + plan % 24)
+                .startDate(LocalDateTime.of(2018, 1, 1, 0, 0))
+                .build();
+    }
+
+    private static byte[] toByteArray(final ByteBuffer buffer) {
+
+        Assert.assertNotNull(buffer);
+
+        byte[] bytes = new byte[buffer.remaining()];
+
+        buffer.get(bytes);
+
+        return bytes;
+    }
+}